@@ -5,7 +5,6 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 
 import javax.swing.AbstractAction;
 
@@ -19,6 +18,7 @@ import com.oxygenxml.git.service.entities.GitChangeType;
 import com.oxygenxml.git.translator.Tags;
 import com.oxygenxml.git.translator.Translator;
 import com.oxygenxml.git.utils.FileHelper;
+import com.oxygenxml.git.utils.GitOperationScheduler;
 import com.oxygenxml.git.view.DiffPresenter;
 import com.oxygenxml.git.view.event.GitController;
 
@@ -56,6 +56,11 @@ public class GitMenuActionsProvider {
    * The Git diff action. Compares local and remote versions of the file.
    */
   private AbstractAction gitDiffAction;
+  
+  /**
+   * Restricts the working copy to the selected folders.
+   */
+  private AbstractAction sparseCheckoutAction;
 
   /**
    * Constructor.
@@ -85,14 +90,19 @@ public class GitMenuActionsProvider {
     if (gitDiffAction == null) {
       createGitDiffAction();
     }
+    if (sparseCheckoutAction == null) {
+      createSparseCheckoutAction();
+    }
     
     // Enable/disable
     commitAction.setEnabled(true);
     gitDiffAction.setEnabled(shouldEnableGitDiffAction());
+    sparseCheckoutAction.setEnabled(shouldEnableSparseCheckoutAction());
     
     // Add the Git actions to the list
     actions.add(commitAction);
     actions.add(gitDiffAction);
+    actions.add(sparseCheckoutAction);
 
     return actions;
   }
@@ -114,15 +124,16 @@ public class GitMenuActionsProvider {
               GitAccess.getInstance().setRepositorySynchronously(repository);
             }
             
+            // Only the selected file is of interest.
+            List<String> selectedPaths = FileHelper.getRelativePaths(selectedFiles, repository);
             List<FileStatus> gitFiles = new ArrayList<>();
-            GitStatus status = GitAccess.getInstance().getStatus();
+            GitStatus status = GitAccess.getInstance().getStatus(selectedPaths);
             gitFiles.addAll(status.getUnstagedFiles());
             gitFiles.addAll(status.getStagedFiles());
             
-            String selectedFilePath = FileHelper.rewriteSeparator(selectedFiles[0].getAbsolutePath());
             if (!gitFiles.isEmpty()) {
               for (FileStatus fileStatus : gitFiles) {
-                if (selectedFilePath.endsWith(fileStatus.getFileLocation())) {
+                if (selectedPaths.contains(fileStatus.getFileLocation())) {
                 DiffPresenter.showDiff(fileStatus, stageCtrl);
                   break;
                 }
@@ -170,6 +181,38 @@ public class GitMenuActionsProvider {
     };
   }
   
+  /**
+   * Create the action that restricts the search for changes to the selected folders.
+   * Selecting the working copy folder searches the whole working copy again.
+   */
+  private void createSparseCheckoutAction() {
+    sparseCheckoutAction = new AbstractAction(translator.getTranslation(Tags.SPARSE_CHECKOUT)) {
+      @Override
+      public void actionPerformed(ActionEvent e) {
+        File[] selectedFiles = ProjectViewManager.getSelectedFilesAndDirsShallow(pluginWorkspaceAccess);
+        String repository = getRepositoryForFiles(selectedFiles);
+        if (repository != null) {
+          List<String> selectedPaths = FileHelper.getRelativePaths(selectedFiles, repository);
+          // The configuration is saved and the status is computed again. Not on AWT.
+          GitOperationScheduler.getInstance().schedule(() -> {
+            try {
+              String previousRepository = OptionsManager.getInstance().getSelectedRepository();
+              if (!repository.equals(previousRepository)) {
+                GitAccess.getInstance().setRepositorySynchronously(repository);
+              }
+              GitAccess.getInstance().setSparseCheckoutDirectories(selectedPaths);
+            } catch (IOException ex) {
+              if (logger.isDebugEnabled()) {
+                logger.debug(ex, ex);
+              }
+              pluginWorkspaceAccess.showErrorMessage(ex.getMessage());
+            }
+          });
+        }
+      }
+    };
+  }
+  
   /**
    * Stage files.
    * 
@@ -178,18 +221,18 @@ public class GitMenuActionsProvider {
    * @return <code>true</code> if we have staged files.
    */
   private void stageFiles(String repository) {
-    repository = FileHelper.rewriteSeparator(repository);
-    
-    List<FileStatus> unstagedFiles = GitAccess.getInstance().getUnstagedFiles();
-    Set<String> allSelectedFiles = ProjectViewManager.getSelectedFilesDeep(pluginWorkspaceAccess);
-    List<FileStatus> stagedFiles = new ArrayList<>();
-    for (FileStatus unstagedFileStatus : unstagedFiles) {
-      if (allSelectedFiles.contains(repository + "/" + unstagedFileStatus.getFileLocation())
-          && unstagedFileStatus.getChangeType() != GitChangeType.CONFLICT) {
-        stagedFiles.add(unstagedFileStatus);
+    // Match the changes against the selected paths. The selected folders are not walked.
+    List<String> selectedPaths = ProjectViewManager.getSelectedPaths(pluginWorkspaceAccess, repository);
+    if (!selectedPaths.isEmpty()) {
+      List<FileStatus> unstagedFiles = GitAccess.getInstance().getStatus(selectedPaths).getUnstagedFiles();
+      List<FileStatus> stagedFiles = new ArrayList<>();
+      for (FileStatus unstagedFileStatus : unstagedFiles) {
+        if (unstagedFileStatus.getChangeType() != GitChangeType.CONFLICT) {
+          stagedFiles.add(unstagedFileStatus);
+        }
       }
+      GitAccess.getInstance().addAll(stagedFiles);
     }
-    GitAccess.getInstance().addAll(stagedFiles);
   }
   
   /**
@@ -210,6 +253,20 @@ public class GitMenuActionsProvider {
     return shouldEnable;
   }
 
+  /**
+   * Check if the sparse checkout action is enabled.
+   * 
+   * @return <code>true</code> if only folders are selected.
+   */
+  private boolean shouldEnableSparseCheckoutAction() {
+    File[] selectedFiles = ProjectViewManager.getSelectedFilesAndDirsShallow(pluginWorkspaceAccess);
+    boolean shouldEnable = selectedFiles != null && selectedFiles.length > 0;
+    for (int i = 0; shouldEnable && i < selectedFiles.length; i++) {
+      shouldEnable = selectedFiles[i].isDirectory();
+    }
+    return shouldEnable;
+  }
+
   /**
    * Get the repository corresponding to the given files.
    * 
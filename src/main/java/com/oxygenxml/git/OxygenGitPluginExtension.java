@@ -16,6 +16,7 @@ import org.apache.log4j.Logger;
 import org.eclipse.jgit.revwalk.RevCommit;
 
 import com.oxygenxml.git.auth.AuthenticationInterceptor;
+import com.oxygenxml.git.auth.PooledSshSessionFactory;
 import com.oxygenxml.git.auth.ResolvingProxyDataFactory;
 import com.oxygenxml.git.constants.Icons;
 import com.oxygenxml.git.options.OptionsManager;
@@ -91,6 +92,7 @@ public class OxygenGitPluginExtension implements WorkspaceAccessPluginExtension,
   		  org.eclipse.jgit.transport.SshSessionFactory.setInstance(
   		      new org.eclipse.jgit.transport.sshd.SshdSessionFactory(null, new ResolvingProxyDataFactory()));
 		  }
+		  PooledSshSessionFactory.install();
 		  
 		  AuthenticationInterceptor.install();
 
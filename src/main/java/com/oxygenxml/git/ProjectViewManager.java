@@ -4,15 +4,18 @@ import java.io.File;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Collections;
+import java.util.List;
 
 import org.apache.log4j.Logger;
 
 import com.oxygenxml.git.utils.FileHelper;
+import com.oxygenxml.git.utils.RepositoryDiscovery;
 
+import ro.sync.exml.workspace.api.PluginWorkspace;
 import ro.sync.exml.workspace.api.PluginWorkspaceProvider;
 import ro.sync.exml.workspace.api.standalone.StandalonePluginWorkspace;
+import ro.sync.exml.workspace.api.util.UtilAccess;
 
 /**
  * Manager for the Project view.
@@ -120,23 +123,42 @@ public class ProjectViewManager {
 	}
 	
 	/**
-	 * Get all the selected files + the files from inside the selected directories in the Project view.
+	 * Get the paths of the files and directories selected in the Project view, relative to a working copy.
 	 * 
 	 * @param pluginWorkspaceAccess  Plug-in workspace access.
+	 * @param workingCopy            The working copy path.
 	 * 
-	 * @return the selected files and all the files from inside the selected directories in the Project view.
+	 * @return the selected paths from the working copy. The working copy itself is the empty path.
 	 */
-	public static Set<String> getSelectedFilesDeep(StandalonePluginWorkspace pluginWorkspaceAccess){
-	  Set<String> files = new HashSet<>();
-
+	public static List<String> getSelectedPaths(StandalonePluginWorkspace pluginWorkspaceAccess, String workingCopy) {
+	  List<String> paths = Collections.emptyList();
 	  File[] selectedFiles = getSelectedFilesAndDirsShallow(pluginWorkspaceAccess);
 	  if (selectedFiles != null) {
-	    for (int i = 0; i < selectedFiles.length; i++) {
-	      files.addAll(FileHelper.getAllFilesFromPath(selectedFiles[i].getAbsolutePath()));
+	    paths = FileHelper.getRelativePaths(selectedFiles, workingCopy);
+	  }
+	  return paths;
+	}
+	
+	/**
+	 * Get the folders presented in the Project view, as referred by the current project file.
+	 * 
+	 * @return the project folders. Empty if they could not be detected.
+	 */
+	public static List<File> getProjectFolders() {
+	  List<File> folders = Collections.emptyList();
+	  PluginWorkspace pluginWorkspace = PluginWorkspaceProvider.getPluginWorkspace();
+	  UtilAccess utilAccess = pluginWorkspace != null ? pluginWorkspace.getUtilAccess() : null;
+	  if (utilAccess != null) {
+	    String projectDir = utilAccess.expandEditorVariables("${pd}", null);
+	    String projectName = utilAccess.expandEditorVariables("${pn}", null);
+	    if (projectDir != null && projectName != null) {
+	      File projectFile = new File(projectDir, projectName + ".xpr");
+	      if (projectFile.isFile()) {
+	        folders = RepositoryDiscovery.getInstance().getProjectFolders(projectFile);
+	      }
 	    }
 	  }
-
-	  return files;
+	  return folders;
 	}
 	
 	/**
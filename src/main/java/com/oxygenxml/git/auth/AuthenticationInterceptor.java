@@ -1,14 +1,17 @@
 package com.oxygenxml.git.auth;
 
-import java.lang.reflect.Field;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.Authenticator;
 import java.net.InetAddress;
 import java.net.PasswordAuthentication;
 import java.net.URL;
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
 
@@ -42,103 +45,62 @@ public class AuthenticationInterceptor {
 	 */
 	private static final class GitAuth extends Authenticator {
 
-		// The fields for for the Authenticator. They will be retrieved using java
-		// reflection
-		private final Field requestingHost;
-		private final Field requestingScheme;
-		private final Field requestingPort;
-		private final Field requestingProtocol;
-		private final Field requestingURL;
-		private final Field requestingPrompt;
-		private final Field requestingSite;
-		private final Field requestingAuthType;
+		/**
+		 * The wrapped authenticator. <code>null</code> if there was none.
+		 */
 		private final Authenticator oldAuth;
 
 		/**
 		 * The lists of hosts for which to intercept the authentication.
+		 * Read on every authentication request in the JVM, so it is lock-free.
 		 */
-		private Set<String> boundHosts = new HashSet<>();
+		private Set<String> boundHosts = ConcurrentHashMap.newKeySet();
 
 		/**
 		 * Constructor.
 		 * 
 		 * @param oldAuth The wrapped authenticator.
-		 * 
-		 * @throws NoSuchFieldException Unable to access wrapped authenticator data.
 		 */
-		private GitAuth(Authenticator oldAuth) throws NoSuchFieldException {
+		private GitAuth(Authenticator oldAuth) {
 			this.oldAuth = oldAuth;
-
-			// Getting the fields with java reflection
-			requestingHost = Authenticator.class.getDeclaredField("requestingHost");
-			requestingSite = Authenticator.class.getDeclaredField("requestingSite");
-			requestingPort = Authenticator.class.getDeclaredField("requestingPort");
-			requestingProtocol = Authenticator.class.getDeclaredField("requestingProtocol");
-			requestingPrompt = Authenticator.class.getDeclaredField("requestingPrompt");
-			requestingScheme = Authenticator.class.getDeclaredField("requestingScheme");
-			requestingURL = Authenticator.class.getDeclaredField("requestingURL");
-			requestingAuthType = Authenticator.class.getDeclaredField("requestingAuthType");
-
-			// Making the fields accessible
-			requestingHost.setAccessible(true);
-			requestingSite.setAccessible(true);
-			requestingPort.setAccessible(true);
-			requestingProtocol.setAccessible(true);
-			requestingPrompt.setAccessible(true);
-			requestingScheme.setAccessible(true);
-			requestingURL.setAccessible(true);
-			requestingAuthType.setAccessible(true);
 		}
 
 		@Override
 		protected PasswordAuthentication getPasswordAuthentication() {
+			if (isBound(getRequestingHost())) {
+				// we need to return null to let our own authentication dialog
+				// (LoginDialog)
+				// appear for git related hosts. Thus preventing the Oxygen's
+				// dialog appear
+			  
+			  /**
+			   * Ideally, we could just present the dialog here and request for credentials.
+         * We chose to abort and handle the auth later on, on {@link com.oxygenxml.git.view.event.PushPullController#execute}
+         * because, there, we also get a message stating the cause: either the credentials are wrong
+         * or perhaps the user doesn't have permissions on the repository. 
+			   */
+				return null;
+			}
+			
+			if (oldAuth == null || DELEGATE == null) {
+			  return null;
+			}
+			
 			try {
-				// get the old Authenticator values that will be used to delegate back
-				final String oldRequestingHost = (String) requestingHost.get(this);
-				final InetAddress oldRequestingSite = (InetAddress) requestingSite.get(this);
-				final int oldRequestingPort = (Integer) requestingPort.get(this);
-				final String oldRequestingProtocol = (String) requestingProtocol.get(this);
-				final String oldRequestingPrompt = (String) requestingPrompt.get(this);
-				final String oldRequestingScheme = (String) requestingScheme.get(this);
-				final URL oldRequestingURL = (URL) requestingURL.get(this);
-				final RequestorType oldRequestingAuthType = (RequestorType) requestingAuthType.get(this);
-
-				if (isBound(getRequestingHost())) {
-					// we need to return null to let our own authentication dialog
-					// (LoginDialog)
-					// appear for git related hosts. Thus preventing the Oxygen's
-					// dialog appear
-				  
-				  /**
-				   * Ideally, we could just present the dialog here and request for credentials.
-           * We chose to abort and handle the auth later on, on {@link com.oxygenxml.git.view.event.PushPullController#execute}
-           * because, there, we also get a message stating the cause: either the credentials are wrong
-           * or perhaps the user doesn't have permissions on the repository. 
-				   */
-					return null;
-				} else {
-					// Resets the Authenticator, thus making it ready to be restored
-					Method reset = Authenticator.class.getDeclaredMethod("reset");
-					reset.setAccessible(true);
-					reset.invoke(oldAuth);
-
-					// Set the Authenticator current values with the values from the old
-					// Authenticator
-					requestingHost.set(oldAuth, oldRequestingHost);
-					requestingSite.set(oldAuth, oldRequestingSite);
-					requestingPort.set(oldAuth, oldRequestingPort);
-					requestingProtocol.set(oldAuth, oldRequestingProtocol);
-					requestingPrompt.set(oldAuth, oldRequestingPrompt);
-					requestingScheme.set(oldAuth, oldRequestingScheme);
-					requestingURL.set(oldAuth, oldRequestingURL);
-					requestingAuthType.set(oldAuth, oldRequestingAuthType);
-
-					// Delegate back to the old Authenticator
-					Method getPasswordAuthentication = Authenticator.class.getDeclaredMethod("getPasswordAuthentication");
-					getPasswordAuthentication.setAccessible(true);
-					return (PasswordAuthentication) getPasswordAuthentication.invoke(oldAuth);
-				}
-			} catch (Exception e) {
+			  // Delegate back to the old Authenticator, with the values of the current request.
+			  synchronized (oldAuth) {
+			    return (PasswordAuthentication) DELEGATE.invokeExact(
+			        oldAuth,
+			        getRequestingHost(),
+			        getRequestingSite(),
+			        getRequestingPort(),
+			        getRequestingProtocol(),
+			        getRequestingPrompt(),
+			        getRequestingScheme(),
+			        getRequestingURL(),
+			        getRequestorType());
+			  }
+			} catch (Throwable e) { // NOSONAR The method handles declare Throwable.
 				logger.error(e, e);
 			}
 			return null;
@@ -166,7 +128,7 @@ public class AuthenticationInterceptor {
 		 * @return true if the host is a git host and false otherwise
 		 */
 		private boolean isBound(String requestingHost) {
-			return boundHosts.contains(requestingHost);
+			return requestingHost != null && boundHosts.contains(requestingHost);
 		}
 
 		/**
@@ -176,7 +138,9 @@ public class AuthenticationInterceptor {
 		 *          - the host to add
 		 */
 		public void bind(String hostName) {
-			boundHosts.add(hostName);
+		  if (hostName != null) {
+		    boundHosts.add(hostName);
+		  }
 		}
 
 		/**
@@ -185,7 +149,9 @@ public class AuthenticationInterceptor {
 		 * @param hostName
 		 */
 		public void unbind(String hostName) {
-			boundHosts.remove(hostName);
+		  if (hostName != null) {
+		    boundHosts.remove(hostName);
+		  }
 		}
 	}
 
@@ -194,6 +160,19 @@ public class AuthenticationInterceptor {
 	 */
 	private static Logger logger = Logger.getLogger(AuthenticationInterceptor.class);
 
+	/**
+	 * Asks an authenticator for the credentials of a request:
+	 * (Authenticator, host, site, port, protocol, prompt, scheme, URL, requestor type) -> PasswordAuthentication.
+	 * Resolved once. <code>null</code> if the JVM doesn't allow it.
+	 */
+	private static final MethodHandle DELEGATE = createDelegate();
+
+	/**
+	 * Gets the default authenticator: () -> Authenticator. Resolved once.
+	 * <code>null</code> if the JVM doesn't allow it.
+	 */
+	private static final MethodHandle DEFAULT_AUTHENTICATOR = createDefaultAuthenticatorGetter();
+
 	/**
 	 * This is used to check if the authenticator has been set by Oxygen, and if
 	 * this is true, then on the install() method my authenticator will be used
@@ -202,22 +181,115 @@ public class AuthenticationInterceptor {
 	private static GitAuth installedAuthenticator;
 
 	/**
-	 * Installs my custom authenticator. Gets the current authenticator by
-	 * reflection and compares it with the previous one. If they are not the same
+	 * @return A method handle that asks an authenticator for the credentials of a request or
+	 * <code>null</code> if the JVM doesn't allow it.
+	 */
+	private static MethodHandle createDelegate() {
+	  MethodType type = MethodType.methodType(
+	      PasswordAuthentication.class,
+	      String.class,
+	      InetAddress.class,
+	      int.class,
+	      String.class,
+	      String.class,
+	      String.class,
+	      URL.class,
+	      Authenticator.RequestorType.class);
+	  try {
+	    // Java 9 and later.
+	    return MethodHandles.publicLookup().findVirtual(
+	        Authenticator.class, "requestPasswordAuthenticationInstance", type);
+	  } catch (NoSuchMethodException | IllegalAccessException e) {
+	    logger.debug(e, e);
+	  }
+	  
+	  try {
+	    // Java 8. Reset the authenticator, set the values of the request and ask for the credentials.
+	    MethodHandles.Lookup lookup = MethodHandles.lookup();
+	    MethodHandle reset = lookup.unreflect(accessible(Authenticator.class.getDeclaredMethod("reset")));
+	    MethodHandle ask = lookup.unreflect(
+	        accessible(Authenticator.class.getDeclaredMethod("getPasswordAuthentication")));
+	    
+	    // (Authenticator, values...) -> PasswordAuthentication, with the values set before asking.
+	    MethodHandle delegate = MethodHandles.dropArguments(ask, 1, type.parameterList());
+	    String[] fields = new String[] {
+	        "requestingHost",
+	        "requestingSite",
+	        "requestingPort",
+	        "requestingProtocol",
+	        "requestingPrompt",
+	        "requestingScheme",
+	        "requestingURL",
+	        "requestingAuthType"};
+	    for (int i = fields.length - 1; i >= 0; i--) {
+	      MethodHandle setter = lookup.unreflectSetter(accessible(Authenticator.class.getDeclaredField(fields[i])));
+	      // (Authenticator, values...) -> void, that sets the i-th value.
+	      int[] reorder = new int[] {0, i + 1};
+	      setter = MethodHandles.permuteArguments(
+	          setter, 
+	          type.insertParameterTypes(0, Authenticator.class).changeReturnType(void.class),
+	          reorder);
+	      delegate = MethodHandles.foldArguments(delegate, setter);
+	    }
+	    return MethodHandles.foldArguments(delegate, reset);
+	  } catch (ReflectiveOperationException | RuntimeException e) {
+	    logger.error(e, e);
+	  }
+	  return null;
+	}
+
+	/**
+	 * @return A method handle that gets the default authenticator or <code>null</code> if the JVM
+	 * doesn't allow it.
+	 */
+	private static MethodHandle createDefaultAuthenticatorGetter() {
+	  try {
+	    // Java 9 and later.
+	    return MethodHandles.publicLookup().findStatic(
+	        Authenticator.class, "getDefault", MethodType.methodType(Authenticator.class));
+	  } catch (NoSuchMethodException | IllegalAccessException e) {
+	    logger.debug(e, e);
+	  }
+	  
+	  try {
+	    return MethodHandles.lookup().unreflectGetter(
+	        accessible(Authenticator.class.getDeclaredField("theAuthenticator")));
+	  } catch (ReflectiveOperationException | RuntimeException e) {
+	    logger.error(e, e);
+	  }
+	  return null;
+	}
+	
+	/**
+	 * Makes a member accessible.
+	 * 
+	 * @param member The member.
+	 * 
+	 * @return The member.
+	 */
+	private static <T extends AccessibleObject> T accessible(T member) {
+	  member.setAccessible(true);
+	  return member;
+	}
+
+	/**
+	 * Installs my custom authenticator. Gets the current authenticator and compares
+	 * it with the previous one. If they are not the same
 	 * instance, then my authenticator will be installed. If not, then it means
 	 * that my authenticator is already installed
 	 */
-	public static void install() {
-		final Authenticator[] currentAuth = new Authenticator[1];
+	public static synchronized void install() {
+	  if (DEFAULT_AUTHENTICATOR == null) {
+	    return;
+	  }
+	  
 		try {
-			Field declaredField = Authenticator.class.getDeclaredField("theAuthenticator");
-			declaredField.setAccessible(true);
-			currentAuth[0] = (Authenticator) declaredField.get(null);
+		  Authenticator currentAuth = (Authenticator) DEFAULT_AUTHENTICATOR.invokeExact();
 
-			if (currentAuth[0] == null || currentAuth[0] != installedAuthenticator) {
+			if (currentAuth == null || currentAuth != installedAuthenticator) {
 			  GitAuth oldInstalledAuth = installedAuthenticator;
 
-				installedAuthenticator = new GitAuth(currentAuth[0]);
+				installedAuthenticator = new GitAuth(currentAuth);
 				
 				if (oldInstalledAuth != null) {
 				  // Keep the previously bound hosts, if any.
@@ -237,7 +309,7 @@ public class AuthenticationInterceptor {
 				Authenticator.setDefault(installedAuthenticator);
 			}
 
-		} catch (IllegalArgumentException | NoSuchFieldException | IllegalAccessException e) {
+		} catch (Throwable e) { // NOSONAR The method handles declare Throwable.
 		  logger.error(e, e);
 		}
 	}
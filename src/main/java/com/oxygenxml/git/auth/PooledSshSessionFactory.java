@@ -0,0 +1,375 @@
+package com.oxygenxml.git.auth;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.errors.TransportException;
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.FtpChannel;
+import org.eclipse.jgit.transport.RemoteSession;
+import org.eclipse.jgit.transport.SshSessionFactory;
+import org.eclipse.jgit.transport.URIish;
+import org.eclipse.jgit.util.FS;
+
+import com.oxygenxml.git.utils.GitAddonSystemProperties;
+
+/**
+ * Keeps the SSH sessions open after a fetch, pull or push, so the next operation on the same host
+ * doesn't pay again for the key exchange and the authentication. A session left alone for
+ * {@link GitAddonSystemProperties#SSH_SESSION_IDLE_SECONDS} is closed. The sessions are keyed
+ * only by user, host and port, so they are all closed when the credentials change.
+ *
+ * Wraps the factory that creates the sessions, either Apache MINA or JSch.
+ */
+public class PooledSshSessionFactory extends SshSessionFactory {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(PooledSshSessionFactory.class);
+  /**
+   * How long, in seconds, an unused session is kept open by default.
+   */
+  private static final long DEFAULT_IDLE_SECONDS = 120;
+  /**
+   * The maximum number of unused sessions kept open for the same host.
+   */
+  private static final int MAX_IDLE_SESSIONS_PER_HOST = 4;
+  /**
+   * The factory that creates the sessions.
+   */
+  private final SshSessionFactory delegate;
+  /**
+   * How long, in milliseconds, an unused session is kept open.
+   */
+  private final long idleMillis;
+  /**
+   * The unused sessions, by user, host and port. The most recently used ones are first.
+   */
+  private final Map<String, Deque<PooledSession>> idleSessions = new HashMap<>();
+  /**
+   * Incremented when all the sessions are closed. The sessions in use at that moment are closed when released.
+   */
+  private int generation;
+  /**
+   * The task that closes the sessions left alone for too long.
+   */
+  private ScheduledFuture<?> evictionTask;
+  /**
+   * Runs the task that closes the sessions left alone for too long. Not the maintenance thread,
+   * which has a low priority and can be busy for long with the housekeeping of the repositories.
+   */
+  private final ScheduledThreadPoolExecutor evictionExecutor;
+
+  /**
+   * Constructor.
+   *
+   * @param delegate   The factory that creates the sessions.
+   * @param idleMillis How long, in milliseconds, an unused session is kept open.
+   */
+  PooledSshSessionFactory(SshSessionFactory delegate, long idleMillis) {
+    this.delegate = delegate;
+    this.idleMillis = idleMillis;
+    
+    evictionExecutor = new ScheduledThreadPoolExecutor(1, runnable -> {
+      Thread thread = new Thread(runnable, "Git SSH sessions eviction");
+      thread.setDaemon(true);
+      return thread;
+    });
+    evictionExecutor.setRemoveOnCancelPolicy(true);
+    // No thread kept while there is nothing to evict.
+    evictionExecutor.setKeepAliveTime(30, TimeUnit.SECONDS);
+    evictionExecutor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Wraps the current SSH session factory into a pooled one, unless disabled by a negative or zero
+   * {@link GitAddonSystemProperties#SSH_SESSION_IDLE_SECONDS}.
+   */
+  public static void install() {
+    long idleSeconds = DEFAULT_IDLE_SECONDS;
+    String value = System.getProperty(GitAddonSystemProperties.SSH_SESSION_IDLE_SECONDS);
+    if (value != null) {
+      try {
+        idleSeconds = Long.parseLong(value.trim());
+      } catch (NumberFormatException e) {
+        logger.warn("Invalid SSH session idle time: " + value);
+      }
+    }
+
+    SshSessionFactory current = SshSessionFactory.getInstance();
+    if (idleSeconds > 0 && !(current instanceof PooledSshSessionFactory)) {
+      SshSessionFactory.setInstance(new PooledSshSessionFactory(current, idleSeconds * 1000));
+    }
+  }
+
+  /**
+   * Closes the unused sessions of the installed pool, if any. The sessions in use are closed when released.
+   */
+  public static void closeSessions() {
+    SshSessionFactory current = SshSessionFactory.getInstance();
+    if (current instanceof PooledSshSessionFactory) {
+      ((PooledSshSessionFactory) current).closeAll();
+    }
+  }
+
+  /**
+   * @see org.eclipse.jgit.transport.SshSessionFactory#getSession(URIish, CredentialsProvider, FS, int)
+   */
+  @Override
+  public RemoteSession getSession(URIish uri, CredentialsProvider credentialsProvider, FS fs, int tms)
+      throws TransportException {
+    String key = getKey(uri);
+    synchronized (this) {
+      Deque<PooledSession> sessions = idleSessions.get(key);
+      PooledSession session = sessions != null ? sessions.pollFirst() : null;
+      if (session != null) {
+        if (sessions.isEmpty()) {
+          idleSessions.remove(key);
+        }
+        session.reuse(uri, credentialsProvider, fs, tms);
+
+        return session;
+      }
+    }
+
+    RemoteSession session = delegate.getSession(uri, credentialsProvider, fs, tms);
+    synchronized (this) {
+      // The credentials entered while the session was opened are the ones it uses.
+      return new PooledSession(key, generation, session);
+    }
+  }
+
+  /**
+   * Keeps the session open for the next operation on the same host.
+   *
+   * @see org.eclipse.jgit.transport.SshSessionFactory#releaseSession(RemoteSession)
+   */
+  @Override
+  public void releaseSession(RemoteSession session) {
+    if (!(session instanceof PooledSession)) {
+      delegate.releaseSession(session);
+      return;
+    }
+
+    PooledSession pooled = (PooledSession) session;
+    boolean keep;
+    synchronized (this) {
+      Deque<PooledSession> sessions = idleSessions.computeIfAbsent(pooled.key, k -> new ArrayDeque<>());
+      keep = pooled.generation == generation && sessions.size() < MAX_IDLE_SESSIONS_PER_HOST;
+      if (keep) {
+        pooled.idleSince = System.currentTimeMillis();
+        sessions.addFirst(pooled);
+        scheduleEviction(idleMillis);
+      } else if (sessions.isEmpty()) {
+        idleSessions.remove(pooled.key);
+      }
+    }
+
+    if (!keep) {
+      pooled.close();
+    }
+  }
+
+  /**
+   * Closes all the unused sessions. The sessions in use are closed when released.
+   */
+  void closeAll() {
+    List<PooledSession> toClose = new ArrayList<>();
+    synchronized (this) {
+      generation++;
+      for (Deque<PooledSession> sessions : idleSessions.values()) {
+        toClose.addAll(sessions);
+      }
+      idleSessions.clear();
+      if (evictionTask != null) {
+        evictionTask.cancel(false);
+        evictionTask = null;
+      }
+    }
+
+    toClose.forEach(PooledSession::close);
+  }
+
+  /**
+   * Closes the sessions left alone for too long.
+   */
+  void evictExpired() {
+    List<PooledSession> toClose = new ArrayList<>();
+    synchronized (this) {
+      evictionTask = null;
+      long now = System.currentTimeMillis();
+      long oldestIdleSince = Long.MAX_VALUE;
+      for (Iterator<Deque<PooledSession>> iter = idleSessions.values().iterator(); iter.hasNext();) {
+        Deque<PooledSession> sessions = iter.next();
+        // The least recently used sessions are last.
+        while (!sessions.isEmpty() && now - sessions.peekLast().idleSince >= idleMillis) {
+          toClose.add(sessions.pollLast());
+        }
+        if (sessions.isEmpty()) {
+          iter.remove();
+        } else {
+          oldestIdleSince = Math.min(oldestIdleSince, sessions.peekLast().idleSince);
+        }
+      }
+      if (!idleSessions.isEmpty()) {
+        scheduleEviction(oldestIdleSince + idleMillis - now);
+      }
+    }
+
+    toClose.forEach(PooledSession::close);
+  }
+
+  /**
+   * @return The number of unused sessions kept open.
+   */
+  synchronized int getIdleSessionsCount() {
+    return idleSessions.values().stream().mapToInt(Deque::size).sum();
+  }
+
+  /**
+   * Schedules the task that closes the sessions left alone for too long, if not already scheduled.
+   *
+   * @param delayMillis When to run the task, in milliseconds.
+   */
+  private void scheduleEviction(long delayMillis) {
+    if (evictionTask == null) {
+      evictionTask = evictionExecutor.schedule(this::evictExpired, delayMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * @param uri The remote URI.
+   *
+   * @return The key of the sessions that can be used for the given URI.
+   */
+  private static String getKey(URIish uri) {
+    return uri.getUser() + "@" + uri.getHost() + ":" + uri.getPort();
+  }
+
+  /**
+   * A session that can be used for more than one operation.
+   */
+  private final class PooledSession implements RemoteSession {
+    /**
+     * The user, host and port of the session.
+     */
+    private final String key;
+    /**
+     * The generation of the pool when the session was created.
+     */
+    private final int generation;
+    /**
+     * The session created by the wrapped factory.
+     */
+    private RemoteSession session;
+    /**
+     * When the session was last released.
+     */
+    private long idleSince;
+    /**
+     * The parameters of the current operation, needed to reconnect a reused session that was closed
+     * by the server. <code>null</code> when the session was created for the current operation.
+     */
+    private URIish uri;
+    /**
+     * The credentials of the current operation.
+     */
+    private CredentialsProvider credentialsProvider;
+    /**
+     * The file system of the current operation.
+     */
+    private FS fs;
+    /**
+     * The timeout of the current operation.
+     */
+    private int tms;
+
+    /**
+     * Constructor.
+     *
+     * @param key        The user, host and port of the session.
+     * @param generation The generation of the pool.
+     * @param session    The session created by the wrapped factory.
+     */
+    private PooledSession(String key, int generation, RemoteSession session) {
+      this.key = key;
+      this.generation = generation;
+      this.session = session;
+    }
+
+    /**
+     * Prepares the session for another operation.
+     *
+     * @param uri                 The remote URI.
+     * @param credentialsProvider The credentials.
+     * @param fs                  The file system.
+     * @param tms                 The timeout.
+     */
+    private void reuse(URIish uri, CredentialsProvider credentialsProvider, FS fs, int tms) {
+      this.uri = uri;
+      this.credentialsProvider = credentialsProvider;
+      this.fs = fs;
+      this.tms = tms;
+    }
+
+    /**
+     * @see org.eclipse.jgit.transport.RemoteSession#exec(String, int)
+     */
+    @Override
+    public Process exec(String commandName, int timeout) throws IOException {
+      if (uri != null) {
+        URIish reconnectURI = uri;
+        CredentialsProvider reconnectCredentials = credentialsProvider;
+        uri = null;
+        credentialsProvider = null;
+        try {
+          return session.exec(commandName, timeout);
+        } catch (IOException e) {
+          // The server closed the session while it was not used.
+          logger.debug(e, e);
+          close();
+          session = delegate.getSession(reconnectURI, reconnectCredentials, fs, tms);
+        }
+      }
+
+      return session.exec(commandName, timeout);
+    }
+
+    /**
+     * @see org.eclipse.jgit.transport.RemoteSession#getFtpChannel()
+     */
+    @Override
+    public FtpChannel getFtpChannel() {
+      return session.getFtpChannel();
+    }
+
+    /**
+     * @see org.eclipse.jgit.transport.RemoteSession#disconnect()
+     */
+    @Override
+    public void disconnect() {
+      close();
+    }
+
+    /**
+     * Closes the session created by the wrapped factory.
+     */
+    private void close() {
+      try {
+        delegate.releaseSession(session);
+      } catch (RuntimeException e) {
+        logger.debug(e, e);
+      }
+    }
+  }
+}
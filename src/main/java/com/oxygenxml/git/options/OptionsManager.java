@@ -1,11 +1,23 @@
 package com.oxygenxml.git.options;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -15,6 +27,7 @@ import javax.xml.bind.Unmarshaller;
 import org.apache.log4j.Logger;
 
 import com.oxygenxml.git.OxygenGitPlugin;
+import com.oxygenxml.git.auth.PooledSshSessionFactory;
 import com.oxygenxml.git.view.ChangesPanel.ResourcesViewMode;
 import com.oxygenxml.git.view.event.PullType;
 
@@ -24,6 +37,11 @@ import ro.sync.exml.workspace.api.standalone.StandalonePluginWorkspace;
 /**
  * Used to save and load different plugin options
  * 
+ * The changes are saved in the background, after a short delay, so a burst of changes 
+ * results in a single save. {@link #saveOptions()} saves the pending changes right away.
+ * A change only marks the options as changed. They are serialized once, while they are locked,
+ * by the background save.
+ * 
  * @author Beniamin Savu
  *
  */
@@ -56,16 +74,80 @@ public class OptionsManager {
    * Constant for how many project paths that have been tested for git to store
    */
   private static final int MAXIMUM_PROJECTS_TESTED = 10;
+  
+  /**
+   * How long to wait, in milliseconds, for other changes before saving the options.
+   */
+  private static final long SAVE_DELAY = 1000;
 
   /**
    * All Repositories that were selected by the user with their options
    */
   private Options options = null;
+  
+  /**
+   * The decrypted credentials, by host. Looked up for every transport operation, so they are
+   * not searched and decrypted every time.
+   */
+  private final Map<String, UserCredentials> credentialsCache = new ConcurrentHashMap<>();
 
   /**
    * Singleton instance.
    */
   private static OptionsManager instance;
+  
+  /**
+   * The JAXB context for the options. Building it is expensive so it is created only once.
+   */
+  private static JAXBContext jaxbContext;
+  
+  /**
+   * Saves the options in the background.
+   */
+  private final ScheduledExecutorService saveExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread thread = new Thread(r, "Git options save");
+    thread.setDaemon(true);
+    return thread;
+  });
+  
+  /**
+   * The pending background save or <code>null</code>.
+   */
+  private ScheduledFuture<?> pendingSave;
+  
+  /**
+   * <code>true</code> if the options changed since they were last serialized. Guarded by the
+   * instance lock.
+   */
+  private boolean optionsChanged;
+  
+  /**
+   * Incremented every time the options are serialized. Guarded by the instance lock.
+   */
+  private long optionsVersion;
+  
+  /**
+   * Guards the writes of the options, done outside the instance lock.
+   */
+  private final Object writeLock = new Object();
+  
+  /**
+   * The version of the last saved options. Guarded by {@link #writeLock}.
+   */
+  private long savedVersion;
+  
+  /**
+   * The last saved options, serialized. Used to skip saves that don't change anything.
+   * Guarded by {@link #writeLock}.
+   */
+  private String lastSavedOptions;
+  
+  /**
+   * !!! FOR TESTS !!!
+   * 
+   * The options file used outside Oxygen or <code>null</code> for the default one.
+   */
+  private File optionsFileForTests;
 
   /**
    * Gets the singleton instance
@@ -87,8 +169,7 @@ public class OptionsManager {
     if (options == null) {
       options = new Options();
       try {
-        JAXBContext jaxbContext = JAXBContext.newInstance(Options.class);
-        Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
+        Unmarshaller jaxbUnmarshaller = getJAXBContext().createUnmarshaller();
         if (OxygenGitPlugin.getInstance() == null) {
           // Running outside Oxygen, for example from tests.
           File optionsFileForTests = getOptionsFileForTests();
@@ -137,6 +218,9 @@ public class OptionsManager {
    * @return the options file
    */
   private File getOptionsFileForTests() {
+    if (optionsFileForTests != null) {
+      return optionsFileForTests;
+    }
     File baseDir = null;
     if (OxygenGitPlugin.getInstance() != null) {
       baseDir = OxygenGitPlugin.getInstance().getDescriptor().getBaseDir();
@@ -147,44 +231,175 @@ public class OptionsManager {
   }
 
   /**
-   * Save options.
+   * !!! FOR TESTS !!!
+   * 
+   * Sets the options file used outside Oxygen.
+   * 
+   * @param optionsFile The options file or <code>null</code> for the default one.
+   */
+  void setOptionsFileForTests(File optionsFile) {
+    synchronized (writeLock) {
+      optionsFileForTests = optionsFile;
+      lastSavedOptions = null;
+    }
+  }
+
+  /**
+   * @return The JAXB context for the options.
+   * 
+   * @throws JAXBException If the context cannot be created.
+   */
+  private static synchronized JAXBContext getJAXBContext() throws JAXBException {
+    if (jaxbContext == null) {
+      ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+      try {
+        Thread.currentThread().setContextClassLoader(JAXBContext.class.getClassLoader());
+        jaxbContext = JAXBContext.newInstance(Options.class);
+      } finally {
+        Thread.currentThread().setContextClassLoader(contextClassLoader);
+      }
+    }
+    return jaxbContext;
+  }
+
+  /**
+   * Saves the options right away, including the changes waiting to be saved in the background. 
+   * Nothing is written if the options didn't change since the last save.
    */
   public void saveOptions() {
-    boolean save = true;
-    StringWriter optionsWriter = new StringWriter();
+    String serializedOptions = null;
+    long version;
+    synchronized (this) {
+      if (pendingSave != null) {
+        pendingSave.cancel(false);
+        pendingSave = null;
+      }
+      optionsChanged = false;
+      
+      try {
+        serializedOptions = serializeOptions();
+      } catch (JAXBException e) {
+        if (logger.isDebugEnabled()) {
+          logger.debug(e, e);
+        }
+      }
+      version = optionsVersion;
+    }
     
-    ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
-    try {
-      Thread.currentThread().setContextClassLoader(JAXBContext.class.getClassLoader());
-
-      JAXBContext jaxbContext = JAXBContext.newInstance(Options.class);
-      Marshaller jaxbMarshaller = jaxbContext.createMarshaller();
-      jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-      if (OxygenGitPlugin.getInstance() == null) {
-        jaxbMarshaller.marshal(getOptions(), getOptionsFileForTests());
-      } else {
-        jaxbMarshaller.marshal(getOptions(), optionsWriter);
+    if (serializedOptions != null) {
+      write(serializedOptions, version);
+    }
+  }
+  
+  /**
+   * Marks the options as changed and schedules a save in the background. If other changes 
+   * come in the meantime the save is postponed, so that all the changes are saved together.
+   */
+  private synchronized void scheduleSave() {
+    optionsChanged = true;
+    
+    if (pendingSave != null) {
+      pendingSave.cancel(false);
+    }
+    pendingSave = saveExecutor.schedule(this::savePendingOptions, SAVE_DELAY, TimeUnit.MILLISECONDS);
+  }
+  
+  /**
+   * Serializes and saves the changed options, if not already saved. Runs on the save thread.
+   */
+  private void savePendingOptions() {
+    String serializedOptions = null;
+    long version;
+    synchronized (this) {
+      pendingSave = null;
+      if (!optionsChanged) {
+        return;
       }
-    } catch (JAXBException e) {
-      save = false;
-      if (logger.isDebugEnabled()) {
-        logger.debug(e, e);
+      optionsChanged = false;
+      
+      try {
+        serializedOptions = serializeOptions();
+      } catch (JAXBException e) {
+        if (logger.isDebugEnabled()) {
+          logger.debug(e, e);
+        }
       }
-    } finally {
-      Thread.currentThread().setContextClassLoader(contextClassLoader);
+      version = optionsVersion;
     }
     
-    if (save) {
-      PluginWorkspaceProvider.getPluginWorkspace().getOptionsStorage().setOption(GIT_PLUGIN_OPTIONS,
-          PluginWorkspaceProvider.getPluginWorkspace().getXMLUtilAccess().escapeTextValue(optionsWriter.toString()));
+    if (serializedOptions != null) {
+      write(serializedOptions, version);
+    }
+  }
+  
+  /**
+   * Writes the serialized options, unless newer ones were already written or they didn't change.
+   * 
+   * @param serializedOptions The options as XML.
+   * @param version           The version of the options.
+   */
+  private void write(String serializedOptions, long version) {
+    synchronized (writeLock) {
+      if (version > savedVersion && !serializedOptions.equals(lastSavedOptions)) {
+        savedVersion = version;
+        lastSavedOptions = serializedOptions;
+        
+        if (OxygenGitPlugin.getInstance() == null) {
+          // Running outside Oxygen, for example from tests.
+          writeOptionsFile(getOptionsFileForTests(), serializedOptions);
+        } else {
+          PluginWorkspaceProvider.getPluginWorkspace().getOptionsStorage().setOption(GIT_PLUGIN_OPTIONS,
+              PluginWorkspaceProvider.getPluginWorkspace().getXMLUtilAccess().escapeTextValue(serializedOptions));
+        }
+      }
+    }
+  }
+  
+  /**
+   * Serializes the options. Call it while holding the instance lock, so they don't change meanwhile.
+   * 
+   * @return The options as XML.
+   * 
+   * @throws JAXBException If the options cannot be serialized.
+   */
+  private String serializeOptions() throws JAXBException {
+    StringWriter optionsWriter = new StringWriter();
+    Marshaller jaxbMarshaller = getJAXBContext().createMarshaller();
+    jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+    jaxbMarshaller.marshal(getOptions(), optionsWriter);
+    optionsVersion++;
+    return optionsWriter.toString();
+  }
+  
+  /**
+   * Writes the options file. The content is written in a temporary file first and then moved
+   * over the options file, so the options file is never left half written.
+   * 
+   * @param optionsFile       The options file.
+   * @param serializedOptions The options as XML.
+   */
+  private static void writeOptionsFile(File optionsFile, String serializedOptions) {
+    File tempFile = new File(optionsFile.getParentFile(), optionsFile.getName() + ".tmp");
+    try {
+      Files.write(tempFile.toPath(), serializedOptions.getBytes(StandardCharsets.UTF_8));
+      try {
+        Files.move(
+            tempFile.toPath(),
+            optionsFile.toPath(),
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tempFile.toPath(), optionsFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      logger.warn("Options not saved: " + e, e);
     }
-
   }
   
   /**
    * Save the new view mode for the staged resources.
    */
-  public void saveStagedResViewMode(ResourcesViewMode stagedResViewMode) {
+  public synchronized void saveStagedResViewMode(ResourcesViewMode stagedResViewMode) {
     getOptions().setStagedResViewMode(stagedResViewMode);
   }
   
@@ -192,7 +407,7 @@ public class OptionsManager {
    * Init and get the options.
    * @return The initialized options.
    */
-  private Options getOptions() {
+  private synchronized Options getOptions() {
 	  loadOptions();
 	  return options;
   }
@@ -202,14 +417,14 @@ public class OptionsManager {
    * 
    * @param pullType The pull type.
    */
-  public void saveDefaultPullType(PullType pullType) {
+  public synchronized void saveDefaultPullType(PullType pullType) {
     getOptions().setDefaultPullType(pullType);
   }
   
   /**
    * Save the new view mode for the unstaged resources.
    */
-  public void saveUnstagedResViewMode(ResourcesViewMode unstagedResViewMode) {
+  public synchronized void saveUnstagedResViewMode(ResourcesViewMode unstagedResViewMode) {
     getOptions().setUnstagedResViewMode(unstagedResViewMode);
   }
 
@@ -218,8 +433,8 @@ public class OptionsManager {
    * 
    * @return a set with the repository options
    */
-  public List<String> getRepositoryEntries() {
-    return getOptions().getRepositoryLocations().getLocations();
+  public synchronized List<String> getRepositoryEntries() {
+    return new ArrayList<>(getOptions().getRepositoryLocations().getLocations());
   }
 
   /**
@@ -228,7 +443,7 @@ public class OptionsManager {
    * @param repositoryOption
    *          - options to be saved
    */
-  public void addRepository(String repositoryOption) {
+  public synchronized void addRepository(String repositoryOption) {
     LinkedList<String> locations = (LinkedList<String>) getOptions().getRepositoryLocations().getLocations();
     locations.remove(repositoryOption);
     locations.addFirst(repositoryOption);
@@ -236,7 +451,7 @@ public class OptionsManager {
       locations.removeLast();
     }
     
-    saveOptions();
+    scheduleSave();
   }
 
   /**
@@ -245,10 +460,10 @@ public class OptionsManager {
    * @param path
    *          - the path to the selected repository
    */
-  public void saveSelectedRepository(String path) {
+  public synchronized void saveSelectedRepository(String path) {
     getOptions().setSelectedRepository(path);
 
-    saveOptions();
+    scheduleSave();
   }
 
   /**
@@ -256,14 +471,14 @@ public class OptionsManager {
    * 
    * @return the path to the selected repository
    */
-  public String getSelectedRepository() {
+  public synchronized String getSelectedRepository() {
     return getOptions().getSelectedRepository();
   }
 
-  public void removeRepositoryLocation(String path) {
+  public synchronized void removeRepositoryLocation(String path) {
     getOptions().getRepositoryLocations().getLocations().remove(path);
 
-    saveOptions();
+    scheduleSave();
   }
 
   /**
@@ -272,7 +487,7 @@ public class OptionsManager {
    * @param userCredentials
    *          - the credentials to be saved
    */
-  public void saveGitCredentials(UserCredentials userCredentials) {
+  public synchronized void saveGitCredentials(UserCredentials userCredentials) {
     UserCredentials uc = new UserCredentials();
     String encryptedPassword = ((StandalonePluginWorkspace) PluginWorkspaceProvider.getPluginWorkspace())
         .getUtilAccess().encrypt(userCredentials.getPassword());
@@ -291,7 +506,10 @@ public class OptionsManager {
     }
 
     credentials.add(uc);
-    saveOptions();
+    credentialsCache.remove(uc.getHost());
+    scheduleSave();
+    // The open sessions were authenticated with the previous credentials.
+    PooledSshSessionFactory.closeSessions();
   }
 
   /**
@@ -300,23 +518,44 @@ public class OptionsManager {
    * @return the credentials
    */
   public UserCredentials getGitCredentials(String host) {
-    String username = null;
-    String decryptedPassword = null;
-    if (host != null) {
-      String password = null;
-      List<UserCredentials> userCredentialsList = getOptions().getUserCredentialsList().getCredentials();
-      for (UserCredentials credential : userCredentialsList) {
-        if (host.equals(credential.getHost())) {
-          username = credential.getUsername();
-          password = credential.getPassword();
-          break;
-        }
+    if (host == null) {
+      return new UserCredentials(null, null, null);
+    }
+    
+    UserCredentials cached = credentialsCache.get(host);
+    if (cached == null) {
+      // Under the same lock as the changes, so an obsolete password is never cached.
+      synchronized (this) {
+        cached = credentialsCache.computeIfAbsent(host, this::loadGitCredentials);
       }
-      if (OxygenGitPlugin.getInstance() != null) {
-        decryptedPassword = ((StandalonePluginWorkspace) PluginWorkspaceProvider.getPluginWorkspace()).getUtilAccess()
-            .decrypt(password);
+    }
+    // A copy, the caller may change it.
+    return new UserCredentials(cached.getUsername(), cached.getPassword(), host);
+  }
+  
+  /**
+   * Searches and decrypts the user credentials for a host.
+   * 
+   * @param host The host.
+   * 
+   * @return the credentials
+   */
+  private UserCredentials loadGitCredentials(String host) {
+    String username = null;
+    String password = null;
+    List<UserCredentials> userCredentialsList = getOptions().getUserCredentialsList().getCredentials();
+    for (UserCredentials credential : userCredentialsList) {
+      if (host.equals(credential.getHost())) {
+        username = credential.getUsername();
+        password = credential.getPassword();
+        break;
       }
     }
+    String decryptedPassword = null;
+    if (OxygenGitPlugin.getInstance() != null) {
+      decryptedPassword = ((StandalonePluginWorkspace) PluginWorkspaceProvider.getPluginWorkspace()).getUtilAccess()
+          .decrypt(password);
+    }
 
     return new UserCredentials(username, decryptedPassword, host);
   }
@@ -326,8 +565,8 @@ public class OptionsManager {
    * 
    * @return a list with the previously committed messages
    */
-  public List<String> getPreviouslyCommitedMessages() {
-    return getOptions().getCommitMessages().getMessages();
+  public synchronized List<String> getPreviouslyCommitedMessages() {
+    return new ArrayList<>(getOptions().getCommitMessages().getMessages());
   }
 
   /**
@@ -336,7 +575,7 @@ public class OptionsManager {
    * @param commitMessage
    *          - the last commitMessage
    */
-  public void saveCommitMessage(String commitMessage) {
+  public synchronized void saveCommitMessage(String commitMessage) {
     List<String> messages = getOptions().getCommitMessages().getMessages();
     if (messages.contains(commitMessage)) {
       messages.remove(commitMessage);
@@ -347,7 +586,7 @@ public class OptionsManager {
     }
     getOptions().getCommitMessages().setMessages(messages);
 
-    saveOptions();
+    scheduleSave();
   }
 
   /**
@@ -356,8 +595,8 @@ public class OptionsManager {
    * 
    * @return a list with the last MAXIMUM_PROJECTS_TESTED paths
    */
-  public List<String> getProjectsTestedForGit() {
-    return getOptions().getProjectsTestsForGit().getPaths();
+  public synchronized List<String> getProjectsTestedForGit() {
+    return new ArrayList<>(getOptions().getProjectsTestsForGit().getPaths());
   }
 
   /**
@@ -366,7 +605,7 @@ public class OptionsManager {
    * @param projectPath
    *          - the project path to be saved
    */
-  public void saveProjectTestedForGit(String projectPath) {
+  public synchronized void saveProjectTestedForGit(String projectPath) {
     List<String> projectsPath = getOptions().getProjectsTestsForGit().getPaths();
     projectsPath.add(projectPath);
     if (projectsPath.size() > MAXIMUM_PROJECTS_TESTED) {
@@ -374,7 +613,7 @@ public class OptionsManager {
     }
     getOptions().getProjectsTestsForGit().setPaths(projectsPath);
 
-    saveOptions();
+    scheduleSave();
   }
 
   /**
@@ -384,7 +623,7 @@ public class OptionsManager {
    * @param destinationPath
    *          - the destination path entered by the user
    */
-  public void saveDestinationPath(String destinationPath) {
+  public synchronized void saveDestinationPath(String destinationPath) {
     LinkedList<String> destinationPaths = (LinkedList<String>) getOptions().getDestinationPaths().getPaths();
     destinationPaths.remove(destinationPath);
     destinationPaths.add(0, destinationPath);
@@ -392,7 +631,7 @@ public class OptionsManager {
       destinationPaths.removeLast();
     }
 
-    saveOptions();
+    scheduleSave();
   }
 
   /**
@@ -400,28 +639,28 @@ public class OptionsManager {
    * 
    * @return a list containing the destinations paths
    */
-  public List<String> getDestinationPaths() {
-    return getOptions().getDestinationPaths().getPaths();
+  public synchronized List<String> getDestinationPaths() {
+    return new ArrayList<>(getOptions().getDestinationPaths().getPaths());
   }
   
   /**
    * @return the staged resources view mode: tree or table.
    */
-  public ResourcesViewMode getStagedResViewMode() {
+  public synchronized ResourcesViewMode getStagedResViewMode() {
     return getOptions().getStagedResViewMode();
   }
   
   /**
    * @return The default pull type.
    */
-  public PullType getDefaultPullType() {
+  public synchronized PullType getDefaultPullType() {
     return getOptions().getDefaultPullType();
   }
   
   /**
    * @return the unstaged resources view mode: tree or table.
    */
-  public ResourcesViewMode getUntagedResViewMode() {
+  public synchronized ResourcesViewMode getUntagedResViewMode() {
     return getOptions().getUnstagedResViewMode();
   }
   
@@ -429,17 +668,17 @@ public class OptionsManager {
     * Returns the stored answer for the given prompt.
    * @return The stored answer for the given prompt or <code>null</code> if this question was never asked.
    */
-  public Boolean getSshPromptAnswer(String prompt) {
+  public synchronized Boolean getSshPromptAnswer(String prompt) {
     return getOptions().getSshPromptAnswers().get(prompt);
   }
   
   /**
    * @return A cache for asking the user for connection message.
    */
-  public void saveSshPrompt(String prompt, boolean answer) {
+  public synchronized void saveSshPrompt(String prompt, boolean answer) {
     getOptions().getSshPromptAnswers().put(prompt, answer);
     
-    saveOptions();
+    scheduleSave();
   }
 
   /**
@@ -448,10 +687,12 @@ public class OptionsManager {
    * @param passphrase
    *          - the SSH pass phrase
    */
-  public void saveSshPassphare(String passphrase) {
+  public synchronized void saveSshPassphare(String passphrase) {
     String encryptPassphrase = ((StandalonePluginWorkspace) PluginWorkspaceProvider.getPluginWorkspace())
         .getUtilAccess().encrypt(passphrase);
     getOptions().setPassphrase(encryptPassphrase);
+    // The open sessions were authenticated with the previous key.
+    PooledSshSessionFactory.closeSessions();
   }
 
   /**
@@ -462,8 +703,12 @@ public class OptionsManager {
   public String getSshPassphrase() {
     String decryptPassphrase = null;
     if (OxygenGitPlugin.getInstance() != null) {
+      String passphrase;
+      synchronized (this) {
+        passphrase = getOptions().getPassphrase();
+      }
       decryptPassphrase = ((StandalonePluginWorkspace) PluginWorkspaceProvider.getPluginWorkspace())
-          .getUtilAccess().decrypt(getOptions().getPassphrase());
+          .getUtilAccess().decrypt(passphrase);
     }
     if (decryptPassphrase == null) {
       decryptPassphrase = "";
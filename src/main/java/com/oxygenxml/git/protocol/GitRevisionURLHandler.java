@@ -60,6 +60,12 @@ public class GitRevisionURLHandler extends URLStreamHandler {
 		 * The host which is used to let the user write in the diff tool
 		 */
 		private String currentHost;
+		
+		/**
+		 * <code>true</code> if the file object is a version of a file from the working copy. It is read
+		 * from the repository that contains the file, which can be a submodule.
+		 */
+		private boolean workingCopyVersion = true;
 
 		/**
 		 * Construct the connection
@@ -115,6 +121,7 @@ public class GitRevisionURLHandler extends URLStreamHandler {
 			  fileObject = gitAccess.submoduleCompare(path, true);
 			} else {
 			  // Probably an ID.
+			  workingCopyVersion = false;
 			  try {
           fileObject = RevCommitUtil.getObjectID(gitAccess.getRepository(), currentHost, path);
         } catch (IOException | NoRepositorySelected e) {
@@ -144,7 +151,8 @@ public class GitRevisionURLHandler extends URLStreamHandler {
 				return new FileInputStream(temp);
 			}
 			
-			return GitAccess.getInstance().getInputStream(fileObject);
+			return workingCopyVersion ? GitAccess.getInstance().getInputStream(fileObject, path)
+			    : GitAccess.getInstance().getInputStream(fileObject);
 		}
 
 		/**
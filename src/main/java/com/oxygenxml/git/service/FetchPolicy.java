@@ -0,0 +1,168 @@
+package com.oxygenxml.git.service;
+
+import java.io.IOException;
+import java.util.Locale;
+
+import org.eclipse.jgit.api.FetchCommand;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.BranchConfig;
+import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.TagOpt;
+
+import com.oxygenxml.git.utils.GitAddonSystemProperties;
+
+/**
+ * Decides what a fetch brings from the remote: which branches, whether the tags come along
+ * and whether the received objects are checked.
+ */
+public class FetchPolicy {
+  /**
+   * What a fetch brings.
+   */
+  public enum Mode {
+    /**
+     * Only the upstream branch of the current branch, with the tags that point into it.
+     * All the branches of the remote when the current branch has no upstream.
+     */
+    UPSTREAM_ONLY,
+    /**
+     * All the branches of the remote, with the tags that point into them.
+     */
+    ALL_HEADS,
+    /**
+     * Like {@link #UPSTREAM_ONLY}, but the tags are fetched only when they are requested.
+     */
+    TAGS_ON_DEMAND;
+  }
+
+  /**
+   * The default remote name.
+   */
+  private static final String DEFAULT_REMOTE = Constants.DEFAULT_REMOTE_NAME;
+
+  /**
+   * What a fetch brings.
+   */
+  private final Mode mode;
+  /**
+   * <code>true</code> to check the received objects, <code>false</code> to skip the check,
+   * <code>null</code> to follow the repository configuration.
+   */
+  private final Boolean checkFetchedObjects;
+
+  /**
+   * Constructor.
+   *
+   * @param mode                What a fetch brings.
+   * @param checkFetchedObjects <code>true</code> to check the received objects, <code>false</code>
+   *                            to skip the check, <code>null</code> to follow the "fetch.fsckObjects"
+   *                            and "transfer.fsckObjects" repository configuration.
+   */
+  public FetchPolicy(Mode mode, Boolean checkFetchedObjects) {
+    this.mode = mode;
+    this.checkFetchedObjects = checkFetchedObjects;
+  }
+
+  /**
+   * Creates the policy configured through the {@link GitAddonSystemProperties#FETCH_MODE} and
+   * {@link GitAddonSystemProperties#FETCH_CHECK_OBJECTS} system properties.
+   *
+   * @return The policy. Fetches only the upstream branch by default.
+   */
+  public static FetchPolicy fromSystemProperties() {
+    Mode mode = Mode.UPSTREAM_ONLY;
+    String modeName = System.getProperty(GitAddonSystemProperties.FETCH_MODE);
+    if (modeName != null) {
+      try {
+        mode = Mode.valueOf(modeName.trim().toUpperCase(Locale.ENGLISH));
+      } catch (IllegalArgumentException e) {
+        // Keep the default.
+      }
+    }
+    String check = System.getProperty(GitAddonSystemProperties.FETCH_CHECK_OBJECTS);
+    return new FetchPolicy(mode, check != null ? Boolean.valueOf(check.trim()) : null);
+  }
+
+  /**
+   * @return What a fetch brings.
+   */
+  public Mode getMode() {
+    return mode;
+  }
+
+  /**
+   * Creates the fetch command for a repository.
+   *
+   * @param git           The repository.
+   * @param tagsRequested <code>true</code> if the caller needs the tags, for example to present them.
+   *
+   * @return The command, without credentials.
+   *
+   * @throws IOException When the current branch cannot be read.
+   */
+  public FetchCommand createFetchCommand(Git git, boolean tagsRequested) throws IOException {
+    Repository repository = git.getRepository();
+    String upstreamRemote = null;
+    String upstreamBranch = null;
+    if (mode != Mode.ALL_HEADS) {
+      String branch = repository.getBranch();
+      if (branch != null) {
+        BranchConfig branchConfig = new BranchConfig(repository.getConfig(), branch);
+        upstreamRemote = branchConfig.getRemote();
+        upstreamBranch = branchConfig.getMerge();
+      }
+    }
+
+    FetchCommand fetchCommand = git.fetch();
+    if (upstreamRemote != null
+        && upstreamBranch != null
+        && !BranchConfig.LOCAL_REPOSITORY.equals(upstreamRemote)
+        && upstreamBranch.startsWith(Constants.R_HEADS)) {
+      // Only the upstream tip is wanted. If we already have it, no pack is transferred.
+      String shortName = upstreamBranch.substring(Constants.R_HEADS.length());
+      fetchCommand.setRemote(upstreamRemote).setRefSpecs(
+          new RefSpec("+" + upstreamBranch + ":" + Constants.R_REMOTES + upstreamRemote + "/" + shortName));
+    } else {
+      String remote = upstreamRemote != null && !BranchConfig.LOCAL_REPOSITORY.equals(upstreamRemote)
+          ? upstreamRemote : DEFAULT_REMOTE;
+      fetchCommand.setRemote(remote).setRefSpecs(
+          new RefSpec("+" + Constants.R_HEADS + "*:" + Constants.R_REMOTES + remote + "/*"));
+    }
+
+    fetchCommand.setTagOpt(getTagOpt(tagsRequested));
+    fetchCommand.setCheckFetchedObjects(isCheckFetchedObjects(repository.getConfig()));
+    return fetchCommand;
+  }
+
+  /**
+   * @param tagsRequested <code>true</code> if the caller needs the tags.
+   *
+   * @return How the tags are fetched.
+   */
+  TagOpt getTagOpt(boolean tagsRequested) {
+    TagOpt tagOpt = TagOpt.AUTO_FOLLOW;
+    if (mode == Mode.TAGS_ON_DEMAND) {
+      tagOpt = tagsRequested ? TagOpt.FETCH_TAGS : TagOpt.NO_TAGS;
+    }
+    return tagOpt;
+  }
+
+  /**
+   * @param config The repository configuration.
+   *
+   * @return <code>true</code> if the received objects must be checked.
+   */
+  boolean isCheckFetchedObjects(Config config) {
+    boolean check;
+    if (checkFetchedObjects != null) {
+      check = checkFetchedObjects;
+    } else {
+      // The same rules as the command line Git.
+      check = config.getBoolean("fetch", "fsckobjects", config.getBoolean("transfer", "fsckobjects", false));
+    }
+    return check;
+  }
+}
@@ -0,0 +1,151 @@
+package com.oxygenxml.git.service;
+
+import org.eclipse.jgit.internal.JGitText;
+import org.eclipse.jgit.lib.EmptyProgressMonitor;
+
+/**
+ * Statistics about the fetches from a remote.
+ */
+public class FetchStatistics {
+  /**
+   * Counts the objects received by a fetch, from the progress reported while the pack is parsed.
+   */
+  static class ReceivedObjectsCounter extends EmptyProgressMonitor {
+    /**
+     * <code>true</code> while the objects are received.
+     */
+    private boolean receiving;
+    /**
+     * The number of objects received.
+     */
+    private int receivedObjects;
+
+    @Override
+    public void beginTask(String title, int totalWork) {
+      receiving = JGitText.get().receivingObjects.equals(title);
+    }
+
+    @Override
+    public void update(int completed) {
+      if (receiving) {
+        receivedObjects += completed;
+      }
+    }
+
+    @Override
+    public void endTask() {
+      receiving = false;
+    }
+
+    /**
+     * @return The number of objects received.
+     */
+    int getReceivedObjects() {
+      return receivedObjects;
+    }
+  }
+
+  /**
+   * The number of fetches.
+   */
+  private int fetchCount;
+  /**
+   * The number of references advertised by the remote on the last fetch.
+   */
+  private int lastRefsAdvertised;
+  /**
+   * The number of remote tracking references updated by the last fetch.
+   */
+  private int lastRefsUpdated;
+  /**
+   * The number of objects received on the last fetch.
+   */
+  private long lastObjectsReceived;
+  /**
+   * The duration of the last fetch, in milliseconds.
+   */
+  private long lastDurationMillis;
+  /**
+   * The number of objects received by all the fetches.
+   */
+  private long totalObjectsReceived;
+  /**
+   * The duration of all the fetches, in milliseconds.
+   */
+  private long totalDurationMillis;
+
+  /**
+   * Records a fetch.
+   *
+   * @param refsAdvertised  The number of references advertised by the remote.
+   * @param refsUpdated     The number of remote tracking references updated.
+   * @param objectsReceived The number of objects received.
+   * @param durationMillis  The duration, in milliseconds.
+   */
+  synchronized void record(int refsAdvertised, int refsUpdated, long objectsReceived, long durationMillis) {
+    fetchCount++;
+    lastRefsAdvertised = refsAdvertised;
+    lastRefsUpdated = refsUpdated;
+    lastObjectsReceived = objectsReceived;
+    lastDurationMillis = durationMillis;
+    totalObjectsReceived += objectsReceived;
+    totalDurationMillis += durationMillis;
+  }
+
+  /**
+   * @return The number of fetches.
+   */
+  public synchronized int getFetchCount() {
+    return fetchCount;
+  }
+
+  /**
+   * @return The number of references advertised by the remote on the last fetch.
+   */
+  public synchronized int getLastRefsAdvertised() {
+    return lastRefsAdvertised;
+  }
+
+  /**
+   * @return The number of remote tracking references updated by the last fetch.
+   */
+  public synchronized int getLastRefsUpdated() {
+    return lastRefsUpdated;
+  }
+
+  /**
+   * @return The number of objects received on the last fetch.
+   */
+  public synchronized long getLastObjectsReceived() {
+    return lastObjectsReceived;
+  }
+
+  /**
+   * @return The duration of the last fetch, in milliseconds.
+   */
+  public synchronized long getLastDurationMillis() {
+    return lastDurationMillis;
+  }
+
+  /**
+   * @return The number of objects received by all the fetches.
+   */
+  public synchronized long getTotalObjectsReceived() {
+    return totalObjectsReceived;
+  }
+
+  /**
+   * @return The duration of all the fetches, in milliseconds.
+   */
+  public synchronized long getTotalDurationMillis() {
+    return totalDurationMillis;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "FetchStatistics [fetches=" + fetchCount + ", lastRefsAdvertised=" + lastRefsAdvertised
+        + ", lastRefsUpdated=" + lastRefsUpdated + ", lastObjectsReceived=" + lastObjectsReceived
+        + ", lastDurationMillis=" + lastDurationMillis + ", totalObjectsReceived=" + totalObjectsReceived
+        + ", totalDurationMillis=" + totalDurationMillis + "]";
+  }
+}
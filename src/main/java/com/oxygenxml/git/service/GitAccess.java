@@ -3,14 +3,12 @@ package com.oxygenxml.git.service;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.MalformedURLException;
-import java.net.URL;
 import java.text.MessageFormat;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Date;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -20,12 +18,17 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.log4j.Logger;
 import org.eclipse.jgit.api.AddCommand;
 import org.eclipse.jgit.api.CheckoutCommand;
 import org.eclipse.jgit.api.CheckoutCommand.Stage;
 import org.eclipse.jgit.api.CloneCommand;
+import org.eclipse.jgit.api.FetchCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.ListBranchCommand.ListMode;
 import org.eclipse.jgit.api.LogCommand;
@@ -48,8 +51,8 @@ import org.eclipse.jgit.api.errors.NoHeadException;
 import org.eclipse.jgit.api.errors.TransportException;
 import org.eclipse.jgit.api.errors.UnmergedPathsException;
 import org.eclipse.jgit.diff.DiffEntry;
-import org.eclipse.jgit.diff.DiffEntry.ChangeType;
 import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheIterator;
 import org.eclipse.jgit.errors.NoMergeBaseException;
 import org.eclipse.jgit.errors.NoMergeBaseException.MergeBaseFailureReason;
 import org.eclipse.jgit.errors.NoWorkTreeException;
@@ -59,10 +62,10 @@ import org.eclipse.jgit.lib.AnyObjectId;
 import org.eclipse.jgit.lib.BranchConfig;
 import org.eclipse.jgit.lib.BranchTrackingStatus;
 import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.NullProgressMonitor;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectLoader;
-import org.eclipse.jgit.lib.ObjectReader;
-import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.ProgressMonitor;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.RefUpdate;
@@ -77,12 +80,12 @@ import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.revwalk.filter.RevFilter;
 import org.eclipse.jgit.submodule.SubmoduleStatus;
 import org.eclipse.jgit.submodule.SubmoduleWalk;
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.FetchResult;
 import org.eclipse.jgit.transport.PushResult;
-import org.eclipse.jgit.transport.RefSpec;
 import org.eclipse.jgit.transport.RemoteRefUpdate;
 import org.eclipse.jgit.transport.TrackingRefUpdate;
 import org.eclipse.jgit.transport.URIish;
-import org.eclipse.jgit.treewalk.CanonicalTreeParser;
 import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
@@ -94,6 +97,7 @@ import com.oxygenxml.git.ProjectViewManager;
 import com.oxygenxml.git.auth.AuthExceptionMessagePresenter;
 import com.oxygenxml.git.auth.AuthUtil;
 import com.oxygenxml.git.auth.AuthenticationInterceptor;
+import com.oxygenxml.git.auth.PooledSshSessionFactory;
 import com.oxygenxml.git.auth.SSHCapableUserCredentialsProvider;
 import com.oxygenxml.git.options.OptionsManager;
 import com.oxygenxml.git.options.UserCredentials;
@@ -102,13 +106,16 @@ import com.oxygenxml.git.service.entities.GitChangeType;
 import com.oxygenxml.git.translator.Tags;
 import com.oxygenxml.git.translator.Translator;
 import com.oxygenxml.git.utils.FileHelper;
+import com.oxygenxml.git.utils.GitAddonSystemProperties;
 import com.oxygenxml.git.utils.GitOperationScheduler;
+import com.oxygenxml.git.utils.RefreshPlanner;
 import com.oxygenxml.git.view.dialog.ProgressDialog;
 import com.oxygenxml.git.view.event.GitCommand;
 import com.oxygenxml.git.view.event.GitCommandState;
 import com.oxygenxml.git.view.event.GitEvent;
 import com.oxygenxml.git.view.event.PullType;
 import com.oxygenxml.git.view.historycomponents.CommitCharacteristics;
+import com.oxygenxml.git.view.historycomponents.CommitStore;
 
 import ro.sync.exml.workspace.api.PluginWorkspaceProvider;
 import ro.sync.exml.workspace.api.standalone.StandalonePluginWorkspace;
@@ -137,6 +144,10 @@ public class GitAccess {
 	 */
 	public static final String LOCAL = "local";
 	/**
+	 * The tags, as a type of ref decorations.
+	 */
+	private static final String TAGS = "tags";
+	/**
    * "End fetch" debug message.
    */
 	private static final String END_FETCH_DEBUG_MESSAGE = "End fetch";
@@ -160,6 +171,18 @@ public class GitAccess {
 	 * Receive notifications when things change.
 	 */
 	private Set<GitEventListener> listeners = new LinkedHashSet<>();
+	/**
+	 * The recently used repositories, kept open for a quick switch between them.
+	 */
+	private final RepositoryPool repositoryPool = new RepositoryPool();
+	/**
+	 * The pool entry of the current repository, borrowed while it is the current one.
+	 */
+	private RepositoryPool.PooledRepository currentPooled;
+	/**
+	 * The statistics of the fetches, for each remote URL.
+	 */
+	private final Map<String, FetchStatistics> fetchStatistics = new ConcurrentHashMap<>();
 
 	 /**
    * Singleton instance.
@@ -190,7 +213,31 @@ public class GitAccess {
 	 */
 	public void clone(URIish url, File directory, final ProgressDialog progressDialog, String branchName)
 			throws GitAPIException {
-	  closeRepo();
+	  clone(url, directory, progressDialog, branchName, branchName != null);
+	}
+
+	/**
+	 * Creates a local clone of the given repository and loads it.
+	 * 
+	 * @param url Remote repository to clone.
+	 * @param directory Local directory in which to create the clone.
+	 * @param progressDialog Progress support.
+	 * @param branchName     The name of the branch to clone and checkout. Must be
+	 *                       specified as full ref names (e.g.
+	 *                       "refs/heads/hotfixes/17.0"). <code>null</code> for the
+	 *                       default branch of the remote.
+	 * @param singleBranch   <code>true</code> to transfer only the history of the checked out
+	 *                       branch. The later fetches are also restricted to this branch.
+	 * 
+	 * @throws GitAPIException
+	 */
+	public void clone(
+	    URIish url,
+	    File directory,
+	    final ProgressDialog progressDialog,
+	    String branchName,
+	    boolean singleBranch) throws GitAPIException {
+	  releaseRepo();
 	  
 		// Intercept all authentication requests.
     String host = url.getHost();
@@ -255,17 +302,62 @@ public class GitAccess {
 		}
 		
 		String pass = OptionsManager.getInstance().getSshPassphrase();
+		SSHCapableUserCredentialsProvider credentialsProvider =
+		    new SSHCapableUserCredentialsProvider(username, password, pass, url.getHost());
 		CloneCommand cloneCommand = Git.cloneRepository().setURI(url.toString()).setDirectory(directory)
-		    .setCredentialsProvider(new SSHCapableUserCredentialsProvider(username, password, pass, url.getHost()))
+		    .setCredentialsProvider(credentialsProvider)
 		    .setProgressMonitor(p);
+		if (singleBranch && branchName == null) {
+		  branchName = getDefaultBranch(url, credentialsProvider);
+		}
 		if (branchName != null) {
-			git = cloneCommand.setBranchesToClone(Arrays.asList(branchName)).setBranch(branchName).call();
+		  // The remote configuration of the clone also fetches only this branch.
+			use(repositoryPool.borrow(cloneCommand.setBranchesToClone(Arrays.asList(branchName)).setBranch(branchName).call()));
 		} else {
-		  git = cloneCommand.call();
+		  use(repositoryPool.borrow(cloneCommand.call()));
 		}
 		
 		fireRepositoryChanged();
 	}
+
+	/**
+	 * Finds the branch that the remote HEAD points to.
+	 * 
+	 * @param url                 The remote repository.
+	 * @param credentialsProvider The credentials.
+	 * 
+	 * @return The full name of the default branch, or <code>null</code> if the remote is empty.
+	 * 
+	 * @throws GitAPIException When the remote cannot be listed.
+	 */
+	private static String getDefaultBranch(URIish url, SSHCapableUserCredentialsProvider credentialsProvider)
+	    throws GitAPIException {
+	  Map<String, Ref> refs = Git.lsRemoteRepository()
+	      .setRemote(url.toString())
+	      .setCredentialsProvider(credentialsProvider)
+	      .callAsMap();
+	  String defaultBranch = null;
+	  Ref head = refs.get(Constants.HEAD);
+	  if (head != null) {
+	    if (head.isSymbolic()) {
+	      defaultBranch = head.getTarget().getName();
+	    } else if (head.getObjectId() != null) {
+	      // The remote didn't tell where its HEAD points. Guess it like the clone command does.
+	      Ref master = refs.get(Constants.R_HEADS + Constants.MASTER);
+	      if (master != null && head.getObjectId().equals(master.getObjectId())) {
+	        defaultBranch = master.getName();
+	      } else {
+	        for (Ref ref : refs.values()) {
+	          if (ref.getName().startsWith(Constants.R_HEADS) && head.getObjectId().equals(ref.getObjectId())) {
+	            defaultBranch = ref.getName();
+	            break;
+	          }
+	        }
+	      }
+	    }
+	  }
+	  return defaultBranch;
+	}
 	
 	/**
    * Sets the Git repository asynchronously, on a new thread, and at the end updates the
@@ -292,6 +384,20 @@ public class GitAccess {
     openRepository(path);
   }
 
+  /**
+   * Makes the given repository the current one. The previous current repository is released,
+   * so it can be evicted from the pool once nobody else uses it.
+   * 
+   * @param pooled The repository, borrowed from the pool of recently used repositories.
+   */
+  private void use(RepositoryPool.PooledRepository pooled) {
+    if (currentPooled != null) {
+      currentPooled.release();
+    }
+    currentPooled = pooled;
+    git = pooled.getGit();
+  }
+
   /**
    * Check if the given repository is the current one.
    * 
@@ -313,14 +419,19 @@ public class GitAccess {
    * @throws IOException
    */
   private void openRepository(String path) throws IOException {
-    final File repo = new File(path + "/.git");
+    // Submodules and worktrees have a ".git" file that refers their Git directory.
+    File gitDir = FileHelper.getGitDir(new File(path));
+    final File repo = gitDir != null ? gitDir : new File(path + "/.git");
     if (!isCurrentRepo(repo) ) {
-      closeRepo();
+      releaseRepo();
+      // The sessions opened for the previous repository are not needed anymore.
+      PooledSshSessionFactory.closeSessions();
 
       fireRepositoryIsAboutToOpen(repo);
 
       try {
-        git = Git.open(repo);
+        // Recently used repositories are still open.
+        use(repositoryPool.borrow(repo));
         
         repositoryOpened();
       } catch (IOException e) {
@@ -416,6 +527,11 @@ public class GitAccess {
    */
   private void fireStateChanged(GitEvent changeEvent) {
     logger.debug("FIRE STATE CHANGED: " + changeEvent);
+    if (git != null) {
+      // The last computed status is obsolete.
+      getPooledRepository().setStatus(null);
+      RepositoryMaintenance.getInstance().activity(git.getRepository());
+    }
     for (GitEventListener gitEventListener : listeners) {
       gitEventListener.stateChanged(changeEvent);
     }
@@ -461,14 +577,10 @@ public class GitAccess {
 	 * @param path - A string that specifies the git Repository folder
 	 */
 	public void createNewRepository(String path) {
-    if (git != null) {
-      // Stop intercepting authentication requests.
-      AuthenticationInterceptor.unbind(getHostName());
-      git.close();
-    }
+    releaseRepo();
 
 		try {
-			git = Git.init().setBare(false).setDirectory(new File(path)).call();
+			use(repositoryPool.borrow(Git.init().setBare(false).setDirectory(new File(path)).call()));
 		} catch (IllegalStateException | GitAPIException e) {
 			if (logger.isDebugEnabled()) {
 				logger.debug(e, e);
@@ -484,20 +596,108 @@ public class GitAccess {
 	public GitStatus getStatus() {
 	  GitStatus gitStatus = null;
 	  if (git != null) {
+	    RepositoryPool.PooledRepository pooled = borrowPooledRepository();
 	    try {
-	      logger.debug("-- Compute our GitStatus -> getStatus() --");
-	      Status status = git.status().call();
-	      logger.debug("-- Get JGit status -> git.status().call() --");
-	      gitStatus = new GitStatus(getUnstagedFiles(status), getStagedFiles(status));
+	      gitStatus = computeStatus(pooled);
+	    } finally {
+	      pooled.release();
+	    }
+	  }
+    return gitStatus != null ? gitStatus 
+        : new GitStatus(Collections.emptyList(),Collections.emptyList());
+  }
+	
+	/**
+	 * Computes the status of some resources from the Working Copy. Only those resources are visited.
+	 * 
+	 * @param paths Paths relative to the working copy. The empty path stands for the whole working copy.
+	 * 
+	 * @return The unstaged and staged files from the given paths.
+	 */
+	public GitStatus getStatus(Collection<String> paths) {
+	  GitStatus gitStatus = null;
+	  if (git != null) {
+	    RepositoryPool.PooledRepository pooled = borrowPooledRepository();
+	    try {
+	      StatusCommand statusCmd = createStatusCommand(git, paths);
+	      if (statusCmd != null) {
+	        UntrackedFilesCache.CachedStatus status = pooled.getUntrackedFilesCache().call(statusCmd);
+	        List<FileStatus> unstagedFiles = getUnstagedFiles(pooled, status);
+	        List<FileStatus> stagedFiles = getStagedFiles(git, status.getStatus());
+	        addSubmoduleChanges(pooled, paths, unstagedFiles, stagedFiles);
+	        // The submodules and the cached untracked folders are not restricted to the given paths.
+	        gitStatus = new GitStatus(
+	            FileHelper.filterByPaths(unstagedFiles, paths), 
+	            FileHelper.filterByPaths(stagedFiles, paths));
+	      }
 	    } catch (GitAPIException e) {
 	      if (logger.isDebugEnabled()) {
 	        logger.debug(e, e);
 	      }
+	    } finally {
+	      pooled.release();
 	    }
 	  }
-    return gitStatus != null ? gitStatus 
-        : new GitStatus(Collections.emptyList(),Collections.emptyList());
-  }
+	  return gitStatus != null ? gitStatus 
+	      : new GitStatus(Collections.emptyList(),Collections.emptyList());
+	}
+	
+	/**
+	 * Creates a status command for a repository. If the repository has a sparse checkout,
+	 * only its directories are visited.
+	 * 
+	 * @param repoGit The repository.
+	 * @param paths   The paths of interest, relative to the working copy. If empty or if one of them
+	 *                is the empty path, the whole working copy is of interest.
+	 * 
+	 * @return The command, or <code>null</code> if none of the paths is checked out.
+	 */
+	private static StatusCommand createStatusCommand(Git repoGit, Collection<String> paths) {
+	  StatusCommand statusCmd = repoGit.status();
+	  Collection<String> statusPaths = paths.contains("") ? Collections.emptyList() : paths;
+	  List<String> sparseDirectories = SparseCheckout.getDirectories(repoGit.getRepository());
+	  if (!sparseDirectories.isEmpty()) {
+	    // Only the directories are visited.
+	    statusPaths = statusPaths.isEmpty() 
+	        ? sparseDirectories : SparseCheckout.restrict(statusPaths, sparseDirectories);
+	    if (statusPaths.isEmpty()) {
+	      statusCmd = null;
+	    }
+	  }
+	  if (statusCmd != null) {
+	    for (String path : statusPaths) {
+	      statusCmd.addPath(path);
+	    }
+	  }
+	  return statusCmd;
+	}
+	
+	/**
+	 * Computes the status of a repository and remembers it as the repository's last status.
+	 * 
+	 * @param pooled The repository.
+	 * 
+	 * @return The status or <code>null</code> if it couldn't be computed.
+	 */
+	private GitStatus computeStatus(RepositoryPool.PooledRepository pooled) {
+	  GitStatus gitStatus = null;
+	  try {
+	    logger.debug("-- Compute our GitStatus -> getStatus() --");
+	    UntrackedFilesCache.CachedStatus status = pooled.getUntrackedFilesCache().call(
+	        createStatusCommand(pooled.getGit(), Collections.emptyList()));
+	    logger.debug("-- Get JGit status -> git.status().call() --");
+	    List<FileStatus> unstagedFiles = getUnstagedFiles(pooled, status);
+	    List<FileStatus> stagedFiles = getStagedFiles(pooled.getGit(), status.getStatus());
+	    addSubmoduleChanges(pooled, Collections.emptyList(), unstagedFiles, stagedFiles);
+	    gitStatus = new GitStatus(unstagedFiles, stagedFiles);
+	    pooled.setStatus(gitStatus);
+	  } catch (GitAPIException e) {
+	    if (logger.isDebugEnabled()) {
+	      logger.debug(e, e);
+	    }
+	  }
+	  return gitStatus;
+	}
 	
 	/**
    * Makes a diff between the files from the last commit and the files from the
@@ -525,18 +725,23 @@ public class GitAccess {
         logger.debug("Prepare fot JGit status, in paths " + paths);
       }
       
-      StatusCommand statusCmd = git.status();
-      for (Iterator<String> iterator = paths.iterator(); iterator.hasNext();) {
-        statusCmd.addPath(iterator.next());
-      }
+      RepositoryPool.PooledRepository pooled = borrowPooledRepository();
       try {
-        Status status = statusCmd.call();
-        logger.debug("JGit Status computed: " + status);
-        return getUnstagedFiles(status);
+        StatusCommand statusCmd = createStatusCommand(git, paths);
+        if (statusCmd != null) {
+          UntrackedFilesCache.CachedStatus status = pooled.getUntrackedFilesCache().call(statusCmd);
+          logger.debug("JGit Status computed: " + status.getStatus());
+          List<FileStatus> unstagedFiles = getUnstagedFiles(pooled, status);
+          addSubmoduleChanges(pooled, paths, unstagedFiles, null);
+          // The submodules and the cached untracked folders are not restricted to the given paths.
+          return paths.isEmpty() ? unstagedFiles : FileHelper.filterByPaths(unstagedFiles, paths);
+        }
       } catch (GitAPIException e) {
         if (logger.isDebugEnabled()) {
           logger.debug(e, e);
         }
+      } finally {
+        pooled.release();
       }
     }
     
@@ -547,22 +752,25 @@ public class GitAccess {
 	 * Makes a diff between the files from the last commit and the files from the
 	 * working directory. If there are diffs, they will be saved and returned.
 	 * 
-	 * @param status The repository's status.
+	 * @param pooled       The repository.
+	 * @param cachedStatus The repository's status, computed through the cache of untracked folders.
 	 * 
 	 * @return The unstaged files and their states.
 	 */
-	private List<FileStatus> getUnstagedFiles(Status status) {
+	private List<FileStatus> getUnstagedFiles(
+	    RepositoryPool.PooledRepository pooled, UntrackedFilesCache.CachedStatus cachedStatus) {
+	  Status status = cachedStatus.getStatus();
 	  logger.debug("PRIVATE - GET UNSTAGE FOR GIVEN STATUS " + status);
 		List<FileStatus> unstagedFiles = new ArrayList<>();
-		if (git != null) {
+		if (pooled != null) {
 			try {
-				Set<String> submodules = getSubmodules();
-        addSubmodulesToUnstaged(unstagedFiles, submodules);
-				addUntrackedFilesToUnstaged(status, unstagedFiles, submodules);
+				Set<String> submodules = pooled.getSubmoduleRegistry().getPaths();
+        addSubmodulesToUnstaged(pooled.getSubmoduleRegistry(), unstagedFiles);
+				addUntrackedFilesToUnstaged(cachedStatus, unstagedFiles, submodules);
         addModifiedFilesToUnstaged(status, unstagedFiles, submodules);
         addMissingFilesToUnstaged(status, unstagedFiles, submodules);
 				addConflictingFilesToUnstaged(status, unstagedFiles);
-			} catch (NoWorkTreeException | GitAPIException e1) {
+			} catch (NoWorkTreeException e1) {
 				if (logger.isDebugEnabled()) {
 					logger.debug(e1, e1);
 				}
@@ -629,11 +837,15 @@ public class GitAccess {
 	 * Add untracked files (i.e. newly created files) to the list of resources that
 	 * are not staged (not in the INDEX).
    * 
-   * @param status        The repository's status.
+   * @param cachedStatus  The repository's status, computed through the cache of untracked folders.
    * @param unstagedFiles The list of unstaged (not in the INDEX) files.
    * @param submodules    The set of submodules.
    */
-  private void addUntrackedFilesToUnstaged(Status status, List<FileStatus> unstagedFiles, Set<String> submodules) {
+  private void addUntrackedFilesToUnstaged(
+      UntrackedFilesCache.CachedStatus cachedStatus,
+      List<FileStatus> unstagedFiles,
+      Set<String> submodules) {
+    Status status = cachedStatus.getStatus();
     if (logger.isDebugEnabled()) {
       logger.debug("addUntrackedFilesToUnstaged " + status.getUntracked());
     }
@@ -642,26 +854,326 @@ public class GitAccess {
     		unstagedFiles.add(new FileStatus(GitChangeType.UNTRACKED, string));
     	}
     }
+    
+    // The folders that didn't change since the last status were not visited.
+    List<String> cachedUntracked = cachedStatus.getCachedUntrackedFiles();
+    if (logger.isDebugEnabled()) {
+      logger.debug("Cached untracked files " + cachedUntracked);
+    }
+    for (String string : cachedUntracked) {
+      if (!submodules.contains(string)) {
+        unstagedFiles.add(new FileStatus(GitChangeType.UNTRACKED, string));
+      }
+    }
+  }
+  
+  /**
+   * Gets the cache of untracked folders for the current repository.
+   * 
+   * @return The cache. Never <code>null</code>.
+   */
+  private UntrackedFilesCache getUntrackedFilesCache() {
+    return getPooledRepository().getUntrackedFilesCache();
+  }
+
+  /**
+   * Gets the search index over the history of the current repository. It is updated
+   * with {@link HistorySearchIndex#update()}.
+   *
+   * @return The index. Never <code>null</code>.
+   *
+   * @throws NoRepositorySelected When there is no repository.
+   */
+  public HistorySearchIndex getHistorySearchIndex() throws NoRepositorySelected {
+    if (git == null) {
+      throw new NoRepositorySelected("Repository is empty");
+    }
+    return getPooledRepository().getHistorySearchIndex();
+  }
+
+  /**
+   * @return The pool with the opened repositories.
+   */
+  RepositoryPool getRepositoryPool() {
+    return repositoryPool;
+  }
+
+  /**
+   * Gets the pool entry of the current repository, with the data computed for it.
+   *
+   * @return The pool entry. Never <code>null</code>.
+   */
+  private RepositoryPool.PooledRepository getPooledRepository() {
+    RepositoryPool.PooledRepository pooled = repositoryPool.get(git.getRepository());
+    if (pooled == null) {
+      // The repository was closed. Put it back.
+      pooled = repositoryPool.add(git);
+    }
+    return pooled;
+  }
+
+  /**
+   * Borrows the pool entry of the current repository. It stays open until it is released,
+   * even if another repository becomes the current one meanwhile.
+   *
+   * @return The pool entry. Never <code>null</code>. The caller must release it.
+   */
+  private RepositoryPool.PooledRepository borrowPooledRepository() {
+    RepositoryPool.PooledRepository pooled = repositoryPool.borrow(git.getRepository());
+    if (pooled == null) {
+      // The repository was closed. Put it back.
+      pooled = repositoryPool.borrow(git);
+    }
+    return pooled;
+  }
+
+  /**
+   * Gets the last status computed for the current repository, if it is still valid. Useful for
+   * showing something right away, after switching to a recently used repository, while
+   * the actual status is computed.
+   *
+   * @return The last computed status or <code>null</code>.
+   */
+  public GitStatus getCachedStatus() {
+    return git != null ? getPooledRepository().getStatus() : null;
+  }
+  
+  /**
+   * Notifies that the given resources changed on disk, outside a Git command.
+   * The cached untracked folders that contain them are no longer trusted.
+   * 
+   * @param paths Paths relative to the working copy.
+   */
+  public void resourcesChanged(Collection<String> paths) {
+    if (git != null) {
+      getUntrackedFilesCache().invalidate(paths);
+    }
+  }
+
+  /**
+   * Adds the changes from inside the submodules, under the submodule paths, when they are presented.
+   * See {@link GitAddonSystemProperties#RECURSIVE_SUBMODULE_STATUS}. The status of the submodules is
+   * computed in parallel, so it takes about as long as the status of the slowest submodule.
+   * 
+   * @param pooled        The repository.
+   * @param paths         The paths of interest, relative to the working copy. If empty or if one of them
+   *                      is the empty path, the whole working copy is of interest.
+   * @param unstagedFiles Receives the unstaged files from the submodules. <code>null</code> if not needed.
+   * @param stagedFiles   Receives the staged files from the submodules. <code>null</code> if not needed.
+   */
+  private void addSubmoduleChanges(
+      RepositoryPool.PooledRepository pooled,
+      Collection<String> paths,
+      List<FileStatus> unstagedFiles,
+      List<FileStatus> stagedFiles) {
+    if (isRecursiveSubmoduleStatus()) {
+      List<String> submodulePaths = new ArrayList<>();
+      List<Callable<GitStatus>> tasks = new ArrayList<>();
+      // Kept open until all the tasks end.
+      Map<String, RepositoryPool.PooledRepository> submodules = 
+          pooled.getSubmoduleRegistry().borrowSubmoduleRepositories();
+      for (Map.Entry<String, RepositoryPool.PooledRepository> entry : submodules.entrySet()) {
+        if (isSubmoduleOfInterest(entry.getKey(), paths)) {
+          submodulePaths.add(entry.getKey());
+          RepositoryPool.PooledRepository submodule = entry.getValue();
+          // The changes from the submodules of the submodule are added as well.
+          tasks.add(() -> computeStatus(submodule));
+        }
+      }
+
+      List<FileStatus> submoduleUnstagedFiles = new ArrayList<>();
+      List<FileStatus> submoduleStagedFiles = new ArrayList<>();
+      try {
+        List<Future<GitStatus>> futures = GitOperationScheduler.getInstance().invokeAllAndHelp(tasks);
+        for (int i = 0; i < futures.size(); i++) {
+          try {
+            GitStatus status = futures.get(i).get();
+            if (status != null) {
+              String prefix = submodulePaths.get(i) + "/";
+              for (FileStatus file : status.getUnstagedFiles()) {
+                submoduleUnstagedFiles.add(new FileStatus(file.getChangeType(), prefix + file.getFileLocation()));
+              }
+              for (FileStatus file : status.getStagedFiles()) {
+                submoduleStagedFiles.add(new FileStatus(file.getChangeType(), prefix + file.getFileLocation()));
+              }
+            }
+          } catch (ExecutionException e) {
+            logger.debug(e, e);
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        logger.debug(e, e);
+      } finally {
+        release(submodules.values());
+      }
+
+      boolean allPaths = paths.isEmpty() || paths.contains("");
+      if (unstagedFiles != null) {
+        unstagedFiles.addAll(allPaths ? submoduleUnstagedFiles : FileHelper.filterByPaths(submoduleUnstagedFiles, paths));
+      }
+      if (stagedFiles != null) {
+        stagedFiles.addAll(allPaths ? submoduleStagedFiles : FileHelper.filterByPaths(submoduleStagedFiles, paths));
+      }
+    }
+  }
+
+  /**
+   * @return <code>true</code> if the changes from inside the submodules are presented.
+   */
+  private static boolean isRecursiveSubmoduleStatus() {
+    return Boolean.getBoolean(GitAddonSystemProperties.RECURSIVE_SUBMODULE_STATUS);
+  }
+
+  /**
+   * Checks if a submodule contains some of the given paths or is inside one of them.
+   * 
+   * @param submodulePath The path of the submodule.
+   * @param paths         The paths of interest. If empty or if one of them is the empty path, 
+   *                      the whole working copy is of interest.
+   * 
+   * @return <code>true</code> if the changes from inside the submodule are of interest.
+   */
+  private static boolean isSubmoduleOfInterest(String submodulePath, Collection<String> paths) {
+    boolean ofInterest = paths.isEmpty();
+    for (Iterator<String> iterator = paths.iterator(); !ofInterest && iterator.hasNext();) {
+      String path = iterator.next();
+      ofInterest = path.isEmpty()
+          || path.equals(submodulePath)
+          || path.startsWith(submodulePath + "/")
+          || submodulePath.startsWith(path + "/");
+    }
+    return ofInterest;
+  }
+
+  /**
+   * Finds the repository that contains a file: the current repository or, when the changes from
+   * inside the submodules are presented, the submodule that contains it.
+   * 
+   * @param path     A path relative to the working copy.
+   * @param borrowed Receives the submodule repositories borrowed to keep the repository open.
+   *                 The caller must release them when done with the repository.
+   * 
+   * @return The repository and the path relative to its working copy.
+   */
+  private Map.Entry<Git, String> resolveOwner(String path, List<RepositoryPool.PooledRepository> borrowed) {
+    Git owner = git;
+    String relativePath = path;
+    if (isRecursiveSubmoduleStatus()) {
+      Map.Entry<RepositoryPool.PooledRepository, String> pooledOwner = resolvePooledOwner(path, borrowed);
+      owner = pooledOwner.getKey().getGit();
+      relativePath = pooledOwner.getValue();
+    }
+    return new AbstractMap.SimpleImmutableEntry<>(owner, relativePath);
+  }
+
+  /**
+   * Finds the pooled repository that contains a file, like {@link #resolveOwner(String, List)}.
+   * 
+   * @param path     A path relative to the working copy.
+   * @param borrowed Receives the submodule repositories borrowed to keep the repository open.
+   *                 The caller must release them when done with the repository.
+   * 
+   * @return The repository and the path relative to its working copy.
+   */
+  private Map.Entry<RepositoryPool.PooledRepository, String> resolvePooledOwner(
+      String path, 
+      List<RepositoryPool.PooledRepository> borrowed) {
+    RepositoryPool.PooledRepository pooled = getPooledRepository();
+    String relativePath = path;
+    if (isRecursiveSubmoduleStatus()) {
+      boolean inSubmodule = true;
+      while (inSubmodule) {
+        inSubmodule = false;
+        Map<String, RepositoryPool.PooledRepository> submodules = 
+            pooled.getSubmoduleRegistry().borrowSubmoduleRepositories();
+        for (Map.Entry<String, RepositoryPool.PooledRepository> entry : submodules.entrySet()) {
+          if (relativePath.startsWith(entry.getKey() + "/")) {
+            relativePath = relativePath.substring(entry.getKey().length() + 1);
+            pooled = entry.getValue();
+            borrowed.add(pooled);
+            // The submodule might have submodules of its own.
+            inSubmodule = true;
+            break;
+          }
+        }
+        for (RepositoryPool.PooledRepository submodule : submodules.values()) {
+          if (submodule != pooled) {
+            submodule.release();
+          }
+        }
+      }
+    }
+    return new AbstractMap.SimpleImmutableEntry<>(pooled, relativePath);
+  }
+
+  /**
+   * Groups files by the repository that contains them.
+   * 
+   * @param files    The files, relative to the working copy.
+   * @param borrowed Receives the submodule repositories borrowed to keep the repositories open.
+   *                 The caller must release them when done with the repositories.
+   * 
+   * @return The files, relative to the working copy of their repository, by repository.
+   */
+  private Map<Git, List<FileStatus>> groupByRepository(
+      Collection<FileStatus> files, 
+      List<RepositoryPool.PooledRepository> borrowed) {
+    Map<Git, List<FileStatus>> groups = new LinkedHashMap<>();
+    for (FileStatus file : files) {
+      Map.Entry<Git, String> owner = resolveOwner(file.getFileLocation(), borrowed);
+      groups.computeIfAbsent(owner.getKey(), k -> new ArrayList<>()).add(
+          owner.getKey() == git ? file : new FileStatus(file.getChangeType(), owner.getValue()));
+    }
+    return groups;
+  }
+
+  /**
+   * Groups paths by the repository that contains them.
+   * 
+   * @param paths    The paths, relative to the working copy.
+   * @param borrowed Receives the submodule repositories borrowed to keep the repositories open.
+   *                 The caller must release them when done with the repositories.
+   * 
+   * @return The paths, relative to the working copy of their repository, by repository.
+   */
+  private Map<Git, List<String>> groupPathsByRepository(
+      Collection<String> paths, 
+      List<RepositoryPool.PooledRepository> borrowed) {
+    Map<Git, List<String>> groups = new LinkedHashMap<>();
+    for (String path : paths) {
+      Map.Entry<Git, String> owner = resolveOwner(path, borrowed);
+      groups.computeIfAbsent(owner.getKey(), k -> new ArrayList<>()).add(owner.getValue());
+    }
+    return groups;
+  }
+
+  /**
+   * Releases the borrowed repositories.
+   * 
+   * @param borrowed The repositories.
+   */
+  private static void release(Collection<RepositoryPool.PooledRepository> borrowed) {
+    for (RepositoryPool.PooledRepository pooled : borrowed) {
+      pooled.release();
+    }
   }
 
   /**
    * Add submodules to the list of resources that are not staged.
    * 
+   * @param submodules    The submodules of the repository.
    * @param unstagedFiles The list of unstaged (not in the INDEX) files.
-   * @param submodules    The set of submodules.
-   * 
-	 * @throws GitAPIException When an error occurs when trying to check the
-	 *                         submodules status.
    */
-  private void addSubmodulesToUnstaged(List<FileStatus> unstagedFiles, Set<String> submodules) throws GitAPIException {
+  private void addSubmodulesToUnstaged(SubmoduleRegistry submodules, List<FileStatus> unstagedFiles) {
+    Map<String, SubmoduleStatus> statuses = submodules.getStatuses();
     if (logger.isDebugEnabled()) {
-      logger.debug("addSubmodulesToUnstaged " + submodules);
+      logger.debug("addSubmodulesToUnstaged " + statuses.keySet());
     }
-    for (String string : submodules) {
-    	SubmoduleStatus submoduleStatus = git.submoduleStatus().call().get(string);
-			if (submoduleStatus != null && submoduleStatus.getHeadId() != null
+    for (SubmoduleStatus submoduleStatus : statuses.values()) {
+			if (submoduleStatus.getHeadId() != null
     	    && !submoduleStatus.getHeadId().equals(submoduleStatus.getIndexId())) {
-    		unstagedFiles.add(new FileStatus(GitChangeType.SUBMODULE, string));
+    		unstagedFiles.add(new FileStatus(GitChangeType.SUBMODULE, submoduleStatus.getPath()));
     	}
     }
   }
@@ -676,39 +1188,46 @@ public class GitAccess {
 	 * @return the SHA-1 id
 	 */
 	public ObjectId submoduleCompare(String submodulePath, boolean index) {
-		try {
-			SubmoduleStatus submoduleStatus = git.submoduleStatus().addPath(submodulePath).call().get(submodulePath);
-			if (submoduleStatus != null) {
-			  if (index) {
-			    return submoduleStatus.getIndexId();
-			  } else {
-			    return submoduleStatus.getHeadId();
-			  }
-			}
-		} catch (GitAPIException e) {
-			if (logger.isDebugEnabled()) {
-				logger.debug(e, e);
-			}
+	  List<RepositoryPool.PooledRepository> borrowed = new ArrayList<>();
+	  SubmoduleStatus submoduleStatus;
+	  try {
+	    // The submodules of a submodule are presented under its path.
+	    Map.Entry<RepositoryPool.PooledRepository, String> owner = resolvePooledOwner(submodulePath, borrowed);
+	    submoduleStatus = owner.getKey().getSubmoduleRegistry().getStatus(owner.getValue());
+	  } finally {
+	    release(borrowed);
+	  }
+		if (submoduleStatus != null) {
+		  if (index) {
+		    return submoduleStatus.getIndexId();
+		  } else {
+		    return submoduleStatus.getHeadId();
+		  }
 		}
 		return null;
 	}
 
 	/**
-	 * Returns a list with all the submodules name for the current repository
+	 * Returns the paths of the submodules of the current repository.
 	 * 
-	 * @return a list containing all the submodules
+	 * @return the paths of the submodules. Can't be modified.
 	 */
 	public Set<String> getSubmodules() {
-		try {
-			if (git != null) {
-				return git.submoduleStatus().call().keySet();
-			}
-		} catch (GitAPIException e) {
-			if (logger.isDebugEnabled()) {
-				logger.debug(e, e);
-			}
-		}
-		return new HashSet<>();
+	  return git != null ? getPooledRepository().getSubmoduleRegistry().getPaths() : Collections.emptySet();
+	}
+	
+	/**
+	 * Returns the paths of the submodules of the given repository.
+	 * 
+	 * @param repoGit The repository.
+	 * 
+	 * @return the paths of the submodules. Can't be modified.
+	 */
+	private Set<String> getSubmodules(Git repoGit) {
+	  RepositoryPool.PooledRepository pooled = repositoryPool.get(repoGit.getRepository());
+	  SubmoduleRegistry registry = pooled != null 
+	      ? pooled.getSubmoduleRegistry() : new SubmoduleRegistry(repoGit.getRepository());
+	  return registry.getPaths();
 	}
 
 	/**
@@ -730,13 +1249,15 @@ public class GitAccess {
 		  submoduleRepository = SubmoduleWalk.getSubmoduleRepository(parentRepository, submodule);
 		}
 		
-		git = Git.wrap(submoduleRepository);
+		use(repositoryPool.borrow(Git.wrap(submoduleRepository)));
 		
 		fireRepositoryChanged();
 	}
 
 	/**
-	 * Commits a single file locally
+	 * Commits a single file locally. When the changes from inside the submodules are presented, 
+	 * the files staged in a submodule are committed in that submodule, with the same message. 
+	 * The new commit of the submodule is then presented as a change of the current repository.
 	 * 
 	 * @param file    - File to be commited
 	 * @param message - Message for the commit
@@ -744,13 +1265,24 @@ public class GitAccess {
 	public void commit(String message) {
 	  List<FileStatus> files = getStagedFiles();
 	  Collection<String> filePaths = getFilePaths(files);
+	  List<RepositoryPool.PooledRepository> borrowed = new ArrayList<>();
 		try {
 		  fireStateChanged(new GitEvent(GitCommand.COMMIT, GitCommandState.STARTED, filePaths));
-		  git.commit().setMessage(message).call();
+		  Map<Git, List<FileStatus>> groups = groupByRepository(files, borrowed);
+		  for (Git owner : groups.keySet()) {
+		    if (owner != git) {
+		      owner.commit().setMessage(message).call();
+		    }
+		  }
+		  if (groups.isEmpty() || groups.containsKey(git)) {
+		    git.commit().setMessage(message).call();
+		  }
 		  fireStateChanged(new GitEvent(GitCommand.COMMIT, GitCommandState.SUCCESSFULLY_ENDED, filePaths));
 		} catch (GitAPIException e) {
 		  fireStateChanged(new GitEvent(GitCommand.COMMIT, GitCommandState.FAILED, filePaths));
 		  logger.debug(e, e);
+		} finally {
+		  release(borrowed);
 		}
 	}
 
@@ -774,10 +1306,22 @@ public class GitAccess {
 	 * Frees resources associated with the git instance.
 	 */
 	public void closeRepo() {
-		if (git != null) {
-		  AuthenticationInterceptor.unbind(getHostName());
-			git.close();
-		}
+	  releaseRepo();
+	  if (currentPooled != null) {
+	    currentPooled.release();
+	    currentPooled = null;
+	  }
+	  repositoryPool.clear();
+	}
+	
+	/**
+	 * Stops using the current repository. It remains open, in the pool of recently used repositories.
+	 */
+	private void releaseRepo() {
+	  if (git != null) {
+	    // Stop intercepting authentication requests.
+	    AuthenticationInterceptor.unbind(getHostName());
+	  }
 	}
 
 	/**
@@ -875,15 +1419,17 @@ public class GitAccess {
         if (logger.isDebugEnabled()) {
           logger.debug(ex, ex);
         }
-        boolean retryLogin = AuthUtil.handleAuthException(
-            ex,
-            host,
-            new UserCredentials(
-                credentialsProvider.getUsername(),
-                credentialsProvider.getPassword(),
-                host),
-            excMessPresenter,
-            !credentialsProvider.wasResetCalled());
+        // A canceled listing doesn't ask for the credentials again.
+        boolean retryLogin = !Thread.currentThread().isInterrupted() 
+            && AuthUtil.handleAuthException(
+                ex,
+                host,
+                new UserCredentials(
+                    credentialsProvider.getUsername(),
+                    credentialsProvider.getPassword(),
+                    host),
+                excMessPresenter,
+                !credentialsProvider.wasResetCalled());
         if (!retryLogin || credentialsProvider.shouldCancelLogin()) {
           logger.debug("STOP TRYING TO LOGIN!");
           shouldStopTryingLogin = true;
@@ -939,8 +1485,23 @@ public class GitAccess {
 	 */
 	public PushResponse push(final String username, final String password)
 	    throws GitAPIException {
+	  return push(username, password, NullProgressMonitor.INSTANCE);
+	}
+
+	/**
+	 * Pushes all the commits from the local repository to the remote repository
+	 * 
+	 * @param username - Git username
+	 * @param password - Git password
+	 * @param monitor  - Follows the transfer. Can cancel it.
+	 *          
+	 * @throws GitAPIException
+	 */
+	public PushResponse push(final String username, final String password, ProgressMonitor monitor)
+	    throws GitAPIException {
 
 	  AuthenticationInterceptor.install();
+	  RepositoryMaintenance.getInstance().activity(git.getRepository());
 	  PushResponse response = new PushResponse();
 
 	  RepositoryState repositoryState = git.getRepository().getRepositoryState();
@@ -967,8 +1528,10 @@ public class GitAccess {
     }
 	  
 	  String sshPassphrase = OptionsManager.getInstance().getSshPassphrase();
-	  Iterable<PushResult> call = git.push().setCredentialsProvider(
-	      new SSHCapableUserCredentialsProvider(username, password, sshPassphrase, getHostName())).call();
+	  Iterable<PushResult> call = git.push()
+	      .setCredentialsProvider(new SSHCapableUserCredentialsProvider(username, password, sshPassphrase, getHostName()))
+	      .setProgressMonitor(monitor)
+	      .call();
 	  logger.debug("Push Ended");
 	  
 	  Iterator<PushResult> results = call.iterator();
@@ -1020,23 +1583,54 @@ public class GitAccess {
 	 * @throws GitAPIException other errors.
 	 */
   public PullResponse pull(String username, String password, PullType pullType) throws GitAPIException {
+    return pull(username, password, pullType, NullProgressMonitor.INSTANCE);
+  }
+
+	/**
+	 * Pulls the files that are not on the local repository from the remote
+	 * repository
+	 * 
+	 * @param username Git username
+	 * @param password Git password
+	 * @param pullType One of ff, no-ff, ff-only, rebase.
+	 * @param monitor  Follows the transfer and the update of the working tree. Can cancel the transfer.
+	 * 
+	 * @return The result, if successful.
+	 *  
+	 * @throws CheckoutConflictException There is a conflict between the local
+	 *                                   repository and the remote one. The same
+	 *                                   file that is in conflict is changed inside
+	 *                                   the working copy so operation is aborted.
+	 * @throws GitAPIException other errors.
+	 */
+  public PullResponse pull(String username, String password, PullType pullType, ProgressMonitor monitor) 
+      throws GitAPIException {
 	  PullResponse pullResponseToReturn = new PullResponse(PullStatus.OK, new HashSet<String>());
 	  AuthenticationInterceptor.install();
+	  RepositoryMaintenance.getInstance().activity(git.getRepository());
 
-		if (!getConflictingFiles().isEmpty()) {
+	  Repository repository = git.getRepository();
+		if (hasConflicts(repository)) {
 			pullResponseToReturn.setStatus(PullStatus.REPOSITORY_HAS_CONFLICTS);
 		} else {
-		  git.reset().call();
+		  if (!isIndexSameAsHead(repository)) {
+		    git.reset().call();
+		  }
 
-		  // Call "Pull"
-		  Repository repository = git.getRepository();
-		  ObjectId oldHead = resolveHead(repository);
 		  String sshPassphrase = OptionsManager.getInstance().getSshPassphrase();
 		  SSHCapableUserCredentialsProvider credentialsProvider = 
 		      new SSHCapableUserCredentialsProvider(username, password, sshPassphrase, getHostName());
+		  if (isUpToDateWithUpstream(repository, credentialsProvider)) {
+		    pullResponseToReturn.setStatus(PullStatus.UP_TO_DATE);
+		    return pullResponseToReturn;
+		  }
+
+		  // Call "Pull"
+		  ObjectId oldHead = resolveHead(repository);
       PullCommand pullCmd = git.pull()
           .setRebase(PullType.REBASE == pullType)
-          .setCredentialsProvider(credentialsProvider);
+          .setCredentialsProvider(credentialsProvider)
+          .setProgressMonitor(monitor);
       PullResult pullCommandResult = pullCmd.call();
 
 		  // Get fetch result
@@ -1049,9 +1643,7 @@ public class GitAccess {
 		    pullResponseToReturn.setStatus(PullStatus.LOCK_FAILED);
 		  } else {
 		    ObjectId head = resolveHead(repository);
-		    if (oldHead != null && head != null) {
-		      refreshProject(repository, oldHead, head);
-		    }
+		    refreshProject(repository, oldHead, head);
 
 		    RebaseResult rebaseResult = pullCommandResult.getRebaseResult();
 		    if (rebaseResult != null) {
@@ -1066,6 +1658,113 @@ public class GitAccess {
 
 	}
 
+	/**
+	 * Checks if the index has conflicts, without looking at the working tree.
+	 * 
+	 * @param repository The repository.
+	 * 
+	 * @return <code>true</code> if some files are still in conflict.
+	 */
+	private static boolean hasConflicts(Repository repository) {
+	  boolean hasConflicts = false;
+	  try {
+	    // A stash applied with conflicts leaves the repository in the SAFE state, so the index
+	    // entries are checked even when no merge, rebase or cherry-pick is in progress.
+	    hasConflicts = repository.readDirCache().hasUnmergedPaths();
+	  } catch (IOException | NoWorkTreeException e) {
+	    if (logger.isDebugEnabled()) {
+	      logger.debug(e, e);
+	    }
+	  }
+	  return hasConflicts;
+	}
+
+	/**
+	 * Checks if the index has the same content as HEAD, meaning that nothing is staged and
+	 * no operation is in progress. Only the index and the HEAD tree are compared, the working
+	 * tree is not scanned.
+	 * 
+	 * @param repository The repository.
+	 * 
+	 * @return <code>true</code> if resetting the index would change nothing.
+	 */
+	private static boolean isIndexSameAsHead(Repository repository) {
+	  boolean same = false;
+	  if (repository.getRepositoryState() == RepositoryState.SAFE) {
+	    try {
+	      DirCache dirCache = repository.readDirCache();
+	      ObjectId headTree = repository.resolve("HEAD^{tree}");
+	      if (headTree == null) {
+	        same = dirCache.getEntryCount() == 0;
+	      } else if (!dirCache.hasUnmergedPaths()) {
+	        try (TreeWalk treeWalk = new TreeWalk(repository)) {
+	          treeWalk.addTree(headTree);
+	          treeWalk.addTree(new DirCacheIterator(dirCache));
+	          treeWalk.setRecursive(true);
+	          // The folders with the same tree ID in both are skipped.
+	          treeWalk.setFilter(TreeFilter.ANY_DIFF);
+	          same = !treeWalk.next();
+	        }
+	      }
+	    } catch (IOException | RevisionSyntaxException | NoWorkTreeException e) {
+	      if (logger.isDebugEnabled()) {
+	        logger.debug(e, e);
+	      }
+	    }
+	  }
+	  return same;
+	}
+
+	/**
+	 * Asks the remote where the upstream of the current branch is, without fetching anything.
+	 * 
+	 * @param repository          The repository.
+	 * @param credentialsProvider The credentials.
+	 * 
+	 * @return <code>true</code> if the upstream branch didn't move since the last fetch and the
+	 * current branch already contains it, so a pull would have nothing to bring.
+	 * 
+	 * @throws GitAPIException When the remote cannot be listed.
+	 */
+	private boolean isUpToDateWithUpstream(Repository repository, CredentialsProvider credentialsProvider)
+	    throws GitAPIException {
+	  boolean upToDate = false;
+	  try {
+	    String fullBranch = repository.getFullBranch();
+	    if (fullBranch != null && fullBranch.startsWith(Constants.R_HEADS)) {
+	      BranchConfig branchConfig = new BranchConfig(repository.getConfig(), Repository.shortenRefName(fullBranch));
+	      String merge = branchConfig.getMerge();
+	      String trackingBranch = branchConfig.getRemoteTrackingBranch();
+	      Ref tracking = trackingBranch != null ? repository.exactRef(trackingBranch) : null;
+	      ObjectId head = repository.resolve(Constants.HEAD);
+	      if (tracking != null && head != null && !branchConfig.isRemoteLocal()) {
+	        String remote = branchConfig.getRemote();
+	        Map<String, Ref> remoteRefs = git.lsRemote()
+	            .setRemote(remote != null ? remote : Constants.DEFAULT_REMOTE_NAME)
+	            .setHeads(merge.startsWith(Constants.R_HEADS))
+	            .setCredentialsProvider(credentialsProvider)
+	            .callAsMap();
+	        Ref upstream = remoteRefs.get(merge);
+	        if (upstream != null && tracking.getObjectId().equals(upstream.getObjectId())) {
+	          try (RevWalk revWalk = new RevWalk(repository)) {
+	            upToDate = revWalk.isMergedInto(
+	                revWalk.parseCommit(tracking.getObjectId()),
+	                revWalk.parseCommit(head));
+	          }
+	        }
+	      }
+	    }
+	  } catch (IOException | RevisionSyntaxException e) {
+	    if (logger.isDebugEnabled()) {
+	      logger.debug(e, e);
+	    }
+	  }
+	  if (logger.isDebugEnabled()) {
+	    logger.debug("Up to date with the upstream: " + upToDate);
+	  }
+	  return upToDate;
+	}
+
 	/**
    * Treat rebase result.
    * 
@@ -1216,40 +1915,75 @@ public class GitAccess {
   }
 
 	/**
-	 * Refresh the Project view.
+	 * Refresh the Project view. Only the folders that received or lost files are refreshed.
 	 * 
 	 * @param repository The current repository.      
-	 * @param oldHead    The old HEAD (before pull).
-	 * @param head       The new HEAD (after pull).
-	 * 
-	 * @throws GitAPIException when error occurs during diff.
+	 * @param oldHead    The old HEAD (before pull). May be <code>null</code>.
+	 * @param head       The new HEAD (after pull). May be <code>null</code>.
 	 */
-  private void refreshProject(Repository repository, ObjectId oldHead, ObjectId head) throws GitAPIException {
-    CanonicalTreeParser oldTreeIter = new CanonicalTreeParser();
-    CanonicalTreeParser newTreeIter = new CanonicalTreeParser();
+  private void refreshProject(Repository repository, ObjectId oldHead, ObjectId head) {
     try {
-      ObjectReader reader = repository.newObjectReader();
-      oldTreeIter.reset(reader, oldHead);
-      newTreeIter.reset(reader, head);
-			List<DiffEntry> diffs = git.diff().setNewTree(newTreeIter).setOldTree(oldTreeIter).call();
-      
-      Set<File> pulledFilesParentDirs = new HashSet<>();
-      String selectedRepository = OptionsManager.getInstance().getSelectedRepository();
-      for (DiffEntry diffEntry : diffs) {
-        if (diffEntry.getChangeType() == ChangeType.ADD) {
-          pulledFilesParentDirs.add(new File(selectedRepository, diffEntry.getNewPath()).getParentFile());
-        } else if (diffEntry.getChangeType() == ChangeType.DELETE) {
-          pulledFilesParentDirs.add(new File(selectedRepository, diffEntry.getOldPath()).getParentFile());
-        }
+      List<String> addedOrRemovedPaths = new ArrayList<>();
+      if (oldHead != null && head != null) {
+        addedOrRemovedPaths.addAll(getAddedOrRemovedPaths(repository, oldHead, head));
       }
-      // Refresh the Project view
-			ProjectViewManager.refreshFolders(new File[] { FileHelper.getCommonDir(pulledFilesParentDirs) });
+      refreshProject(repository, addedOrRemovedPaths);
     } catch (IOException e) {
       if (logger.isDebugEnabled()) {
         logger.debug(e, e);
       }
     }
   }
+  
+  /**
+   * Refresh the Project view folders that received or lost files.
+   * 
+   * @param repository          The current repository.
+   * @param addedOrRemovedPaths The added or removed files, relative to the working copy.
+   */
+  private static void refreshProject(Repository repository, List<String> addedOrRemovedPaths) {
+    if (!addedOrRemovedPaths.isEmpty()) {
+      RefreshPlanner planner = new RefreshPlanner(
+          repository.getWorkTree(), 
+          ProjectViewManager.getProjectFolders());
+      for (File[] batch : RefreshPlanner.toBatches(planner.plan(addedOrRemovedPaths))) {
+        ProjectViewManager.refreshFolders(batch);
+      }
+    }
+  }
+  
+  /**
+   * Gets the files added or removed between two commits. Only the trees are compared,
+   * the file contents are not read.
+   * 
+   * @param repository The repository.
+   * @param oldCommit  The old commit.
+   * @param newCommit  The new commit.
+   * 
+   * @return The paths of the added or removed files.
+   * 
+   * @throws IOException When the trees cannot be read.
+   */
+  private static List<String> getAddedOrRemovedPaths(
+      Repository repository, 
+      ObjectId oldCommit, 
+      ObjectId newCommit) throws IOException {
+    List<String> paths = new ArrayList<>();
+    try (RevWalk revWalk = new RevWalk(repository);
+        TreeWalk treeWalk = new TreeWalk(repository)) {
+      treeWalk.addTree(revWalk.parseTree(oldCommit));
+      treeWalk.addTree(revWalk.parseTree(newCommit));
+      treeWalk.setRecursive(true);
+      // The subtrees that are identical are skipped.
+      treeWalk.setFilter(TreeFilter.ANY_DIFF);
+      while (treeWalk.next()) {
+        if (treeWalk.getRawMode(0) == 0 || treeWalk.getRawMode(1) == 0) {
+          paths.add(treeWalk.getPathString());
+        }
+      }
+    }
+    return paths;
+  }
 
 	/**
 	 * Finds the common base for the given commit "a" and the given commit "b"
@@ -1285,12 +2019,14 @@ public class GitAccess {
 	 */
 	public void add(FileStatus file) {
 	  Collection<String> filePaths = getFilePaths(Arrays.asList(file));
+	  List<RepositoryPool.PooledRepository> borrowed = new ArrayList<>();
 	  try {
 	    fireStateChanged(new GitEvent(GitCommand.STAGE, GitCommandState.STARTED, filePaths));
+	    Map.Entry<Git, String> owner = resolveOwner(file.getFileLocation(), borrowed);
 	    if (file.getChangeType().equals(GitChangeType.REMOVED)) {
-	      git.rm().addFilepattern(file.getFileLocation()).call();
+	      owner.getKey().rm().addFilepattern(owner.getValue()).call();
 	    } else {
-	      git.add().addFilepattern(file.getFileLocation()).call();
+	      owner.getKey().add().addFilepattern(owner.getValue()).call();
 	    }
 	    fireStateChanged(new GitEvent(GitCommand.STAGE, GitCommandState.SUCCESSFULLY_ENDED, filePaths));
 	  } catch (GitAPIException e) {
@@ -1298,6 +2034,8 @@ public class GitAccess {
 	    if (logger.isDebugEnabled()) {
 	      logger.debug(e, e);
 	    }
+		} finally {
+		  release(borrowed);
 		}
 	}
 
@@ -1308,33 +2046,37 @@ public class GitAccess {
 	 */
 	public void addAll(List<FileStatus> files) {
 	  Collection<String> filePaths = getFilePaths(files);
+	  List<RepositoryPool.PooledRepository> borrowed = new ArrayList<>();
 		try {
 		  fireStateChanged(new GitEvent(GitCommand.STAGE, GitCommandState.STARTED, filePaths));
 		  
-		  RmCommand removeCmd = null;
-		  AddCommand addCmd = null;
-		  
-			for (FileStatus file : files) {
-				if (file.getChangeType() == GitChangeType.MISSING) {
-				  if (removeCmd == null) {
-				    removeCmd = git.rm().setCached(true);
-				  }
-          removeCmd.addFilepattern(file.getFileLocation());
-				} else {
-				  if (addCmd == null) {
-				    addCmd = git.add();
-				  }
-          addCmd.addFilepattern(file.getFileLocation());
-				}
-			}
-			
-			if (addCmd != null) {
-			  addCmd.call();
-			}
-			
-			if (removeCmd != null) {
-			  removeCmd.call();
-			}
+		  for (Map.Entry<Git, List<FileStatus>> group : groupByRepository(files, borrowed).entrySet()) {
+		    Git repoGit = group.getKey();
+		    RmCommand removeCmd = null;
+		    AddCommand addCmd = null;
+
+		    for (FileStatus file : group.getValue()) {
+		      if (file.getChangeType() == GitChangeType.MISSING) {
+		        if (removeCmd == null) {
+		          removeCmd = repoGit.rm().setCached(true);
+		        }
+		        removeCmd.addFilepattern(file.getFileLocation());
+		      } else {
+		        if (addCmd == null) {
+		          addCmd = repoGit.add();
+		        }
+		        addCmd.addFilepattern(file.getFileLocation());
+		      }
+		    }
+
+		    if (addCmd != null) {
+		      addCmd.call();
+		    }
+
+		    if (removeCmd != null) {
+		      removeCmd.call();
+		    }
+		  }
 			
 			fireStateChanged(new GitEvent(GitCommand.STAGE, GitCommandState.SUCCESSFULLY_ENDED, filePaths));
 		} catch (GitAPIException e) {
@@ -1342,6 +2084,8 @@ public class GitAccess {
 			if (logger.isDebugEnabled()) {
 				logger.debug(e, e);
 			}
+		} finally {
+		  release(borrowed);
 		}
 	}
 	
@@ -1364,15 +2108,14 @@ public class GitAccess {
    */
   public List<FileStatus> getStagedFile(Collection<String> paths) {
     if (git != null) {
-      StatusCommand statusCmd = git.status();
-      for (Iterator<String> iterator = paths.iterator(); iterator.hasNext();) {
-        String path = iterator.next();
-        statusCmd.addPath(path);
-      }
-
       try {
-        Status status = statusCmd.call();
-        return getStagedFiles(status);
+        StatusCommand statusCmd = createStatusCommand(git, paths);
+        if (statusCmd != null) {
+          Status status = getUntrackedFilesCache().call(statusCmd).getStatus();
+          List<FileStatus> stagedFiles = getStagedFiles(git, status);
+          addSubmoduleChanges(getPooledRepository(), paths, null, stagedFiles);
+          return stagedFiles;
+        }
 			} catch (GitAPIException e) {
         if (logger.isDebugEnabled()) {
           logger.debug(e, e);
@@ -1387,13 +2130,14 @@ public class GitAccess {
 	 * Checks which files from the given subset are in the Index and returns their
 	 * state.
 	 * 
-	 * @param statusCmd Status command to execute.
+	 * @param repoGit The repository.
+	 * @param status  The repository's status.
 	 * 
 	 * @return - a set containing the subset of files present in the INDEX.
 	 */
-  private List<FileStatus> getStagedFiles(Status status) {
+  private List<FileStatus> getStagedFiles(Git repoGit, Status status) {
     List<FileStatus> stagedFiles = new ArrayList<>();
-    Set<String> submodules = getSubmodules();
+    Set<String> submodules = getSubmodules(repoGit);
 
     for (String fileName : status.getChanged()) {
       // File from INDEX, modified from HEAD
@@ -1448,10 +2192,12 @@ public class GitAccess {
 	 */
 	public void reset(FileStatus file) {
 	  Collection<String> filePaths = getFilePaths(Arrays.asList(file));
+	  List<RepositoryPool.PooledRepository> borrowed = new ArrayList<>();
 		try {
 		  fireStateChanged(new GitEvent(GitCommand.UNSTAGE, GitCommandState.STARTED, filePaths));
-			ResetCommand reset = git.reset();
-			reset.addPath(file.getFileLocation());
+			Map.Entry<Git, String> owner = resolveOwner(file.getFileLocation(), borrowed);
+			ResetCommand reset = owner.getKey().reset();
+			reset.addPath(owner.getValue());
 			reset.call();
 			fireStateChanged(new GitEvent(GitCommand.UNSTAGE, GitCommandState.SUCCESSFULLY_ENDED, filePaths));
 		} catch (GitAPIException e) {
@@ -1459,6 +2205,8 @@ public class GitAccess {
 			if (logger.isDebugEnabled()) {
 				logger.debug(e, e);
 			}
+		} finally {
+		  release(borrowed);
 		}
 	}
 
@@ -1469,11 +2217,12 @@ public class GitAccess {
 	 */
 	public void resetAll(List<FileStatus> files) {
 	  Collection<String> filePaths = getFilePaths(files);
+	  List<RepositoryPool.PooledRepository> borrowed = new ArrayList<>();
 		try {
 		  fireStateChanged(new GitEvent(GitCommand.UNSTAGE, GitCommandState.STARTED, filePaths));
-			if (!files.isEmpty()) {
-				ResetCommand reset = git.reset();
-				for (FileStatus file : files) {
+			for (Map.Entry<Git, List<FileStatus>> group : groupByRepository(files, borrowed).entrySet()) {
+				ResetCommand reset = group.getKey().reset();
+				for (FileStatus file : group.getValue()) {
 					reset.addPath(file.getFileLocation());
 				}
 				reset.call();
@@ -1484,6 +2233,8 @@ public class GitAccess {
 			if (logger.isDebugEnabled()) {
 				logger.debug(e, e);
 			}
+		} finally {
+		  release(borrowed);
 		}
 	}
 
@@ -1494,27 +2245,20 @@ public class GitAccess {
 	 *         <code>null</code>.
 	 */
 	public String getHostName() {
-		if (git != null) {
-			Config storedConfig = git.getRepository().getConfig();
-			// TODO How we should react when there are multiple remote repositories?
-			String url = storedConfig.getString(REMOTE, "origin", "url");
-			if (url == null) {
-			  Set<String> remoteNames = git.getRepository().getRemoteNames();
-			  Iterator<String> iterator = remoteNames.iterator();
-			  if (iterator.hasNext()) {
-			    url = storedConfig.getString(REMOTE, iterator.next(), "url");
-			  }
-			}
-			try {
-				URL u = new URL(url);
-				url = u.getHost();
-				return url;
-			} catch (MalformedURLException e) {
-				return "";
-			}
-		}
-		return "";
-
+	  return git != null ? getHostName(git.getRepository()) : "";
+	}
+	
+	/**
+	 * Gets the host name from the URL of the given repository's remote.
+	 * 
+	 * @param repository The repository.
+	 * 
+	 * @return The host name. An empty string if not connected. Never
+	 *         <code>null</code>.
+	 */
+	private String getHostName(Repository repository) {
+	  // TODO How we should react when there are multiple remote repositories?
+	  return repository != null ? RemoteDescriptorCache.getInstance().getHostName(repository) : "";
 	}
 
 	/**
@@ -1630,9 +2374,44 @@ public class GitAccess {
 	 * @throws IOException
 	 */
 	public InputStream getInputStream(ObjectId commitID) throws IOException {
+	  return getInputStream(git.getRepository(), commitID);
+	}
+
+	/**
+	 * Gets the InputStream for a version of a file from the working copy, read from the
+	 * repository that contains the file, which can be a submodule.
+	 * 
+	 * @param objectID The ID of the file version, as given by {@link #locateObjectIdInIndex(String)}
+	 *                 or {@link #getCommit(Commit, String)}.
+	 * @param path     The path of the file, relative to the working copy.
+	 * 
+	 * @return the InputStream for the file
+	 * 
+	 * @throws IOException
+	 */
+	public InputStream getInputStream(ObjectId objectID, String path) throws IOException {
+	  List<RepositoryPool.PooledRepository> borrowed = new ArrayList<>();
+	  try {
+	    return getInputStream(resolveOwner(path, borrowed).getKey().getRepository(), objectID);
+	  } finally {
+	    release(borrowed);
+	  }
+	}
+
+	/**
+	 * Gets the InputStream for an object of a repository.
+	 * 
+	 * @param repository The repository.
+	 * @param commitID   The ID of the object.
+	 * 
+	 * @return the InputStream for the object.
+	 * 
+	 * @throws IOException
+	 */
+	private static InputStream getInputStream(Repository repository, ObjectId commitID) throws IOException {
 		InputStream toReturn = null;
 		if (commitID != null) {
-			ObjectLoader loader = git.getRepository().open(commitID);
+			ObjectLoader loader = repository.open(commitID);
 			if (loader == null) {
 			  throw new IOException("Cannot obtain an object loader for the commit ID: " + commitID);
 			} else {
@@ -1664,17 +2443,22 @@ public class GitAccess {
 	 * @param file - the path to the file you want to restore
 	 */
 	public void restoreLastCommitFile(List<String> paths) {
+	  List<RepositoryPool.PooledRepository> borrowed = new ArrayList<>();
 		try {
 		  fireStateChanged(new GitEvent(GitCommand.DISCARD, GitCommandState.STARTED, paths));
-		  CheckoutCommand checkoutCmd = git.checkout();
-		  checkoutCmd.addPaths(paths);
-			checkoutCmd.call();
+		  for (Map.Entry<Git, List<String>> group : groupPathsByRepository(paths, borrowed).entrySet()) {
+		    CheckoutCommand checkoutCmd = group.getKey().checkout();
+		    checkoutCmd.addPaths(group.getValue());
+		    checkoutCmd.call();
+		  }
 			fireStateChanged(new GitEvent(GitCommand.DISCARD, GitCommandState.SUCCESSFULLY_ENDED, paths));
 		} catch (GitAPIException e) {
 		  fireStateChanged(new GitEvent(GitCommand.DISCARD, GitCommandState.FAILED, paths));
 			if (logger.isDebugEnabled()) {
 				logger.debug(e, e);
 			}
+		} finally {
+		  release(borrowed);
 		}
 	}
 
@@ -1735,29 +2519,180 @@ public class GitAccess {
 	}
 
 	/**
-	 * Brings all the commits to the local repository but does not merge them.
+	 * Refreshes several repositories in parallel: computes their status and counts the commits 
+	 * to push and pull. The current repository can be one of them. The computed statuses also 
+	 * become the last known statuses of the repositories, so switching to one of them shows its 
+	 * changes right away.
+	 * <br><br>
+	 * The fetches are requested from the {@link RemoteStateService}. The snapshots have the
+	 * commits to push and pull known before the fetches, the new ones are published when the
+	 * fetches end.
+	 * 
+	 * @param workingCopies The working copies to refresh.
+	 * @param fetch         <code>true</code> to also request fetches from the remotes.
+	 * 
+	 * @return The state of the repositories that could be refreshed, in the given order.
+	 */
+	public List<RepositorySnapshot> refreshRepositories(List<File> workingCopies, boolean fetch) {
+	  List<Callable<RepositorySnapshot>> tasks = new ArrayList<>(workingCopies.size());
+	  for (File workingCopy : workingCopies) {
+	    tasks.add(() -> refreshRepository(workingCopy, fetch));
+	  }
+	  
+	  List<RepositorySnapshot> snapshots = new ArrayList<>(workingCopies.size());
+	  try {
+	    for (Future<RepositorySnapshot> future : GitOperationScheduler.getInstance().invokeAll(tasks)) {
+	      try {
+	        RepositorySnapshot snapshot = future.get();
+	        if (snapshot != null) {
+	          snapshots.add(snapshot);
+	        }
+	      } catch (ExecutionException e) {
+	        logger.debug(e, e);
+	      }
+	    }
+	  } catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    logger.debug(e, e);
+	  }
+	  return snapshots;
+	}
+	
+	/**
+	 * Refreshes a repository from the workspace.
+	 * 
+	 * @param workingCopy The working copy.
+	 * @param fetch       <code>true</code> to also request a fetch from the remote.
+	 * 
+	 * @return The state of the repository or <code>null</code> if its status couldn't be computed.
+	 * 
+	 * @throws IOException If the repository cannot be opened.
+	 */
+	private RepositorySnapshot refreshRepository(File workingCopy, boolean fetch) throws IOException {
+	  RepositoryPool.PooledRepository pooled = repositoryPool.borrow(new File(workingCopy, ".git"));
+	  try {
+	    return refreshRepository(workingCopy, pooled, fetch);
+	  } finally {
+	    pooled.release();
+	  }
+	}
+	
+	/**
+	 * Refreshes a repository from the workspace.
+	 * 
+	 * @param workingCopy The working copy.
+	 * @param pooled      The repository, borrowed from the pool.
+	 * @param fetch       <code>true</code> to also request a fetch from the remote.
+	 * 
+	 * @return The state of the repository or <code>null</code> if its status couldn't be computed.
+	 */
+	private RepositorySnapshot refreshRepository(
+	    File workingCopy, RepositoryPool.PooledRepository pooled, boolean fetch) {
+	  Repository repository = pooled.getGit().getRepository();
+	  if (fetch) {
+	    // Shared with the other fetches of the repository. The new state is published when it ends.
+	    RemoteStateService.getInstance().requestFetch(repository, false);
+	  }
+	  
+	  RepositorySnapshot snapshot = null;
+	  GitStatus status = computeStatus(pooled);
+	  if (status != null) {
+	    RemoteState state = RemoteStateService.getInstance().getState(repository);
+	    snapshot = new RepositorySnapshot(
+	        workingCopy, 
+	        status, 
+	        Math.max(state.getPushesAhead(), 0), 
+	        state.getPullsBehind(), 
+	        state.isRemoteAvailable());
+	  }
+	  return snapshot;
+	}
+
+	/**
+	 * Brings the commits to the local repository but does not merge them. What is fetched 
+	 * is decided by the {@link FetchPolicy}.
 	 * 
 	 * @throws PrivateRepositoryException 
 	 */
 	public void fetch()
 			throws SSHPassphraseRequiredException, PrivateRepositoryException, RepositoryUnavailableException {
+	  fetch(git, false);
+	}
+	
+	/**
+	 * Brings the commits to the local repository but does not merge them. What is fetched 
+	 * is decided by the {@link FetchPolicy}.
+	 * 
+	 * @param tagsRequested <code>true</code> if the tags are needed, for example to present them.
+	 * 
+	 * @throws PrivateRepositoryException 
+	 */
+	public void fetch(boolean tagsRequested)
+	    throws SSHPassphraseRequiredException, PrivateRepositoryException, RepositoryUnavailableException {
+	  fetch(git, tagsRequested);
+	}
+	
+	/**
+	 * Brings the commits to the given local repository but does not merge them. What is fetched 
+	 * is decided by the {@link FetchPolicy}.
+	 * 
+	 * @param repository    The repository.
+	 * @param tagsRequested <code>true</code> if the tags are needed.
+	 * 
+	 * @throws PrivateRepositoryException 
+	 */
+	void fetch(Repository repository, boolean tagsRequested)
+	    throws SSHPassphraseRequiredException, PrivateRepositoryException, RepositoryUnavailableException {
+	  // Keep the repository open, even if it's no longer the current one.
+	  RepositoryPool.PooledRepository pooled = repositoryPool.borrow(repository);
+	  try {
+	    fetch(pooled != null ? pooled.getGit() : Git.wrap(repository), tagsRequested);
+	  } finally {
+	    if (pooled != null) {
+	      pooled.release();
+	    }
+	  }
+	}
+	
+	/**
+	 * Brings the commits to the given local repository but does not merge them.
+	 * 
+	 * @param repoGit       The repository.
+	 * @param tagsRequested <code>true</code> if the tags are needed.
+	 * 
+	 * @throws PrivateRepositoryException 
+	 */
+	private void fetch(Git repoGit, boolean tagsRequested)
+	    throws SSHPassphraseRequiredException, PrivateRepositoryException, RepositoryUnavailableException {
 		if (logger.isDebugEnabled()) {
 			logger.debug("Begin fetch");
 		}
 		AuthenticationInterceptor.install();
+		RepositoryMaintenance.getInstance().activity(repoGit.getRepository());
 		
-		UserCredentials gitCredentials = OptionsManager.getInstance().getGitCredentials(getHostName());
+		String hostName = getHostName(repoGit.getRepository());
+		UserCredentials gitCredentials = OptionsManager.getInstance().getGitCredentials(hostName);
 		String username = gitCredentials.getUsername();
 		String password = gitCredentials.getPassword();
 		String sshPassphrase = OptionsManager.getInstance().getSshPassphrase();
 		SSHCapableUserCredentialsProvider credentialsProvider = new SSHCapableUserCredentialsProvider(username, password,
-				sshPassphrase, getHostName());
+				sshPassphrase, hostName);
 		try {
-			StoredConfig config = git.getRepository().getConfig();
+			StoredConfig config = repoGit.getRepository().getConfig();
 			Set<String> sections = config.getSections();
 			if (sections.contains(REMOTE)) {
-        git.fetch().setRefSpecs(new RefSpec("+refs/heads/*:refs/remotes/origin/*")).setCheckFetchedObjects(true)
-						.setCredentialsProvider(credentialsProvider).call();
+			  FetchCommand fetchCmd = FetchPolicy.fromSystemProperties().createFetchCommand(repoGit, tagsRequested);
+			  FetchStatistics.ReceivedObjectsCounter counter = new FetchStatistics.ReceivedObjectsCounter();
+			  long start = System.currentTimeMillis();
+			  FetchResult fetchResult = fetchCmd.setCredentialsProvider(credentialsProvider)
+			      .setProgressMonitor(counter)
+			      .call();
+			  recordFetch(
+			      repoGit.getRepository(), 
+			      fetchCmd.getRemote(), 
+			      fetchResult,
+			      counter.getReceivedObjects(), 
+			      System.currentTimeMillis() - start);
 			}
 		} catch (TransportException e) {
 			if (logger.isDebugEnabled()) {
@@ -1774,7 +2709,7 @@ public class GitAccess {
 			} else {
 			  throw new RepositoryUnavailableException(e);
 			}
-		} catch (GitAPIException | RevisionSyntaxException e) {
+		} catch (GitAPIException | RevisionSyntaxException | IOException e) {
       if (logger.isDebugEnabled()) {
         logger.debug(e, e);
       }
@@ -1783,7 +2718,46 @@ public class GitAccess {
 			logger.debug(END_FETCH_DEBUG_MESSAGE);
 		}
 	}
-
+	
+	/**
+	 * Records the statistics of a fetch.
+	 * 
+	 * @param repository      The repository.
+	 * @param remote          The remote name.
+	 * @param fetchResult     The result of the fetch.
+	 * @param objectsReceived The number of objects received.
+	 * @param durationMillis  The duration, in milliseconds.
+	 */
+	private void recordFetch(
+	    Repository repository, 
+	    String remote, 
+	    FetchResult fetchResult, 
+	    int objectsReceived, 
+	    long durationMillis) {
+	  String url = repository.getConfig().getString(REMOTE, remote, "url");
+	  FetchStatistics statistics = fetchStatistics.computeIfAbsent(
+	      url != null ? url : remote, 
+	      k -> new FetchStatistics());
+	  int refsAdvertised = fetchResult.getAdvertisedRefs().size();
+	  int refsUpdated = fetchResult.getTrackingRefUpdates().size();
+	  statistics.record(refsAdvertised, refsUpdated, objectsReceived, durationMillis);
+	  if (logger.isDebugEnabled()) {
+	    logger.debug("Fetched from " + url + ": " + refsAdvertised + " refs advertised, " + refsUpdated 
+	        + " refs updated, " + objectsReceived + " objects received in " + durationMillis + " ms. " + statistics);
+	  }
+	}
+	
+	/**
+	 * Gets the statistics of the fetches from a remote.
+	 * 
+	 * @param remoteUrl The remote URL.
+	 * 
+	 * @return The statistics or <code>null</code> if there was no fetch from that remote.
+	 */
+	public FetchStatistics getFetchStatistics(String remoteUrl) {
+	  return fetchStatistics.get(remoteUrl);
+	}
+	
 	/**
 	 * Replace with remote content. Useful when resolving a conflict using 'theirs'.
 	 * 
@@ -1874,7 +2848,30 @@ public class GitAccess {
 	 */
 	public void setBranch(String selectedBranch) throws GitAPIException {
 		git.checkout().setName(selectedBranch).call();
-
+	}
+	
+	/**
+	 * @return The directories the work on the current working copy is restricted to, relative to
+	 * the working copy. Empty if the whole working copy is of interest.
+	 */
+	public List<String> getSparseCheckoutDirectories() {
+	  return git != null ? SparseCheckout.getDirectories(git.getRepository()) : Collections.emptyList();
+	}
+	
+	/**
+	 * Restricts the work on the current working copy to some directories. The files from outside
+	 * are no longer visited when computing the status. No file is added or removed.
+	 * 
+	 * @param directories The directories, relative to the working copy. An empty collection, or one
+	 *                    that contains the empty path, selects the whole working copy.
+	 * 
+	 * @throws IOException When the configuration cannot be saved.
+	 */
+	public void setSparseCheckoutDirectories(Collection<String> directories) throws IOException {
+	  if (git != null) {
+	    SparseCheckout.setDirectories(git.getRepository(), directories);
+	    fireRepositoryChanged();
+	  }
 	}
 
 	/**
@@ -1898,8 +2895,17 @@ public class GitAccess {
 	 * @throws IOException Unable to read the index.
 	 */
 	public ObjectId locateObjectIdInIndex(String path)  throws IOException {
-	  DirCache dc = git.getRepository().readDirCache();
-	  int firstIndex = dc.findEntry(path);
+	  // The files from inside the submodules are in the INDEX of the submodule.
+	  List<RepositoryPool.PooledRepository> borrowed = new ArrayList<>();
+	  DirCache dc;
+	  int firstIndex;
+	  try {
+	    Map.Entry<Git, String> owner = resolveOwner(path, borrowed);
+	    dc = owner.getKey().getRepository().readDirCache();
+	    firstIndex = dc.findEntry(owner.getValue());
+	  } finally {
+	    release(borrowed);
+	  }
 	  if (firstIndex < 0) {
 	    return null;
 	  }
@@ -1967,8 +2973,13 @@ public class GitAccess {
 	 */
 	public ObjectId getCommit(Commit commit, String path) {
 	  ObjectId toReturn = null;
+	  List<RepositoryPool.PooledRepository> borrowed = new ArrayList<>();
 		try {
-		  List<DiffEntry> entries = git.diff().setPathFilter(PathFilter.create(path)).call();
+		  // The files from inside the submodules are read from the submodule.
+		  Map.Entry<Git, String> owner = resolveOwner(path, borrowed);
+		  Git ownerGit = owner.getKey();
+		  String ownerPath = owner.getValue();
+		  List<DiffEntry> entries = ownerGit.diff().setPathFilter(PathFilter.create(ownerPath)).call();
 			boolean isTwoWayDiff = false;
 			if (entries.size() < 3) {
 				isTwoWayDiff = true;
@@ -1997,14 +3008,14 @@ public class GitAccess {
 			} else if (commit == Commit.BASE) {
 			  toReturn = entries.get(index).getOldId().toObjectId();
 			} else if (commit == Commit.LOCAL) {
-				ObjectId lastLocalCommit = getLastLocalCommit();
-				RevWalk revWalk = new RevWalk(git.getRepository());
+				ObjectId lastLocalCommit = ownerGit.getRepository().resolve("HEAD^{commit}");
+				RevWalk revWalk = new RevWalk(ownerGit.getRepository());
 				RevCommit revCommit = revWalk.parseCommit(lastLocalCommit);
 				RevTree tree = revCommit.getTree();
-				TreeWalk treeWalk = new TreeWalk(git.getRepository());
+				TreeWalk treeWalk = new TreeWalk(ownerGit.getRepository());
 				treeWalk.addTree(tree);
 				treeWalk.setRecursive(true);
-				treeWalk.setFilter(PathFilter.create(path));
+				treeWalk.setFilter(PathFilter.create(ownerPath));
 				if (treeWalk.next()) {
 				  toReturn = treeWalk.getObjectId(0);
 				}
@@ -2013,6 +3024,8 @@ public class GitAccess {
 			}
 		} catch (GitAPIException | IOException e) {
 		  logger.debug(e, e);
+		} finally {
+		  release(borrowed);
 		}
 		return toReturn;
 	}
@@ -2145,12 +3158,14 @@ public class GitAccess {
 	 * @return a Vector with commits characteristics of the current repository.
 	 */
 	public List<CommitCharacteristics> getCommitsCharacteristics(String filePath) {
-		List<CommitCharacteristics> commitVector = new ArrayList<>();
+		CommitStore commitVector = new CommitStore(null);
 
+		// The walk continues on this repository even if another one becomes the current one.
+		RepositoryPool.PooledRepository pooled = git != null ? borrowPooledRepository() : null;
 		try {
-			Repository repository = this.getRepository();
-			if (filePath == null && git.status().call().hasUncommittedChanges()) {
-				commitVector.add(UNCOMMITED_CHANGES);
+			Repository repository = pooled != null ? pooled.getGit().getRepository() : this.getRepository();
+			if (filePath == null && createStatusCommand(pooled.getGit(), Collections.emptyList()).call().hasUncommittedChanges()) {
+				commitVector = new CommitStore(UNCOMMITED_CHANGES);
 }
 
 			// a RevWalk allows to walk over commits based on some filtering that is defined
@@ -2184,20 +3199,7 @@ public class GitAccess {
 			    }
 
 			    for (RevCommit commit : revWalk) {
-			      String commitMessage = commit.getFullMessage();
-			      PersonIdent authorIdent = commit.getAuthorIdent();
-			      String author = authorIdent.getName() + " <" + authorIdent.getEmailAddress() + ">";
-			      Date authorDate = authorIdent.getWhen();
-			      String abbreviatedId = commit.getId().abbreviate(RevCommitUtilBase.ABBREVIATED_COMMIT_LENGTH).name();
-			      String id = commit.getId().getName();
-
-			      PersonIdent committerIdent = commit.getCommitterIdent();
-			      String committer = committerIdent.getName();
-			      List<String> parentsIds = getParentsId(commit);
-
-			      // add commit element in vector
-			      commitVector.add(new CommitCharacteristics(commitMessage, authorDate, author, abbreviatedId, id,
-			          committer, parentsIds));
+			      commitVector.add(commit);
 			    }
 			  } else {
 			    // Probably a new repository without any history. 
@@ -2206,31 +3208,17 @@ public class GitAccess {
 
 		} catch (NoWorkTreeException | GitAPIException | NoRepositorySelected | IOException e) {
 			logger.debug(e, e);
+		} finally {
+		  if (pooled != null) {
+		    pooled.release();
+		  }
 		}
+		commitVector.complete();
 		
 		return commitVector;
 	}
 
 
-	/**
-	 * Get a list with all the parent IDs of the current commit.
-	 * 
-	 * @param commit The current commit.
-	 * @return The list with parents commit IDs.
-	 */
-	private List<String> getParentsId(RevCommit commit) {
-		List<String> parentsIds = null;
-
-		// add list of parent commits.
-		if (commit.getParentCount() > 0) {
-			parentsIds = new ArrayList<>();
-			for (RevCommit parentCommit : commit.getParents()) {
-				parentsIds.add(parentCommit.getId().abbreviate(RevCommitUtilBase.ABBREVIATED_COMMIT_LENGTH).name());
-			}
-		}
-		return parentsIds;
-	}
-
 	/**
 	 * Get a LinkedHashMap with all tag names in current repository.
 	 * Map shows: key = commitID, value = list of tag names.
@@ -2244,6 +3232,34 @@ public class GitAccess {
 	 */
 	public Map<String, List<String>> getTagMap(Repository repository)
 			throws GitAPIException, IOException {
+	  RepositoryPool.PooledRepository pooled = repositoryPool.get(repository);
+	  if (pooled == null) {
+	    return computeTagMap(repository);
+	  }
+	  
+	  // The decorations are reused as long as the refs don't change.
+	  Map<String, ObjectId> refs = RepositoryPool.getRefs(repository);
+	  Map<String, List<String>> tagMap = pooled.getRefDecorations(TAGS, refs);
+	  if (tagMap == null) {
+	    tagMap = computeTagMap(repository);
+	    pooled.setRefDecorations(TAGS, refs, tagMap);
+	  }
+	  return tagMap;
+	}
+	
+	/**
+	 * Computes the map with all tag names in the given repository.
+	 * Map shows: key = commitID, value = list of tag names.
+	 * 
+	 * @param repository The repository.
+	 * 
+	 * @return the map, never <code>null</code>.
+	 * 
+	 * @throws GitAPIException
+	 * @throws IOException
+	 */
+	private Map<String, List<String>> computeTagMap(Repository repository)
+	    throws GitAPIException, IOException {
 		Map<String, List<String>> commitTagMap = new LinkedHashMap<>();
 		List<Ref> call = git.tagList().call();
 		
@@ -2281,6 +3297,37 @@ public class GitAccess {
 	 * @return the local / remote branchMap
 	 */
 	public Map<String, List<String>> getBranchMap(Repository repository, String branchType) {
+	  RepositoryPool.PooledRepository pooled = repositoryPool.get(repository);
+	  if (pooled == null) {
+	    return computeBranchMap(branchType);
+	  }
+	  
+	  Map<String, List<String>> branchMap = null;
+	  Map<String, ObjectId> refs = null;
+	  try {
+	    refs = RepositoryPool.getRefs(repository);
+	    branchMap = pooled.getRefDecorations(branchType, refs);
+	  } catch (IOException e) {
+	    logger.debug(e, e);
+	  }
+	  if (branchMap == null) {
+	    branchMap = computeBranchMap(branchType);
+	    if (refs != null) {
+	      pooled.setRefDecorations(branchType, refs, branchMap);
+	    }
+	  }
+	  return branchMap;
+	}
+	
+	/**
+	 * Computes the map with all local/remote branch names in the current repository.
+	 * Map shows: key = commitID, value = list of branch names.
+	 * 
+	 * @param branchType The local / remote branch.
+	 * 
+	 * @return the local / remote branchMap
+	 */
+	private Map<String, List<String>> computeBranchMap(String branchType) {
 		Map<String, List<String>> branchMap = new LinkedHashMap<>();
 		
 		List<Ref> localBranchList = null;
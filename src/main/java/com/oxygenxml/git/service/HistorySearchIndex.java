@@ -0,0 +1,615 @@
+package com.oxygenxml.git.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.eclipse.jgit.util.NB;
+
+/**
+ * A search index over the history of a repository. It maps the words from the commit messages,
+ * the authors and the changed paths to the commits, so that the history can be filtered without
+ * walking it again.
+ * <br><br>
+ * The commits reachable from the branches are indexed. Every update indexes only the commits
+ * that were added since the previous one. The index is kept in memory and it is also persisted
+ * in the Git directory, so it survives restarts.
+ * <br><br>
+ * A query is made of terms separated by spaces. All the terms must match:
+ * <ul>
+ * <li><code>author:name</code> - the author name or e-mail contains a word that starts with "name";</li>
+ * <li><code>path:folder/file</code> - the commit changed the file or something inside the folder;</li>
+ * <li><code>after:yyyy-MM-dd</code> and <code>before:yyyy-MM-dd</code> - the author date, inclusive;</li>
+ * <li>anything else - the commit message contains words that start with the words of the term.</li>
+ * </ul>
+ */
+public class HistorySearchIndex {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(HistorySearchIndex.class);
+  /**
+   * The name of the file, from the Git directory, in which the index is persisted.
+   */
+  static final String INDEX_FILE_NAME = "oxygen-history-index";
+  /**
+   * Version of the persisted format. Increment it when the format changes.
+   */
+  private static final int FORMAT_VERSION = 1;
+  /**
+   * The number of ints needed for an id.
+   */
+  private static final int ID_WORDS = 5;
+  /**
+   * Query prefix for the author terms.
+   */
+  private static final String AUTHOR_PREFIX = "author:";
+  /**
+   * Query prefix for the path terms.
+   */
+  private static final String PATH_PREFIX = "path:";
+  /**
+   * Query prefix for the first date.
+   */
+  private static final String AFTER_PREFIX = "after:";
+  /**
+   * Query prefix for the last date.
+   */
+  private static final String BEFORE_PREFIX = "before:";
+  /**
+   * The format of the dates from the queries.
+   */
+  private static final String DATE_FORMAT = "yyyy-MM-dd";
+
+  /**
+   * The commits that contain a term, in increasing order.
+   */
+  private static class Postings {
+    /**
+     * The indexed commits.
+     */
+    private int[] docs = new int[4];
+    /**
+     * The number of commits.
+     */
+    private int size;
+
+    /**
+     * Adds a commit, if not already added.
+     *
+     * @param doc The commit. Not smaller than the ones already added.
+     */
+    void add(int doc) {
+      if (size == 0 || docs[size - 1] != doc) {
+        if (size == docs.length) {
+          docs = Arrays.copyOf(docs, size * 2);
+        }
+        docs[size++] = doc;
+      }
+    }
+
+    /**
+     * Marks the commits.
+     *
+     * @param bits Receives the commits.
+     */
+    void addTo(BitSet bits) {
+      for (int i = 0; i < size; i++) {
+        bits.set(docs[i]);
+      }
+    }
+  }
+
+  /**
+   * The repository whose history is indexed.
+   */
+  private final Repository repository;
+  /**
+   * The file in which the index is persisted.
+   */
+  private final File indexFile;
+  /**
+   * <code>true</code> after the persisted index was loaded.
+   */
+  private boolean loaded;
+  /**
+   * The number of indexed commits.
+   */
+  private int docCount;
+  /**
+   * The ids of the indexed commits.
+   */
+  private int[] ids = new int[ID_WORDS * 64];
+  /**
+   * The author date of the indexed commits, in seconds.
+   */
+  private long[] times = new long[64];
+  /**
+   * The commits from which the last update started. Everything reachable from them is indexed.
+   */
+  private List<ObjectId> tips = new ArrayList<>();
+  /**
+   * The words from the commit messages.
+   */
+  private final TreeMap<String, Postings> messageTerms = new TreeMap<>();
+  /**
+   * The words from the author names and e-mails.
+   */
+  private final TreeMap<String, Postings> authorTerms = new TreeMap<>();
+  /**
+   * The changed paths.
+   */
+  private final TreeMap<String, Postings> pathTerms = new TreeMap<>();
+
+  /**
+   * Constructor.
+   *
+   * @param repository The repository whose history is indexed.
+   */
+  public HistorySearchIndex(Repository repository) {
+    this.repository = repository;
+    this.indexFile = new File(repository.getDirectory(), INDEX_FILE_NAME);
+  }
+
+  /**
+   * Indexes the commits added to the branches since the last update.
+   *
+   * @return The number of newly indexed commits.
+   *
+   * @throws IOException When the history cannot be read.
+   */
+  public synchronized int update() throws IOException {
+    ensureLoaded();
+    int added = 0;
+    try (RevWalk revWalk = new RevWalk(repository); TreeWalk treeWalk = new TreeWalk(repository)) {
+      List<ObjectId> newTips = new ArrayList<>();
+      List<Ref> refs = new ArrayList<>(repository.getRefDatabase().getRefsByPrefix(Constants.R_HEADS));
+      refs.addAll(repository.getRefDatabase().getRefsByPrefix(Constants.R_REMOTES));
+      Ref head = repository.exactRef(Constants.HEAD);
+      if (head != null) {
+        refs.add(head);
+      }
+      for (Ref ref : refs) {
+        if (ref.getObjectId() != null) {
+          RevObject object = revWalk.peel(revWalk.parseAny(ref.getObjectId()));
+          if (object instanceof RevCommit && !newTips.contains(object)) {
+            revWalk.markStart((RevCommit) object);
+            newTips.add(object.copy());
+          }
+        }
+      }
+      for (ObjectId tip : tips) {
+        try {
+          revWalk.markUninteresting(revWalk.parseCommit(tip));
+        } catch (MissingObjectException | IncorrectObjectTypeException e) {
+          // Pruned. Its ancestors that are still reachable are indexed already.
+          logger.debug(e, e);
+        }
+      }
+
+      treeWalk.setRecursive(true);
+      treeWalk.setFilter(TreeFilter.ANY_DIFF);
+      for (RevCommit commit : revWalk) {
+        add(commit, revWalk, treeWalk);
+        added++;
+      }
+
+      if (added > 0 || !newTips.equals(tips)) {
+        tips = newTips;
+        save();
+      }
+    } catch (IOException | RuntimeException e) {
+      // Don't keep a partial update. Start again from the persisted index.
+      reset();
+      throw e;
+    }
+    return added;
+  }
+
+  /**
+   * Searches the indexed commits.
+   *
+   * @param query The query. See the class documentation for the syntax.
+   *
+   * @return The ids of the matching commits, or <code>null</code> if the query is empty.
+   */
+  public synchronized Set<ObjectId> search(String query) {
+    ensureLoaded();
+    BitSet matches = null;
+    for (String term : query.trim().split("\\s+")) {
+      if (!term.isEmpty()) {
+        BitSet termMatches = match(term);
+        if (matches == null) {
+          matches = termMatches;
+        } else {
+          matches.and(termMatches);
+        }
+      }
+    }
+
+    Set<ObjectId> result = null;
+    if (matches != null) {
+      result = new HashSet<>();
+      for (int doc = matches.nextSetBit(0); doc >= 0; doc = matches.nextSetBit(doc + 1)) {
+        result.add(getId(doc));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return The number of indexed commits.
+   */
+  public synchronized int getIndexedCount() {
+    ensureLoaded();
+    return docCount;
+  }
+
+  /**
+   * Finds the commits that match a query term.
+   *
+   * @param term The term.
+   *
+   * @return The matching commits.
+   */
+  private BitSet match(String term) {
+    BitSet matches = new BitSet(docCount);
+    String lowerCaseTerm = term.toLowerCase(Locale.ENGLISH);
+    if (lowerCaseTerm.startsWith(AUTHOR_PREFIX)) {
+      matchWords(authorTerms, term.substring(AUTHOR_PREFIX.length()), matches);
+    } else if (lowerCaseTerm.startsWith(PATH_PREFIX)) {
+      matchPath(term.substring(PATH_PREFIX.length()), matches);
+    } else if (lowerCaseTerm.startsWith(AFTER_PREFIX) || lowerCaseTerm.startsWith(BEFORE_PREFIX)) {
+      boolean after = lowerCaseTerm.startsWith(AFTER_PREFIX);
+      String date = term.substring(after ? AFTER_PREFIX.length() : BEFORE_PREFIX.length());
+      matchDate(date, after, matches);
+    } else {
+      matchWords(messageTerms, term, matches);
+    }
+    return matches;
+  }
+
+  /**
+   * Finds the commits that contain all the words of a term, as prefixes of the indexed words.
+   *
+   * @param terms The indexed words.
+   * @param text  The words to search for.
+   * @param bits  Receives the matching commits.
+   */
+  private void matchWords(TreeMap<String, Postings> terms, String text, BitSet bits) {
+    List<String> words = tokenize(text);
+    if (words.isEmpty()) {
+      bits.set(0, docCount);
+    } else {
+      for (int i = 0; i < words.size(); i++) {
+        BitSet wordBits = new BitSet(docCount);
+        for (Postings postings : withPrefix(terms, words.get(i)).values()) {
+          postings.addTo(wordBits);
+        }
+        if (i == 0) {
+          bits.or(wordBits);
+        } else {
+          bits.and(wordBits);
+        }
+      }
+    }
+  }
+
+  /**
+   * Finds the commits that changed a file or something inside a folder.
+   *
+   * @param path The path, relative to the working copy.
+   * @param bits Receives the matching commits.
+   */
+  private void matchPath(String path, BitSet bits) {
+    String normalized = path.replace('\\', '/');
+    while (normalized.startsWith("/")) {
+      normalized = normalized.substring(1);
+    }
+    while (normalized.endsWith("/")) {
+      normalized = normalized.substring(0, normalized.length() - 1);
+    }
+    if (normalized.isEmpty()) {
+      bits.set(0, docCount);
+    } else {
+      for (Entry<String, Postings> entry : withPrefix(pathTerms, normalized).entrySet()) {
+        String indexedPath = entry.getKey();
+        if (indexedPath.length() == normalized.length() || indexedPath.charAt(normalized.length()) == '/') {
+          entry.getValue().addTo(bits);
+        }
+      }
+    }
+  }
+
+  /**
+   * Finds the commits authored after or before a date, inclusive.
+   *
+   * @param date  The date, as yyyy-MM-dd.
+   * @param after <code>true</code> for the commits from the date on, <code>false</code> for the commits
+   *              until the date.
+   * @param bits  Receives the matching commits. Nothing matches an invalid date.
+   */
+  private void matchDate(String date, boolean after, BitSet bits) {
+    try {
+      SimpleDateFormat format = new SimpleDateFormat(DATE_FORMAT);
+      format.setLenient(false);
+      Calendar calendar = Calendar.getInstance();
+      calendar.setTime(format.parse(date));
+      if (!after) {
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+      }
+      long limit = calendar.getTimeInMillis() / 1000;
+      for (int doc = 0; doc < docCount; doc++) {
+        if (after ? times[doc] >= limit : times[doc] < limit) {
+          bits.set(doc);
+        }
+      }
+    } catch (ParseException e) {
+      logger.debug(e, e);
+    }
+  }
+
+  /**
+   * @param terms  The indexed words.
+   * @param prefix A prefix.
+   *
+   * @return The words that start with the prefix.
+   */
+  private static SortedMap<String, Postings> withPrefix(TreeMap<String, Postings> terms, String prefix) {
+    return terms.subMap(prefix, prefix + Character.MAX_VALUE);
+  }
+
+  /**
+   * Indexes a commit.
+   *
+   * @param commit   The commit, with the body parsed.
+   * @param revWalk  The walk that produced the commit.
+   * @param treeWalk Walks the changes of the commit.
+   *
+   * @throws IOException When the changes cannot be read.
+   */
+  private void add(RevCommit commit, RevWalk revWalk, TreeWalk treeWalk) throws IOException {
+    int doc = docCount++;
+    if (ids.length < docCount * ID_WORDS) {
+      ids = Arrays.copyOf(ids, ids.length * 2);
+    }
+    if (times.length < docCount) {
+      times = Arrays.copyOf(times, times.length * 2);
+    }
+    byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+    commit.copyRawTo(raw, 0);
+    for (int i = 0; i < ID_WORDS; i++) {
+      ids[doc * ID_WORDS + i] = NB.decodeInt32(raw, i * 4);
+    }
+    PersonIdent author = commit.getAuthorIdent();
+    times[doc] = author.getWhen().getTime() / 1000;
+
+    addWords(messageTerms, commit.getFullMessage(), doc);
+    addWords(authorTerms, author.getName() + " " + author.getEmailAddress(), doc);
+    String email = author.getEmailAddress().toLowerCase(Locale.ENGLISH);
+    if (!email.isEmpty()) {
+      authorTerms.computeIfAbsent(email, t -> new Postings()).add(doc);
+    }
+
+    // The changes against the first parent, like the affected files from the history view.
+    treeWalk.reset();
+    if (commit.getParentCount() > 0) {
+      treeWalk.addTree(revWalk.parseCommit(commit.getParent(0)).getTree());
+    } else {
+      treeWalk.addTree(new EmptyTreeIterator());
+    }
+    treeWalk.addTree(commit.getTree());
+    while (treeWalk.next()) {
+      pathTerms.computeIfAbsent(treeWalk.getPathString(), t -> new Postings()).add(doc);
+    }
+  }
+
+  /**
+   * Indexes the words of a text.
+   *
+   * @param terms The indexed words.
+   * @param text  The text.
+   * @param doc   The commit.
+   */
+  private static void addWords(TreeMap<String, Postings> terms, String text, int doc) {
+    for (String word : tokenize(text)) {
+      terms.computeIfAbsent(word, t -> new Postings()).add(doc);
+    }
+  }
+
+  /**
+   * Splits a text into lower case words. Everything that is not a letter or a digit separates the words.
+   *
+   * @param text The text.
+   *
+   * @return The words.
+   */
+  static List<String> tokenize(String text) {
+    List<String> words = new ArrayList<>();
+    int start = -1;
+    for (int i = 0; i <= text.length(); i++) {
+      boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+      if (wordChar && start == -1) {
+        start = i;
+      } else if (!wordChar && start != -1) {
+        words.add(text.substring(start, i).toLowerCase(Locale.ENGLISH));
+        start = -1;
+      }
+    }
+    return words;
+  }
+
+  /**
+   * @param doc An indexed commit.
+   *
+   * @return The id of the commit.
+   */
+  private ObjectId getId(int doc) {
+    int offset = doc * ID_WORDS;
+    return new ObjectId(ids[offset], ids[offset + 1], ids[offset + 2], ids[offset + 3], ids[offset + 4]);
+  }
+
+  /**
+   * Forgets what is in memory. The persisted index is loaded again when needed.
+   */
+  private void reset() {
+    loaded = false;
+    docCount = 0;
+    tips = new ArrayList<>();
+    messageTerms.clear();
+    authorTerms.clear();
+    pathTerms.clear();
+  }
+
+  /**
+   * Loads the persisted index, if not already loaded.
+   */
+  private void ensureLoaded() {
+    if (!loaded) {
+      loaded = true;
+      if (indexFile.exists()) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+          if (in.readInt() == FORMAT_VERSION) {
+            docCount = in.readInt();
+            ids = new int[Math.max(docCount, 64) * ID_WORDS];
+            times = new long[Math.max(docCount, 64)];
+            for (int i = 0; i < docCount * ID_WORDS; i++) {
+              ids[i] = in.readInt();
+            }
+            for (int i = 0; i < docCount; i++) {
+              times[i] = in.readLong();
+            }
+            int tipsCount = in.readInt();
+            for (int i = 0; i < tipsCount; i++) {
+              tips.add(new ObjectId(in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readInt()));
+            }
+            readTerms(in, messageTerms);
+            readTerms(in, authorTerms);
+            readTerms(in, pathTerms);
+          }
+        } catch (IOException e) {
+          // A corrupted index. Just start from scratch.
+          logger.debug(e, e);
+          reset();
+          loaded = true;
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads the persisted words.
+   *
+   * @param in    The input.
+   * @param terms Receives the words.
+   *
+   * @throws IOException When the index cannot be read.
+   */
+  private static void readTerms(DataInputStream in, Map<String, Postings> terms) throws IOException {
+    int termsCount = in.readInt();
+    for (int i = 0; i < termsCount; i++) {
+      String term = in.readUTF();
+      Postings postings = new Postings();
+      postings.size = in.readInt();
+      postings.docs = new int[Math.max(postings.size, 1)];
+      int doc = 0;
+      for (int j = 0; j < postings.size; j++) {
+        // Kept as differences, which are small.
+        doc += in.readInt();
+        postings.docs[j] = doc;
+      }
+      terms.put(term, postings);
+    }
+  }
+
+  /**
+   * Persists the index in the Git directory.
+   */
+  private void save() {
+    File tempFile = new File(indexFile.getParentFile(), INDEX_FILE_NAME + ".tmp");
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(docCount);
+        for (int i = 0; i < docCount * ID_WORDS; i++) {
+          out.writeInt(ids[i]);
+        }
+        for (int i = 0; i < docCount; i++) {
+          out.writeLong(times[i]);
+        }
+        out.writeInt(tips.size());
+        byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+        for (ObjectId tip : tips) {
+          tip.copyRawTo(raw, 0);
+          for (int i = 0; i < ID_WORDS; i++) {
+            out.writeInt(NB.decodeInt32(raw, i * 4));
+          }
+        }
+        writeTerms(out, messageTerms);
+        writeTerms(out, authorTerms);
+        writeTerms(out, pathTerms);
+      }
+
+      if (indexFile.exists() && !indexFile.delete() || !tempFile.renameTo(indexFile)) {
+        logger.debug("Unable to persist the history index into " + indexFile);
+      }
+    } catch (IOException e) {
+      logger.debug(e, e);
+    }
+  }
+
+  /**
+   * Persists the words.
+   *
+   * @param out   The output.
+   * @param terms The words.
+   *
+   * @throws IOException When the index cannot be written.
+   */
+  private static void writeTerms(DataOutputStream out, Map<String, Postings> terms) throws IOException {
+    out.writeInt(terms.size());
+    for (Entry<String, Postings> entry : terms.entrySet()) {
+      out.writeUTF(entry.getKey());
+      Postings postings = entry.getValue();
+      out.writeInt(postings.size);
+      int previous = 0;
+      for (int i = 0; i < postings.size; i++) {
+        out.writeInt(postings.docs[i] - previous);
+        previous = postings.docs[i];
+      }
+    }
+  }
+}
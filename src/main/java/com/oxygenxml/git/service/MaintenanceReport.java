@@ -0,0 +1,120 @@
+package com.oxygenxml.git.service;
+
+/**
+ * The outcome of compacting the objects of a repository.
+ */
+public class MaintenanceReport {
+  /**
+   * The number of loose objects before the maintenance.
+   */
+  private final long looseObjectsBefore;
+  /**
+   * The number of loose objects after the maintenance.
+   */
+  private final long looseObjectsAfter;
+  /**
+   * The number of pack files before the maintenance.
+   */
+  private final long packFilesBefore;
+  /**
+   * The number of pack files after the maintenance.
+   */
+  private final long packFilesAfter;
+  /**
+   * The time needed to read the recent history before the maintenance, in nanoseconds.
+   */
+  private final long lookupNanosBefore;
+  /**
+   * The time needed to read the recent history after the maintenance, in nanoseconds.
+   */
+  private final long lookupNanosAfter;
+  /**
+   * The duration of the maintenance, in milliseconds.
+   */
+  private final long durationMillis;
+
+  /**
+   * Constructor.
+   *
+   * @param looseObjectsBefore The number of loose objects before the maintenance.
+   * @param looseObjectsAfter  The number of loose objects after the maintenance.
+   * @param packFilesBefore    The number of pack files before the maintenance.
+   * @param packFilesAfter     The number of pack files after the maintenance.
+   * @param lookupNanosBefore  The time needed to read the recent history before the maintenance, in nanoseconds.
+   * @param lookupNanosAfter   The time needed to read the recent history after the maintenance, in nanoseconds.
+   * @param durationMillis     The duration of the maintenance, in milliseconds.
+   */
+  MaintenanceReport(
+      long looseObjectsBefore,
+      long looseObjectsAfter,
+      long packFilesBefore,
+      long packFilesAfter,
+      long lookupNanosBefore,
+      long lookupNanosAfter,
+      long durationMillis) {
+    this.looseObjectsBefore = looseObjectsBefore;
+    this.looseObjectsAfter = looseObjectsAfter;
+    this.packFilesBefore = packFilesBefore;
+    this.packFilesAfter = packFilesAfter;
+    this.lookupNanosBefore = lookupNanosBefore;
+    this.lookupNanosAfter = lookupNanosAfter;
+    this.durationMillis = durationMillis;
+  }
+
+  /**
+   * @return The number of loose objects before the maintenance.
+   */
+  public long getLooseObjectsBefore() {
+    return looseObjectsBefore;
+  }
+
+  /**
+   * @return The number of loose objects after the maintenance.
+   */
+  public long getLooseObjectsAfter() {
+    return looseObjectsAfter;
+  }
+
+  /**
+   * @return The number of pack files before the maintenance.
+   */
+  public long getPackFilesBefore() {
+    return packFilesBefore;
+  }
+
+  /**
+   * @return The number of pack files after the maintenance.
+   */
+  public long getPackFilesAfter() {
+    return packFilesAfter;
+  }
+
+  /**
+   * @return The time needed to read the recent history before the maintenance, in nanoseconds.
+   */
+  public long getLookupNanosBefore() {
+    return lookupNanosBefore;
+  }
+
+  /**
+   * @return The time needed to read the recent history after the maintenance, in nanoseconds.
+   */
+  public long getLookupNanosAfter() {
+    return lookupNanosAfter;
+  }
+
+  /**
+   * @return The duration of the maintenance, in milliseconds.
+   */
+  public long getDurationMillis() {
+    return durationMillis;
+  }
+
+  @Override
+  public String toString() {
+    return "MaintenanceReport [looseObjects=" + looseObjectsBefore + "->" + looseObjectsAfter
+        + ", packFiles=" + packFilesBefore + "->" + packFilesAfter
+        + ", lookupNanos=" + lookupNanosBefore + "->" + lookupNanosAfter
+        + ", durationMillis=" + durationMillis + "]";
+  }
+}
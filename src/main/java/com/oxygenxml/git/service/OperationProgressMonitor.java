@@ -0,0 +1,246 @@
+package com.oxygenxml.git.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import org.eclipse.jgit.api.errors.CanceledException;
+import org.eclipse.jgit.internal.JGitText;
+import org.eclipse.jgit.lib.ProgressMonitor;
+
+/**
+ * Follows a pull or a push. Reports the current phase and the number of objects processed,
+ * records how long each phase took and allows the operation to be canceled.
+ *
+ * A cancellation is honored only while the objects are transferred. Once the working tree
+ * starts to be updated the operation is allowed to finish, so it never leaves the files
+ * half checked out.
+ */
+public class OperationProgressMonitor implements ProgressMonitor {
+  /**
+   * The minimum time, in milliseconds, between two reports for the same phase.
+   */
+  private static final long REPORT_INTERVAL_MILLIS = 200;
+  /**
+   * The phases of a transfer, during which the operation can be canceled without consequences.
+   */
+  private static final Set<String> TRANSFER_PHASES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+      JGitText.get().pullTaskName,
+      JGitText.get().countingObjects,
+      JGitText.get().searchForReuse,
+      JGitText.get().selectingCommits,
+      JGitText.get().buildingBitmaps,
+      JGitText.get().compressingObjects,
+      JGitText.get().writingObjects,
+      JGitText.get().receivingObjects,
+      JGitText.get().resolvingDeltas,
+      JGitText.get().updatingReferences)));
+  /**
+   * Receives the progress reports.
+   */
+  private final Consumer<String> listener;
+  /**
+   * The current time, in milliseconds.
+   */
+  private final LongSupplier clock;
+  /**
+   * The duration of each phase, in milliseconds, in the order they started.
+   */
+  private final Map<String, Long> phaseDurations = new LinkedHashMap<>();
+  /**
+   * <code>true</code> if the user asked to cancel the operation.
+   */
+  private volatile boolean cancelRequested;
+  /**
+   * <code>false</code> after the operation started to change the working tree.
+   */
+  private volatile boolean cancellable = true;
+  /**
+   * The current phase. <code>null</code> between phases.
+   */
+  private String phase;
+  /**
+   * When the current phase started.
+   */
+  private long phaseStart;
+  /**
+   * The amount of work of the current phase or {@link ProgressMonitor#UNKNOWN}.
+   */
+  private int totalWork;
+  /**
+   * The work done in the current phase.
+   */
+  private int completedWork;
+  /**
+   * When the progress of the current phase was last reported.
+   */
+  private long lastReport;
+
+  /**
+   * Constructor.
+   *
+   * @param listener Receives the progress reports, like "Receiving objects: 45% (450/1000)".
+   */
+  public OperationProgressMonitor(Consumer<String> listener) {
+    this(listener, System::currentTimeMillis);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param listener Receives the progress reports.
+   * @param clock    The current time, in milliseconds.
+   */
+  OperationProgressMonitor(Consumer<String> listener, LongSupplier clock) {
+    this.listener = listener;
+    this.clock = clock;
+  }
+
+  /**
+   * @see org.eclipse.jgit.lib.ProgressMonitor#start(int)
+   */
+  @Override
+  public void start(int totalTasks) {
+    // The number of phases is not known in advance for a pull or a push.
+  }
+
+  /**
+   * @see org.eclipse.jgit.lib.ProgressMonitor#beginTask(java.lang.String, int)
+   */
+  @Override
+  public void beginTask(String title, int totalWork) {
+    String report;
+    synchronized (this) {
+      endPhase();
+      if (!isTransferPhase(title)) {
+        cancellable = false;
+      }
+      phase = title;
+      phaseStart = clock.getAsLong();
+      this.totalWork = totalWork;
+      completedWork = 0;
+      lastReport = phaseStart;
+      report = formatProgress();
+    }
+    listener.accept(report);
+  }
+
+  /**
+   * @see org.eclipse.jgit.lib.ProgressMonitor#update(int)
+   */
+  @Override
+  public void update(int completed) {
+    String report = null;
+    synchronized (this) {
+      completedWork += completed;
+      long now = clock.getAsLong();
+      if (phase != null && now - lastReport >= REPORT_INTERVAL_MILLIS) {
+        lastReport = now;
+        report = formatProgress();
+      }
+    }
+    if (report != null) {
+      listener.accept(report);
+    }
+  }
+
+  /**
+   * @see org.eclipse.jgit.lib.ProgressMonitor#endTask()
+   */
+  @Override
+  public synchronized void endTask() {
+    endPhase();
+  }
+
+  /**
+   * @see org.eclipse.jgit.lib.ProgressMonitor#isCancelled()
+   */
+  @Override
+  public boolean isCancelled() {
+    return cancelRequested && cancellable;
+  }
+
+  /**
+   * Asks the operation to stop. It stops only if it is still transferring objects.
+   */
+  public void cancel() {
+    cancelRequested = true;
+  }
+
+  /**
+   * @return <code>true</code> if the user asked to cancel the operation.
+   */
+  public boolean isCancelRequested() {
+    return cancelRequested;
+  }
+
+  /**
+   * Tells if an operation failed because it was canceled. JGit reports the cancellation 
+   * either through a {@link CanceledException} or, when the objects were being transferred, 
+   * through a transport problem with a dedicated message.
+   * 
+   * @param e The failure.
+   * 
+   * @return <code>true</code> if the failure is a cancellation.
+   */
+  public static boolean isCancellation(Throwable e) {
+    boolean canceled = false;
+    for (Throwable t = e; !canceled && t != null; t = t.getCause() == t ? null : t.getCause()) {
+      if (t instanceof CanceledException || t instanceof org.eclipse.jgit.errors.CancelledException) {
+        canceled = true;
+      } else if (t.getMessage() != null) {
+        String message = t.getMessage();
+        canceled = message.endsWith(JGitText.get().downloadCancelled)
+            || message.endsWith(JGitText.get().downloadCancelledDuringIndexing)
+            || message.endsWith(JGitText.get().pushCancelled);
+      }
+    }
+    return canceled;
+  }
+
+  /**
+   * @return The duration of each phase, in milliseconds, in the order they started.
+   */
+  public synchronized Map<String, Long> getPhaseDurations() {
+    return new LinkedHashMap<>(phaseDurations);
+  }
+
+  /**
+   * Records the duration of the current phase, if any.
+   */
+  private void endPhase() {
+    if (phase != null) {
+      phaseDurations.merge(phase, clock.getAsLong() - phaseStart, Long::sum);
+      phase = null;
+    }
+  }
+
+  /**
+   * @return The progress of the current phase.
+   */
+  private String formatProgress() {
+    StringBuilder sb = new StringBuilder(phase);
+    if (totalWork != UNKNOWN && totalWork > 0) {
+      sb.append(": ").append(Math.min(100, completedWork * 100L / totalWork)).append("% (")
+          .append(completedWork).append('/').append(totalWork).append(')');
+    } else if (completedWork > 0) {
+      sb.append(": ").append(completedWork);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * @param title The title of a phase.
+   *
+   * @return <code>true</code> if it is a phase of an objects transfer.
+   */
+  private static boolean isTransferPhase(String title) {
+    // The phases that run on the server side are reported with a prefix.
+    return TRANSFER_PHASES.contains(title) || title.startsWith(JGitText.get().prefixRemote);
+  }
+}
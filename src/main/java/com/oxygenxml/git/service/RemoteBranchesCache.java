@@ -0,0 +1,335 @@
+package com.oxygenxml.git.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.transport.URIish;
+
+import com.oxygenxml.git.auth.AuthExceptionMessagePresenter;
+import com.oxygenxml.git.utils.GitAddonSystemProperties;
+
+/**
+ * Keeps the branches advertised by the remote repositories, so that probing the same URL
+ * again in a session doesn't go to the network. Concurrent requests for the same URL share
+ * a single listing, which is canceled when all of them give up.
+ */
+public class RemoteBranchesCache {
+  /**
+   * How long the branches of a remote are kept, by default.
+   */
+  private static final int DEFAULT_TTL_SECONDS = 300;
+
+  /**
+   * The branches advertised by a remote.
+   */
+  private static class Entry {
+    /**
+     * The branches.
+     */
+    private final Collection<Ref> branches;
+    /**
+     * When the branches were listed, in milliseconds.
+     */
+    private final long timestamp;
+
+    /**
+     * Constructor.
+     *
+     * @param branches  The branches.
+     * @param timestamp When the branches were listed, in milliseconds.
+     */
+    Entry(Collection<Ref> branches, long timestamp) {
+      this.branches = branches;
+      this.timestamp = timestamp;
+    }
+  }
+
+  /**
+   * A listing in progress, shared by the requests for the same remote.
+   */
+  private static class Listing {
+    /**
+     * The branches.
+     */
+    private Future<Collection<Ref>> branches;
+    /**
+     * The problems reported while listing, presented to every request.
+     */
+    private final List<String> messages = new ArrayList<>();
+    /**
+     * The number of requests waiting for the branches.
+     */
+    private int waiters;
+
+    /**
+     * Records a problem.
+     *
+     * @param message The message.
+     */
+    synchronized void addMessage(String message) {
+      messages.add(message);
+    }
+
+    /**
+     * @return The problems reported while listing.
+     */
+    synchronized List<String> getMessages() {
+      return new ArrayList<>(messages);
+    }
+  }
+
+  /**
+   * The unique instance.
+   */
+  private static RemoteBranchesCache instance;
+
+  /**
+   * How long the branches of a remote are kept, in milliseconds.
+   */
+  private final long ttlMillis;
+  /**
+   * The current time, in milliseconds.
+   */
+  private final LongSupplier clock;
+  /**
+   * Lists the branches of a remote from the network.
+   */
+  private final BiFunction<URIish, AuthExceptionMessagePresenter, Collection<Ref>> lister;
+  /**
+   * The listed branches, by normalized URL.
+   */
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  /**
+   * The listings in progress, by normalized URL. Guarded by itself.
+   */
+  private final Map<String, Listing> inFlight = new HashMap<>();
+  /**
+   * Runs the listings.
+   */
+  private final ExecutorService listingExecutor = Executors.newCachedThreadPool(r -> {
+    Thread thread = new Thread(r, "Git remote branches listing");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * Constructor.
+   *
+   * @param ttlMillis How long the branches of a remote are kept, in milliseconds.
+   * @param clock     The current time, in milliseconds.
+   * @param lister    Lists the branches of a remote from the network. Returns an empty collection
+   *                  when the branches cannot be listed.
+   */
+  RemoteBranchesCache(
+      long ttlMillis,
+      LongSupplier clock,
+      BiFunction<URIish, AuthExceptionMessagePresenter, Collection<Ref>> lister) {
+    this.ttlMillis = ttlMillis;
+    this.clock = clock;
+    this.lister = lister;
+  }
+
+  /**
+   * @return The unique instance. The time to live is given by the
+   * {@link GitAddonSystemProperties#REMOTE_BRANCHES_CACHE_TTL_SECONDS} system property.
+   */
+  public static synchronized RemoteBranchesCache getInstance() {
+    if (instance == null) {
+      instance = new RemoteBranchesCache(
+          Integer.getInteger(GitAddonSystemProperties.REMOTE_BRANCHES_CACHE_TTL_SECONDS, DEFAULT_TTL_SECONDS) * 1000L,
+          System::currentTimeMillis,
+          (url, presenter) -> GitAccess.getInstance().listRemoteBranchesForURL(url, presenter));
+    }
+    return instance;
+  }
+
+  /**
+   * Gets the branches of a remote without going to the network.
+   *
+   * @param url The remote repository.
+   *
+   * @return The branches listed recently, or <code>null</code> if the remote wasn't listed
+   * or the branches expired.
+   */
+  public Collection<Ref> getCachedBranches(URIish url) {
+    Collection<Ref> branches = null;
+    String key = toKey(url);
+    Entry entry = entries.get(key);
+    if (entry != null) {
+      if (clock.getAsLong() - entry.timestamp < ttlMillis) {
+        branches = entry.branches;
+      } else {
+        entries.remove(key, entry);
+      }
+    }
+    return branches;
+  }
+
+  /**
+   * Gets the branches of a remote. Goes to the network only if the branches weren't listed
+   * recently. If the same remote is being listed for another request, waits for that listing.
+   * The problems reported while listing are presented to every request.
+   *
+   * @param url       The remote repository.
+   * @param presenter Presents the authentication problems.
+   *
+   * @return The branches, or an empty collection if they cannot be listed.
+   *
+   * @throws InterruptedException When the request is superseded. The listing is canceled
+   * if no other request waits for it.
+   */
+  public Collection<Ref> getBranches(URIish url, AuthExceptionMessagePresenter presenter) throws InterruptedException {
+    Collection<Ref> branches = getCachedBranches(url);
+    if (branches == null) {
+      String key = toKey(url);
+      Listing listing;
+      synchronized (inFlight) {
+        listing = inFlight.get(key);
+        if (listing == null) {
+          Listing newListing = new Listing();
+          newListing.branches = listingExecutor.submit(() -> list(key, url, newListing));
+          listing = newListing;
+          inFlight.put(key, listing);
+        }
+        listing.waiters++;
+      }
+
+      try {
+        branches = listing.branches.get();
+      } catch (InterruptedException | CancellationException e) {
+        giveUp(key, listing);
+        throw e instanceof InterruptedException ? (InterruptedException) e : new InterruptedException();
+      } catch (ExecutionException e) {
+        presentMessages(listing, presenter);
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        throw new IllegalStateException(cause);
+      }
+      presentMessages(listing, presenter);
+    }
+    return branches;
+  }
+
+  /**
+   * Presents the problems reported while listing.
+   *
+   * @param listing   The listing.
+   * @param presenter Presents the problems. May be <code>null</code>.
+   */
+  private static void presentMessages(Listing listing, AuthExceptionMessagePresenter presenter) {
+    if (presenter != null) {
+      for (String message : listing.getMessages()) {
+        presenter.presentMessage(message);
+      }
+    }
+  }
+
+  /**
+   * Lists the branches of a remote from the network.
+   *
+   * @param key     The normalized URL.
+   * @param url     The remote repository.
+   * @param listing The listing.
+   *
+   * @return The branches, or an empty collection if they cannot be listed.
+   */
+  private Collection<Ref> list(String key, URIish url, Listing listing) {
+    try {
+      Collection<Ref> branches = lister.apply(url, listing::addMessage);
+      if (!branches.isEmpty()) {
+        // An empty result means a problem. Try again the next time.
+        entries.put(key, new Entry(branches, clock.getAsLong()));
+      }
+      return branches;
+    } finally {
+      synchronized (inFlight) {
+        inFlight.remove(key, listing);
+      }
+    }
+  }
+
+  /**
+   * A request no longer waits for a listing. The listing is canceled when nobody waits for it.
+   *
+   * @param key     The normalized URL.
+   * @param listing The listing.
+   */
+  private void giveUp(String key, Listing listing) {
+    synchronized (inFlight) {
+      listing.waiters--;
+      if (listing.waiters == 0) {
+        inFlight.remove(key, listing);
+        listing.branches.cancel(true);
+      }
+    }
+  }
+
+  /**
+   * Forgets all the listed branches.
+   */
+  public void clear() {
+    entries.clear();
+  }
+
+  /**
+   * Normalizes a remote URL, so that the different spellings of the same remote share the
+   * same entry. The password is not part of the key.
+   *
+   * @param url The remote URL.
+   *
+   * @return The key.
+   */
+  static String toKey(URIish url) {
+    StringBuilder key = new StringBuilder();
+    if (url.getScheme() != null) {
+      key.append(url.getScheme().toLowerCase(Locale.ENGLISH)).append("://");
+    }
+    if (url.getUser() != null) {
+      key.append(url.getUser()).append('@');
+    }
+    if (url.getHost() != null) {
+      key.append(url.getHost().toLowerCase(Locale.ENGLISH));
+    }
+    if (url.getPort() > 0) {
+      key.append(':').append(url.getPort());
+    }
+    String path = url.getPath();
+    if (path != null) {
+      path = stripTrailingSeparators(path);
+      if (path.endsWith(Constants.DOT_GIT_EXT)) {
+        // "repo.git" and "repo/.git" both name the repository "repo".
+        path = stripTrailingSeparators(path.substring(0, path.length() - Constants.DOT_GIT_EXT.length()));
+      }
+      key.append(path);
+    }
+    return key.toString();
+  }
+
+  /**
+   * @param path A path.
+   *
+   * @return The path without the trailing separators.
+   */
+  private static String stripTrailingSeparators(String path) {
+    while (path.length() > 1 && path.endsWith("/")) {
+      path = path.substring(0, path.length() - 1);
+    }
+    return path;
+  }
+}
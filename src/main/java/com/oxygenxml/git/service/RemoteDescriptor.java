@@ -0,0 +1,73 @@
+package com.oxygenxml.git.service;
+
+import org.eclipse.jgit.transport.URIish;
+
+/**
+ * A remote of a repository, with its URL already parsed. Immutable.
+ */
+public class RemoteDescriptor {
+  /**
+   * The name of the remote.
+   */
+  private final String name;
+  /**
+   * The URL of the remote.
+   */
+  private final URIish uri;
+
+  /**
+   * Constructor.
+   *
+   * @param name The name of the remote.
+   * @param uri  The URL of the remote.
+   */
+  public RemoteDescriptor(String name, URIish uri) {
+    this.name = name;
+    this.uri = uri;
+  }
+
+  /**
+   * @return The name of the remote.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return The URL of the remote.
+   */
+  public URIish getURI() {
+    return uri;
+  }
+
+  /**
+   * @return The host name. An empty string for a local remote. Never <code>null</code>.
+   */
+  public String getHost() {
+    String host = uri.getHost();
+    return host != null ? host : "";
+  }
+
+  /**
+   * @return The port or -1 if the URL doesn't specify one.
+   */
+  public int getPort() {
+    return uri.getPort();
+  }
+
+  /**
+   * @return The scheme, like "https" or "ssh". <code>null</code> for the "user@host:path" SSH
+   * URLs and for the local paths.
+   */
+  public String getScheme() {
+    return uri.getScheme();
+  }
+
+  /**
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return name + " " + uri;
+  }
+}
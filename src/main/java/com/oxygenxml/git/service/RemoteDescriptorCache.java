@@ -0,0 +1,158 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.internal.storage.file.FileSnapshot;
+import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.transport.RemoteConfig;
+import org.eclipse.jgit.transport.URIish;
+
+/**
+ * Keeps the remotes of the repositories, so that the transport operations don't parse the
+ * repository configuration every time. The remotes of a repository are read again when its
+ * configuration file changes.
+ */
+public class RemoteDescriptorCache {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(RemoteDescriptorCache.class);
+
+  /**
+   * The remotes of a repository.
+   */
+  private static class Entry {
+    /**
+     * The state of the configuration file when the remotes were read.
+     */
+    private final FileSnapshot snapshot;
+    /**
+     * The remotes.
+     */
+    private final List<RemoteDescriptor> remotes;
+
+    /**
+     * Constructor.
+     *
+     * @param snapshot The state of the configuration file when the remotes were read.
+     * @param remotes  The remotes.
+     */
+    Entry(FileSnapshot snapshot, List<RemoteDescriptor> remotes) {
+      this.snapshot = snapshot;
+      this.remotes = remotes;
+    }
+  }
+
+  /**
+   * The unique instance.
+   */
+  private static RemoteDescriptorCache instance;
+
+  /**
+   * The remotes, by repository. The repositories no longer used are forgotten.
+   */
+  private final Map<Repository, Entry> entries = Collections.synchronizedMap(new WeakHashMap<>());
+
+  /**
+   * Constructor.
+   */
+  RemoteDescriptorCache() {
+    // Use getInstance().
+  }
+
+  /**
+   * @return The unique instance.
+   */
+  public static synchronized RemoteDescriptorCache getInstance() {
+    if (instance == null) {
+      instance = new RemoteDescriptorCache();
+    }
+    return instance;
+  }
+
+  /**
+   * Gets the remotes of a repository, "origin" first. The remotes with an invalid URL are left out.
+   *
+   * @param repository The repository.
+   *
+   * @return The remotes. Never <code>null</code>.
+   */
+  public List<RemoteDescriptor> getRemotes(Repository repository) {
+    File directory = repository.getDirectory();
+    if (directory == null) {
+      // Not stored on disk. Nothing tells us when the configuration changes.
+      return readRemotes(repository.getConfig());
+    }
+
+    File configFile = new File(directory, Constants.CONFIG);
+    Entry entry = entries.get(repository);
+    if (entry == null || entry.snapshot.isModified(configFile)) {
+      // Take the snapshot first, so a change made while reading is detected next time.
+      FileSnapshot snapshot = FileSnapshot.save(configFile);
+      entry = new Entry(snapshot, readRemotes(repository.getConfig()));
+      entries.put(repository, entry);
+    }
+    return entry.remotes;
+  }
+
+  /**
+   * Gets the remote used for the transport operations: "origin" or, if missing, the first one.
+   *
+   * @param repository The repository.
+   *
+   * @return The remote or <code>null</code> if the repository has no remote.
+   */
+  public RemoteDescriptor getDefaultRemote(Repository repository) {
+    List<RemoteDescriptor> remotes = getRemotes(repository);
+    return remotes.isEmpty() ? null : remotes.get(0);
+  }
+
+  /**
+   * Gets the host of the remote used for the transport operations.
+   *
+   * @param repository The repository.
+   *
+   * @return The host name. An empty string if there is no remote. Never <code>null</code>.
+   */
+  public String getHostName(Repository repository) {
+    RemoteDescriptor remote = getDefaultRemote(repository);
+    return remote != null ? remote.getHost() : "";
+  }
+
+  /**
+   * Reads the remotes from a repository configuration.
+   *
+   * @param config The repository configuration.
+   *
+   * @return The remotes, "origin" first.
+   */
+  private static List<RemoteDescriptor> readRemotes(Config config) {
+    List<RemoteDescriptor> remotes = new ArrayList<>();
+    for (String name : config.getSubsections(ConfigConstants.CONFIG_REMOTE_SECTION)) {
+      try {
+        List<URIish> uris = new RemoteConfig(config, name).getURIs();
+        if (!uris.isEmpty()) {
+          RemoteDescriptor remote = new RemoteDescriptor(name, uris.get(0));
+          if (Constants.DEFAULT_REMOTE_NAME.equals(name)) {
+            remotes.add(0, remote);
+          } else {
+            remotes.add(remote);
+          }
+        }
+      } catch (URISyntaxException e) {
+        logger.debug(e, e);
+      }
+    }
+    return Collections.unmodifiableList(remotes);
+  }
+}
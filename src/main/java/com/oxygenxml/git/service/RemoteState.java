@@ -0,0 +1,125 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * What is known about a repository relative to its remote: how many commits it has to push
+ * or pull and if the remote could be reached. Immutable.
+ */
+public class RemoteState {
+  /**
+   * The Git directory of the repository.
+   */
+  private final File gitDirectory;
+  /**
+   * The current branch or, for a detached HEAD, the commit id.
+   */
+  private final String branch;
+  /**
+   * The commit of the HEAD. <code>null</code> in an empty repository.
+   */
+  private final ObjectId headId;
+  /**
+   * The commit of the remote tracking branch. <code>null</code> if there is no upstream branch
+   * or if it was not fetched.
+   */
+  private final ObjectId upstreamId;
+  /**
+   * The number of local commits not pushed or -1 if the branch doesn't track a remote branch.
+   */
+  private final int pushesAhead;
+  /**
+   * The number of remote commits not pulled.
+   */
+  private final int pullsBehind;
+  /**
+   * <code>false</code> if the remote could not be reached the last time.
+   */
+  private final boolean remoteAvailable;
+
+  /**
+   * Constructor.
+   *
+   * @param gitDirectory    The Git directory of the repository.
+   * @param branch          The current branch or, for a detached HEAD, the commit id.
+   * @param headId          The commit of the HEAD.
+   * @param upstreamId      The commit of the remote tracking branch.
+   * @param pushesAhead     The number of local commits not pushed or -1 if there is no upstream branch.
+   * @param pullsBehind     The number of remote commits not pulled.
+   * @param remoteAvailable <code>false</code> if the remote could not be reached.
+   */
+  public RemoteState(
+      File gitDirectory,
+      String branch,
+      ObjectId headId,
+      ObjectId upstreamId,
+      int pushesAhead,
+      int pullsBehind,
+      boolean remoteAvailable) {
+    this.gitDirectory = gitDirectory;
+    this.branch = branch;
+    this.headId = headId;
+    this.upstreamId = upstreamId;
+    this.pushesAhead = pushesAhead;
+    this.pullsBehind = pullsBehind;
+    this.remoteAvailable = remoteAvailable;
+  }
+
+  /**
+   * @return The Git directory of the repository.
+   */
+  public File getGitDirectory() {
+    return gitDirectory;
+  }
+
+  /**
+   * @return The current branch or, for a detached HEAD, the commit id.
+   */
+  public String getBranch() {
+    return branch;
+  }
+
+  /**
+   * @return The commit of the HEAD. <code>null</code> in an empty repository.
+   */
+  public ObjectId getHeadId() {
+    return headId;
+  }
+
+  /**
+   * @return The commit of the remote tracking branch. <code>null</code> if there is no upstream
+   * branch or if it was not fetched.
+   */
+  public ObjectId getUpstreamId() {
+    return upstreamId;
+  }
+
+  /**
+   * @return The number of local commits not pushed or -1 if the branch doesn't track a remote branch.
+   */
+  public int getPushesAhead() {
+    return pushesAhead;
+  }
+
+  /**
+   * @return The number of remote commits not pulled.
+   */
+  public int getPullsBehind() {
+    return pullsBehind;
+  }
+
+  /**
+   * @return <code>false</code> if the remote could not be reached the last time.
+   */
+  public boolean isRemoteAvailable() {
+    return remoteAvailable;
+  }
+
+  @Override
+  public String toString() {
+    return "RemoteState [branch=" + branch + ", ahead=" + pushesAhead + ", behind=" + pullsBehind
+        + ", remoteAvailable=" + remoteAvailable + "]";
+  }
+}
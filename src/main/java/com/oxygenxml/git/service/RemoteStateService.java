@@ -0,0 +1,390 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.lib.BranchConfig;
+import org.eclipse.jgit.lib.BranchTrackingStatus;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+
+import com.oxygenxml.git.utils.Equaler;
+import com.oxygenxml.git.utils.GitOperationScheduler;
+
+/**
+ * Fetches from the remotes and computes how many commits each repository has to push or pull.
+ * <br><br>
+ * Concurrent fetches of the same repository share a single fetch. The commits to push and pull
+ * are counted again only when the HEAD or the remote tracking branch move. After each fetch,
+ * the new {@link RemoteState} is published to the listeners.
+ */
+public class RemoteStateService {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(RemoteStateService.class);
+
+  /**
+   * Receives the states computed after the fetches.
+   */
+  public interface Listener {
+    /**
+     * A repository was fetched. Called on the thread that fetched.
+     * 
+     * @param state The state of the repository.
+     */
+    void remoteStateChanged(RemoteState state);
+  }
+
+  /**
+   * Brings the commits of a repository from its remote.
+   */
+  interface Fetcher {
+    /**
+     * Fetches.
+     * 
+     * @param repository    The repository.
+     * @param tagsRequested <code>true</code> if the tags are needed.
+     * 
+     * @throws SSHPassphraseRequiredException When the SSH pass phrase is needed.
+     * @throws PrivateRepositoryException     When the credentials are needed or wrong.
+     * @throws RepositoryUnavailableException When the remote cannot be reached.
+     */
+    void fetch(Repository repository, boolean tagsRequested)
+        throws SSHPassphraseRequiredException, PrivateRepositoryException, RepositoryUnavailableException;
+  }
+
+  /**
+   * A fetch in progress.
+   */
+  private static class PendingFetch {
+    /**
+     * <code>true</code> if the fetch also brings the tags.
+     */
+    private final boolean tagsRequested;
+    /**
+     * Completed with the state after the fetch.
+     */
+    private final CompletableFuture<RemoteState> result = new CompletableFuture<>();
+
+    /**
+     * Constructor.
+     * 
+     * @param tagsRequested <code>true</code> if the fetch also brings the tags.
+     */
+    PendingFetch(boolean tagsRequested) {
+      this.tagsRequested = tagsRequested;
+    }
+  }
+
+  /**
+   * A fetch requested on the refresh thread that didn't start yet.
+   */
+  private static class RequestedFetch {
+    /**
+     * <code>true</code> if one of the requests needs the tags. Changed only while the request
+     * is in the map of requests.
+     */
+    private boolean tagsRequested;
+    /**
+     * Completed with the state after the fetch, or with the problem.
+     */
+    private final CompletableFuture<RemoteState> result = new CompletableFuture<>();
+  }
+
+  /**
+   * The unique instance.
+   */
+  private static RemoteStateService instance;
+
+  /**
+   * Brings the commits from the remotes.
+   */
+  private final Fetcher fetcher;
+  /**
+   * The last computed states, by Git directory.
+   */
+  private final Map<File, RemoteState> states = new ConcurrentHashMap<>();
+  /**
+   * The fetches in progress, by Git directory.
+   */
+  private final Map<File, PendingFetch> pendingFetches = new ConcurrentHashMap<>();
+  /**
+   * The fetches requested on the refresh thread that didn't start yet, by Git directory.
+   */
+  private final Map<File, RequestedFetch> requestedFetches = new ConcurrentHashMap<>();
+  /**
+   * The listeners.
+   */
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * Constructor.
+   * 
+   * @param fetcher Brings the commits from the remotes.
+   */
+  RemoteStateService(Fetcher fetcher) {
+    this.fetcher = fetcher;
+  }
+
+  /**
+   * @return The unique instance.
+   */
+  public static synchronized RemoteStateService getInstance() {
+    if (instance == null) {
+      instance = new RemoteStateService(
+          (repository, tagsRequested) -> GitAccess.getInstance().fetch(repository, tagsRequested));
+    }
+    return instance;
+  }
+
+  /**
+   * Adds a listener.
+   * 
+   * @param listener The listener.
+   */
+  public void addListener(Listener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Removes a listener.
+   * 
+   * @param listener The listener.
+   */
+  public void removeListener(Listener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Fetches a repository and publishes its new state. If the repository is already being
+   * fetched, waits for that fetch instead of starting another one.
+   * 
+   * @param repository    The repository.
+   * @param tagsRequested <code>true</code> if the tags are needed.
+   * 
+   * @return The state after the fetch.
+   * 
+   * @throws SSHPassphraseRequiredException When the SSH pass phrase is needed.
+   * @throws PrivateRepositoryException     When the credentials are needed or wrong.
+   * @throws RepositoryUnavailableException When the remote cannot be reached.
+   */
+  public RemoteState fetch(Repository repository, boolean tagsRequested)
+      throws SSHPassphraseRequiredException, PrivateRepositoryException, RepositoryUnavailableException {
+    File key = repository.getDirectory();
+    while (true) {
+      PendingFetch fetch = new PendingFetch(tagsRequested);
+      PendingFetch pending = pendingFetches.putIfAbsent(key, fetch);
+      if (pending == null) {
+        try {
+          return doFetch(repository, fetch);
+        } finally {
+          pendingFetches.remove(key, fetch);
+        }
+      }
+      
+      joining(repository);
+      RemoteState state = join(pending);
+      if (pending.tagsRequested || !tagsRequested) {
+        return state;
+      }
+      // That fetch didn't bring the tags. Fetch again.
+    }
+  }
+
+  /**
+   * Fetches a repository on the refresh thread, like {@link #fetch(Repository, boolean)}. The
+   * requests made before the fetch starts are served by the same fetch. The new state is 
+   * published to the listeners.
+   * <br><br>
+   * The fetch becomes pending only when it starts. A fetch done on the refresh thread in the
+   * meantime doesn't wait for this one, which is queued behind it.
+   * 
+   * @param repository    The repository.
+   * @param tagsRequested <code>true</code> if the tags are needed.
+   * 
+   * @return Completed on the refresh thread with the state after the fetch or with the 
+   * problem: {@link SSHPassphraseRequiredException}, {@link PrivateRepositoryException} or
+   * {@link RepositoryUnavailableException}.
+   */
+  public CompletableFuture<RemoteState> requestFetch(Repository repository, boolean tagsRequested) {
+    File key = repository.getDirectory();
+    boolean[] added = new boolean[1];
+    RequestedFetch request = requestedFetches.compute(key, (k, requested) -> {
+      if (requested == null) {
+        requested = new RequestedFetch();
+        added[0] = true;
+      }
+      requested.tagsRequested |= tagsRequested;
+      return requested;
+    });
+    
+    if (added[0]) {
+      GitOperationScheduler.getInstance().schedule(() -> {
+        // No other request can join this one afterwards.
+        requestedFetches.remove(key);
+        try {
+          request.result.complete(fetch(repository, request.tagsRequested));
+        } catch (SSHPassphraseRequiredException | PrivateRepositoryException
+            | RepositoryUnavailableException | RuntimeException e) {
+          logger.debug(e, e);
+          request.result.completeExceptionally(e);
+        }
+      });
+    }
+    return request.result;
+  }
+
+  /**
+   * Called before waiting for a fetch started by another thread.
+   * 
+   * @param repository The repository.
+   */
+  void joining(Repository repository) {
+    // Nothing. For tests.
+  }
+
+  /**
+   * Gets the state of a repository, without fetching. The commits to push and pull are counted
+   * only if the branches moved since the last time.
+   * 
+   * @param repository The repository.
+   * 
+   * @return The state.
+   */
+  public RemoteState getState(Repository repository) {
+    RemoteState previous = states.get(repository.getDirectory());
+    return computeState(repository, previous == null || previous.isRemoteAvailable());
+  }
+
+  /**
+   * Fetches and publishes the new state.
+   * 
+   * @param repository The repository.
+   * @param fetch      The fetch to complete.
+   * 
+   * @return The new state.
+   * 
+   * @throws SSHPassphraseRequiredException When the SSH pass phrase is needed.
+   * @throws PrivateRepositoryException     When the credentials are needed or wrong.
+   * @throws RepositoryUnavailableException When the remote cannot be reached.
+   */
+  private RemoteState doFetch(Repository repository, PendingFetch fetch)
+      throws SSHPassphraseRequiredException, PrivateRepositoryException, RepositoryUnavailableException {
+    try {
+      fetcher.fetch(repository, fetch.tagsRequested);
+    } catch (RepositoryUnavailableException e) {
+      publish(computeState(repository, false));
+      fetch.result.completeExceptionally(e);
+      throw e;
+    } catch (SSHPassphraseRequiredException | PrivateRepositoryException | RuntimeException e) {
+      fetch.result.completeExceptionally(e);
+      throw e;
+    }
+    
+    RemoteState state = computeState(repository, true);
+    publish(state);
+    fetch.result.complete(state);
+    return state;
+  }
+
+  /**
+   * Computes the state of a repository. The previous counts are reused if the HEAD and the
+   * remote tracking branch didn't move.
+   * 
+   * @param repository      The repository.
+   * @param remoteAvailable <code>false</code> if the remote could not be reached.
+   * 
+   * @return The state.
+   */
+  private RemoteState computeState(Repository repository, boolean remoteAvailable) {
+    File key = repository.getDirectory();
+    String branch = null;
+    ObjectId headId = null;
+    ObjectId upstreamId = null;
+    int ahead = -1;
+    int behind = 0;
+    try {
+      branch = repository.getBranch();
+      Ref head = repository.exactRef(Constants.HEAD);
+      headId = head != null ? head.getObjectId() : null;
+      String trackingBranch = null;
+      if (head != null && head.isSymbolic()) {
+        trackingBranch = new BranchConfig(repository.getConfig(), branch).getRemoteTrackingBranch();
+      }
+      Ref upstream = trackingBranch != null ? repository.exactRef(trackingBranch) : null;
+      upstreamId = upstream != null ? upstream.getObjectId() : null;
+      
+      RemoteState previous = states.get(key);
+      if (previous != null
+          && Equaler.verifyEquals(branch, previous.getBranch())
+          && Equaler.verifyEquals(headId, previous.getHeadId())
+          && Equaler.verifyEquals(upstreamId, previous.getUpstreamId())) {
+        ahead = previous.getPushesAhead();
+        behind = previous.getPullsBehind();
+      } else if (branch != null && !branch.isEmpty()) {
+        BranchTrackingStatus bts = BranchTrackingStatus.of(repository, branch);
+        if (bts != null) {
+          ahead = bts.getAheadCount();
+          behind = bts.getBehindCount();
+        }
+      }
+    } catch (IOException e) {
+      logger.debug(e, e);
+    }
+    
+    RemoteState state = new RemoteState(key, branch, headId, upstreamId, ahead, behind, remoteAvailable);
+    states.put(key, state);
+    return state;
+  }
+
+  /**
+   * Notifies the listeners.
+   * 
+   * @param state The new state.
+   */
+  private void publish(RemoteState state) {
+    for (Listener listener : listeners) {
+      listener.remoteStateChanged(state);
+    }
+  }
+
+  /**
+   * Waits for a fetch started by another thread.
+   * 
+   * @param pending The fetch.
+   * 
+   * @return The state after the fetch.
+   * 
+   * @throws SSHPassphraseRequiredException When the SSH pass phrase is needed.
+   * @throws PrivateRepositoryException     When the credentials are needed or wrong.
+   * @throws RepositoryUnavailableException When the remote cannot be reached.
+   */
+  private static RemoteState join(PendingFetch pending)
+      throws SSHPassphraseRequiredException, PrivateRepositoryException, RepositoryUnavailableException {
+    try {
+      return pending.result.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof SSHPassphraseRequiredException) {
+        throw (SSHPassphraseRequiredException) cause;
+      } else if (cause instanceof PrivateRepositoryException) {
+        throw (PrivateRepositoryException) cause;
+      } else if (cause instanceof RepositoryUnavailableException) {
+        throw (RepositoryUnavailableException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw e;
+    }
+  }
+}
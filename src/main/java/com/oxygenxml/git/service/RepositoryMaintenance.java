@@ -0,0 +1,327 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.BooleanSupplier;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.GC;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.EmptyProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.pack.PackConfig;
+
+import com.oxygenxml.git.utils.GitAddonSystemProperties;
+import com.oxygenxml.git.utils.GitOperationScheduler;
+
+/**
+ * Compacts the objects of the repositories while the user doesn't work with them. The loose objects
+ * are packed, the packs are merged into a single pack with a bitmap index and the unreachable objects
+ * are pruned. This keeps the status, the history and the push fast on long lived working copies.
+ * <br><br>
+ * The maintenance starts after the repository was left alone for a while and only if there are
+ * more loose objects or packs than the "gc.auto" and "gc.autoPackLimit" thresholds. Any new
+ * operation on the repository cancels the maintenance in progress and postpones the next one.
+ * The other repositories are not affected.
+ * <br><br>
+ * If the repository is in the pool, the maintenance uses the pooled instance, so that the packs
+ * it replaces are closed by the same instance that reads them.
+ */
+public class RepositoryMaintenance {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(RepositoryMaintenance.class);
+
+  /**
+   * How long a repository must be left alone before the maintenance starts, by default.
+   */
+  private static final int DEFAULT_IDLE_SECONDS = 120;
+  /**
+   * The default for "gc.auto", like in the command line Git.
+   */
+  private static final int DEFAULT_AUTO_LIMIT = 6700;
+  /**
+   * The default for "gc.autoPackLimit", like in the command line Git.
+   */
+  private static final int DEFAULT_AUTO_PACK_LIMIT = 50;
+  /**
+   * How many commits are read to measure the object lookups.
+   */
+  private static final int LOOKUP_SAMPLE_COMMITS = 200;
+
+  /**
+   * A maintenance scheduled for a repository.
+   */
+  private static class ScheduledMaintenance {
+    /**
+     * The future of the maintenance.
+     */
+    private ScheduledFuture<?> future;
+    /**
+     * <code>true</code> when the maintenance must stop.
+     */
+    private volatile boolean canceled;
+
+    /**
+     * Stops the maintenance, or prevents it from starting.
+     */
+    void cancel() {
+      canceled = true;
+      future.cancel(false);
+    }
+  }
+
+  /**
+   * The unique instance.
+   */
+  private static RepositoryMaintenance instance;
+
+  /**
+   * How long a repository must be left alone before the maintenance starts, in milliseconds.
+   * Negative when the maintenance is disabled.
+   */
+  private final long idleMillis;
+  /**
+   * The pool with the opened repositories.
+   */
+  private final RepositoryPool pool;
+  /**
+   * The maintenance scheduled or in progress, by Git directory. Guarded by this instance.
+   */
+  private final Map<File, ScheduledMaintenance> scheduled = new HashMap<>();
+  /**
+   * The last maintenance report, by Git directory.
+   */
+  private final Map<File, MaintenanceReport> reports = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor.
+   *
+   * @param idleMillis How long a repository must be left alone before the maintenance starts,
+   *                   in milliseconds. Negative to disable the maintenance.
+   * @param pool       The pool with the opened repositories.
+   */
+  RepositoryMaintenance(long idleMillis, RepositoryPool pool) {
+    this.idleMillis = idleMillis;
+    this.pool = pool;
+  }
+
+  /**
+   * @return The unique instance. The idle time is given by the
+   * {@link GitAddonSystemProperties#MAINTENANCE_IDLE_SECONDS} system property.
+   */
+  public static synchronized RepositoryMaintenance getInstance() {
+    if (instance == null) {
+      instance = new RepositoryMaintenance(
+          Integer.getInteger(GitAddonSystemProperties.MAINTENANCE_IDLE_SECONDS, DEFAULT_IDLE_SECONDS) * 1000L,
+          GitAccess.getInstance().getRepositoryPool());
+    }
+    return instance;
+  }
+
+  /**
+   * Notifies that the user works with a repository. Stops the maintenance of the repository
+   * and schedules a new one, for when the repository is left alone.
+   *
+   * @param repository The repository.
+   */
+  public synchronized void activity(Repository repository) {
+    File gitDir = repository.getDirectory();
+    if (gitDir != null) {
+      gitDir = gitDir.getAbsoluteFile();
+      ScheduledMaintenance previous = scheduled.remove(gitDir);
+      if (previous != null) {
+        previous.cancel();
+      }
+      if (idleMillis >= 0) {
+        ScheduledMaintenance maintenance = new ScheduledMaintenance();
+        File dir = gitDir;
+        maintenance.future = GitOperationScheduler.getInstance().scheduleMaintenance(
+            () -> {
+              try {
+                maintainIfNeeded(dir, () -> maintenance.canceled);
+              } finally {
+                synchronized (RepositoryMaintenance.this) {
+                  scheduled.remove(dir, maintenance);
+                }
+              }
+            },
+            idleMillis);
+        scheduled.put(gitDir, maintenance);
+      }
+    }
+  }
+
+  /**
+   * @param gitDir The Git directory of a repository.
+   *
+   * @return <code>true</code> if a maintenance is scheduled or in progress for the repository.
+   */
+  synchronized boolean isScheduled(File gitDir) {
+    return scheduled.containsKey(gitDir.getAbsoluteFile());
+  }
+
+  /**
+   * Gets the outcome of the last maintenance.
+   *
+   * @param gitDir The Git directory of the repository.
+   *
+   * @return The report, or <code>null</code> if the repository wasn't compacted.
+   */
+  public MaintenanceReport getLastReport(File gitDir) {
+    return reports.get(gitDir);
+  }
+
+  /**
+   * Compacts a repository, if needed. Runs on the maintenance thread.
+   *
+   * @param gitDir   The Git directory of the repository.
+   * @param canceled Tells when the maintenance must stop.
+   */
+  void maintainIfNeeded(File gitDir, BooleanSupplier canceled) {
+    RepositoryPool.PooledRepository pooled = pool.borrowIfPooled(gitDir);
+    try {
+      if (pooled != null) {
+        Repository repository = pooled.getGit().getRepository();
+        if (repository instanceof FileRepository) {
+          maintain((FileRepository) repository, false, canceled);
+        }
+      } else {
+        // Not opened by the add-on.
+        try (FileRepository repository = new FileRepository(gitDir)) {
+          maintain(repository, false, canceled);
+        }
+      }
+    } catch (IOException | ParseException e) {
+      // Also when the maintenance was canceled.
+      logger.debug(e, e);
+    } finally {
+      if (pooled != null) {
+        pooled.release();
+      }
+    }
+  }
+
+  /**
+   * Compacts the objects of a repository.
+   *
+   * @param repository The repository.
+   * @param force      <code>true</code> to compact even if the thresholds are not exceeded.
+   *
+   * @return The report, or <code>null</code> if the repository didn't need maintenance.
+   *
+   * @throws IOException    When the objects cannot be compacted.
+   * @throws ParseException When the pruning date from the configuration is not valid.
+   */
+  MaintenanceReport maintain(FileRepository repository, boolean force) throws IOException, ParseException {
+    return maintain(repository, force, () -> false);
+  }
+
+  /**
+   * Compacts the objects of a repository.
+   *
+   * @param repository The repository.
+   * @param force      <code>true</code> to compact even if the thresholds are not exceeded.
+   * @param canceled   Tells when the maintenance must stop.
+   *
+   * @return The report, or <code>null</code> if the repository didn't need maintenance.
+   *
+   * @throws IOException    When the objects cannot be compacted or the maintenance was canceled.
+   * @throws ParseException When the pruning date from the configuration is not valid.
+   */
+  private MaintenanceReport maintain(FileRepository repository, boolean force, BooleanSupplier canceled)
+      throws IOException, ParseException {
+    MaintenanceReport report = null;
+    GC gc = new GC(repository);
+    GC.RepoStatistics before = gc.getStatistics();
+    if (force || needsMaintenance(repository, before)) {
+      long start = System.currentTimeMillis();
+      long lookupBefore = measureLookups(repository);
+
+      PackConfig packConfig = new PackConfig(repository);
+      packConfig.setBuildBitmaps(true);
+      gc.setPackConfig(packConfig);
+      gc.setProgressMonitor(new EmptyProgressMonitor() {
+        @Override
+        public boolean isCancelled() {
+          return canceled.getAsBoolean();
+        }
+      });
+      gc.gc();
+
+      GC.RepoStatistics after = gc.getStatistics();
+      long lookupAfter = measureLookups(repository);
+      report = new MaintenanceReport(
+          before.numberOfLooseObjects,
+          after.numberOfLooseObjects,
+          before.numberOfPackFiles,
+          after.numberOfPackFiles,
+          lookupBefore,
+          lookupAfter,
+          System.currentTimeMillis() - start);
+      reports.put(repository.getDirectory(), report);
+      if (logger.isDebugEnabled()) {
+        logger.debug("Compacted " + repository.getDirectory() + ": " + report);
+      }
+    }
+    return report;
+  }
+
+  /**
+   * Checks the "gc.auto" and "gc.autoPackLimit" thresholds. A threshold of 0 or less is disabled.
+   *
+   * @param repository The repository.
+   * @param statistics The statistics of the repository objects.
+   *
+   * @return <code>true</code> if there are too many loose objects or packs.
+   */
+  private static boolean needsMaintenance(Repository repository, GC.RepoStatistics statistics) {
+    int autoLimit = repository.getConfig().getInt(
+        ConfigConstants.CONFIG_GC_SECTION, ConfigConstants.CONFIG_KEY_AUTO, DEFAULT_AUTO_LIMIT);
+    int autoPackLimit = repository.getConfig().getInt(
+        ConfigConstants.CONFIG_GC_SECTION, ConfigConstants.CONFIG_KEY_AUTOPACKLIMIT, DEFAULT_AUTO_PACK_LIMIT);
+    return autoLimit > 0 && statistics.numberOfLooseObjects >= autoLimit
+        || autoPackLimit > 0 && statistics.numberOfPackFiles > autoPackLimit;
+  }
+
+  /**
+   * Measures how long it takes to read the recent history: the last commits and their trees.
+   * The result only indicates the trend, as it depends on the file system caches.
+   *
+   * @param repository The repository.
+   *
+   * @return The time, in nanoseconds. 0 if the repository has no commits.
+   */
+  private static long measureLookups(Repository repository) {
+    long nanos = 0;
+    try (RevWalk revWalk = new RevWalk(repository)) {
+      ObjectId head = repository.resolve(Constants.HEAD);
+      if (head != null) {
+        long start = System.nanoTime();
+        revWalk.markStart(revWalk.parseCommit(head));
+        int count = 0;
+        for (RevCommit commit : revWalk) {
+          revWalk.parseHeaders(commit.getTree());
+          if (++count == LOOKUP_SAMPLE_COMMITS) {
+            break;
+          }
+        }
+        nanos = System.nanoTime() - start;
+      }
+    } catch (IOException e) {
+      logger.debug(e, e);
+    }
+    return nanos;
+  }
+}
@@ -0,0 +1,530 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+
+import com.oxygenxml.git.utils.GitAddonSystemProperties;
+
+/**
+ * Keeps the most recently used repositories open, together with the data computed for them:
+ * the last status snapshot, the cache of untracked folders, the submodules and the ref
+ * decorations shown in the history. Switching back to one of these repositories doesn't need to re-read the pack
+ * indexes and the refs and the staging view can be populated from the snapshot right away.
+ * <br/><br/>
+ * The pool is bounded by the number of repositories and by an estimate of the memory they use.
+ * When one of the bounds is exceeded, the least recently used repositories are closed.
+ * The repository that was used last and the repositories borrowed by someone (for example
+ * the current repository or a repository being refreshed) are never evicted. A borrowed
+ * repository that is removed from the pool is closed only after it is released.
+ */
+public class RepositoryPool {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(RepositoryPool.class);
+  /**
+   * The default maximum number of repositories kept open.
+   */
+  static final int DEFAULT_MAX_REPOSITORIES = 8;
+  /**
+   * The default maximum memory, in MB, the pooled repositories are estimated to use.
+   */
+  static final int DEFAULT_MAX_MEMORY_MB = 256;
+  /**
+   * The estimated cost of an open repository without any of its pack indexes.
+   */
+  private static final long REPOSITORY_COST = 64L * 1024;
+  /**
+   * The estimated cost of a file status from a snapshot or of a ref decoration.
+   */
+  private static final long ITEM_COST = 256;
+
+  /**
+   * A repository from the pool and the data computed for it.
+   */
+  public static class PooledRepository {
+    /**
+     * The Git instance.
+     */
+    private final Git git;
+    /**
+     * The size of the pack indexes, loaded in memory when objects are read.
+     */
+    private final long packIndexesSize;
+    /**
+     * The cache of untracked folders.
+     */
+    private UntrackedFilesCache untrackedFilesCache;
+    /**
+     * The search index over the history.
+     */
+    private HistorySearchIndex historySearchIndex;
+    /**
+     * The submodules.
+     */
+    private SubmoduleRegistry submoduleRegistry;
+    /**
+     * The last computed status or <code>null</code>.
+     */
+    private GitStatus status;
+    /**
+     * The refs for which the ref decorations were computed.
+     */
+    private Map<String, ObjectId> decoratedRefs = Collections.emptyMap();
+    /**
+     * Ref decorations, by type (tags, local or remote branches). For every type, the
+     * map goes from the abbreviated commit ID to the names of the refs.
+     */
+    private final Map<String, Map<String, List<String>>> refDecorations = new HashMap<>();
+    /**
+     * How many times the repository was borrowed and not yet released.
+     */
+    private int references;
+    /**
+     * <code>true</code> after the repository was removed from the pool. It is closed when
+     * it is no longer borrowed.
+     */
+    private boolean removed;
+    /**
+     * <code>true</code> after the repository was closed.
+     */
+    private boolean closed;
+    /**
+     * <code>true</code> to close the repository together with the Git instance, when the 
+     * Git instance only wraps it.
+     */
+    private final boolean closeRepository;
+
+    /**
+     * Constructor.
+     *
+     * @param git The Git instance.
+     */
+    PooledRepository(Git git) {
+      this(git, false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param git             The Git instance.
+     * @param closeRepository <code>true</code> to close the repository together with the Git instance.
+     */
+    PooledRepository(Git git, boolean closeRepository) {
+      this.git = git;
+      this.closeRepository = closeRepository;
+      this.packIndexesSize = computePackIndexesSize(git.getRepository());
+    }
+
+    /**
+     * @return The Git instance.
+     */
+    public Git getGit() {
+      return git;
+    }
+
+    /**
+     * @return The cache of untracked folders. Never <code>null</code>.
+     */
+    public synchronized UntrackedFilesCache getUntrackedFilesCache() {
+      if (untrackedFilesCache == null) {
+        untrackedFilesCache = new UntrackedFilesCache(git.getRepository());
+      }
+      return untrackedFilesCache;
+    }
+
+    /**
+     * @return The search index over the history. Never <code>null</code>.
+     */
+    public synchronized HistorySearchIndex getHistorySearchIndex() {
+      if (historySearchIndex == null) {
+        historySearchIndex = new HistorySearchIndex(git.getRepository());
+      }
+      return historySearchIndex;
+    }
+
+    /**
+     * @return The submodules. Never <code>null</code>.
+     */
+    public synchronized SubmoduleRegistry getSubmoduleRegistry() {
+      if (submoduleRegistry == null) {
+        submoduleRegistry = new SubmoduleRegistry(git.getRepository());
+      }
+      return submoduleRegistry;
+    }
+
+    /**
+     * @return The last computed status or <code>null</code> if there is none or if
+     * it became obsolete.
+     */
+    public synchronized GitStatus getStatus() {
+      return status;
+    }
+
+    /**
+     * @param status The last computed status. <code>null</code> to discard it.
+     */
+    public synchronized void setStatus(GitStatus status) {
+      this.status = status;
+    }
+
+    /**
+     * Gets the cached ref decorations of the given type, if they were computed for the same refs.
+     *
+     * @param type The decorations type.
+     * @param refs The current refs of the repository.
+     *
+     * @return The decorations or <code>null</code> if they must be computed.
+     */
+    public synchronized Map<String, List<String>> getRefDecorations(String type, Map<String, ObjectId> refs) {
+      if (!decoratedRefs.equals(refs)) {
+        refDecorations.clear();
+        decoratedRefs = refs;
+      }
+      return refDecorations.get(type);
+    }
+
+    /**
+     * Remembers the ref decorations of the given type.
+     *
+     * @param type        The decorations type.
+     * @param refs        The refs for which the decorations were computed.
+     * @param decorations The decorations.
+     */
+    public synchronized void setRefDecorations(
+        String type,
+        Map<String, ObjectId> refs,
+        Map<String, List<String>> decorations) {
+      if (decoratedRefs.equals(refs)) {
+        refDecorations.put(type, decorations);
+      }
+    }
+
+    /**
+     * Marks the repository as used, so it is not closed until {@link #release()} is called.
+     *
+     * @return <code>false</code> if the repository is already closed.
+     */
+    synchronized boolean retain() {
+      if (!closed) {
+        references++;
+      }
+      return !closed;
+    }
+
+    /**
+     * Releases a repository obtained through one of the borrow methods. If it was removed
+     * from the pool in the meantime and nobody else uses it, it is closed.
+     */
+    public synchronized void release() {
+      references--;
+      if (removed && references == 0) {
+        doClose();
+      }
+    }
+
+    /**
+     * @return <code>true</code> if the repository is borrowed by someone.
+     */
+    synchronized boolean isInUse() {
+      return references > 0;
+    }
+
+    /**
+     * Removes the repository from the pool. It is closed right away if nobody uses it,
+     * otherwise when the last user releases it.
+     */
+    synchronized void close() {
+      removed = true;
+      if (references == 0) {
+        doClose();
+      }
+    }
+
+    /**
+     * Closes the Git instance and the repositories of the submodules.
+     */
+    private void doClose() {
+      if (!closed) {
+        closed = true;
+        git.close();
+        if (closeRepository) {
+          git.getRepository().close();
+        }
+        if (submoduleRegistry != null) {
+          submoduleRegistry.close();
+        }
+      }
+    }
+
+    /**
+     * @return The estimated memory used by this repository.
+     */
+    synchronized long estimateMemory() {
+      long cost = REPOSITORY_COST + packIndexesSize;
+      if (status != null) {
+        cost += ITEM_COST * (status.getStagedFiles().size() + status.getUnstagedFiles().size());
+      }
+      for (Map<String, List<String>> decorations : refDecorations.values()) {
+        cost += ITEM_COST * decorations.size();
+      }
+      return cost;
+    }
+
+    /**
+     * Computes the size of the pack indexes of the given repository.
+     *
+     * @param repository The repository.
+     *
+     * @return The size, in bytes.
+     */
+    private static long computePackIndexesSize(Repository repository) {
+      long size = 0;
+      File[] packFiles = new File(repository.getDirectory(), "objects/pack").listFiles();
+      if (packFiles != null) {
+        for (File file : packFiles) {
+          if (file.getName().endsWith(".idx")) {
+            size += file.length();
+          }
+        }
+      }
+      return size;
+    }
+  }
+
+  /**
+   * The pooled repositories, by Git directory, from the least to the most recently used.
+   */
+  private final LinkedHashMap<File, PooledRepository> repositories = new LinkedHashMap<>(16, 0.75f, true);
+  /**
+   * The maximum number of repositories kept open.
+   */
+  private final int maxRepositories;
+  /**
+   * The maximum memory, in bytes, the repositories are estimated to use.
+   */
+  private final long maxMemory;
+
+  /**
+   * Constructor. The bounds are read from system properties.
+   */
+  public RepositoryPool() {
+    this(
+        Integer.getInteger(GitAddonSystemProperties.REPOSITORY_POOL_MAX_SIZE, DEFAULT_MAX_REPOSITORIES),
+        Integer.getInteger(GitAddonSystemProperties.REPOSITORY_POOL_MAX_MEMORY_MB, DEFAULT_MAX_MEMORY_MB) * 1024L * 1024L);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxRepositories The maximum number of repositories kept open.
+   * @param maxMemory       The maximum memory, in bytes, the repositories are estimated to use.
+   */
+  public RepositoryPool(int maxRepositories, long maxMemory) {
+    this.maxRepositories = Math.max(1, maxRepositories);
+    this.maxMemory = maxMemory;
+  }
+
+  /**
+   * Gets the pooled repository for the given Git directory, opening it if it's not in the pool.
+   * It becomes the most recently used one.
+   *
+   * @param gitDir The Git directory.
+   *
+   * @return The pooled repository.
+   *
+   * @throws IOException If the repository cannot be opened.
+   */
+  public synchronized PooledRepository acquire(File gitDir) throws IOException {
+    gitDir = gitDir.getAbsoluteFile();
+    PooledRepository pooled = repositories.get(gitDir);
+    if (pooled == null) {
+      pooled = new PooledRepository(Git.open(gitDir));
+      repositories.put(gitDir, pooled);
+    } else if (logger.isDebugEnabled()) {
+      logger.debug("Reuse pooled repository " + gitDir);
+    }
+    evict();
+    return pooled;
+  }
+
+  /**
+   * Gets the pooled repository for the given Git directory, like {@link #acquire(File)}, and
+   * keeps it open until it is released.
+   *
+   * @param gitDir The Git directory.
+   *
+   * @return The pooled repository. The caller must release it.
+   *
+   * @throws IOException If the repository cannot be opened.
+   */
+  public synchronized PooledRepository borrow(File gitDir) throws IOException {
+    PooledRepository pooled = acquire(gitDir);
+    pooled.retain();
+    return pooled;
+  }
+
+  /**
+   * Adds an already opened repository to the pool, like {@link #add(Git)}, and keeps
+   * it open until it is released.
+   *
+   * @param git The Git instance.
+   *
+   * @return The pooled repository. The caller must release it.
+   */
+  public synchronized PooledRepository borrow(Git git) {
+    PooledRepository pooled = add(git);
+    pooled.retain();
+    return pooled;
+  }
+
+  /**
+   * Keeps the pooled instance of a repository open until it is released. The usage order
+   * doesn't change.
+   *
+   * @param repository The repository.
+   *
+   * @return The pooled repository, that the caller must release, or <code>null</code> if
+   * the repository is not from the pool.
+   */
+  public synchronized PooledRepository borrow(Repository repository) {
+    PooledRepository pooled = get(repository);
+    return pooled != null && pooled.retain() ? pooled : null;
+  }
+
+  /**
+   * Keeps the pooled instance of a repository open until it is released. The repository is
+   * not opened if it's not in the pool and the usage order doesn't change.
+   *
+   * @param gitDir The Git directory.
+   *
+   * @return The pooled repository, that the caller must release, or <code>null</code> if
+   * the repository is not in the pool.
+   */
+  public synchronized PooledRepository borrowIfPooled(File gitDir) {
+    PooledRepository pooled = null;
+    File key = gitDir.getAbsoluteFile();
+    // Not through get(), that would change the usage order.
+    for (Map.Entry<File, PooledRepository> entry : repositories.entrySet()) {
+      if (entry.getKey().equals(key)) {
+        pooled = entry.getValue();
+        break;
+      }
+    }
+    return pooled != null && pooled.retain() ? pooled : null;
+  }
+
+  /**
+   * Adds an already opened repository to the pool and makes it the most recently used one.
+   * If the pool has another instance for the same Git directory (for example, the repository
+   * was created again), that instance is closed and replaced.
+   *
+   * @param git The Git instance.
+   *
+   * @return The pooled repository.
+   */
+  public synchronized PooledRepository add(Git git) {
+    File gitDir = git.getRepository().getDirectory().getAbsoluteFile();
+    PooledRepository pooled = repositories.remove(gitDir);
+    if (pooled == null || pooled.getGit() != git) {
+      if (pooled != null) {
+        pooled.close();
+      }
+      pooled = new PooledRepository(git);
+    }
+    repositories.put(gitDir, pooled);
+    evict();
+    return pooled;
+  }
+
+  /**
+   * Gets the pooled data for the given repository, without changing the usage order.
+   *
+   * @param repository The repository.
+   *
+   * @return The pooled repository or <code>null</code> if the repository is not from the pool.
+   */
+  public synchronized PooledRepository get(Repository repository) {
+    PooledRepository pooled = null;
+    for (PooledRepository candidate : repositories.values()) {
+      if (candidate.getGit().getRepository() == repository) {
+        pooled = candidate;
+        break;
+      }
+    }
+    return pooled;
+  }
+
+  /**
+   * @return The Git directories of the pooled repositories, from the least to the most recently used.
+   */
+  public synchronized List<File> getGitDirectories() {
+    return new ArrayList<>(repositories.keySet());
+  }
+
+  /**
+   * Empties the pool. The repositories are closed, the borrowed ones after they are released.
+   */
+  public synchronized void clear() {
+    for (PooledRepository pooled : repositories.values()) {
+      pooled.close();
+    }
+    repositories.clear();
+  }
+
+  /**
+   * Closes the least recently used repositories until the pool is within its bounds. The
+   * borrowed ones are skipped.
+   */
+  private void evict() {
+    long memory = 0;
+    for (PooledRepository pooled : repositories.values()) {
+      memory += pooled.estimateMemory();
+    }
+
+    Iterator<Map.Entry<File, PooledRepository>> iterator = repositories.entrySet().iterator();
+    while ((repositories.size() > maxRepositories || memory > maxMemory) && iterator.hasNext()) {
+      Map.Entry<File, PooledRepository> eldest = iterator.next();
+      PooledRepository pooled = eldest.getValue();
+      // The most recently used repository and the ones in use are always kept.
+      if (iterator.hasNext() && !pooled.isInUse()) {
+        memory -= pooled.estimateMemory();
+        iterator.remove();
+        pooled.close();
+        if (logger.isDebugEnabled()) {
+          logger.debug("Evicted pooled repository " + eldest.getKey());
+        }
+      }
+    }
+  }
+
+  /**
+   * Collects the refs of a repository, to detect when the ref decorations become obsolete.
+   *
+   * @param repository The repository.
+   *
+   * @return The name and target of every ref.
+   *
+   * @throws IOException If the refs cannot be read.
+   */
+  static Map<String, ObjectId> getRefs(Repository repository) throws IOException {
+    Map<String, ObjectId> refs = new HashMap<>();
+    for (Ref ref : repository.getRefDatabase().getRefs()) {
+      refs.put(ref.getName(), ref.getObjectId());
+    }
+    return refs;
+  }
+}
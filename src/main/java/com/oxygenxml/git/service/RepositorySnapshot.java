@@ -0,0 +1,101 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+
+/**
+ * The state of a repository from the workspace, as computed by a refresh: its status and
+ * how many commits it has to push or pull.
+ */
+public class RepositorySnapshot {
+  /**
+   * The working copy.
+   */
+  private final File workingCopy;
+  /**
+   * The status of the working copy.
+   */
+  private final GitStatus status;
+  /**
+   * The number of local commits not pushed.
+   */
+  private final int pushesAhead;
+  /**
+   * The number of remote commits not pulled.
+   */
+  private final int pullsBehind;
+  /**
+   * <code>false</code> if the remote could not be reached.
+   */
+  private final boolean remoteAvailable;
+
+  /**
+   * Constructor.
+   *
+   * @param workingCopy     The working copy.
+   * @param status          The status of the working copy.
+   * @param pushesAhead     The number of local commits not pushed.
+   * @param pullsBehind     The number of remote commits not pulled.
+   * @param remoteAvailable <code>false</code> if the remote could not be reached.
+   */
+  public RepositorySnapshot(
+      File workingCopy,
+      GitStatus status,
+      int pushesAhead,
+      int pullsBehind,
+      boolean remoteAvailable) {
+    this.workingCopy = workingCopy;
+    this.status = status;
+    this.pushesAhead = pushesAhead;
+    this.pullsBehind = pullsBehind;
+    this.remoteAvailable = remoteAvailable;
+  }
+
+  /**
+   * @return The working copy.
+   */
+  public File getWorkingCopy() {
+    return workingCopy;
+  }
+
+  /**
+   * @return The status of the working copy.
+   */
+  public GitStatus getStatus() {
+    return status;
+  }
+
+  /**
+   * @return The number of local commits not pushed.
+   */
+  public int getPushesAhead() {
+    return pushesAhead;
+  }
+
+  /**
+   * @return The number of remote commits not pulled.
+   */
+  public int getPullsBehind() {
+    return pullsBehind;
+  }
+
+  /**
+   * @return <code>false</code> if the remote could not be reached.
+   */
+  public boolean isRemoteAvailable() {
+    return remoteAvailable;
+  }
+
+  /**
+   * @return The number of changed files, staged or not.
+   */
+  public int getChangesCount() {
+    return status.getUnstagedFiles().size() + status.getStagedFiles().size();
+  }
+
+  @Override
+  public String toString() {
+    return "RepositorySnapshot [workingCopy=" + workingCopy + ", changes=" + getChangesCount()
+        + ", pushesAhead=" + pushesAhead + ", pullsBehind=" + pullsBehind
+        + ", remoteAvailable=" + remoteAvailable + "]";
+  }
+}
@@ -0,0 +1,203 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+
+import com.oxygenxml.git.utils.FileHelper;
+
+/**
+ * Restricts the work done on a working copy to a set of directories. Only these directories
+ * are visited when computing the status. The files from outside stay on disk and in the index.
+ * <br><br>
+ * The directories are kept in the repository configuration, in a section of the add-on, so
+ * the command line Git ignores them. JGit cannot mark the index entries as skipped, so deleting
+ * the files from outside would make any status that doesn't know about the directories
+ * report them as deleted.
+ * <br><br>
+ * A sparse checkout made with the command line Git is understood too, if its patterns are
+ * directories. The command line Git marks the index entries from outside as skipped, so the
+ * status doesn't report them.
+ */
+public class SparseCheckout {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(SparseCheckout.class);
+
+  /**
+   * The file with the patterns, relative to the Git directory.
+   */
+  static final String SPARSE_CHECKOUT_FILE = "info/sparse-checkout";
+
+  /**
+   * The option from the "core" section that enables the sparse checkout of the command line Git.
+   */
+  private static final String SPARSE_CHECKOUT_KEY = "sparseCheckout";
+
+  /**
+   * The configuration section of the add-on.
+   */
+  static final String CONFIG_SECTION = "oxygenGit";
+
+  /**
+   * The option from the add-on section that lists the directories.
+   */
+  static final String DIRECTORY_KEY = "sparseDirectory";
+
+  /**
+   * Hidden constructor.
+   */
+  private SparseCheckout() {
+    // Nothing
+  }
+
+  /**
+   * Gets the directories the work on the working copy is restricted to.
+   *
+   * @param repository The repository.
+   *
+   * @return The directories, relative to the working copy, or an empty list if the whole
+   * working copy is of interest.
+   */
+  public static List<String> getDirectories(Repository repository) {
+    List<String> directories = Collections.emptyList();
+    StoredConfig config = repository.getConfig();
+    String[] selected = config.getStringList(CONFIG_SECTION, null, DIRECTORY_KEY);
+    if (selected.length > 0) {
+      directories = parse(Arrays.asList(selected));
+    } else if (config.getBoolean(
+        ConfigConstants.CONFIG_CORE_SECTION, null, SPARSE_CHECKOUT_KEY, false)) {
+      File file = new File(repository.getDirectory(), SPARSE_CHECKOUT_FILE);
+      if (file.isFile()) {
+        try {
+          directories = parse(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+          logger.debug(e, e);
+        }
+      }
+    }
+    return directories;
+  }
+
+  /**
+   * Parses the sparse checkout patterns.
+   *
+   * @param lines The lines of the patterns file.
+   *
+   * @return The directories, or an empty list if the patterns select the whole working copy
+   * or cannot be reduced to directories.
+   */
+  static List<String> parse(List<String> lines) {
+    List<String> directories = new ArrayList<>();
+    for (String line : lines) {
+      String pattern = line.trim();
+      if (!pattern.isEmpty() && pattern.charAt(0) != '#') {
+        String directory = stripSeparators(pattern);
+        if (pattern.charAt(0) == '!'
+            || directory.isEmpty()
+            || directory.indexOf('*') != -1
+            || directory.indexOf('?') != -1
+            || directory.indexOf('[') != -1) {
+          // Negations, wildcards or everything. We don't restrict anything.
+          directories.clear();
+          break;
+        }
+        directories.add(directory);
+      }
+    }
+    return FileHelper.getTopmostPaths(directories);
+  }
+
+  /**
+   * Restricts the work on the working copy to some directories. No file is added or removed.
+   *
+   * @param repository  The repository.
+   * @param directories The directories, relative to the working copy. An empty collection, or one that
+   *                    contains the empty path, selects the whole working copy.
+   *
+   * @throws IOException When the configuration cannot be saved.
+   */
+  public static void setDirectories(Repository repository, Collection<String> directories) throws IOException {
+    List<String> topmost = directories.contains("")
+        ? Collections.emptyList() : FileHelper.getTopmostPaths(directories);
+    StoredConfig config = repository.getConfig();
+    if (topmost.isEmpty()) {
+      config.unset(CONFIG_SECTION, null, DIRECTORY_KEY);
+    } else {
+      config.setStringList(CONFIG_SECTION, null, DIRECTORY_KEY, topmost);
+    }
+    config.save();
+  }
+
+  /**
+   * Restricts some paths to the sparse checkout directories.
+   *
+   * @param paths       Paths relative to the working copy. The empty path stands for the whole working copy.
+   * @param directories The sparse checkout directories. Not empty.
+   *
+   * @return The parts of the given paths that are inside the directories. Empty if there are none.
+   */
+  public static List<String> restrict(Collection<String> paths, List<String> directories) {
+    List<String> restricted = new ArrayList<>();
+    for (String path : paths) {
+      String stripped = stripSeparators(path);
+      if (isInside(stripped, directories)) {
+        restricted.add(stripped);
+      } else {
+        // The path might contain some of the directories.
+        for (String directory : directories) {
+          if (stripped.isEmpty() || directory.startsWith(stripped + "/")) {
+            restricted.add(directory);
+          }
+        }
+      }
+    }
+    return FileHelper.getTopmostPaths(restricted);
+  }
+
+  /**
+   * Checks if a path is inside one of the sparse checkout directories.
+   *
+   * @param path        The path, relative to the working copy.
+   * @param directories The directories. Empty for the whole working copy.
+   *
+   * @return <code>true</code> if the path is checked out.
+   */
+  static boolean isInside(String path, List<String> directories) {
+    boolean inside = directories.isEmpty();
+    for (int i = 0; !inside && i < directories.size(); i++) {
+      String directory = directories.get(i);
+      inside = path.equals(directory) || path.startsWith(directory + "/");
+    }
+    return inside;
+  }
+
+  /**
+   * @param path A path.
+   *
+   * @return The path without the leading and trailing separators.
+   */
+  private static String stripSeparators(String path) {
+    int start = 0;
+    int end = path.length();
+    while (start < end && path.charAt(start) == '/') {
+      start++;
+    }
+    while (end > start && path.charAt(end - 1) == '/') {
+      end--;
+    }
+    return path.substring(start, end);
+  }
+}
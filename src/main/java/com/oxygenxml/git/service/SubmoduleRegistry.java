@@ -0,0 +1,343 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.errors.ConfigInvalidException;
+import org.eclipse.jgit.errors.NoWorkTreeException;
+import org.eclipse.jgit.internal.storage.file.FileSnapshot;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileBasedConfig;
+import org.eclipse.jgit.submodule.SubmoduleStatus;
+import org.eclipse.jgit.submodule.SubmoduleStatusType;
+import org.eclipse.jgit.submodule.SubmoduleWalk;
+
+import com.oxygenxml.git.utils.GitOperationScheduler;
+
+/**
+ * The submodules of a repository. Their paths are collected in a single pass over the INDEX
+ * entries and their names are read from the ".gitmodules" file. Both are read again only when
+ * the INDEX or the ".gitmodules" file change.
+ * <br/><br/>
+ * The status of the submodules depends on their own repositories, so it is computed on every
+ * request, in parallel when there are many submodules. The repositories of the submodules
+ * are kept open, to compute their status and the status of the files inside them. They are 
+ * borrowed by the operations that use them and a repository that is no longer a submodule 
+ * is closed only after it is released.
+ */
+public class SubmoduleRegistry {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(SubmoduleRegistry.class);
+  /**
+   * Starting with this number of submodules, their status is computed in parallel.
+   */
+  private static final int PARALLEL_STATUS_THRESHOLD = 4;
+  /**
+   * The repository.
+   */
+  private final Repository repository;
+  /**
+   * The state of the INDEX when the paths were collected. <code>null</code> if never read.
+   */
+  private FileSnapshot indexSnapshot;
+  /**
+   * The state of the ".gitmodules" file when the names were read. <code>null</code> if never read.
+   */
+  private FileSnapshot modulesSnapshot;
+  /**
+   * The commit recorded in the INDEX for every submodule, by path, in the INDEX order.
+   */
+  private Map<String, ObjectId> indexIds = Collections.emptyMap();
+  /**
+   * The submodule paths.
+   */
+  private Set<String> paths = Collections.emptySet();
+  /**
+   * The submodule names from the ".gitmodules" file, by path.
+   */
+  private Map<String, String> names = Collections.emptyMap();
+  /**
+   * The repositories of the submodules, by path, kept open between the status computations.
+   */
+  private final Map<String, RepositoryPool.PooledRepository> submoduleRepositories = new HashMap<>();
+
+  /**
+   * Constructor.
+   *
+   * @param repository The repository.
+   */
+  SubmoduleRegistry(Repository repository) {
+    this.repository = repository;
+  }
+
+  /**
+   * @return The paths of the submodules, in the INDEX order. Never <code>null</code>. Can't be modified.
+   */
+  public synchronized Set<String> getPaths() {
+    refresh();
+    return paths;
+  }
+
+  /**
+   * Computes the status of every submodule.
+   *
+   * @return The status of the submodules, by path, in the INDEX order. Never <code>null</code>.
+   */
+  public Map<String, SubmoduleStatus> getStatuses() {
+    Map<String, ObjectId> currentIndexIds;
+    Map<String, String> currentNames;
+    synchronized (this) {
+      refresh();
+      currentIndexIds = indexIds;
+      currentNames = names;
+    }
+
+    Map<String, SubmoduleStatus> statuses = new LinkedHashMap<>();
+    if (currentIndexIds.size() < PARALLEL_STATUS_THRESHOLD) {
+      for (Map.Entry<String, ObjectId> entry : currentIndexIds.entrySet()) {
+        SubmoduleStatus status = computeStatus(entry.getKey(), entry.getValue(), currentNames);
+        if (status != null) {
+          statuses.put(entry.getKey(), status);
+        }
+      }
+    } else {
+      List<Callable<SubmoduleStatus>> tasks = new ArrayList<>(currentIndexIds.size());
+      for (Map.Entry<String, ObjectId> entry : currentIndexIds.entrySet()) {
+        tasks.add(() -> computeStatus(entry.getKey(), entry.getValue(), currentNames));
+      }
+      try {
+        for (Future<SubmoduleStatus> future : GitOperationScheduler.getInstance().invokeAllAndHelp(tasks)) {
+          try {
+            SubmoduleStatus status = future.get();
+            if (status != null) {
+              statuses.put(status.getPath(), status);
+            }
+          } catch (ExecutionException e) {
+            logger.debug(e, e);
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        logger.debug(e, e);
+      }
+    }
+    return statuses;
+  }
+
+  /**
+   * Computes the status of a submodule.
+   *
+   * @param path The path of the submodule.
+   *
+   * @return The status or <code>null</code> if there is no submodule at that path.
+   */
+  public SubmoduleStatus getStatus(String path) {
+    ObjectId indexId;
+    Map<String, String> currentNames;
+    synchronized (this) {
+      refresh();
+      indexId = indexIds.get(path);
+      currentNames = names;
+    }
+    return indexId != null ? computeStatus(path, indexId, currentNames) : null;
+  }
+
+  /**
+   * Gets the repositories of the submodules that are checked out and keeps them open until 
+   * they are released. They are opened when first needed and they are kept open while they 
+   * are submodules of this repository.
+   *
+   * @return The repositories of the submodules, by path, in the INDEX order. Never <code>null</code>.
+   * The caller must release every one of them.
+   */
+  public synchronized Map<String, RepositoryPool.PooledRepository> borrowSubmoduleRepositories() {
+    refresh();
+    Map<String, RepositoryPool.PooledRepository> repositories = new LinkedHashMap<>();
+    for (String path : paths) {
+      RepositoryPool.PooledRepository submodule = borrowSubmoduleRepository(path);
+      if (submodule != null) {
+        repositories.put(path, submodule);
+      }
+    }
+    return repositories;
+  }
+
+  /**
+   * Gets the repository of a submodule and keeps it open until it is released. 
+   *
+   * @param path The path of the submodule.
+   *
+   * @return The repository, that the caller must release, or <code>null</code> if the 
+   * submodule is not checked out.
+   */
+  private synchronized RepositoryPool.PooledRepository borrowSubmoduleRepository(String path) {
+    RepositoryPool.PooledRepository submodule = submoduleRepositories.get(path);
+    if (submodule == null) {
+      try {
+        Repository submoduleRepository = SubmoduleWalk.getSubmoduleRepository(repository, path);
+        if (submoduleRepository != null) {
+          // Closed together with the Git instance, which only wraps it.
+          submodule = new RepositoryPool.PooledRepository(Git.wrap(submoduleRepository), true);
+          submoduleRepositories.put(path, submodule);
+        }
+      } catch (IOException e) {
+        logger.debug(e, e);
+      }
+    }
+    return submodule != null && submodule.retain() ? submodule : null;
+  }
+
+  /**
+   * Closes the repositories of the submodules. Those still borrowed are closed when released.
+   */
+  public synchronized void close() {
+    for (RepositoryPool.PooledRepository submodule : submoduleRepositories.values()) {
+      submodule.close();
+    }
+    submoduleRepositories.clear();
+  }
+
+  /**
+   * Reads the paths and the names of the submodules again, if the INDEX or the ".gitmodules"
+   * file changed since they were last read.
+   */
+  private void refresh() {
+    if (repository.isBare()) {
+      return;
+    }
+    try {
+      File indexFile = repository.getIndexFile();
+      if (indexSnapshot == null || indexSnapshot.isModified(indexFile)) {
+        // Take the snapshot first, so a change made while reading is detected next time.
+        indexSnapshot = FileSnapshot.save(indexFile);
+        readIndex();
+      }
+
+      File modulesFile = new File(repository.getWorkTree(), Constants.DOT_GIT_MODULES);
+      if (modulesSnapshot == null || modulesSnapshot.isModified(modulesFile)) {
+        modulesSnapshot = FileSnapshot.save(modulesFile);
+        readNames(modulesFile);
+      }
+    } catch (IOException | NoWorkTreeException | ConfigInvalidException e) {
+      // Read everything again next time.
+      indexSnapshot = null;
+      modulesSnapshot = null;
+      logger.debug(e, e);
+    }
+  }
+
+  /**
+   * Collects the submodules from the INDEX.
+   *
+   * @throws IOException If the INDEX cannot be read.
+   */
+  private void readIndex() throws IOException {
+    Map<String, ObjectId> ids = new LinkedHashMap<>();
+    DirCache dirCache = repository.readDirCache();
+    for (int i = 0; i < dirCache.getEntryCount(); i++) {
+      DirCacheEntry entry = dirCache.getEntry(i);
+      if (entry.getFileMode() == FileMode.GITLINK) {
+        // A submodule in conflict has several entries. Keep the first one.
+        ids.putIfAbsent(entry.getPathString(), entry.getObjectId());
+      }
+    }
+    indexIds = Collections.unmodifiableMap(ids);
+    paths = Collections.unmodifiableSet(ids.keySet());
+
+    Iterator<Map.Entry<String, RepositoryPool.PooledRepository>> iterator = submoduleRepositories.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<String, RepositoryPool.PooledRepository> entry = iterator.next();
+      if (!ids.containsKey(entry.getKey())) {
+        // No longer a submodule.
+        entry.getValue().close();
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Reads the submodule names from the ".gitmodules" file.
+   *
+   * @param modulesFile The ".gitmodules" file.
+   *
+   * @throws IOException            If the file cannot be read.
+   * @throws ConfigInvalidException If the file is not valid.
+   */
+  private void readNames(File modulesFile) throws IOException, ConfigInvalidException {
+    Map<String, String> pathToName = new LinkedHashMap<>();
+    if (modulesFile.isFile()) {
+      FileBasedConfig modulesConfig = new FileBasedConfig(modulesFile, repository.getFS());
+      modulesConfig.load();
+      for (String name : modulesConfig.getSubsections(ConfigConstants.CONFIG_SUBMODULE_SECTION)) {
+        String path = modulesConfig.getString(ConfigConstants.CONFIG_SUBMODULE_SECTION, name, ConfigConstants.CONFIG_KEY_PATH);
+        if (path != null) {
+          pathToName.putIfAbsent(path, name);
+        }
+      }
+    }
+    names = Collections.unmodifiableMap(pathToName);
+  }
+
+  /**
+   * Computes the status of a submodule, the same way the submodule status command does it.
+   *
+   * @param path    The path of the submodule.
+   * @param indexId The commit recorded in the INDEX.
+   * @param names   The submodule names from the ".gitmodules" file, by path.
+   *
+   * @return The status or <code>null</code> if it couldn't be computed.
+   */
+  private SubmoduleStatus computeStatus(String path, ObjectId indexId, Map<String, String> names) {
+    SubmoduleStatus status = null;
+    String name = names.get(path);
+    if (name == null) {
+      // Not described in the ".gitmodules" file.
+      status = new SubmoduleStatus(SubmoduleStatusType.MISSING, path, indexId);
+    } else if (repository.getConfig().getString(
+        ConfigConstants.CONFIG_SUBMODULE_SECTION, name, ConfigConstants.CONFIG_KEY_URL) == null) {
+      // Not initialized with "submodule init".
+      status = new SubmoduleStatus(SubmoduleStatusType.UNINITIALIZED, path, indexId);
+    } else {
+      // The repository kept open is used, so its refs and packs are not read again.
+      RepositoryPool.PooledRepository submodule = borrowSubmoduleRepository(path);
+      try {
+        ObjectId headId = submodule != null ? submodule.getGit().getRepository().resolve(Constants.HEAD) : null;
+        if (headId == null) {
+          status = new SubmoduleStatus(SubmoduleStatusType.UNINITIALIZED, path, indexId, headId);
+        } else if (!headId.equals(indexId)) {
+          status = new SubmoduleStatus(SubmoduleStatusType.REV_CHECKED_OUT, path, indexId, headId);
+        } else {
+          status = new SubmoduleStatus(SubmoduleStatusType.INITIALIZED, path, indexId, headId);
+        }
+      } catch (IOException e) {
+        logger.debug(e, e);
+      } finally {
+        if (submodule != null) {
+          submodule.release();
+        }
+      }
+    }
+    return status;
+  }
+}
@@ -0,0 +1,518 @@
+package com.oxygenxml.git.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.api.StatusCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.AbstractTreeIterator;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.WorkingTreeOptions;
+import org.eclipse.jgit.util.FS;
+
+/**
+ * A cache for the untracked folders of a working copy, in the spirit of Git's
+ * <code>core.untrackedCache</code>.
+ * <br/><br/>
+ * For every folder that has no entry in the INDEX (a folder that contains only untracked
+ * files) we store the untracked files it contains together with the modification time of
+ * every folder from its sub-tree and of the ignore rules that apply to it. As long as
+ * none of these changed, the status computation doesn't descend into the folder and
+ * the recorded untracked files are used instead.
+ * <br/><br/>
+ * The cache is kept in memory and it is also persisted next to the INDEX file, so it
+ * survives restarts.
+ * <br/><br/>
+ * A folder changed shortly before or during a status computation might keep the same
+ * modification time after another change, because of the timestamp resolution of the file
+ * system. Such racily clean folders are always visited again.
+ */
+public class UntrackedFilesCache {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(UntrackedFilesCache.class);
+  /**
+   * The name of the file, from the Git directory, in which the cache is persisted.
+   */
+  static final String CACHE_FILE_NAME = "oxygen-untracked-cache";
+  /**
+   * Version of the persisted format. Increment it when the format changes.
+   */
+  private static final int FORMAT_VERSION = 2;
+  /**
+   * A resource modified this close to a status computation, in milliseconds, might
+   * change again without a different modification time.
+   */
+  private static final long RACY_INTERVAL_MILLIS = 2000;
+  /**
+   * The name of the files that contain ignore rules.
+   */
+  private static final String GITIGNORE = Constants.DOT_GIT_IGNORE;
+  /**
+   * The repository whose untracked folders are cached.
+   */
+  private final Repository repository;
+  /**
+   * The file in which the cache is persisted.
+   */
+  private final File cacheFile;
+  /**
+   * Cached folders. Key: the folder path, relative to the working copy. Value: what
+   * we know about that folder.
+   */
+  private Map<String, CachedFolder> folders;
+
+  /**
+   * A status computed through the cache, together with the untracked files from
+   * the folders that were not visited.
+   */
+  public static class CachedStatus {
+    /**
+     * The status.
+     */
+    private final Status status;
+    /**
+     * The untracked files from the folders served from the cache.
+     */
+    private final List<String> cachedUntrackedFiles;
+
+    /**
+     * Constructor.
+     *
+     * @param status               The status.
+     * @param cachedUntrackedFiles The untracked files from the folders served from the cache.
+     */
+    CachedStatus(Status status, List<String> cachedUntrackedFiles) {
+      this.status = status;
+      this.cachedUntrackedFiles = cachedUntrackedFiles;
+    }
+
+    /**
+     * @return The status. It doesn't contain the files from the folders served from the cache.
+     */
+    public Status getStatus() {
+      return status;
+    }
+
+    /**
+     * @return The untracked files that were not reported by the status because
+     * they were served from the cache. Never <code>null</code>.
+     */
+    public List<String> getCachedUntrackedFiles() {
+      return cachedUntrackedFiles;
+    }
+  }
+
+  /**
+   * What we know about an untracked folder.
+   */
+  private static class CachedFolder {
+    /**
+     * The untracked files from the folder, relative to the working copy.
+     */
+    private final List<String> untrackedFiles;
+    /**
+     * The paths (folders and ignore rules files) that must remain untouched for the
+     * entry to be valid, mapped to their last modification time.
+     */
+    private final Map<String, Long> watchedPaths;
+    /**
+     * When the status that recorded the folder started to be computed.
+     */
+    private final long scanTime;
+
+    /**
+     * Constructor.
+     *
+     * @param untrackedFiles The untracked files from the folder.
+     * @param watchedPaths   The watched paths and their modification time.
+     * @param scanTime       When the status that recorded the folder started to be computed.
+     */
+    CachedFolder(List<String> untrackedFiles, Map<String, Long> watchedPaths, long scanTime) {
+      this.untrackedFiles = untrackedFiles;
+      this.watchedPaths = watchedPaths;
+      this.scanTime = scanTime;
+    }
+  }
+
+  /**
+   * Working tree iterator that doesn't descend into the folders with a valid cache entry.
+   */
+  private class CachingFileTreeIterator extends FileTreeIterator {
+    /**
+     * Collects the folders served from the cache. Shared with all the sub-iterators.
+     */
+    private final Set<String> servedFolders;
+
+    /**
+     * Constructor for the root of the working tree.
+     *
+     * @param repo          The repository.
+     * @param servedFolders Collects the folders served from the cache.
+     */
+    CachingFileTreeIterator(Repository repo, Set<String> servedFolders) {
+      super(repo,
+          repo.getConfig().get(WorkingTreeOptions.KEY).isDirNoGitLinks() ?
+              NoGitlinksStrategy.INSTANCE : DefaultFileModeStrategy.INSTANCE);
+      this.servedFolders = servedFolders;
+    }
+
+    /**
+     * Constructor for a sub-folder.
+     *
+     * @param parent The parent iterator.
+     * @param root   The folder to iterate.
+     * @param fs     File system abstraction.
+     */
+    CachingFileTreeIterator(CachingFileTreeIterator parent, File root, FS fs) {
+      super(parent, root, fs, parent.fileModeStrategy);
+      this.servedFolders = parent.servedFolders;
+    }
+
+    @Override
+    public AbstractTreeIterator createSubtreeIterator(ObjectReader reader) throws IOException {
+      // Only folders without tracked content are cached.
+      if (getDirCacheIterator() == null) {
+        String folderPath = getEntryPathString();
+        if (isUpToDate(folderPath)) {
+          servedFolders.add(folderPath);
+
+          byte[] childPath = new byte[pathLen + 1];
+          System.arraycopy(path, 0, childPath, 0, pathLen);
+          childPath[pathLen] = '/';
+          return new EmptyTreeIterator(this, childPath, pathLen + 1);
+        }
+      }
+
+      return super.createSubtreeIterator(reader);
+    }
+
+    @Override
+    protected AbstractTreeIterator enterSubtree() {
+      return new CachingFileTreeIterator(this, getEntryFile(), fs);
+    }
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param repository The repository whose untracked folders are cached.
+   */
+  public UntrackedFilesCache(Repository repository) {
+    this.repository = repository;
+    this.cacheFile = new File(repository.getDirectory(), CACHE_FILE_NAME);
+  }
+
+  /**
+   * Executes the given status command. The folders with a valid cache entry are not visited.
+   *
+   * @param statusCmd The command to execute.
+   *
+   * @return The status, together with the untracked files from the folders that were not visited.
+   *
+   * @throws GitAPIException The status computation failed.
+   */
+  public synchronized CachedStatus call(StatusCommand statusCmd) throws GitAPIException {
+    ensureLoaded();
+
+    long scanTime = System.currentTimeMillis();
+    Set<String> servedFolders = new HashSet<>();
+    statusCmd.setWorkingTreeIt(new CachingFileTreeIterator(repository, servedFolders));
+    Status status = statusCmd.call();
+
+    List<String> cachedUntrackedFiles = new ArrayList<>();
+    for (String folder : servedFolders) {
+      cachedUntrackedFiles.addAll(folders.get(folder).untrackedFiles);
+    }
+
+    if (statusCmd.getPaths() == null || statusCmd.getPaths().isEmpty()) {
+      // Only a full status gives us the complete picture of the untracked folders.
+      update(status, servedFolders, scanTime);
+    }
+
+    return new CachedStatus(status, cachedUntrackedFiles);
+  }
+
+  /**
+   * Drops the cache entries affected by a change of the given resources.
+   *
+   * @param paths Paths, relative to the working copy, of the changed resources.
+   */
+  public synchronized void invalidate(Collection<String> paths) {
+    if (folders != null) {
+      boolean changed = false;
+      for (String path : paths) {
+        for (Iterator<String> iterator = folders.keySet().iterator(); iterator.hasNext();) {
+          String folder = iterator.next();
+          if (path.equals(folder) || path.startsWith(folder + "/")) {
+            iterator.remove();
+            changed = true;
+          }
+        }
+      }
+
+      if (changed) {
+        save();
+      }
+    }
+  }
+
+  /**
+   * Drops all the cache entries.
+   */
+  public synchronized void clear() {
+    folders = new HashMap<>();
+    if (cacheFile.exists() && !cacheFile.delete()) {
+      logger.debug("Unable to delete " + cacheFile);
+    }
+  }
+
+  /**
+   * Checks if the cache entry for the given folder is still valid.
+   *
+   * @param folderPath Folder path, relative to the working copy.
+   *
+   * @return <code>true</code> if the folder is cached and nothing changed in it.
+   */
+  private boolean isUpToDate(String folderPath) {
+    boolean upToDate = false;
+    CachedFolder cachedFolder = folders.get(folderPath);
+    if (cachedFolder != null) {
+      upToDate = true;
+      File workTree = repository.getWorkTree();
+      for (Entry<String, Long> watched : cachedFolder.watchedPaths.entrySet()) {
+        long lastModified = watched.getValue();
+        if (getLastModified(workTree, watched.getKey()) != lastModified
+            // Racily clean. It might have changed within the same timestamp.
+            || lastModified >= cachedFolder.scanTime - RACY_INTERVAL_MILLIS) {
+          upToDate = false;
+          break;
+        }
+      }
+    }
+    return upToDate;
+  }
+
+  /**
+   * Records the untracked folders detected by a full status.
+   *
+   * @param status        The status.
+   * @param servedFolders The folders served from the cache while computing the status.
+   * @param scanTime      When the status started to be computed.
+   */
+  private void update(Status status, Set<String> servedFolders, long scanTime) {
+    Map<String, CachedFolder> newFolders = new HashMap<>();
+    for (String served : servedFolders) {
+      newFolders.put(served, folders.get(served));
+    }
+
+    Set<String> untrackedFolders = status.getUntrackedFolders();
+    Map<String, List<String>> filesByFolder = new LinkedHashMap<>();
+    for (String folder : untrackedFolders) {
+      if (!servedFolders.contains(folder) && !hasAncestorIn(folder, untrackedFolders)) {
+        filesByFolder.put(folder, new ArrayList<>());
+      }
+    }
+
+    if (!filesByFolder.isEmpty()) {
+      for (String file : status.getUntracked()) {
+        String folder = findTopmostFolder(file, filesByFolder.keySet());
+        if (folder != null) {
+          filesByFolder.get(folder).add(file);
+        }
+      }
+
+      File workTree = repository.getWorkTree();
+      for (Entry<String, List<String>> entry : filesByFolder.entrySet()) {
+        String folder = entry.getKey();
+        Map<String, Long> watchedPaths = new HashMap<>();
+        collectAncestorIgnoreRules(workTree, folder, watchedPaths);
+        collectSubtree(workTree, folder, watchedPaths);
+        newFolders.put(folder, new CachedFolder(entry.getValue(), watchedPaths, scanTime));
+      }
+    }
+
+    if (!newFolders.keySet().equals(folders.keySet()) || !filesByFolder.isEmpty()) {
+      folders = newFolders;
+      save();
+    }
+  }
+
+  /**
+   * Checks if one of the ancestors of the given path is in the given set.
+   *
+   * @param path    The path.
+   * @param folders The folders.
+   *
+   * @return <code>true</code> if an ancestor was found.
+   */
+  private static boolean hasAncestorIn(String path, Set<String> folders) {
+    return findTopmostFolder(path, folders) != null;
+  }
+
+  /**
+   * Finds the topmost folder that contains the given path.
+   *
+   * @param path    The path.
+   * @param folders The candidate folders.
+   *
+   * @return The topmost folder that contains the path or <code>null</code>.
+   */
+  private static String findTopmostFolder(String path, Set<String> folders) {
+    int index = path.indexOf('/');
+    while (index != -1) {
+      String ancestor = path.substring(0, index);
+      if (folders.contains(ancestor)) {
+        return ancestor;
+      }
+      index = path.indexOf('/', index + 1);
+    }
+    return null;
+  }
+
+  /**
+   * Records the ignore rules files that apply to the given folder: the ones from the
+   * ancestors and the repository exclude file.
+   *
+   * @param workTree     The working copy.
+   * @param folder       The folder path, relative to the working copy.
+   * @param watchedPaths Receives the paths and their modification time.
+   */
+  private void collectAncestorIgnoreRules(File workTree, String folder, Map<String, Long> watchedPaths) {
+    String exclude = Constants.DOT_GIT + "/" + Constants.INFO_EXCLUDE;
+    watchedPaths.put(exclude, getLastModified(workTree, exclude));
+
+    watchedPaths.put(GITIGNORE, getLastModified(workTree, GITIGNORE));
+    int index = folder.indexOf('/');
+    while (index != -1) {
+      String gitignore = folder.substring(0, index) + "/" + GITIGNORE;
+      watchedPaths.put(gitignore, getLastModified(workTree, gitignore));
+      index = folder.indexOf('/', index + 1);
+    }
+  }
+
+  /**
+   * Records the folders and the ignore rules files from the sub-tree of the given folder.
+   *
+   * @param workTree     The working copy.
+   * @param folder       The folder path, relative to the working copy.
+   * @param watchedPaths Receives the paths and their modification time.
+   */
+  private void collectSubtree(File workTree, String folder, Map<String, Long> watchedPaths) {
+    watchedPaths.put(folder, getLastModified(workTree, folder));
+
+    String gitignore = folder + "/" + GITIGNORE;
+    watchedPaths.put(gitignore, getLastModified(workTree, gitignore));
+
+    File[] children = new File(workTree, folder).listFiles(File::isDirectory);
+    if (children != null) {
+      for (int i = 0; i < children.length; i++) {
+        String name = children[i].getName();
+        if (!Constants.DOT_GIT.equals(name)) {
+          collectSubtree(workTree, folder + "/" + name, watchedPaths);
+        }
+      }
+    }
+  }
+
+  /**
+   * @param workTree The working copy.
+   * @param path     A path relative to the working copy.
+   *
+   * @return The last modification time of the resource or 0 if it doesn't exist.
+   */
+  private static long getLastModified(File workTree, String path) {
+    return new File(workTree, path).lastModified();
+  }
+
+  /**
+   * Loads the persisted cache, if not already loaded.
+   */
+  private void ensureLoaded() {
+    if (folders == null) {
+      folders = new HashMap<>();
+      if (cacheFile.exists()) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+          if (in.readInt() == FORMAT_VERSION) {
+            int foldersCount = in.readInt();
+            for (int i = 0; i < foldersCount; i++) {
+              String folder = in.readUTF();
+              long scanTime = in.readLong();
+              int filesCount = in.readInt();
+              List<String> files = new ArrayList<>(filesCount);
+              for (int j = 0; j < filesCount; j++) {
+                files.add(in.readUTF());
+              }
+              int watchedCount = in.readInt();
+              Map<String, Long> watchedPaths = new HashMap<>();
+              for (int j = 0; j < watchedCount; j++) {
+                watchedPaths.put(in.readUTF(), in.readLong());
+              }
+              folders.put(folder, new CachedFolder(files, watchedPaths, scanTime));
+            }
+          }
+        } catch (IOException e) {
+          // A corrupted cache. Just start from scratch.
+          logger.debug(e, e);
+          folders.clear();
+        }
+      }
+    }
+  }
+
+  /**
+   * Persists the cache next to the INDEX.
+   */
+  private void save() {
+    File tempFile = new File(cacheFile.getParentFile(), CACHE_FILE_NAME + ".tmp");
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(folders.size());
+        for (Entry<String, CachedFolder> entry : folders.entrySet()) {
+          out.writeUTF(entry.getKey());
+          CachedFolder cachedFolder = entry.getValue();
+          out.writeLong(cachedFolder.scanTime);
+          out.writeInt(cachedFolder.untrackedFiles.size());
+          for (String file : cachedFolder.untrackedFiles) {
+            out.writeUTF(file);
+          }
+          out.writeInt(cachedFolder.watchedPaths.size());
+          for (Entry<String, Long> watched : cachedFolder.watchedPaths.entrySet()) {
+            out.writeUTF(watched.getKey());
+            out.writeLong(watched.getValue());
+          }
+        }
+      }
+
+      if (cacheFile.exists() && !cacheFile.delete() || !tempFile.renameTo(cacheFile)) {
+        logger.debug("Unable to persist the untracked cache into " + cacheFile);
+      }
+    } catch (IOException e) {
+      logger.debug(e, e);
+    }
+  }
+}
@@ -547,6 +547,11 @@ public class Tags {
 	 */
 	public static final String CLONE_REPOSITORY_DIALOG_LOGIN_MESSAGE = "Clone_Repository_Dialog_Login_Message";
 
+	/**
+	 * Check box in the clone dialog for transferring only the checked out branch.
+	 */
+	public static final String CLONE_REPOSITORY_DIALOG_SINGLE_BRANCH = "Clone_Repository_Dialog_Single_Branch";
+
 	/**
 	 * The text in the title of the cloning progress dialog
 	 */
@@ -802,4 +807,34 @@ public class Tags {
    * Cancel. Taken from oXygen's "translation.xml".
    */
   public static final String CANCEL = "Cancel";
+  /**
+   * Summary of a repository from a multi-repository workspace, in the working copy combo.
+   * 
+   * en: {0} changes, {1} to push, {2} to pull
+   */
+  public static final String WORKSPACE_REPOSITORY_SUMMARY = "Workspace_repository_summary";
+  /**
+   * Project view contextual action that restricts the search for changes to the selected folders.
+   * 
+   * en: Look for changes only in the selected folders
+   */
+  public static final String SPARSE_CHECKOUT = "Sparse_checkout";
+  /**
+   * Tooltip of the field that filters the history.
+   * 
+   * en: Filter the commits. Words from the message, author:name, path:folder/file, after:yyyy-mm-dd, before:yyyy-mm-dd
+   */
+  public static final String HISTORY_FILTER_HINT = "History_filter_hint";
+  /**
+   * Status message after the user canceled a push.
+   * 
+   * en: Push canceled
+   */
+  public static final String PUSH_CANCELED = "Push_canceled";
+  /**
+   * Status message after the user canceled a pull.
+   * 
+   * en: Pull canceled. The working copy was not changed.
+   */
+  public static final String PULL_CANCELED = "Pull_canceled";
 }
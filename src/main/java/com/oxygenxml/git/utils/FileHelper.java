@@ -1,18 +1,25 @@
 package com.oxygenxml.git.utils;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.regex.Pattern;
 
 import org.apache.log4j.Logger;
+import org.eclipse.jgit.lib.Constants;
 
 import com.oxygenxml.git.service.GitAccess;
 import com.oxygenxml.git.service.NoRepositorySelected;
+import com.oxygenxml.git.service.entities.FileStatus;
 
 /**
  * An utility class for files
@@ -33,6 +40,16 @@ public class FileHelper {
 	 */
 	private static Logger logger = Logger.getLogger(FileHelper.class);
 	
+	/**
+	 * The prefix of the line that refers the Git directory inside a <code>.git</code> file.
+	 */
+	private static final String GITDIR_PREFIX = "gitdir:";
+	
+	/**
+	 * Replaces the path separator in the keys used for sorting paths.
+	 */
+	private static final char PATH_SEPARATOR_SORT_KEY = '\u0000';
+	
 	/**
    * Get the common ancestor for a list of directories.
    * 
@@ -143,30 +160,110 @@ public class FileHelper {
   }
 
 	/**
-	 * Searches a given path for all files in that path. Generates the files paths
-	 * relative to the given path.
+	 * Gets the paths of the given files relative to a working copy.
 	 * 
-	 * @param path The path to the folder you want to search.
+	 * @param files       The files.
+	 * @param workingCopy The working copy path.
 	 * 
-	 * @return list of paths relative to the given path
+	 * @return The paths relative to the working copy. The working copy itself is the empty path. 
+	 * The files outside the working copy are skipped.
 	 */
-	public static List<String> getAllFilesFromPath(String path) {
-		File rootFolder = new File(path);
-		List<String> fileNames = new ArrayList<>();
-		if (rootFolder.isFile()) {
-			fileNames.add(rewriteSeparator(rootFolder.getAbsolutePath()));
-			return fileNames;
-		}
-		File[] listOfFiles = rootFolder.listFiles();
-
-		for (int i = 0; i < listOfFiles.length; i++) {
-			if (listOfFiles[i].isDirectory() && (!listOfFiles[i].getName().equals(".git"))) {
-				fileNames.addAll(getAllFilesFromPath(listOfFiles[i].getAbsolutePath()));
-			} else if (listOfFiles[i].isFile()) {
-				fileNames.add(rewriteSeparator(listOfFiles[i].getAbsolutePath()));
-			}
-		}
-		return fileNames;
+	public static List<String> getRelativePaths(File[] files, String workingCopy) {
+	  List<String> paths = new ArrayList<>();
+	  String workingCopyPath = rewriteSeparator(new File(workingCopy).getAbsolutePath());
+	  for (File file : files) {
+	    String filePath = rewriteSeparator(file.getAbsolutePath());
+	    if (filePath.equals(workingCopyPath)) {
+	      paths.add("");
+	    } else if (filePath.startsWith(workingCopyPath + "/")) {
+	      paths.add(filePath.substring(workingCopyPath.length() + 1));
+	    }
+	  }
+	  return paths;
+	}
+	
+	/**
+	 * Keeps the files that are one of the given paths or are inside one of them. Only the paths 
+	 * are compared, the file system is not accessed.
+	 * 
+	 * @param files The files, with locations relative to the working copy.
+	 * @param paths Paths relative to the working copy. The empty path stands for the whole working copy.
+	 * 
+	 * @return The files inside the given paths, in their original order.
+	 */
+	public static List<FileStatus> filterByPaths(List<FileStatus> files, Collection<String> paths) {
+	  // The topmost paths are disjoint subtrees, so the closest preceding path is the only one
+	  // that can contain a file.
+	  TreeSet<String> roots = new TreeSet<>();
+	  for (String path : getTopmostPaths(paths)) {
+	    roots.add(toSortKey(path));
+	  }
+	  
+	  List<FileStatus> filtered = new ArrayList<>();
+	  for (FileStatus file : files) {
+	    String location = toSortKey(file.getFileLocation());
+	    String root = roots.floor(location);
+	    if (root != null && isSameOrInside(location, root)) {
+	      filtered.add(file);
+	    }
+	  }
+	  return filtered;
+	}
+	
+	/**
+	 * Drops the paths that are inside other given paths. Only the paths are compared, the file
+	 * system is not accessed.
+	 * 
+	 * @param paths Paths relative to the working copy. The empty path stands for the whole working copy.
+	 * 
+	 * @return The paths that are not inside other given paths, sorted.
+	 */
+	public static List<String> getTopmostPaths(Collection<String> paths) {
+	  // In this order a folder comes right before its descendants.
+	  TreeSet<String> sortedPaths = new TreeSet<>();
+	  for (String path : paths) {
+	    sortedPaths.add(toSortKey(path));
+	  }
+	  
+	  List<String> topmost = new ArrayList<>();
+	  String lastKept = null;
+	  for (String path : sortedPaths) {
+	    if (lastKept == null || !isSameOrInside(path, lastKept)) {
+	      lastKept = path;
+	      topmost.add(path.replace(PATH_SEPARATOR_SORT_KEY, '/'));
+	    }
+	  }
+	  return topmost;
+	}
+	
+	/**
+	 * Checks if a path is the same as a folder path or is inside it.
+	 * 
+	 * @param pathKey   The sort key of the path.
+	 * @param folderKey The sort key of the folder path.
+	 * 
+	 * @return <code>true</code> if the path is the folder or is inside it.
+	 */
+	private static boolean isSameOrInside(String pathKey, String folderKey) {
+	  return folderKey.isEmpty() 
+	      || pathKey.equals(folderKey) 
+	      || pathKey.startsWith(folderKey + PATH_SEPARATOR_SORT_KEY);
+	}
+	
+	/**
+	 * Turns a path into a key that sorts a folder right before its descendants. The separator
+	 * becomes the smallest character, so "a/b" comes before "a-b".
+	 * 
+	 * @param path A path with "/" separators.
+	 * 
+	 * @return The key.
+	 */
+	private static String toSortKey(String path) {
+	  String key = path.replace('/', PATH_SEPARATOR_SORT_KEY);
+	  if (key.endsWith(String.valueOf(PATH_SEPARATOR_SORT_KEY))) {
+	    key = key.substring(0, key.length() - 1);
+	  }
+	  return key;
 	}
 
 	/**
@@ -227,17 +324,8 @@ public class FileHelper {
 	 * @return <code>true</code> if the path corresponds to a Git repository.
 	 */
 	public static boolean isGitRepository(String path) {
-		File rootFolder = new File(path);
-		File[] listOfFiles = rootFolder.listFiles();
-
-		if (listOfFiles != null) {
-			for (int i = 0; i < listOfFiles.length; i++) {
-				if (listOfFiles[i].isDirectory() && ".git".equals(listOfFiles[i].getName())) {
-					return true;
-				}
-			}
-		}
-		return false;
+	  // Check the child directly. Listing a large folder is slow, especially on network drives.
+	  return new File(path, Constants.DOT_GIT).isDirectory();
 	}
 
 	/**
@@ -252,21 +340,42 @@ public class FileHelper {
 	 * @return <code>true</code> if the path represents a submodule.
 	 */
 	public static boolean isGitSubmodule(String path) {
-		File rootFolder = new File(path);
-		File[] listOfFiles = rootFolder.listFiles();
-
-		boolean isSubmodule = false;
-		if (listOfFiles != null) {
-			for (int i = 0; i < listOfFiles.length; i++) {
-				File child = listOfFiles[i];
-        if (!child.isDirectory() 
-				    && ".git".equals(child.getName())) {
-					isSubmodule = true;
-				}
-			}
-		}
-		
-		return isSubmodule;
+	  return new File(path, Constants.DOT_GIT).isFile();
+	}
+	
+	/**
+	 * Gets the Git directory of a working copy. It is either the <code>.git</code> folder from 
+	 * the working copy or the folder referred by a <code>.git</code> file (a submodule or a worktree):
+	 * <pre>
+	 * gitdir: ../.git/modules/js
+	 * </pre>
+	 * 
+	 * @param workTree The working copy folder.
+	 * 
+	 * @return The Git directory or <code>null</code> if the folder is not the root of a working copy.
+	 */
+	public static File getGitDir(File workTree) {
+	  File gitDir = null;
+	  File dotGit = new File(workTree, Constants.DOT_GIT);
+	  if (dotGit.isDirectory()) {
+	    gitDir = dotGit;
+	  } else if (dotGit.isFile()) {
+	    try {
+	      String content = new String(Files.readAllBytes(dotGit.toPath()), StandardCharsets.UTF_8).trim();
+	      if (content.startsWith(GITDIR_PREFIX)) {
+	        File referred = new File(content.substring(GITDIR_PREFIX.length()).trim());
+	        if (!referred.isAbsolute()) {
+	          referred = new File(workTree, referred.getPath());
+	        }
+	        if (referred.isDirectory()) {
+	          gitDir = referred.toPath().normalize().toFile();
+	        }
+	      }
+	    } catch (IOException e) {
+	      logger.debug(e, e);
+	    }
+	  }
+	  return gitDir;
 	}
 
 	/**
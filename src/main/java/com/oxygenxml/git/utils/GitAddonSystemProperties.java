@@ -18,4 +18,59 @@ public class GitAddonSystemProperties {
    */
   public static final String USE_JSCH_FOR_SSH_OPERATIONS = "useJschForSSHOperations";
   
+  /**
+   * The maximum number of repositories kept open for a quick switch between working copies.
+   */
+  public static final String REPOSITORY_POOL_MAX_SIZE = "gitRepositoryPoolMaxSize";
+  
+  /**
+   * The maximum memory, in MB, the repositories kept open are allowed to use.
+   */
+  public static final String REPOSITORY_POOL_MAX_MEMORY_MB = "gitRepositoryPoolMaxMemoryMB";
+  
+  /**
+   * Setting this property to <code>true</code> enables the multi-repository workspace mode: all the Git
+   * repositories referred by the Oxygen project are refreshed together, in parallel.
+   */
+  public static final String MULTI_REPOSITORY_WORKSPACE = "gitMultiRepositoryWorkspace";
+  
+  /**
+   * What a fetch brings from the remote: "upstream_only" (the default), "all_heads" or "tags_on_demand".
+   * Only "all_heads" brings the other branches of the remote.
+   * See {@link com.oxygenxml.git.service.FetchPolicy.Mode}.
+   */
+  public static final String FETCH_MODE = "gitFetchMode";
+  
+  /**
+   * Setting this property to <code>true</code> or <code>false</code> forces the check of the objects
+   * received by a fetch on or off. When not set, the "fetch.fsckObjects" and "transfer.fsckObjects"
+   * repository configuration decides.
+   */
+  public static final String FETCH_CHECK_OBJECTS = "gitFetchCheckObjects";
+  
+  /**
+   * How long, in seconds, the branches listed for a remote URL in the clone dialog are reused.
+   * The default is 300.
+   */
+  public static final String REMOTE_BRANCHES_CACHE_TTL_SECONDS = "gitRemoteBranchesCacheTTLSeconds";
+  
+  /**
+   * How long, in seconds, a repository must be left alone before its objects are compacted.
+   * The default is 120. A negative value disables the maintenance. The thresholds are the "gc.auto"
+   * and "gc.autoPackLimit" repository configuration, like for the command line Git.
+   */
+  public static final String MAINTENANCE_IDLE_SECONDS = "gitMaintenanceIdleSeconds";
+  
+  /**
+   * How long, in seconds, an SSH session is kept open after a fetch, pull or push, to be reused by the
+   * next operation on the same host. The default is 120. A negative or zero value disables the reuse.
+   */
+  public static final String SSH_SESSION_IDLE_SECONDS = "gitSshSessionIdleSeconds";
+  
+  /**
+   * Setting this property to <code>true</code> presents the changes from inside the submodules in the
+   * staging view, under the submodule paths. The status of the submodules is computed in parallel.
+   */
+  public static final String RECURSIVE_SUBMODULE_STATUS = "gitRecursiveSubmoduleStatus";
+  
 }
@@ -1,14 +1,30 @@
 package com.oxygenxml.git.utils;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 
 /**
  * Schedules git operations on a thread. The same thread is being used. 
+ * 
+ * Independent operations, like refreshing several repositories, can also be executed 
+ * in parallel, on a bounded pool of threads. The housekeeping of the repositories runs
+ * on a separate, low priority, maintenance thread.
  */
 public class GitOperationScheduler {
   /**
@@ -19,6 +35,18 @@ public class GitOperationScheduler {
    * Refresh executor.
    */
   private ScheduledExecutorService refreshExecutor = new ScheduledThreadPoolExecutor(1);
+  /**
+   * The maximum number of operations executed in parallel.
+   */
+  private static final int PARALLELISM = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+  /**
+   * Executor for the operations that run in parallel. Created when first needed.
+   */
+  private ExecutorService parallelExecutor;
+  /**
+   * Executor for the maintenance operations. Created when first needed.
+   */
+  private ScheduledExecutorService maintenanceExecutor;
   /**
    * Singleton instance.
    */
@@ -54,10 +82,121 @@ public class GitOperationScheduler {
     return refreshExecutor.schedule(r, 500, TimeUnit.MILLISECONDS);
   }
 
+  /**
+   * Executes the given tasks in parallel, on a bounded pool of threads, and waits for all of them to finish.
+   * The total time is given by the slowest task, not by their sum.
+   * 
+   * @param tasks The tasks to execute.
+   * 
+   * @return The futures holding the results, in the same order as the tasks.
+   * 
+   * @throws InterruptedException If interrupted while waiting.
+   */
+  public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
+    return getParallelExecutor().invokeAll(tasks);
+  }
+  
+  /**
+   * Executes the given tasks in parallel and waits for all of them to finish. Unlike
+   * {@link #invokeAll(Collection)}, the calling thread also executes the tasks that no thread 
+   * has started yet, so it can be called from an operation that already runs in parallel
+   * without waiting for a free thread.
+   * <br><br>
+   * It is safe to call from the threads of the pool, for nested operations like the status of 
+   * the submodules of a submodule. Even when all the threads wait here, each caller runs the 
+   * tasks that no thread picked up and only waits for the ones already running, which never 
+   * wait for the caller.
+   * 
+   * @param tasks The tasks to execute.
+   * 
+   * @return The futures holding the results, in the same order as the tasks.
+   * 
+   * @throws InterruptedException If interrupted while waiting.
+   */
+  public <T> List<Future<T>> invokeAllAndHelp(Collection<? extends Callable<T>> tasks) throws InterruptedException {
+    List<FutureTask<T>> futures = new ArrayList<>(tasks.size());
+    for (Callable<T> task : tasks) {
+      futures.add(new FutureTask<>(task));
+    }
+    ExecutorService executor = getParallelExecutor();
+    // The last task is left for the calling thread.
+    for (int i = 0; i < futures.size() - 1; i++) {
+      executor.execute(futures.get(i));
+    }
+    // A task that was already started by another thread is not executed again.
+    for (int i = futures.size() - 1; i >= 0; i--) {
+      futures.get(i).run();
+    }
+    for (FutureTask<T> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException | CancellationException e) {
+        // The caller gets it from the future.
+      }
+    }
+    return new ArrayList<>(futures);
+  }
+  
+  /**
+   * Schedules a maintenance operation. It runs on its own low priority thread, so it never delays
+   * the operations requested by the user.
+   * 
+   * @param r           The maintenance operation.
+   * @param delayMillis The delay, in milliseconds.
+   * 
+   * @return The future of the operation. Can be used to cancel it.
+   */
+  public synchronized ScheduledFuture<?> scheduleMaintenance(Runnable r, long delayMillis) {
+    if (maintenanceExecutor == null || maintenanceExecutor.isShutdown()) {
+      ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "Git maintenance");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+      });
+      // The canceled operations are rescheduled often. Don't keep them in the queue.
+      executor.setRemoveOnCancelPolicy(true);
+      maintenanceExecutor = executor;
+    }
+    return maintenanceExecutor.schedule(r, delayMillis, TimeUnit.MILLISECONDS);
+  }
+  
+  /**
+   * @return The executor for the operations that run in parallel.
+   */
+  private synchronized ExecutorService getParallelExecutor() {
+    if (parallelExecutor == null || parallelExecutor.isShutdown()) {
+      AtomicInteger counter = new AtomicInteger();
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(
+          PARALLELISM, 
+          PARALLELISM,
+          30, 
+          TimeUnit.SECONDS, 
+          new LinkedBlockingQueue<>(),
+          r -> {
+            Thread thread = new Thread(r, "Git parallel operation " + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          });
+      // Don't keep idle threads around.
+      executor.allowCoreThreadTimeOut(true);
+      parallelExecutor = executor;
+    }
+    return parallelExecutor;
+  }
+
   /**
    * Attempts to shutdown any running tasks.
    */
   public void shutdown() {
+    synchronized (this) {
+      if (parallelExecutor != null) {
+        parallelExecutor.shutdownNow();
+      }
+      if (maintenanceExecutor != null) {
+        maintenanceExecutor.shutdownNow();
+      }
+    }
     refreshExecutor.shutdown();
     try {
       refreshExecutor.awaitTermination(2000, TimeUnit.MILLISECONDS);
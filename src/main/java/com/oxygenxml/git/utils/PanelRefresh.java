@@ -1,7 +1,6 @@
 package com.oxygenxml.git.utils;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
@@ -10,19 +9,15 @@ import java.util.List;
 import java.util.concurrent.ScheduledFuture;
 
 import javax.swing.SwingUtilities;
-import javax.xml.XMLConstants;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 
 import org.apache.log4j.Logger;
-import org.xml.sax.SAXException;
 
 import com.oxygenxml.git.options.OptionsManager;
-import com.oxygenxml.git.sax.XPRHandler;
 import com.oxygenxml.git.service.GitAccess;
 import com.oxygenxml.git.service.GitStatus;
 import com.oxygenxml.git.service.NoRepositorySelected;
+import com.oxygenxml.git.service.RemoteStateService;
+import com.oxygenxml.git.service.RepositorySnapshot;
 import com.oxygenxml.git.service.RepositoryUnavailableException;
 import com.oxygenxml.git.service.entities.FileStatus;
 import com.oxygenxml.git.translator.Tags;
@@ -76,6 +71,15 @@ public class PanelRefresh implements GitRefreshSupport {
 	 * Translation support.
 	 */
 	private Translator translator = Translator.getInstance();
+	/**
+	 * <code>true</code> to refresh together all the repositories referred by the project.
+	 */
+	private final boolean multiRepositoryWorkspace = Boolean.getBoolean(GitAddonSystemProperties.MULTI_REPOSITORY_WORKSPACE);
+	/**
+	 * The working copies of the repositories referred by the current project. Used in the
+	 * multi-repository workspace mode.
+	 */
+	private List<File> workspaceRepositories = Collections.emptyList();
 	/**
 	 * Refresh executor.
 	 */
@@ -98,14 +102,16 @@ public class PanelRefresh implements GitRefreshSupport {
 	    try {
 	      if (gitAccess.getRepository() != null) {
 	        stagingPanel.updateRebasePanelVisibilityBasedOnRepoState();
-	        GitStatus status = GitAccess.getInstance().getStatus();
-	        updateFiles(
-	            stagingPanel.getUnstagedChangesPanel(), 
-	            status.getUnstagedFiles());
-	        updateFiles(
-	            stagingPanel.getStagedChangesPanel(), 
-	            status.getStagedFiles());
-	        updateCounters();
+	        if (!refreshWorkspace()) {
+	          GitStatus status = GitAccess.getInstance().getStatus();
+	          updateFiles(
+	              stagingPanel.getUnstagedChangesPanel(), 
+	              status.getUnstagedFiles());
+	          updateFiles(
+	              stagingPanel.getStagedChangesPanel(), 
+	              status.getStagedFiles());
+	          updateCounters();
+	        }
 	      }
 	    } catch (NoRepositorySelected e) {
 	      if (logger.isDebugEnabled()) {
@@ -117,6 +123,42 @@ public class PanelRefresh implements GitRefreshSupport {
 	  logger.debug("End refresh on thread.");
 	};
   
+  /**
+   * In the multi-repository workspace mode, refreshes in parallel all the repositories
+   * referred by the project, including the current one.
+   * 
+   * @return <code>true</code> if the current repository was refreshed this way.
+   * 
+   * @throws NoRepositorySelected No repository is loaded.
+   */
+  private boolean refreshWorkspace() throws NoRepositorySelected {
+    boolean refreshed = false;
+    if (multiRepositoryWorkspace && workspaceRepositories.size() > 1) {
+      File currentWorkingCopy = gitAccess.getWorkingCopy().getAbsoluteFile();
+      List<File> workingCopies = new ArrayList<>(workspaceRepositories);
+      if (!workingCopies.contains(currentWorkingCopy)) {
+        workingCopies.add(currentWorkingCopy);
+      }
+      
+      List<RepositorySnapshot> snapshots = gitAccess.refreshRepositories(workingCopies, true);
+      for (RepositorySnapshot snapshot : snapshots) {
+        if (currentWorkingCopy.equals(snapshot.getWorkingCopy())) {
+          refreshed = true;
+          updateFiles(
+              stagingPanel.getUnstagedChangesPanel(), 
+              snapshot.getStatus().getUnstagedFiles());
+          updateFiles(
+              stagingPanel.getStagedChangesPanel(), 
+              snapshot.getStatus().getStagedFiles());
+          showCounters(snapshot.isRemoteAvailable() ? RepositoryStatus.AVAILABLE : RepositoryStatus.UNAVAILABLE);
+        }
+      }
+      
+      SwingUtilities.invokeLater(() -> stagingPanel.getWorkingCopySelectionPanel().setWorkspaceSnapshots(snapshots));
+    }
+    return refreshed;
+  }
+  
   @Override
   public void call() {
     if (refreshFuture != null && !refreshFuture.isDone()) {
@@ -181,82 +223,28 @@ public class PanelRefresh implements GitRefreshSupport {
 	 * 
 	 * @return <code>true</code> if a Git repository was detected and loaded. <code>false</code>
 	 * if no Git repository was detected.
-	 * 
-	 * @throws FileNotFoundException The project file doesn't exist.
-	 * @throws IOException A Git repository was detected but not loaded.
 	 */
 	private boolean checkForGitRepositoriesUpAndDownFrom(String projectDir) {
 	  boolean projectPahtIsGit = false;
 		String projectName = EditorVariables.expandEditorVariables("${pn}", null);
 		String projectXprName = projectName + ".xpr";
-		try {
-		  // Parse the XML file to detected the referred resources.
-		  SAXParserFactory saxParserFactory = SAXParserFactory.newInstance();
-		  saxParserFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING , true);
-		  SAXParser saxParser = saxParserFactory.newSAXParser();
-			XPRHandler handler = new XPRHandler();
-			
-			File xmlFile = new File(projectDir, projectXprName);
-			saxParser.parse(xmlFile, handler);
-			List<String> pathsFromProjectView = handler.getPaths();
-			for (String path : pathsFromProjectView) {
-				File file = null;
-				if (FileHelper.isURL(path)) {
-					file = new File(path);
-				} else if (!".".equals(path)) {
-					file = new File(projectDir, path);
-				}
-				if (file != null) {
-					String pathToCheck = file.getAbsolutePath();
-					if (checkGitFolder(pathToCheck)) {
-					  projectPahtIsGit = true;
-					  break;
-					}
-				}
-			}
-
-			if (!projectPahtIsGit) {
-			  // The oxygen project might be inside a Git repository.
-			  // Look into the ancestors for a Git repository.
-			  File file = new File(projectDir);
-			  while (file != null) {
-			    if (checkGitFolder(file.getAbsolutePath())) {
-			      projectPahtIsGit = true;
-			      break;
-			    }
-			    file = file.getParentFile();
-			  }
-			}
-		} catch (ParserConfigurationException | SAXException | IOException e1) {
-			if (logger.isDebugEnabled()) {
-				logger.debug(e1, e1);
-			}
+		List<File> repositories = RepositoryDiscovery.getInstance().discover(new File(projectDir, projectXprName));
+		if (!repositories.isEmpty()) {
+		  try {
+		    GitAccess.getInstance().setRepositorySynchronously(repositories.get(0).getAbsolutePath());
+		    projectPahtIsGit = true;
+		  } catch (IOException e) {
+		    if (logger.isDebugEnabled()) {
+		      logger.debug(e, e);
+		    }
+		  }
 		}
+		// Multi-repository workspace. Keep the other repositories too.
+		workspaceRepositories = multiRepositoryWorkspace ? repositories : Collections.emptyList();
 		
 		return projectPahtIsGit;
 	}
 
-	/**
-	 * Checks if the given folder is a Git repository. If it is, then it loads
-	 * it into the view.
-	 * 
-	 * @param pathToCheck Folder path.
-	 *  
-	 * @return <code>true</code> if the path identifies a Git repository.
-	 * 
-	 * @throws IOException Problems changing the repository. 
-	 */
-	private boolean checkGitFolder(String pathToCheck) throws IOException {
-	  boolean projectPahtIsGit = false;
-		if (FileHelper.isGitRepository(pathToCheck)) {
-			projectPahtIsGit = true;
-			
-			GitAccess.getInstance().setRepositorySynchronously(pathToCheck);
-		}
-		
-		return projectPahtIsGit;
-	}
-	
 	/**
 	 * Update the counters presented on the Pull/Push toolbar action.
 	 */
@@ -264,18 +252,27 @@ public class PanelRefresh implements GitRefreshSupport {
     // Connect to the remote.
     RepositoryStatus status = RepositoryStatus.AVAILABLE;
     try {
-      GitAccess.getInstance().fetch();
+      // Shares the fetch with the toolbar and the history, if they fetch too.
+      RemoteStateService.getInstance().fetch(gitAccess.getRepository(), false);
     } catch (RepositoryUnavailableException e) {
       status = RepositoryStatus.UNAVAILABLE;
     } catch (Exception e) {
       // Ignore other causes why the fetch might fail.
     }
 
-    final RepositoryStatus fStatus = status;
+    showCounters(status);
+	}
+	
+	/**
+	 * Presents the repository status and the counters on the Pull/Push toolbar action.
+	 * 
+	 * @param status The repository status.
+	 */
+	private void showCounters(RepositoryStatus status) {
 	  SwingUtilities.invokeLater(() -> {
-      stagingPanel.getCommitPanel().setRepoStatus(fStatus);
-      stagingPanel.getToolbarPanel().updateStatus();
-    });
+	    stagingPanel.getCommitPanel().setRepoStatus(status);
+	    stagingPanel.getToolbarPanel().updateStatus();
+	  });
 	}
 
 	/**
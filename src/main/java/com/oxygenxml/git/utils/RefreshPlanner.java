@@ -0,0 +1,178 @@
+package com.oxygenxml.git.utils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides which folders of the Project view must be refreshed after some files were added
+ * to or removed from a working copy. Each refreshed folder is scanned again by Oxygen, so
+ * the planner prefers a few small folders over a common ancestor.
+ */
+public class RefreshPlanner {
+  /**
+   * When more than this many sibling folders must be refreshed, their parent is refreshed instead.
+   */
+  static final int MAX_SIBLINGS = 8;
+  /**
+   * The maximum number of folders refreshed at once.
+   */
+  static final int BATCH_SIZE = 32;
+
+  /**
+   * The working copy.
+   */
+  private final File workingCopy;
+  /**
+   * The folders presented in the Project view. Empty if not known.
+   */
+  private final Collection<File> projectFolders;
+
+  /**
+   * Constructor.
+   *
+   * @param workingCopy    The working copy.
+   * @param projectFolders The folders presented in the Project view. Empty if not known, in
+   *                       which case all the working copy is considered visible.
+   */
+  public RefreshPlanner(File workingCopy, Collection<File> projectFolders) {
+    this.workingCopy = workingCopy.getAbsoluteFile();
+    this.projectFolders = projectFolders;
+  }
+
+  /**
+   * Computes the folders to refresh.
+   *
+   * @param changedPaths The added or removed files, relative to the working copy.
+   *
+   * @return The folders to refresh.
+   */
+  public List<File> plan(Collection<String> changedPaths) {
+    Set<String> folders = new LinkedHashSet<>();
+    for (String path : changedPaths) {
+      folders.add(getExistingParent(path));
+    }
+
+    groupSiblings(folders);
+
+    // Different folders might be clipped to the same project folder.
+    Set<File> toRefresh = new LinkedHashSet<>();
+    for (String folder : FileHelper.getTopmostPaths(folders)) {
+      File file = folder.isEmpty() ? workingCopy : new File(workingCopy, folder);
+      toRefresh.addAll(clipToProject(file));
+    }
+    return new ArrayList<>(toRefresh);
+  }
+
+  /**
+   * Splits the folders to refresh into batches.
+   *
+   * @param folders The folders.
+   *
+   * @return The batches, each with at most {@link #BATCH_SIZE} folders.
+   */
+  public static List<File[]> toBatches(List<File> folders) {
+    List<File[]> batches = new ArrayList<>();
+    File[] all = folders.toArray(new File[0]);
+    for (int i = 0; i < all.length; i += BATCH_SIZE) {
+      batches.add(Arrays.copyOfRange(all, i, Math.min(all.length, i + BATCH_SIZE)));
+    }
+    return batches;
+  }
+
+  /**
+   * Gets the closest folder of a changed file that still exists. A removed file might
+   * have taken its folders with it.
+   *
+   * @param path The changed file, relative to the working copy.
+   *
+   * @return The folder path, relative to the working copy.
+   */
+  private String getExistingParent(String path) {
+    String folder = getParent(path);
+    while (!folder.isEmpty() && !new File(workingCopy, folder).isDirectory()) {
+      folder = getParent(folder);
+    }
+    return folder;
+  }
+
+  /**
+   * Replaces the folders that have too many siblings to refresh with their parent.
+   *
+   * @param folders The folder paths, relative to the working copy. Changed in place.
+   */
+  private static void groupSiblings(Set<String> folders) {
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      Map<String, List<String>> byParent = new HashMap<>();
+      for (String folder : folders) {
+        if (!folder.isEmpty()) {
+          byParent.computeIfAbsent(getParent(folder), k -> new ArrayList<>()).add(folder);
+        }
+      }
+      for (Map.Entry<String, List<String>> entry : byParent.entrySet()) {
+        if (entry.getValue().size() > MAX_SIBLINGS) {
+          folders.removeAll(entry.getValue());
+          folders.add(entry.getKey());
+          changed = true;
+        }
+      }
+    }
+  }
+
+  /**
+   * Restricts a folder to the part of it presented in the Project view.
+   *
+   * @param folder The folder.
+   *
+   * @return The folder itself, if presented in the Project view, the project folders that are
+   * inside it, or nothing if no part of it is presented.
+   */
+  private List<File> clipToProject(File folder) {
+    List<File> clipped = new ArrayList<>();
+    if (projectFolders.isEmpty()) {
+      clipped.add(folder);
+    } else {
+      String folderPath = FileHelper.rewriteSeparator(folder.getAbsolutePath());
+      for (File projectFolder : projectFolders) {
+        String projectFolderPath = FileHelper.rewriteSeparator(projectFolder.getAbsolutePath());
+        if (isSameOrInside(folderPath, projectFolderPath)) {
+          // Visible.
+          clipped.clear();
+          clipped.add(folder);
+          break;
+        } else if (isSameOrInside(projectFolderPath, folderPath)) {
+          clipped.add(projectFolder);
+        }
+      }
+    }
+    return clipped;
+  }
+
+  /**
+   * @param path   A path.
+   * @param folder A folder path.
+   *
+   * @return <code>true</code> if the path is the folder or is inside it.
+   */
+  private static boolean isSameOrInside(String path, String folder) {
+    return path.equals(folder) || path.startsWith(folder.endsWith("/") ? folder : folder + "/");
+  }
+
+  /**
+   * @param path A path relative to the working copy.
+   *
+   * @return The parent path. The empty path for the files at the top of the working copy.
+   */
+  private static String getParent(String path) {
+    int index = path.lastIndexOf('/');
+    return index == -1 ? "" : path.substring(0, index);
+  }
+}
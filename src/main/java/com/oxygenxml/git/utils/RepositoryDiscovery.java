@@ -0,0 +1,300 @@
+package com.oxygenxml.git.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.log4j.Logger;
+import org.eclipse.jgit.lib.RepositoryCache.FileKey;
+import org.eclipse.jgit.util.FS;
+import org.xml.sax.SAXException;
+
+import com.oxygenxml.git.sax.XPRHandler;
+
+/**
+ * Detects the Git repositories referred by an Oxygen project. The result is cached until the
+ * project file changes, a working copy is removed or a referred folder that was not a working
+ * copy changes.
+ */
+public class RepositoryDiscovery {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(RepositoryDiscovery.class);
+
+  /**
+   * The unique instance.
+   */
+  private static RepositoryDiscovery instance;
+
+  /**
+   * The factory of the parsers used on the project files. Created once.
+   */
+  private SAXParserFactory saxParserFactory;
+
+  /**
+   * The repositories discovered for each project file.
+   */
+  private final Map<File, Discovery> cache = new HashMap<>();
+
+  /**
+   * The repositories discovered for a project file.
+   */
+  private static class Discovery {
+    /**
+     * The last modification time of the project file.
+     */
+    private final long lastModified;
+    /**
+     * The length of the project file.
+     */
+    private final long length;
+    /**
+     * The folders referred by the project.
+     */
+    private final List<File> projectFolders;
+    /**
+     * The working copies.
+     */
+    private final List<File> workingCopies;
+    /**
+     * The referred folders that are not working copies, with their last modification time. 
+     * Cloning or initializing a repository in one of them changes its modification time.
+     */
+    private final Map<File, Long> otherFolders = new HashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param projectFile    The project file.
+     * @param projectFolders The folders referred by the project.
+     * @param workingCopies  The working copies.
+     */
+    Discovery(File projectFile, List<File> projectFolders, List<File> workingCopies) {
+      this.lastModified = projectFile.lastModified();
+      this.length = projectFile.length();
+      this.projectFolders = projectFolders;
+      this.workingCopies = workingCopies;
+      for (File folder : projectFolders) {
+        if (!workingCopies.contains(folder)) {
+          otherFolders.put(folder, folder.lastModified());
+        }
+      }
+    }
+
+    /**
+     * @param projectFile The project file.
+     *
+     * @return <code>true</code> if the project file didn't change, the working copies are
+     * still there and the other referred folders didn't change.
+     */
+    boolean isValid(File projectFile) {
+      boolean valid = lastModified == projectFile.lastModified() && length == projectFile.length();
+      for (int i = 0; valid && i < workingCopies.size(); i++) {
+        valid = isWorkingCopy(workingCopies.get(i));
+      }
+      if (valid) {
+        for (Map.Entry<File, Long> entry : otherFolders.entrySet()) {
+          if (entry.getKey().lastModified() != entry.getValue()) {
+            valid = false;
+            break;
+          }
+        }
+      }
+      return valid;
+    }
+  }
+
+  /**
+   * Hidden constructor.
+   */
+  private RepositoryDiscovery() {
+    // Nothing
+  }
+
+  /**
+   * @return The unique instance.
+   */
+  public static synchronized RepositoryDiscovery getInstance() {
+    if (instance == null) {
+      instance = new RepositoryDiscovery();
+    }
+    return instance;
+  }
+
+  /**
+   * Detects the Git repositories referred by an Oxygen project, in the order in which the
+   * project refers them. If the project doesn't refer any repository, the repository that
+   * contains the project is searched for.
+   *
+   * @param projectFile The project file.
+   *
+   * @return The working copies of the repositories. Empty if none was found.
+   */
+  public List<File> discover(File projectFile) {
+    return getDiscovery(projectFile).workingCopies;
+  }
+
+  /**
+   * Gets the folders referred by an Oxygen project. These are the folders presented in the
+   * Project view.
+   *
+   * @param projectFile The project file.
+   *
+   * @return The folders, in the project order.
+   */
+  public List<File> getProjectFolders(File projectFile) {
+    return getDiscovery(projectFile).projectFolders;
+  }
+
+  /**
+   * Gets the repositories discovered for an Oxygen project, detecting them again if
+   * the project file changed.
+   *
+   * @param projectFile The project file.
+   *
+   * @return The discovery.
+   */
+  private synchronized Discovery getDiscovery(File projectFile) {
+    File key = projectFile.getAbsoluteFile();
+    Discovery discovery = cache.get(key);
+    if (discovery == null || !discovery.isValid(key)) {
+      discovery = detect(key);
+      cache.put(key, discovery);
+    }
+    return discovery;
+  }
+
+  /**
+   * Forgets all the discovered repositories.
+   */
+  public synchronized void clear() {
+    cache.clear();
+  }
+
+  /**
+   * Detects the Git repositories referred by an Oxygen project.
+   *
+   * @param projectFile The project file.
+   *
+   * @return The referred folders and the working copies of the repositories.
+   */
+  private Discovery detect(File projectFile) {
+    File projectDir = projectFile.getParentFile();
+    List<File> projectFolders = new ArrayList<>();
+    List<File> workingCopies = new ArrayList<>();
+    try {
+      // Parse the XML file to detected the referred resources.
+      XPRHandler handler = new XPRHandler();
+      getSAXParserFactory().newSAXParser().parse(projectFile, handler);
+      List<File> candidates = new ArrayList<>();
+      for (String path : handler.getPaths()) {
+        if (FileHelper.isURL(path)) {
+          candidates.add(new File(path).getAbsoluteFile());
+        } else if (".".equals(path)) {
+          projectFolders.add(projectDir);
+        } else {
+          candidates.add(new File(projectDir, path).getAbsoluteFile());
+        }
+      }
+      projectFolders.addAll(candidates);
+      workingCopies.addAll(filterWorkingCopies(candidates));
+    } catch (ParserConfigurationException | SAXException | IOException e) {
+      if (logger.isDebugEnabled()) {
+        logger.debug(e, e);
+      }
+    }
+
+    if (workingCopies.isEmpty()) {
+      // The oxygen project might be inside a Git repository.
+      // Look into the ancestors for a Git repository.
+      File file = projectDir.getAbsoluteFile();
+      while (file != null && !isWorkingCopy(file)) {
+        file = file.getParentFile();
+      }
+      if (file != null) {
+        workingCopies.add(file);
+      }
+    }
+
+    return new Discovery(
+        projectFile, 
+        Collections.unmodifiableList(projectFolders), 
+        Collections.unmodifiableList(workingCopies));
+  }
+
+  /**
+   * Keeps the folders that are working copies. Each folder is checked on its own thread,
+   * because each check costs a few file accesses and the folders might be on a network drive.
+   *
+   * @param candidates The folders to check.
+   *
+   * @return The working copies, in the same order as the given folders.
+   */
+  private static List<File> filterWorkingCopies(List<File> candidates) {
+    List<File> workingCopies = new ArrayList<>();
+    if (candidates.size() == 1) {
+      if (isWorkingCopy(candidates.get(0))) {
+        workingCopies.add(candidates.get(0));
+      }
+    } else if (!candidates.isEmpty()) {
+      List<Callable<Boolean>> checks = new ArrayList<>(candidates.size());
+      for (File candidate : candidates) {
+        checks.add(() -> isWorkingCopy(candidate));
+      }
+      try {
+        List<Future<Boolean>> results = GitOperationScheduler.getInstance().invokeAll(checks);
+        for (int i = 0; i < results.size(); i++) {
+          if (Boolean.TRUE.equals(results.get(i).get())) {
+            workingCopies.add(candidates.get(i));
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+        logger.debug(e, e);
+      }
+    }
+    return workingCopies;
+  }
+
+  /**
+   * Checks if a folder is the root of a working copy. The Git directory is either the
+   * <code>.git</code> folder or the one referred by a <code>.git</code> file, as in the case
+   * of the submodules and the worktrees.
+   *
+   * @param folder The folder to check.
+   *
+   * @return <code>true</code> if the folder is the root of a working copy.
+   */
+  static boolean isWorkingCopy(File folder) {
+    File gitDir = FileHelper.getGitDir(folder);
+    return gitDir != null && FileKey.isGitRepository(gitDir, FS.DETECTED);
+  }
+
+  /**
+   * @return The factory of the parsers used on the project files.
+   *
+   * @throws ParserConfigurationException If the factory cannot be configured.
+   * @throws SAXException If the factory cannot be configured.
+   */
+  private synchronized SAXParserFactory getSAXParserFactory() throws ParserConfigurationException, SAXException {
+    if (saxParserFactory == null) {
+      SAXParserFactory factory = SAXParserFactory.newInstance();
+      factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+      saxParserFactory = factory;
+    }
+    return saxParserFactory;
+  }
+}
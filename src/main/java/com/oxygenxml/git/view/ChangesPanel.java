@@ -12,11 +12,10 @@ import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.io.File;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
 
 import javax.swing.AbstractAction;
 import javax.swing.BorderFactory;
@@ -29,6 +28,7 @@ import javax.swing.JTable;
 import javax.swing.JToolBar;
 import javax.swing.JTree;
 import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
 import javax.swing.ScrollPaneConstants;
 import javax.swing.ToolTipManager;
 import javax.swing.event.PopupMenuEvent;
@@ -42,7 +42,6 @@ import org.apache.log4j.Logger;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.RepositoryState;
 
-import com.jidesoft.utils.SwingWorker;
 import com.oxygenxml.git.constants.Icons;
 import com.oxygenxml.git.constants.UIConstants;
 import com.oxygenxml.git.options.OptionsManager;
@@ -52,7 +51,6 @@ import com.oxygenxml.git.service.NoRepositorySelected;
 import com.oxygenxml.git.service.entities.FileStatus;
 import com.oxygenxml.git.translator.Tags;
 import com.oxygenxml.git.translator.Translator;
-import com.oxygenxml.git.utils.GitOperationScheduler;
 import com.oxygenxml.git.utils.PlatformDetectionUtil;
 import com.oxygenxml.git.utils.TreeFormatter;
 import com.oxygenxml.git.view.dialog.UIUtil;
@@ -139,6 +137,11 @@ public class ChangesPanel extends JPanel {
 	 */
 	private JTree tree = null;
 
+	/**
+	 * The working copy presented by the tree model. <code>null</code> if not known.
+	 */
+	private File treeWorkingCopy;
+
 	/**
 	 * Used to fire an event
 	 */
@@ -191,50 +194,8 @@ public class ChangesPanel extends JPanel {
 		this.currentViewMode = forStagedResources ? OptionsManager.getInstance().getStagedResViewMode()
 		    : OptionsManager.getInstance().getUntagedResViewMode();
 		
+    // The repository changes are presented by the staging panel, that computes the status for both panels.
     GitAccess.getInstance().addGitListener(new GitEventAdapter() {
-      @Override
-      public void repositoryChanged() {
-        if (filesTable != null) {
-          // The event might come too early.
-          GitAccess gitAccess = GitAccess.getInstance();
-          try {
-            Repository repository = gitAccess.getRepository();
-            if (repository != null) {
-              Runnable updateTask = new SwingWorker<List<FileStatus>, Void>() {
-                @Override
-                protected List<FileStatus> doInBackground() throws Exception {
-                  if (forStagedResources) {
-                    return gitAccess.getStagedFiles();
-                  } else {
-                    return gitAccess.getUnstagedFiles();
-                  }
-                }
-                @Override
-                protected void done() {
-                  List<FileStatus> files = Collections.emptyList();
-                  try {
-                    files = get();
-                  } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    logger.error(e, e);
-                  } catch (ExecutionException e) {
-                    logger.error(e, e);
-                  }
-                  ChangesPanel.this.repositoryChanged(files);
-                  toggleSelectedButton();
-                }
-              };
-              
-              GitOperationScheduler.getInstance().schedule(updateTask);
-            }
-          } catch (NoRepositorySelected ex) {
-            logger.debug(ex, ex);
-
-            ChangesPanel.this.repositoryChanged(Collections.emptyList());
-          }
-        }
-      }
-      
       @Override
       public void stateChanged(GitEvent changeEvent) {
         // Update the table.
@@ -276,21 +237,42 @@ public class ChangesPanel extends JPanel {
 	 */
 	private void updateTreeView(List<FileStatus> filesStatus) {
 	  if (tree != null) {
-	    Enumeration<TreePath> expandedPaths = getLastExpandedPaths();
-	    TreePath[] selectionPaths = tree.getSelectionPaths();
-
-	    // Create the tree with the new model
-	    tree.setModel(
-	        new StagingResourcesTreeModel(
-	            stageController, 
-	            GitAccess.getInstance().getWorkingCopyName(), 
-	            forStagedResources, 
-	            filesStatus));
+	    File workingCopy = getWorkingCopy();
+	    StagingResourcesTreeModel treeModel = (StagingResourcesTreeModel) tree.getModel();
+	    if (workingCopy != null && workingCopy.equals(treeWorkingCopy)) {
+	      // Same working copy. Only the changed files are updated, the expanded and selected nodes stay.
+	      treeModel.setFilesStatus(filesStatus);
+	    } else {
+	      Enumeration<TreePath> expandedPaths = getLastExpandedPaths();
+	      TreePath[] selectionPaths = tree.getSelectionPaths();
+
+	      // Create the tree with the new model
+	      tree.setModel(
+	          new StagingResourcesTreeModel(
+	              stageController, 
+	              GitAccess.getInstance().getWorkingCopyName(), 
+	              forStagedResources, 
+	              filesStatus));
+	      treeWorkingCopy = workingCopy;
+
+	      // restore last expanded paths after refresh
+	      TreeFormatter.restoreLastExpandedPaths(expandedPaths, tree);
+	      tree.setSelectionPaths(selectionPaths);
+	    }
+	  }
+	}
 
-	    // restore last expanded paths after refresh
-	    TreeFormatter.restoreLastExpandedPaths(expandedPaths, tree);
-	    tree.setSelectionPaths(selectionPaths);
+	/**
+	 * @return The current working copy or <code>null</code> if there is no repository.
+	 */
+	private static File getWorkingCopy() {
+	  File workingCopy = null;
+	  try {
+	    workingCopy = GitAccess.getInstance().getWorkingCopy();
+	  } catch (NoRepositorySelected e) {
+	    logger.debug(e, e);
 	  }
+	  return workingCopy;
 	}
 
 	/**
@@ -351,7 +333,10 @@ public class ChangesPanel extends JPanel {
 	public void stateChanged(GitEvent changeEvent) {
 	  if (currentViewMode == ResourcesViewMode.FLAT_VIEW) {
 	    StagingResourcesTableModel modelTable = (StagingResourcesTableModel) filesTable.getModel();
+	    List<FileStatus> selectedFiles = getTableSelectedFiles();
 	    modelTable.stateChanged(changeEvent);
+	    // The inserted rows take the selection of their neighbours. Select only the previous files.
+	    restoreTableSelection(modelTable, selectedFiles);
 	  } else {
 	    Enumeration<TreePath> expandedPaths = getLastExpandedPaths();
 	    TreePath[] selectionPaths = tree.getSelectionPaths();
@@ -376,12 +361,19 @@ public class ChangesPanel extends JPanel {
 	 *          - previously selected files to restore
 	 */
 	private void restoreTableSelection(StagingResourcesTableModel model, List<FileStatus> previouslySelectedFiles) {
-		for (FileStatus fileStatus : previouslySelectedFiles) {
-			int row = model.getRow(fileStatus.getFileLocation());
-			if (row != -1) {
-				filesTable.addRowSelectionInterval(row, row);
-			}
-		}
+	  ListSelectionModel selectionModel = filesTable.getSelectionModel();
+	  selectionModel.setValueIsAdjusting(true);
+	  try {
+	    selectionModel.clearSelection();
+	    for (FileStatus fileStatus : previouslySelectedFiles) {
+	      int row = model.getRow(fileStatus.getFileLocation());
+	      if (row != -1) {
+	        filesTable.addRowSelectionInterval(row, row);
+	      }
+	    }
+	  } finally {
+	    selectionModel.setValueIsAdjusting(false);
+	  }
 	}
 
 	/**
@@ -764,6 +756,7 @@ public class ChangesPanel extends JPanel {
               GitAccess.getInstance().getWorkingCopyName(), 
               forStagedResources, 
               filesStatuses));
+      treeWorkingCopy = getWorkingCopy();
 	    
 	    restoreSelectedPathsFromTableToTree();
 	    
@@ -1173,11 +1166,13 @@ public class ChangesPanel extends JPanel {
   /**
    * The repository changed.
    * 
-   * @param unstagedFiles The changed files from the new repository.
+   * @param files The changed files from the new repository.
    */
-  private void repositoryChanged(List<FileStatus> unstagedFiles) {
-    updateFlatView(unstagedFiles);
+  void repositoryChanged(List<FileStatus> files) {
+    updateFlatView(files);
 
-    updateTreeView(unstagedFiles);
+    updateTreeView(files);
+    
+    toggleSelectedButton();
   }
 }
@@ -67,6 +67,11 @@ public class CommitAndStatusPanel extends JPanel implements Subject<PushPullEven
 	 * The button that commits the staged files.
 	 */
 	private JButton commitButton;
+	/**
+	 * The button that cancels the push or pull in progress. Takes the place of the commit button
+	 * while a push or pull runs.
+	 */
+	private JButton cancelButton;
 	/**
 	 * Git access.
 	 */
@@ -147,6 +152,7 @@ public class CommitAndStatusPanel extends JPanel implements Subject<PushPullEven
 		addCommitMessageTextArea(gbc);
 		addStatusLabel(gbc);
 		addCommitButton(gbc);
+		addCancelButton(gbc);
 
 		addCommitButtonListener();
 		this.setPreferredSize(new Dimension(UIConstants.PANEL_WIDTH, UIConstants.COMMIT_PANEL_PREF_HEIGHT));
@@ -336,6 +342,30 @@ public class CommitAndStatusPanel extends JPanel implements Subject<PushPullEven
 		this.add(commitButton, gbc);
 	}
 
+	/**
+	 * Adds the button that cancels the push or pull in progress, hidden.
+	 * 
+	 * @param gbc The constraints.
+	 */
+	private void addCancelButton(GridBagConstraints gbc) {
+	  // Same cell as the commit button. Only one of them is visible.
+	  cancelButton = new JButton(translator.getTranslation(Tags.CANCEL));
+	  cancelButton.setVisible(false);
+	  this.add(cancelButton, gbc);
+	}
+
+	/**
+	 * Shows the button that cancels the push or pull in progress instead of the commit button, or
+	 * the other way around.
+	 * 
+	 * @param show <code>true</code> while a push or pull runs.
+	 */
+	public void showCancelButton(boolean show) {
+	  cancelButton.setEnabled(true);
+	  cancelButton.setVisible(show);
+	  commitButton.setVisible(!show);
+	}
+
   /**
    * Checks if the commit button should be enabled.
    * 
@@ -488,4 +518,11 @@ public class CommitAndStatusPanel extends JPanel implements Subject<PushPullEven
   public JButton getCommitButton() {
     return commitButton;
   }
+  
+  /**
+   * @return The button that cancels the push or pull in progress.
+   */
+  public JButton getCancelButton() {
+    return cancelButton;
+  }
 }
@@ -15,7 +15,9 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
@@ -27,10 +29,13 @@ import javax.swing.SwingUtilities;
 import org.apache.log4j.Logger;
 
 import com.jidesoft.swing.JideSplitPane;
+import com.jidesoft.utils.SwingWorker;
 import com.oxygenxml.git.service.GitAccess;
+import com.oxygenxml.git.service.GitEventAdapter;
 import com.oxygenxml.git.service.GitStatus;
 import com.oxygenxml.git.service.NoRepositorySelected;
 import com.oxygenxml.git.utils.FileHelper;
+import com.oxygenxml.git.utils.GitOperationScheduler;
 import com.oxygenxml.git.utils.GitRefreshSupport;
 import com.oxygenxml.git.view.event.ActionStatus;
 import com.oxygenxml.git.view.event.GitCommand;
@@ -212,9 +217,18 @@ public class StagingPanel extends JPanel implements Observer<PushPullEvent> {
 		// creates the actual GUI for each panel
 		unstagedChangesPanel.createGUI();
 		stagedChangesPanel.createGUI();
+		addRepositoryChangeListener();
 
 		registerSubject(pushPullController);
 		registerSubject(commitPanel);
+		
+		// The progress of a push or pull and its cancellation.
+		pushPullController.setProgressListener(
+		    progress -> SwingUtilities.invokeLater(() -> commitPanel.setStatusMessage(progress)));
+		commitPanel.getCancelButton().addActionListener(e -> {
+		  commitPanel.getCancelButton().setEnabled(false);
+		  pushPullController.cancel();
+		});
 
 		addRefreshF5();
 		
@@ -258,6 +272,7 @@ public class StagingPanel extends JPanel implements Observer<PushPullEvent> {
                           }
 
                           Collection<String> affectedFiles = Arrays.asList(fileInWorkPath.substring(selectedRepositoryPath.length () + 1));
+                          GitAccess.getInstance().resourcesChanged(affectedFiles);
                           GitEvent changeEvent = new GitEvent(GitCommand.UNSTAGE, GitCommandState.SUCCESSFULLY_ENDED, affectedFiles);
                           unstagedChangesPanel.stateChanged(changeEvent);
                         }
@@ -335,6 +350,68 @@ public class StagingPanel extends JPanel implements Observer<PushPullEvent> {
     return new PushPullController();
   }
 
+	/**
+	 * Presents the files of a new repository in the unstaged and staged panels. The status is
+	 * computed once, for both of them.
+	 */
+	private void addRepositoryChangeListener() {
+	  GitAccess.getInstance().addGitListener(new GitEventAdapter() {
+	    @Override
+	    public void repositoryChanged() {
+	      if (unstagedChangesPanel.getFilesTable() != null) {
+	        // The event might come too early.
+	        GitAccess gitAccess = GitAccess.getInstance();
+	        try {
+	          if (gitAccess.getRepository() != null) {
+	            GitStatus cachedStatus = gitAccess.getCachedStatus();
+	            if (cachedStatus != null) {
+	              // A recently used repository. Show its last known status until the actual one is computed.
+	              SwingUtilities.invokeLater(() -> presentStatus(cachedStatus));
+	            }
+
+	            Runnable updateTask = new SwingWorker<GitStatus, Void>() {
+	              @Override
+	              protected GitStatus doInBackground() throws Exception {
+	                // Computing the whole status also refreshes the snapshot kept for the repository.
+	                return gitAccess.getStatus();
+	              }
+	              @Override
+	              protected void done() {
+	                GitStatus status = new GitStatus(Collections.emptyList(), Collections.emptyList());
+	                try {
+	                  status = get();
+	                } catch (InterruptedException e) {
+	                  Thread.currentThread().interrupt();
+	                  logger.error(e, e);
+	                } catch (ExecutionException e) {
+	                  logger.error(e, e);
+	                }
+	                presentStatus(status);
+	              }
+	            };
+
+	            GitOperationScheduler.getInstance().schedule(updateTask);
+	          }
+	        } catch (NoRepositorySelected ex) {
+	          logger.debug(ex, ex);
+
+	          presentStatus(new GitStatus(Collections.emptyList(), Collections.emptyList()));
+	        }
+	      }
+	    }
+	  });
+	}
+
+	/**
+	 * Presents the status of a new repository in the unstaged and staged panels.
+	 * 
+	 * @param status The status.
+	 */
+	private void presentStatus(GitStatus status) {
+	  unstagedChangesPanel.repositoryChanged(status.getUnstagedFiles());
+	  stagedChangesPanel.repositoryChanged(status.getStagedFiles());
+	}
+
 	/**
 	 * Adds the refresh call on the F5 keyboard button
 	 */
@@ -439,7 +516,9 @@ public class StagingPanel extends JPanel implements Observer<PushPullEvent> {
           toolbarPanel.updateButtonState(false);
 
           commitPanel.getCommitButton().setEnabled(false);
+          commitPanel.showCancelButton(true);
         } else if (pushPullEvent.getActionStatus() == ActionStatus.FINISHED) {
+          commitPanel.showCancelButton(false);
           commitPanel.setStatusMessage(pushPullEvent.getMessage());
           commitPanel.reset();
           commitPanel.toggleCommitButtonAndUpdateMessageArea(false);
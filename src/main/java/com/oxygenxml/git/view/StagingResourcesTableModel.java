@@ -1,11 +1,13 @@
 package com.oxygenxml.git.view;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 import javax.swing.table.AbstractTableModel;
 
@@ -47,6 +49,13 @@ public class StagingResourcesTableModel extends AbstractTableModel {
 	 * The internal representation of the model
 	 */
 	private List<FileStatus> filesStatuses = Collections.synchronizedList(new ArrayList<>());
+	
+	/**
+	 * The files from the model, to find them without walking the list. A file is
+	 * equal to the one with the same location and change type, or with the same location
+	 * and an unknown change type.
+	 */
+	private Map<FileStatus, FileStatus> filesIndex = new HashMap<>();
 
 	/**
 	 * Compares file statuses.
@@ -139,9 +148,16 @@ public class StagingResourcesTableModel extends AbstractTableModel {
 	public void setFilesStatus(List<FileStatus> filesStatuses) {
 	  fireTableRowsDeleted(0, getRowCount());
 	  
-		this.filesStatuses = Collections.synchronizedList(new ArrayList<>(filesStatuses));
-		removeDuplicates();
-		Collections.sort(this.filesStatuses, fileStatusComparator);
+	  List<FileStatus> newFilesStatuses = new ArrayList<>(filesStatuses.size());
+	  filesIndex = new HashMap<>();
+	  for (FileStatus fileStatus : filesStatuses) {
+	    // Removes any duplicate entries.
+	    if (filesIndex.putIfAbsent(fileStatus, fileStatus) == null) {
+	      newFilesStatuses.add(fileStatus);
+	    }
+	  }
+	  Collections.sort(newFilesStatuses, fileStatusComparator);
+		this.filesStatuses = Collections.synchronizedList(newFilesStatuses);
 		
 		fireTableRowsInserted(0, getRowCount());
 	}
@@ -201,9 +217,6 @@ public class StagingResourcesTableModel extends AbstractTableModel {
 	  
     if (changeEvent.getGitComandState() == GitCommandState.SUCCESSFULLY_ENDED) {
       updateTableModel(changeEvent);
-      removeDuplicates();
-      Collections.sort(filesStatuses, fileStatusComparator);
-      fireTableDataChanged();
     }
 	}
 
@@ -216,74 +229,175 @@ public class StagingResourcesTableModel extends AbstractTableModel {
     switch (changeEvent.getGitCommand()) {
       case STAGE:
         if (inIndex) {
-          insertRows(GitAccess.getInstance().getStagedFile(changeEvent.getAffectedFiles()));
+          updateRows(
+              Collections.emptyList(),
+              GitAccess.getInstance().getStagedFile(changeEvent.getAffectedFiles()));
         } else {
-          deleteRows(changeEvent.getOldAffectedFiles());
+          updateRows(changeEvent.getOldAffectedFiles(), Collections.emptyList());
         }
         break;
       case UNSTAGE:
         if (inIndex) {
-          deleteRows(changeEvent.getOldAffectedFiles());
+          updateRows(changeEvent.getOldAffectedFiles(), Collections.emptyList());
         } else {
           // Things were taken out of the INDEX. 
           // The same resource might be present in the UnStaged and INDEX. Remove old states.
-          deleteRows(changeEvent.getOldAffectedFiles());
-          insertRows(GitAccess.getInstance().getUnstagedFiles(changeEvent.getAffectedFiles()));
+          updateRows(
+              changeEvent.getOldAffectedFiles(),
+              GitAccess.getInstance().getUnstagedFiles(changeEvent.getAffectedFiles()));
         }
         break;
       case COMMIT:
         if (inIndex) {
           // Committed files are removed from the INDEX.
-          filesStatuses.clear();
+          clearRows();
         }
         break;
       case DISCARD:
-        deleteRows(changeEvent.getOldAffectedFiles());
+        updateRows(changeEvent.getOldAffectedFiles(), Collections.emptyList());
         break;
       case MERGE_RESTART:
-        filesStatuses.clear();
+        clearRows();
         List<FileStatus> fileStatuses = inIndex ? GitAccess.getInstance().getStagedFiles()
             : GitAccess.getInstance().getUnstagedFiles();
-        insertRows(fileStatuses);
+        updateRows(Collections.emptyList(), fileStatuses);
         break;
       case ABORT_REBASE:
       case CONTINUE_REBASE:
-        filesStatuses.clear();
+        clearRows();
         break;
       default:
         break;
     }
   }
 
-	/**
-	 * Removes any duplicate entries
-	 */
-	private void removeDuplicates() {
-		Set<FileStatus> set = new HashSet<>();
-		set.addAll(this.filesStatuses);
-		this.filesStatuses.clear();
-		this.filesStatuses.addAll(set);
-	}
+  /**
+   * Removes all the files and notifies the listeners.
+   */
+  private void clearRows() {
+    int size = filesStatuses.size();
+    filesStatuses.clear();
+    filesIndex.clear();
+    if (size > 0) {
+      fireTableRowsDeleted(0, size - 1);
+    }
+  }
+
+  /**
+   * Removes and inserts files, keeping the model sorted. Only the affected rows are notified,
+   * so the rest of the table, including its selection, is left as it was. A file that is both
+   * removed and inserted with the same change type keeps its row.
+   * 
+   * @param toDelete The files to remove. The ones with an unknown change type match any change type.
+   * @param toInsert The files to insert. The ones that are already present are ignored.
+   */
+  void updateRows(List<FileStatus> toDelete, List<FileStatus> toInsert) {
+    Map<FileStatus, FileStatus> deleted = new HashMap<>();
+    for (FileStatus fileStatus : toDelete) {
+      FileStatus existing;
+      while ((existing = filesIndex.remove(fileStatus)) != null) {
+        deleted.put(existing, existing);
+      }
+    }
+    
+    List<FileStatus> inserted = new ArrayList<>();
+    for (FileStatus fileStatus : toInsert) {
+      if (filesIndex.putIfAbsent(fileStatus, fileStatus) == null) {
+        FileStatus old = deleted.get(fileStatus);
+        if (old != null && old.getChangeType() == fileStatus.getChangeType()) {
+          // Same file, same place.
+          deleted.remove(old);
+          int row = indexOf(old);
+          filesStatuses.set(row, fileStatus);
+          fireTableRowsUpdated(row, row);
+        } else {
+          inserted.add(fileStatus);
+        }
+      }
+    }
+    
+    deleteRows(deleted.keySet());
+    insertRows(inserted);
+  }
 
 	/**
 	 * Delete the given files from the model
 	 * 
 	 * @param fileToBeUpdated
-	 *          - the files to be deleted from the model
+	 *          - the files to be deleted from the model. Already removed from the index.
 	 */
-	private void deleteRows(List<FileStatus> fileToBeUpdated) {
-		filesStatuses.removeAll(fileToBeUpdated);
+	private void deleteRows(Collection<FileStatus> fileToBeUpdated) {
+	  int[] rows = new int[fileToBeUpdated.size()];
+	  int i = 0;
+	  for (FileStatus fileStatus : fileToBeUpdated) {
+	    rows[i++] = indexOf(fileStatus);
+	  }
+	  Arrays.sort(rows);
+	  
+	  // Contiguous rows are removed together, from the last one, so that the rows
+	  // that are not yet removed keep their indices.
+	  int end = rows.length - 1;
+	  while (end >= 0) {
+	    int start = end;
+	    while (start > 0 && rows[start - 1] == rows[start] - 1) {
+	      start--;
+	    }
+	    filesStatuses.subList(rows[start], rows[end] + 1).clear();
+	    fireTableRowsDeleted(rows[start], rows[end]);
+	    end = start - 1;
+	  }
 	}
 
 	/**
 	 * Insert the given files to the model
 	 * 
 	 * @param fileToBeUpdated
-	 *          - the files to be inserted in the model
+	 *          - the files to be inserted in the model. Already added in the index.
 	 */
 	private void insertRows(List<FileStatus> fileToBeUpdated) {
-		filesStatuses.addAll(fileToBeUpdated);
-
+	  Collections.sort(fileToBeUpdated, fileStatusComparator);
+	  
+	  // The files that go between the same two rows are inserted together.
+	  int i = 0;
+	  while (i < fileToBeUpdated.size()) {
+	    int row = -Collections.binarySearch(filesStatuses, fileToBeUpdated.get(i), fileStatusComparator) - 1;
+	    int end = i + 1;
+	    if (row < filesStatuses.size()) {
+	      FileStatus next = filesStatuses.get(row);
+	      while (end < fileToBeUpdated.size() && fileStatusComparator.compare(fileToBeUpdated.get(end), next) < 0) {
+	        end++;
+	      }
+	    } else {
+	      end = fileToBeUpdated.size();
+	    }
+	    filesStatuses.addAll(row, fileToBeUpdated.subList(i, end));
+	    fireTableRowsInserted(row, row + end - i - 1);
+	    i = end;
+	  }
+	}
+	
+	/**
+	 * Finds the row of a file from the model.
+	 * 
+	 * @param fileStatus A file from the model.
+	 * 
+	 * @return The row of the file or -1.
+	 */
+	private int indexOf(FileStatus fileStatus) {
+	  int row = Collections.binarySearch(filesStatuses, fileStatus, fileStatusComparator);
+	  if (row < 0 || filesStatuses.get(row) != fileStatus) {
+	    // The change type was modified after the file was added in the model.
+	    row = -1;
+	    synchronized (filesStatuses) {
+	      for (int i = 0; i < filesStatuses.size(); i++) {
+	        if (filesStatuses.get(i) == fileStatus) {
+	          row = i;
+	          break;
+	        }
+	      }
+	    }
+	  }
+	  return row;
 	}
 
 	public String getFileLocation(int convertedRow) {
@@ -321,14 +435,8 @@ public class StagingResourcesTableModel extends AbstractTableModel {
 	 * @return the row
 	 */
 	public int getRow(String fileLocation) {
-	  synchronized (filesStatuses) {
-	    for (int i = 0; i < filesStatuses.size(); i++) {
-	      if (filesStatuses.get(i).getFileLocation().equals(fileLocation)) {
-	        return i;
-	      }
-	    }
-	  }
-	  return -1;
+	  FileStatus fileStatus = filesIndex.get(new FileStatus(GitChangeType.UNKNOWN, fileLocation));
+	  return fileStatus != null ? indexOf(fileStatus) : -1;
 	}
 
 }
@@ -2,11 +2,14 @@ package com.oxygenxml.git.view;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.swing.tree.DefaultTreeModel;
-import javax.swing.tree.MutableTreeNode;
 
 import org.apache.log4j.Logger;
 
@@ -35,6 +38,11 @@ public class StagingResourcesTreeModel extends DefaultTreeModel {
 	 * The files in the model
 	 */
 	private List<FileStatus> filesStatuses = Collections.synchronizedList(new ArrayList<>());
+	
+	/**
+	 * The files in the model, by location.
+	 */
+	private Map<String, FileStatus> filesIndex = Collections.synchronizedMap(new HashMap<>());
 
   /**
    * <code>true</code> if this model presents the resources inside the index.
@@ -94,73 +102,190 @@ public class StagingResourcesTreeModel extends DefaultTreeModel {
           break;
         case COMMIT:
           if (inIndex) {
-            deleteNodes(filesStatuses);
-            filesStatuses.clear();
+            setFilesStatus(Collections.emptyList());
           }
           break;
         case DISCARD:
           deleteNodes(oldStates);
           break;
         case MERGE_RESTART:
-          filesStatuses.clear();
           List<FileStatus> fileStatuses = inIndex ? GitAccess.getInstance().getStagedFiles() 
               : GitAccess.getInstance().getUnstagedFiles();
-          insertNodes(fileStatuses);
+          setFilesStatus(fileStatuses);
           break;
         case ABORT_REBASE:
         case CONTINUE_REBASE:
-          filesStatuses.clear();
+          setFilesStatus(Collections.emptyList());
           break;
         default:
           // Nothing
           break;
       }
-  
-  		fireTreeStructureChanged(this, null, null, null);
   	}
 	}
 
 	/**
-	 * Insert nodes to the tree based on the given files
+	 * Insert nodes to the tree based on the given files. A file that is already
+	 * present takes the new change type.
 	 * 
 	 * @param fileToBeUpdated
 	 *          - the files on which the nodes will be created
-	 *          
-	 * TODO EXM-41133 Sorin Return the added TreePaths.
 	 */
 	private void insertNodes(List<FileStatus> fileToBeUpdated) {
-
 		for (FileStatus fileStatus : fileToBeUpdated) {
-			TreeFormatter.buildTreeFromString(this, fileStatus.getFileLocation());
+		  FileStatus old = filesIndex.get(fileStatus.getFileLocation());
+		  if (old == null) {
+		    filesIndex.put(fileStatus.getFileLocation(), fileStatus);
+		    filesStatuses.add(fileStatus);
+		    insertNode(fileStatus.getFileLocation());
+		  } else if (old.getChangeType() != fileStatus.getChangeType()) {
+		    filesIndex.put(fileStatus.getFileLocation(), fileStatus);
+		    synchronized (filesStatuses) {
+		      filesStatuses.set(filesStatuses.indexOf(old), fileStatus);
+		    }
+		    GitTreeNode node = findNode(fileStatus.getFileLocation());
+		    if (node != null) {
+		      nodeChanged(node);
+		    }
+		  }
 		}
-		filesStatuses.addAll(fileToBeUpdated);
-		sortTree();
 	}
 
 	/**
 	 * Delete nodes from the tree based on the given files
 	 * 
 	 * @param fileToBeUpdated
-	 *          - the files on which the nodes will be deleted
-	 *          
-	 * TODO EXM-41133 Sorin Return deleted TreePath.
+	 *          - the files on which the nodes will be deleted. The change type is not taken into account.
 	 */
 	private void deleteNodes(List<FileStatus> fileToBeUpdated) {
+	  Set<FileStatus> removed = Collections.newSetFromMap(new IdentityHashMap<>());
 		for (FileStatus fileStatus : fileToBeUpdated) {
-			GitTreeNode node = TreeFormatter.getTreeNodeFromString(this, fileStatus.getFileLocation());
-			while (node != null && node.getParent() != null) {
-				GitTreeNode parentNode = (GitTreeNode) node.getParent();
-				if (node.getSiblingCount() != 1) {
-					parentNode.remove(node);
-					break;
-				} else {
-					parentNode.remove(node);
-				}
-				node = parentNode;
-			}
+		  FileStatus old = filesIndex.remove(fileStatus.getFileLocation());
+		  if (old != null) {
+		    removed.add(old);
+		    removeNode(fileStatus.getFileLocation());
+		  }
+		}
+		if (!removed.isEmpty()) {
+		  filesStatuses.removeIf(removed::contains);
 		}
-		filesStatuses.removeAll(fileToBeUpdated);
-		sortTree();
+	}
+	
+	/**
+	 * Adds the node of a file and its missing parents, at their sorted positions, and
+	 * notifies the listeners.
+	 * 
+	 * @param path The file location.
+	 */
+	private void insertNode(String path) {
+	  String[] segments = path.split("/");
+	  GitTreeNode parent = (GitTreeNode) getRoot();
+	  for (int i = 0; i < segments.length; i++) {
+	    boolean folder = i < segments.length - 1;
+	    int index = findChild(parent, segments[i], folder);
+	    if (index >= 0) {
+	      parent = (GitTreeNode) parent.getChildAt(index);
+	    } else {
+	      // The new nodes are linked before being inserted, so that the new folder is not a leaf.
+	      GitTreeNode newChild = new GitTreeNode(segments[i]);
+	      GitTreeNode node = newChild;
+	      for (int j = i + 1; j < segments.length; j++) {
+	        GitTreeNode child = new GitTreeNode(segments[j]);
+	        node.add(child);
+	        node = child;
+	      }
+	      insertNodeInto(newChild, parent, -index - 1);
+	      break;
+	    }
+	  }
+	}
+	
+	/**
+	 * Removes the node of a file and the folders that remain empty, and notifies the listeners.
+	 * 
+	 * @param path The file location.
+	 */
+	private void removeNode(String path) {
+	  GitTreeNode node = findNode(path);
+	  if (node == null) {
+	    node = TreeFormatter.getTreeNodeFromString(this, path);
+	  }
+	  if (node != null && node.getParent() != null) {
+	    while (node.getParent().getParent() != null && node.getSiblingCount() == 1) {
+	      node = (GitTreeNode) node.getParent();
+	    }
+	    removeNodeFromParent(node);
+	  }
+	}
+	
+	/**
+	 * Finds the node of a file.
+	 * 
+	 * @param path The file location.
+	 * 
+	 * @return The node or <code>null</code>.
+	 */
+	private GitTreeNode findNode(String path) {
+	  String[] segments = path.split("/");
+	  GitTreeNode node = (GitTreeNode) getRoot();
+	  for (int i = 0; node != null && i < segments.length; i++) {
+	    int index = findChild(node, segments[i], i < segments.length - 1);
+	    node = index >= 0 ? (GitTreeNode) node.getChildAt(index) : null;
+	  }
+	  return node;
+	}
+	
+	/**
+	 * Searches a child by binary search. The children are sorted like {@link NodeTreeComparator}
+	 * sorts them: the folders first, then by name, ignoring the case.
+	 * 
+	 * @param parent The parent node.
+	 * @param name   The name of the child.
+	 * @param folder <code>true</code> if the child is a folder.
+	 * 
+	 * @return The index of the child, if found, or (-(insertion point) - 1).
+	 */
+	private static int findChild(GitTreeNode parent, String name, boolean folder) {
+	  int low = 0;
+	  int high = parent.getChildCount();
+	  while (low < high) {
+	    int middle = (low + high) >>> 1;
+	    if (compare((GitTreeNode) parent.getChildAt(middle), name, folder) < 0) {
+	      low = middle + 1;
+	    } else {
+	      high = middle;
+	    }
+	  }
+	  // The names that differ only by case are next to each other.
+	  int index = low;
+	  while (index < parent.getChildCount() 
+	      && compare((GitTreeNode) parent.getChildAt(index), name, folder) == 0) {
+	    if (name.equals(((GitTreeNode) parent.getChildAt(index)).getUserObject())) {
+	      return index;
+	    }
+	    index++;
+	  }
+	  return -index - 1;
+	}
+	
+	/**
+	 * Compares a node with a folder or a file.
+	 * 
+	 * @param node   The node.
+	 * @param name   The name of the folder or file.
+	 * @param folder <code>true</code> for a folder.
+	 * 
+	 * @return A negative number, zero, or a positive number if the node comes before, 
+	 * with or after the folder or file.
+	 */
+	private static int compare(GitTreeNode node, String name, boolean folder) {
+	  int result;
+	  if (node.isLeaf() == folder) {
+	    result = folder ? 1 : -1;
+	  } else {
+	    result = node.getUserObject().toString().compareToIgnoreCase(name);
+	  }
+	  return result;
 	}
 
 	/**
@@ -171,16 +296,7 @@ public class StagingResourcesTreeModel extends DefaultTreeModel {
 	 * @return the file
 	 */
 	public FileStatus getFileByPath(String path) {
-	  FileStatus toReturn = null;
-	  synchronized (filesStatuses) {
-	    for (FileStatus fileStatus : filesStatuses) {
-	      if (path.equals(fileStatus.getFileLocation())) {
-	        toReturn = fileStatus;
-	        break;
-	      }
-	    }
-    }
-		return toReturn;
+		return filesIndex.get(path);
 	}
 
 	/**
@@ -226,54 +342,41 @@ public class StagingResourcesTreeModel extends DefaultTreeModel {
 	}
 
 	/**
-	 * Sets the files in the model also resets the internal node structure and
-	 * creates a new one based on the given files
+	 * Sets the files in the model. Only the nodes of the files that were added, removed or
+	 * that changed their type are touched, so the expanded and selected nodes are kept.
 	 * 
 	 * @param filesStatus
 	 *          - the files on which the node structure will be created
 	 */
-	private void setFilesStatus(List<FileStatus> filesStatus) {
+	public void setFilesStatus(List<FileStatus> filesStatus) {
 	  if (filesStatus == null) {
 	    filesStatus = Collections.emptyList();
 	  }
 	  
-		deleteNodes(this.filesStatuses);
-		insertNodes(filesStatus);
-		
-		fireTreeStructureChanged(this, null, null, null);
-	}
-
-	/**
-	 * Sorts the entire tree
-	 */
-	private void sortTree() {
-		GitTreeNode root = (GitTreeNode) getRoot();
-		Enumeration<?> e = root.depthFirstEnumeration();
-		while (e.hasMoreElements()) {
-			GitTreeNode node = (GitTreeNode) e.nextElement();
-			if (!node.isLeaf()) {
-				sort(node);
-			}
-		}
-	}
-
-	/**
-	 * Sorts the given node
-	 * 
-	 * @param parent
-	 *          - the node to be sorted
-	 */
-	private void sort(GitTreeNode parent) {
-		int n = parent.getChildCount();
-		List<GitTreeNode> children = new ArrayList<>(n);
-		for (int i = 0; i < n; i++) {
-			children.add((GitTreeNode) parent.getChildAt(i));
-		}
-		Collections.sort(children, new NodeTreeComparator());
-		parent.removeAllChildren();
-		for (MutableTreeNode node : children) {
-			parent.add(node);
-		}
+	  Map<String, FileStatus> newFiles = new LinkedHashMap<>();
+	  for (FileStatus fileStatus : filesStatus) {
+	    newFiles.putIfAbsent(fileStatus.getFileLocation(), fileStatus);
+	  }
+	  
+	  List<FileStatus> toDelete = new ArrayList<>();
+	  synchronized (filesStatuses) {
+	    for (FileStatus fileStatus : filesStatuses) {
+	      if (!newFiles.containsKey(fileStatus.getFileLocation())) {
+	        toDelete.add(fileStatus);
+	      }
+	    }
+	  }
+	  
+	  List<FileStatus> toInsert = new ArrayList<>();
+	  for (FileStatus fileStatus : newFiles.values()) {
+	    FileStatus old = filesIndex.get(fileStatus.getFileLocation());
+	    if (old == null || old.getChangeType() != fileStatus.getChangeType()) {
+	      toInsert.add(fileStatus);
+	    }
+	  }
+	  
+	  deleteNodes(toDelete);
+	  insertNodes(toInsert);
 	}
 
 	/**
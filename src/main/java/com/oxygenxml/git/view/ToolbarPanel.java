@@ -21,6 +21,7 @@ import javax.swing.JPanel;
 import javax.swing.JRadioButtonMenuItem;
 import javax.swing.JToolBar;
 import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
 
 import org.apache.log4j.Logger;
 import org.eclipse.jgit.lib.Repository;
@@ -35,8 +36,8 @@ import com.oxygenxml.git.service.GitAccess;
 import com.oxygenxml.git.service.GitEventAdapter;
 import com.oxygenxml.git.service.NoRepositorySelected;
 import com.oxygenxml.git.service.PrivateRepositoryException;
-import com.oxygenxml.git.service.RepoNotInitializedException;
-import com.oxygenxml.git.service.RepositoryUnavailableException;
+import com.oxygenxml.git.service.RemoteState;
+import com.oxygenxml.git.service.RemoteStateService;
 import com.oxygenxml.git.service.SSHPassphraseRequiredException;
 import com.oxygenxml.git.translator.Tags;
 import com.oxygenxml.git.translator.Translator;
@@ -207,17 +208,10 @@ public class ToolbarPanel extends JPanel {
 
 	      // Update the toobars.
 	      // calculate how many pushes ahead and pulls behind the current
-	      // selected working copy is from the base. It is on thread because
-	      // the fetch command takes a longer time
-	      // TODO This might stay well in the Refresh support... When a new repository is 
-	      // selected this is triggered.
-	      // TODO Maybe the change of repository should triggered a fetch and a notification should
-	      // be fired when the fetch information is brought. It might make sense to use a coalescing for the fetch.
-	      new Thread(() -> {
-          fetch(true);
-          // After the fetch is done, update the toolbar icons.
-          updateStatus();
-        }).start();
+	      // selected working copy is from the base. The fetch takes a longer time, 
+	      // so it is done on the refresh thread. The toolbar is updated when the
+	      // new remote state is published.
+	      fetch(true);
 	    }
 	    
       @Override
@@ -229,6 +223,26 @@ public class ToolbarPanel extends JPanel {
         }
       }
 	  });
+	  
+	  RemoteStateService.getInstance().addListener(
+	      state -> SwingUtilities.invokeLater(() -> remoteStateChanged(state)));
+	}
+	
+	/**
+	 * Presents the commits to push and pull published after a fetch of the current repository.
+	 * 
+	 * @param state The state of the fetched repository.
+	 */
+	private void remoteStateChanged(RemoteState state) {
+	  try {
+	    if (GitAccess.getInstance().getRepository().getDirectory().equals(state.getGitDirectory())) {
+	      this.pullsBehind = state.getPullsBehind();
+	      this.pushesAhead = state.getPushesAhead();
+	      presentStatus();
+	    }
+	  } catch (NoRepositorySelected e) {
+	    logger.debug(e, e);
+	  }
 	}
 	
 	/**
@@ -239,12 +253,33 @@ public class ToolbarPanel extends JPanel {
   }
 	
 	/**
-	 * Fetch.
+	 * Requests a fetch of the current repository. The toolbar is updated when the new remote
+	 * state is published. If the credentials are needed, they are asked for and the fetch is
+	 * requested again.
+	 * 
+	 * @param firstRun <code>false</code> if the previous credentials were not good.
 	 */
   private void fetch(boolean firstRun) {
     try {
-      GitAccess.getInstance().fetch();
-    } catch (SSHPassphraseRequiredException e) {
+      RemoteStateService.getInstance().requestFetch(GitAccess.getInstance().getRepository(), false)
+          .whenComplete((state, problem) -> {
+            if (problem != null) {
+              fetchFailed(problem, firstRun);
+            }
+          });
+    } catch (NoRepositorySelected e) {
+      logger.debug(e, e);
+    }
+  }
+  
+  /**
+   * Asks for the credentials when a requested fetch needs them. Called on the refresh thread.
+   * 
+   * @param problem  Why the fetch failed.
+   * @param firstRun <code>false</code> if the previous credentials were not good.
+   */
+  private void fetchFailed(Throwable problem, boolean firstRun) {
+    if (problem instanceof SSHPassphraseRequiredException) {
       String message = null;
       if (firstRun) {
         message = translator.getTranslation(Tags.ENTER_SSH_PASS_PHRASE);
@@ -259,7 +294,7 @@ public class ToolbarPanel extends JPanel {
         // A new pass phase was given. Try again.
         fetch(false);
       }
-    } catch (PrivateRepositoryException e) {
+    } else if (problem instanceof PrivateRepositoryException) {
       String loginMessage = null;
       if (firstRun) {
         loginMessage = translator.getTranslation(Tags.LOGIN_DIALOG_PRIVATE_REPOSITORY_MESSAGE);
@@ -276,9 +311,8 @@ public class ToolbarPanel extends JPanel {
         // New credentials were specified. Try again.
         fetch(false);
       }
-    } catch (RepositoryUnavailableException e) {
-      // Nothing we can do about it...
     }
+    // Nothing we can do about the other problems, like an unavailable repository...
   }
 
   /**
@@ -310,13 +344,7 @@ public class ToolbarPanel extends JPanel {
 		gitToolbar.setOpaque(false);
 		gitToolbar.setFloatable(false);
 		this.setLayout(new GridBagLayout());
-		try {
-      this.pushesAhead = GitAccess.getInstance().getPushesAhead();
-    } catch (RepoNotInitializedException e) {
-      this.pushesAhead = -1;
-      logger.debug(e, e);
-    }
-		this.pullsBehind = GitAccess.getInstance().getPullsBehind();
+		readRemoteState();
 
 		GridBagConstraints gbc = new GridBagConstraints();
 		gbc.insets = new Insets(0, 0, 0, 0);
@@ -450,15 +478,15 @@ public class ToolbarPanel extends JPanel {
 	 * and branch status.
 	 */
 	public void updateStatus() {
-    this.pullsBehind = GitAccess.getInstance().getPullsBehind();
+	  readRemoteState();
+	  presentStatus();
+	}
+	
+	/**
+	 * Presents the current branch and the commits to push and pull.
+	 */
+	private void presentStatus() {
     pullMenuButton.repaint();
-    
-    try {
-      this.pushesAhead = GitAccess.getInstance().getPushesAhead();
-    } catch (RepoNotInitializedException e) {
-      this.pushesAhead = -1;
-      logger.debug(e, e);
-    }
     pushButton.repaint();
     
 		BranchInfo branchInfo = GitAccess.getInstance().getBranchInfo();
@@ -544,6 +572,21 @@ public class ToolbarPanel extends JPanel {
 		remoteAndBranchInfoLabel.setText(branchInfoText);
 	}
 
+	/**
+	 * Reads the number of pushes ahead and pulls behind from the last remote state of the
+	 * current repository. The commits are counted again only if the branches moved.
+	 */
+	private void readRemoteState() {
+	  RemoteState remoteState = null;
+	  try {
+	    remoteState = RemoteStateService.getInstance().getState(GitAccess.getInstance().getRepository());
+	  } catch (NoRepositorySelected e) {
+	    logger.debug(e, e);
+	  }
+	  this.pullsBehind = remoteState != null ? remoteState.getPullsBehind() : 0;
+	  this.pushesAhead = remoteState != null ? remoteState.getPushesAhead() : 0;
+	}
+
 	/**
 	 * Adds to the tool bar the Push and Pull Buttons
 	 */
@@ -11,8 +11,11 @@ import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
 import java.io.File;
 import java.io.IOException;
+import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.swing.DefaultComboBoxModel;
 import javax.swing.DefaultListCellRenderer;
@@ -35,6 +38,9 @@ import com.oxygenxml.git.options.OptionsManager;
 import com.oxygenxml.git.service.GitAccess;
 import com.oxygenxml.git.service.GitEventAdapter;
 import com.oxygenxml.git.service.NoRepositorySelected;
+import com.oxygenxml.git.service.RemoteState;
+import com.oxygenxml.git.service.RemoteStateService;
+import com.oxygenxml.git.service.RepositorySnapshot;
 import com.oxygenxml.git.translator.Tags;
 import com.oxygenxml.git.translator.Translator;
 import com.oxygenxml.git.utils.FileHelper;
@@ -78,6 +84,12 @@ public class WorkingCopySelectionPanel extends JPanel {
 	 * The translator for the messages that are displayed in this panel
 	 */
 	private Translator translator = Translator.getInstance();
+	
+	/**
+	 * The last state of the repositories from a multi-repository workspace, by working copy path.
+	 * Accessed only on AWT.
+	 */
+	private Map<String, RepositorySnapshot> workspaceSnapshots = new HashMap<>();
 
   /**
    * Constructor.
@@ -133,6 +145,32 @@ public class WorkingCopySelectionPanel extends JPanel {
         }
 	    }
 	  });
+	  
+	  RemoteStateService.getInstance().addListener(
+	      state -> SwingUtilities.invokeLater(() -> remoteStateChanged(state)));
+	}
+	
+	/**
+	 * Presents the commits to push and pull published after the fetch of a repository from 
+	 * the multi-repository workspace.
+	 * 
+	 * @param state The state of the fetched repository.
+	 */
+	private void remoteStateChanged(RemoteState state) {
+	  for (Map.Entry<String, RepositorySnapshot> entry : workspaceSnapshots.entrySet()) {
+	    RepositorySnapshot snapshot = entry.getValue();
+	    // The workspace repositories are opened from the ".git" folder of the working copy.
+	    if (new File(snapshot.getWorkingCopy(), ".git").getAbsoluteFile()
+	        .equals(state.getGitDirectory().getAbsoluteFile())) {
+	      entry.setValue(new RepositorySnapshot(
+	          snapshot.getWorkingCopy(),
+	          snapshot.getStatus(),
+	          Math.max(state.getPushesAhead(), 0),
+	          state.getPullsBehind(),
+	          state.isRemoteAvailable()));
+	      workingCopyCombo.repaint();
+	    }
+	  }
 	}
 
 	public JComboBox<String> getWorkingCopyCombo() {
@@ -316,7 +354,7 @@ public class WorkingCopySelectionPanel extends JPanel {
 	  gbc.weighty = 0;
 
 	  workingCopyCombo = new JComboBox<>();
-	  WorkingCopyToolTipRenderer renderer = new WorkingCopyToolTipRenderer();
+	  WorkingCopyToolTipRenderer renderer = new WorkingCopyToolTipRenderer(workspaceSnapshots, translator);
 	  workingCopyCombo.setRenderer(renderer);
 	  int height = (int) workingCopyCombo.getPreferredSize().getHeight();
 	  workingCopyCombo.setMinimumSize(new Dimension(10, height));
@@ -346,6 +384,31 @@ public class WorkingCopySelectionPanel extends JPanel {
     }
   }
 
+	/**
+	 * Presents the state of the repositories from a multi-repository workspace. The repositories 
+	 * are made available in the combo and their changes and commits to push or pull are
+	 * shown next to their names. Must be called on AWT.
+	 * 
+	 * @param snapshots The state of the repositories.
+	 */
+	public void setWorkspaceSnapshots(List<RepositorySnapshot> snapshots) {
+	  workspaceSnapshots.clear();
+	  DefaultComboBoxModel<String> model = (DefaultComboBoxModel<String>) workingCopyCombo.getModel();
+	  for (RepositorySnapshot snapshot : snapshots) {
+	    String path = snapshot.getWorkingCopy().getAbsolutePath();
+	    workspaceSnapshots.put(path, snapshot);
+	    if (model.getIndexOf(path) == -1) {
+	      inhibitRepoUpdate = true;
+	      try {
+	        model.addElement(path);
+	      } finally {
+	        inhibitRepoUpdate = false;
+	      }
+	    }
+	  }
+	  workingCopyCombo.repaint();
+	}
+
 	/**
 	 * Adds the browse button to the panel
 	 * 
@@ -381,6 +444,25 @@ public class WorkingCopySelectionPanel extends JPanel {
 	 *
 	 */
 	private static final class WorkingCopyToolTipRenderer extends DefaultListCellRenderer {
+	  /**
+	   * The state of the repositories from a multi-repository workspace, by working copy path.
+	   */
+	  private final Map<String, RepositorySnapshot> workspaceSnapshots;
+	  /**
+	   * Translation support.
+	   */
+	  private final Translator translator;
+	  
+	  /**
+	   * Constructor.
+	   * 
+	   * @param workspaceSnapshots The state of the repositories from a multi-repository workspace.
+	   * @param translator         Translation support.
+	   */
+	  WorkingCopyToolTipRenderer(Map<String, RepositorySnapshot> workspaceSnapshots, Translator translator) {
+	    this.workspaceSnapshots = workspaceSnapshots;
+	    this.translator = translator;
+	  }
 
 		@Override
 		public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected,
@@ -394,6 +476,17 @@ public class WorkingCopySelectionPanel extends JPanel {
 				path = path.replace("\\", "/");
 				String rootFolder = path.substring(path.lastIndexOf('/') + 1);
 				comp.setText(rootFolder);
+				
+				RepositorySnapshot snapshot = workspaceSnapshots.get(value);
+				if (snapshot != null) {
+				  String summary = MessageFormat.format(
+				      translator.getTranslation(Tags.WORKSPACE_REPOSITORY_SUMMARY),
+				      snapshot.getChangesCount(),
+				      snapshot.getPushesAhead(),
+				      snapshot.getPullsBehind());
+				  comp.setText(rootFolder + " (" + snapshot.getChangesCount() + ")");
+				  comp.setToolTipText(value + " - " + summary);
+				}
 			}
 			return comp;
 		}
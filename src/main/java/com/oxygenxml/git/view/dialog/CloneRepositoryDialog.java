@@ -18,12 +18,14 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ExecutionException;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
+import javax.swing.JCheckBox;
 import javax.swing.DefaultListCellRenderer;
 import javax.swing.Icon;
 import javax.swing.JComboBox;
@@ -57,6 +59,7 @@ import com.oxygenxml.git.constants.Icons;
 import com.oxygenxml.git.constants.UIConstants;
 import com.oxygenxml.git.options.OptionsManager;
 import com.oxygenxml.git.service.GitAccess;
+import com.oxygenxml.git.service.RemoteBranchesCache;
 import com.oxygenxml.git.translator.Tags;
 import com.oxygenxml.git.translator.Translator;
 import com.oxygenxml.git.utils.UndoSupportInstaller;
@@ -109,6 +112,10 @@ public class CloneRepositoryDialog extends OKCancelDialog {
 		 * The branch to checkout.
 		 */
     private Ref branch;
+    /**
+     * <code>true</code> to transfer only the history of the checked out branch.
+     */
+    private final boolean singleBranch;
 
 		/**
 		 * Constructor.
@@ -117,12 +124,15 @@ public class CloneRepositoryDialog extends OKCancelDialog {
 		 * @param sourceUrl      Repository (source) URL.
 		 * @param destFile       Destination file.
 		 * @param branch         The branch to checkout.
+		 * @param singleBranch   <code>true</code> to transfer only the history of the checked out branch.
 		 */
-		private CloneWorker(ProgressDialog progressDialog, URIish sourceUrl, File destFile, Ref branch) {
+		private CloneWorker(ProgressDialog progressDialog, URIish sourceUrl, File destFile, Ref branch,
+		    boolean singleBranch) {
 			this.progressDialog = progressDialog;
 			this.sourceUrl = sourceUrl;
 			this.destFile = destFile;
       this.branch = branch;
+      this.singleBranch = singleBranch;
 		}
 
 		@Override
@@ -132,7 +142,8 @@ public class CloneRepositoryDialog extends OKCancelDialog {
 			    sourceUrl,
 			    destFile,
 			    progressDialog,
-			    branch != null && branch != DEFAULT_BRANCH_MARKER ? branch.getName() : null);
+			    branch != null && branch != DEFAULT_BRANCH_MARKER ? branch.getName() : null,
+			    singleBranch);
 			progressDialog.dispose();
 			return null;
 		}
@@ -209,6 +220,14 @@ public class CloneRepositoryDialog extends OKCancelDialog {
 	   * Timer task for checking the connection to the repository (source) URL.
 	   */
 	  private TimerTask checkConnectionTask;
+	  /**
+	   * The thread that runs the check of the connection or <code>null</code>.
+	   */
+	  private Thread checkConnectionThread;
+	  /**
+	   * Guards the check of the connection.
+	   */
+	  private final Object checkConnectionLock = new Object();
 	  /**
 	   * Reference comparator (for branch names).
 	   */
@@ -239,17 +258,102 @@ public class CloneRepositoryDialog extends OKCancelDialog {
 
 	  /**
 	   * Check the connection to the repository (source) URL.
+	   * The branches of the URLs already checked in this session are presented right away.
 	   */
 	  private void checkURLConnection() {
-	    if (checkConnectionTask != null) {
-	      checkConnectionTask.cancel();
+	    synchronized (checkConnectionLock) {
+	      if (checkConnectionTask != null) {
+	        checkConnectionTask.cancel();
+	        checkConnectionTask = null;
+	      }
+	      if (checkConnectionThread != null) {
+	        // Superseded. Cancels the listing of the branches.
+	        checkConnectionThread.interrupt();
+	        checkConnectionThread = null;
+	      }
+	    }
+	    Collection<Ref> cachedBranches = getCachedBranches(sourceUrlTextField.getText());
+	    if (cachedBranches != null) {
+	      showBranches(cachedBranches);
+	      informationLabel.setVisible(false);
+	    } else {
+	      scheduleURLConnectionCheck();
 	    }
-	    checkConnectionTask = new TimerTask() {
+	  }
+
+	  /**
+	   * Get the branches listed recently for a URL.
+	   * 
+	   * @param text The URL text.
+	   * 
+	   * @return The branches or <code>null</code> if they must be listed.
+	   */
+	  private Collection<Ref> getCachedBranches(String text) {
+	    Collection<Ref> branches = null;
+	    if (text != null && !text.isEmpty()) {
+	      try {
+	        branches = RemoteBranchesCache.getInstance().getCachedBranches(new URIish(text));
+	      } catch (URISyntaxException e) {
+	        // Will be reported by the check.
+	      }
+	    }
+	    return branches;
+	  }
+
+	  /**
+	   * Present the branches of the remote repository in the combo.
+	   * 
+	   * @param branches The branches.
+	   */
+	  private void showBranches(Collection<Ref> branches) {
+	    branchesComboBox.removeAllItems();
+	    List<Ref> remoteBranches = new ArrayList<>(branches);
+	    Collections.sort(remoteBranches, refComparator);
+	    boolean shouldEnableBranchesCombo = !remoteBranches.isEmpty();
+	    if (shouldEnableBranchesCombo) {
+	      branchesComboBox.addItem(DEFAULT_BRANCH_MARKER);
+	      for (Ref ref : remoteBranches) {
+	        branchesComboBox.addItem(ref);
+	      }
+	    }
+	    branchesComboBox.setEnabled(shouldEnableBranchesCombo);
+	  }
+
+	  /**
+	   * Schedule the check of the connection to the repository (source) URL, after the user
+	   * stops typing. A newer check supersedes this one.
+	   */
+	  private void scheduleURLConnectionCheck() {
+	    TimerTask task = new TimerTask() {
 	      /**
 	       * @see java.util.TimerTask.run()
 	       */
 	      @Override
 	      public void run() {
+	        synchronized (checkConnectionLock) {
+	          if (checkConnectionTask != this) {
+	            // Superseded.
+	            return;
+	          }
+	          checkConnectionThread = Thread.currentThread();
+	        }
+	        try {
+	          checkURLConnectionInBackground();
+	        } finally {
+	          synchronized (checkConnectionLock) {
+	            if (checkConnectionThread == Thread.currentThread()) {
+	              checkConnectionThread = null;
+	            }
+	            // Don't leave the interruption of a superseded check to the timer thread.
+	            Thread.interrupted();
+	          }
+	        }
+	      }
+
+	      /**
+	       * Check the connection to the repository (source) URL.
+	       */
+	      private void checkURLConnectionInBackground() {
 	        if (CloneRepositoryDialog.this.isShowing()
 	            && KeyboardFocusManager.getCurrentKeyboardFocusManager().getActiveWindow() == CloneRepositoryDialog.this) {
 
@@ -265,14 +369,13 @@ public class CloneRepositoryDialog extends OKCancelDialog {
 	            if (wasTextProvided) {
 	              try {
 	                URIish sourceURL = new URIish(text);
-	                Collection<Ref> branches = GitAccess.getInstance().listRemoteBranchesForURL(
+	                remoteBranches.addAll(RemoteBranchesCache.getInstance().getBranches(
 	                    sourceURL,
 	                    // Maybe there was a problem with getting the remote branches
-	                    CloneRepositoryDialog.this::showInfoMessage);
-	                if (!branches.isEmpty()) {
-	                  remoteBranches.addAll(branches);
-	                  Collections.sort(remoteBranches, refComparator);
-	                }
+	                    CloneRepositoryDialog.this::showInfoMessage));
+	              } catch (InterruptedException e) {
+	                // Superseded by the check of the new URL.
+	                return;
 	              } catch (URISyntaxException e) {
 	                showInfoMessage(translator.getTranslation(Tags.CLONE_REPOSITORY_DIALOG_URL_IS_NOT_A_REPOSITORY));
                   if (logger.isDebugEnabled()) {
@@ -282,19 +385,15 @@ public class CloneRepositoryDialog extends OKCancelDialog {
 	            }
 
 	            SwingUtilities.invokeLater(() -> {
-	              boolean shouldEnableBranchesCombo = !remoteBranches.isEmpty();
-	              if (shouldEnableBranchesCombo) {
-	                branchesComboBox.addItem(DEFAULT_BRANCH_MARKER);
-	                for (Ref ref : remoteBranches) {
-	                  branchesComboBox.addItem(ref);
+	              // Otherwise superseded by the check of the new URL.
+	              if (Objects.equals(text, sourceUrlTextField.getText())) {
+	                showBranches(remoteBranches);
+	                if (wasTextProvided) {
+	                  // If we have branches, then we didn't have any problems.
+	                  // Hide the information label. Otherwise, show it.
+	                  informationLabel.setVisible(remoteBranches.isEmpty());
 	                }
 	              }
-	              branchesComboBox.setEnabled(shouldEnableBranchesCombo);
-	              if (wasTextProvided) {
-	                // If we have branches, then we didn't have any problems.
-	                // Hide the information label. Otherwise, show it.
-	                informationLabel.setVisible(!shouldEnableBranchesCombo);
-	              }
 	            });
 	          } catch (JGitInternalException e) {
 	            Throwable cause = e.getCause();
@@ -336,7 +435,10 @@ public class CloneRepositoryDialog extends OKCancelDialog {
           }
         }
 	    };
-	    checkRepoURLConTimer.schedule(checkConnectionTask, 500);
+	    synchronized (checkConnectionLock) {
+	      checkConnectionTask = task;
+	      checkRepoURLConTimer.schedule(task, 500);
+	    }
 	  }
 	};
 
@@ -370,6 +472,11 @@ public class CloneRepositoryDialog extends OKCancelDialog {
 	 */
   private JComboBox<Ref> branchesComboBox;
   
+  /**
+   * Check box for transferring only the history of the checked out branch.
+   */
+  private JCheckBox singleBranchCheckBox;
+  
   /**
    * Plugin workspace access.
    */
@@ -482,6 +589,19 @@ public class CloneRepositoryDialog extends OKCancelDialog {
       }
     });
     
+    // "Clone only the checked out branch" check box
+    singleBranchCheckBox = new JCheckBox(translator.getTranslation(Tags.CLONE_REPOSITORY_DIALOG_SINGLE_BRANCH));
+    gbc.insets = new Insets(UIConstants.COMPONENT_TOP_PADDING, UIConstants.COMPONENT_LEFT_PADDING,
+        UIConstants.COMPONENT_BOTTOM_PADDING, UIConstants.COMPONENT_RIGHT_PADDING);
+    gbc.anchor = GridBagConstraints.WEST;
+    gbc.fill = GridBagConstraints.NONE;
+    gbc.weightx = 0;
+    gbc.weighty = 0;
+    gbc.gridx = 1;
+    gbc.gridy ++;
+    gbc.gridwidth = 2;
+    panel.add(singleBranchCheckBox, gbc);
+    
     // Loading icon
     loadIcon = Icons.getIcon(Icons.LOADING_ICON);
     
@@ -621,7 +741,8 @@ public class CloneRepositoryDialog extends OKCancelDialog {
 	            progressDialog,
 	            sourceURL,
 	            destFile,
-	            (Ref) branchesComboBox.getSelectedItem());
+	            (Ref) branchesComboBox.getSelectedItem(),
+	            singleBranchCheckBox.isSelected());
           cloneWorker.execute();
 	        // Make sure we present the dialog after this one is closed.
 	        // TODO There is a progress dialog support in Java. Maybe is better to use that.
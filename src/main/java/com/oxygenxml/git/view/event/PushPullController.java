@@ -1,11 +1,14 @@
 package com.oxygenxml.git.view.event;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.apache.log4j.Logger;
 import org.eclipse.jgit.api.errors.CheckoutConflictException;
@@ -19,6 +22,7 @@ import com.oxygenxml.git.options.OptionsManager;
 import com.oxygenxml.git.options.UserCredentials;
 import com.oxygenxml.git.service.GitAccess;
 import com.oxygenxml.git.service.NoRepositorySelected;
+import com.oxygenxml.git.service.OperationProgressMonitor;
 import com.oxygenxml.git.service.PullResponse;
 import com.oxygenxml.git.service.PushResponse;
 import com.oxygenxml.git.service.RebaseConflictsException;
@@ -63,6 +67,21 @@ public class PushPullController implements Subject<PushPullEvent> {
    * Refresh executor.
    */
   private ScheduledExecutorService executor = new ScheduledThreadPoolExecutor(1);
+  
+  /**
+   * Follows the push or pull in progress. <code>null</code> when there is none.
+   */
+  private volatile OperationProgressMonitor currentMonitor;
+  
+  /**
+   * Receives the progress of the push or pull in progress, like "Receiving objects: 45% (450/1000)".
+   */
+  private Consumer<String> progressListener;
+  
+  /**
+   * The duration of each phase of the last push or pull, in milliseconds.
+   */
+  private volatile Map<String, Long> lastPhaseDurations = Collections.emptyMap();
 
 	/**
 	 * Execute an push or pull action, depending on the given command.
@@ -107,6 +126,32 @@ public class PushPullController implements Subject<PushPullEvent> {
     return execute(translator.getTranslation(Tags.PULL_IN_PROGRESS), new ExecutePullRunnable(pullType));
   }
 	
+	/**
+	 * Cancels the push or pull in progress, if it is still transferring objects. After that the
+	 * operation is allowed to finish, so the working copy is never left half updated.
+	 */
+	public void cancel() {
+	  OperationProgressMonitor monitor = currentMonitor;
+	  if (monitor != null) {
+	    monitor.cancel();
+	  }
+	}
+	
+	/**
+	 * @param progressListener Receives the progress of the push or pull in progress, on the thread
+	 * that executes it.
+	 */
+	public void setProgressListener(Consumer<String> progressListener) {
+	  this.progressListener = progressListener;
+	}
+	
+	/**
+	 * @return The duration of each phase of the last push or pull, in milliseconds, in the order they started.
+	 */
+	public Map<String, Long> getLastPhaseDurations() {
+	  return lastPhaseDurations;
+	}
+	
 	/**
 	 * Notifies the observer to update it's state with the given Event fired from
 	 * a Push or Pull action
@@ -172,10 +217,30 @@ public class PushPullController implements Subject<PushPullEvent> {
    * Execute push / pull.
    */
   private abstract class ExecuteCommandRunnable implements Runnable {
+    
+    /**
+     * Follows the operation.
+     */
+    protected OperationProgressMonitor monitor;
 
     @Override
     public void run() {
-      executeCommand();
+      monitor = new OperationProgressMonitor(progress -> {
+        Consumer<String> listener = progressListener;
+        if (listener != null) {
+          listener.accept(progress);
+        }
+      });
+      currentMonitor = monitor;
+      try {
+        executeCommand();
+      } finally {
+        currentMonitor = null;
+        lastPhaseDurations = monitor.getPhaseDurations();
+        if (logger.isDebugEnabled()) {
+          logger.debug("Push/pull phases, in milliseconds: " + lastPhaseDurations);
+        }
+      }
     }
 
     /**
@@ -214,20 +279,26 @@ public class PushPullController implements Subject<PushPullEvent> {
             e.getConflictingPaths(),
             translator.getTranslation(Tags.PULL_WOULD_OVERWRITE_UNCOMMITTED_CHANGES));
       } catch (GitAPIException e) {
-        // Exception handling.
-        boolean shouldTryAgain = AuthUtil.handleAuthException(
-            e,
-            hostName,
-            userCredentials,
-            exMessage -> PluginWorkspaceProvider.getPluginWorkspace().showErrorMessage(exMessage),
-            true);
-        if (shouldTryAgain) {
-          // Skip notification now. We try again.
-          notifyFinish = false;
-          // Try again.
-          executeCommand();
+        if (OperationProgressMonitor.isCancellation(e)) {
+          // Stopped while transferring the objects. Nothing was changed locally.
+          logger.debug(e, e);
+          message = getCanceledMessage();
         } else {
-          message = composeAndReturnFailureMessage(e.getMessage());
+          // Exception handling.
+          boolean shouldTryAgain = AuthUtil.handleAuthException(
+              e,
+              hostName,
+              userCredentials,
+              exMessage -> PluginWorkspaceProvider.getPluginWorkspace().showErrorMessage(exMessage),
+              true);
+          if (shouldTryAgain) {
+            // Skip notification now. We try again.
+            notifyFinish = false;
+            // Try again.
+            executeCommand();
+          } else {
+            message = composeAndReturnFailureMessage(e.getMessage());
+          }
         }
       } catch (Exception e) {
         logger.error(e, e);
@@ -243,6 +314,11 @@ public class PushPullController implements Subject<PushPullEvent> {
      * Compose and return failure message.
      */
     protected abstract String composeAndReturnFailureMessage(String message);
+    
+    /**
+     * @return The message presented when the operation was canceled.
+     */
+    protected abstract String getCanceledMessage();
 
     /**
      * Push or pull, depending on the implementation.
@@ -266,7 +342,7 @@ public class PushPullController implements Subject<PushPullEvent> {
     @Override
     protected String doOperation(UserCredentials userCredentials)
         throws  GitAPIException {
-      PushResponse response = gitAccess.push(userCredentials.getUsername(), userCredentials.getPassword());
+      PushResponse response = gitAccess.push(userCredentials.getUsername(), userCredentials.getPassword(), monitor);
       String message = "";
       if (Status.OK == response.getStatus()) {
         message = translator.getTranslation(Tags.PUSH_SUCCESSFUL);
@@ -286,6 +362,11 @@ public class PushPullController implements Subject<PushPullEvent> {
     protected String composeAndReturnFailureMessage(String message) {
       return translator.getTranslation(Tags.PUSH_FAILED) + ": " + message;
     }
+    
+    @Override
+    protected String getCanceledMessage() {
+      return translator.getTranslation(Tags.PUSH_CANCELED);
+    }
   }
 
   /**
@@ -333,7 +414,8 @@ public class PushPullController implements Subject<PushPullEvent> {
     		  PullResponse response = gitAccess.pull(
     				  userCredentials.getUsername(),
     				  userCredentials.getPassword(),
-    				  pullType);
+    				  pullType,
+    				  monitor);
     		  switch (response.getStatus()) {
     		  case OK:
     			  message = translator.getTranslation(Tags.PULL_SUCCESSFUL);
@@ -369,6 +451,11 @@ public class PushPullController implements Subject<PushPullEvent> {
     protected String composeAndReturnFailureMessage(String message) {
       return translator.getTranslation(Tags.PULL_FAILED) + ": " + message;
     }
+    
+    @Override
+    protected String getCanceledMessage() {
+      return translator.getTranslation(Tags.PULL_CANCELED);
+    }
   }
 
   /**
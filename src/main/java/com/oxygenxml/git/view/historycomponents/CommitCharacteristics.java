@@ -5,6 +5,7 @@ import java.util.List;
 
 /**
  * Class for Commit Characteristics shown in historyTable.
+ * The commits from the history are kept by a {@link CommitStore}, which overrides the getters.
  * 
  * @Alexandra_Dinisor
  *
@@ -72,8 +73,8 @@ public class CommitCharacteristics {
 
 	@Override
 	public String toString() {
-		return "[ " + commitMessage + " , " + date + " , " + author + " , " + commitAbbreviatedId + " , " + commitId + " , "
-				+ committer + " , " + parentCommitId + " ]";
+		return "[ " + getCommitMessage() + " , " + getDate() + " , " + getAuthor() + " , " + getCommitAbbreviatedId() + " , "
+				+ getCommitId() + " , " + getCommitter() + " , " + getParentCommitId() + " ]";
 
 	}
 
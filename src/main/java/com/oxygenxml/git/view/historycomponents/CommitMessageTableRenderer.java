@@ -2,10 +2,13 @@ package com.oxygenxml.git.view.historycomponents;
 
 import java.awt.Color;
 import java.awt.Component;
+import java.awt.Font;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -13,12 +16,14 @@ import javax.swing.BorderFactory;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTable;
+import javax.swing.SwingUtilities;
 import javax.swing.border.Border;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.TableCellRenderer;
 
 import org.apache.log4j.Logger;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.events.ListenerHandle;
 import org.eclipse.jgit.lib.Repository;
 
 import com.oxygenxml.git.service.GitAccess;
@@ -42,6 +47,61 @@ public class CommitMessageTableRenderer extends JPanel implements TableCellRende
 	 * Git repository.
 	 */
 	private Repository repository;
+	
+	/**
+	 * Tag names, by abbreviated commit id.
+	 */
+	private Map<String, List<String>> tagMap = Collections.emptyMap();
+	
+	/**
+	 * Local branch names, by abbreviated commit id.
+	 */
+	private Map<String, List<String>> localBranchMap = Collections.emptyMap();
+	
+	/**
+	 * Remote branch names, by abbreviated commit id.
+	 */
+	private Map<String, List<String>> remoteBranchMap = Collections.emptyMap();
+	
+	/**
+	 * <code>true</code> when the tag and branch maps must be read again. Set when the refs change.
+	 */
+	private volatile boolean decorationsInvalid = true;
+	
+	/**
+	 * Handle of the refs listener.
+	 */
+	private ListenerHandle refsListenerHandle;
+	
+	/**
+	 * The last table that used this renderer. Repainted when the refs change.
+	 */
+	private JTable lastTable;
+	
+	/**
+	 * Presents the commit message.
+	 */
+	private final JLabel messageLabel = new JLabel();
+	
+	/**
+	 * Present the tags and the branches. Reused from one row to another.
+	 */
+	private final List<JLabel> decorationLabels = new ArrayList<>();
+	
+	/**
+	 * The constraints used when laying out the labels.
+	 */
+	private final GridBagConstraints constr = new GridBagConstraints();
+	
+	/**
+	 * The font of the commit message.
+	 */
+	private final Font messageFont;
+	
+	/**
+	 * Bold font for the uncommitted changes.
+	 */
+	private final Font boldFont;
 
 	/**
 	 * Construct the Table Renderer with accurate alignment.
@@ -52,12 +112,42 @@ public class CommitMessageTableRenderer extends JPanel implements TableCellRende
 		this.repository = repository;
 
 		setLayout(new GridBagLayout());
+		
+		constr.anchor = GridBagConstraints.WEST;
+		constr.gridy = 0;
+		constr.insets = new Insets(0, 3, 0, 3);
+		layoutLabels();
+		
+		messageFont = messageLabel.getFont();
+		boldFont = messageFont != null ? messageFont.deriveFont(Font.BOLD) : null;
+		
+		if (repository != null) {
+		  refsListenerHandle = repository.getListenerList().addRefsChangedListener(event -> {
+		    decorationsInvalid = true;
+		    SwingUtilities.invokeLater(() -> {
+		      if (lastTable != null) {
+		        lastTable.repaint();
+		      }
+		    });
+		  });
+		}
+	}
+	
+	/**
+	 * Stops listening for ref changes. Call it when the renderer is no longer used.
+	 */
+	public void dispose() {
+	  if (refsListenerHandle != null) {
+	    refsListenerHandle.remove();
+	    refsListenerHandle = null;
+	  }
+	  lastTable = null;
 	}
 
 	@Override
 	public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus,
 			int row, int column) {
-		removeAll();
+		lastTable = table;
 
 		// keep the selection for whole columns of the row when selecting.
 		if (isSelected) {
@@ -77,75 +167,107 @@ public class CommitMessageTableRenderer extends JPanel implements TableCellRende
 
 		setFont(table.getFont());
 		setBorder(getNoFocusBorder());
-		
-		// adding constraints for commit message label when wrapping
-		GridBagConstraints constr = new GridBagConstraints();
-		constr.fill = GridBagConstraints.NONE;
-		constr.anchor = GridBagConstraints.WEST;
-		constr.gridy = 0;
-		constr.gridx = -1;
-		constr.insets = new Insets(0, 3, 0, 3);
 
 		String toRender = "";
+		String abbreviatedId = null;
+		boolean uncommittedChanges = false;
 		if (value instanceof CommitCharacteristics) {
-			CommitCharacteristics commitCharacteristics = (CommitCharacteristics) value;
-			toRender = commitCharacteristics.getCommitMessage();
-
-			// bold the text for uncommitted changes
-			if (toRender.equals(GitAccess.UNCOMMITTED_CHANGES)) {
-				toRender = "<html><body><b>" + GitAccess.UNCOMMITTED_CHANGES + "</b></body></html>";
+			if (table.getModel() instanceof HistoryCommitTableModel) {
+			  RenderedCommit renderedCommit = ((HistoryCommitTableModel) table.getModel()).getRenderedCommit(
+			      table.convertRowIndexToModel(row));
+			  toRender = renderedCommit.getMessage();
+			  abbreviatedId = renderedCommit.getAbbreviatedId();
+			  uncommittedChanges = renderedCommit.isUncommittedChanges();
 			} else {
-				// add labels in historyTable for tags and branch names from corresponding maps
-				try {
-				  GitAccess gitAccess = GitAccess.getInstance();
-				  
-					String abbreviatedId = commitCharacteristics.getCommitAbbreviatedId();
-					Map<String, List<String>> tagMap = gitAccess.getTagMap(repository);
-					List<String> tagList = tagMap.get(abbreviatedId);
-					addTagOrBranchLabel(tagList, constr);
-
-					Map<String, List<String>> localBranchMap = gitAccess.getBranchMap(repository, GitAccess.LOCAL);
-					List<String> localBranchList = localBranchMap.get(abbreviatedId);
-					addTagOrBranchLabel(localBranchList, constr);
-
-					Map<String, List<String>> remoteBranchMap = gitAccess.getBranchMap(repository, GitAccess.REMOTE);
-					List<String> remoteBranchList = remoteBranchMap.get(abbreviatedId);
-					addTagOrBranchLabel(remoteBranchList, constr);
-
-				} catch (IOException | GitAPIException e) {
-					logger.debug(e, e);
-				}
+			  CommitCharacteristics commitCharacteristics = (CommitCharacteristics) value;
+			  toRender = commitCharacteristics.getCommitMessage();
+			  abbreviatedId = commitCharacteristics.getCommitAbbreviatedId();
+			  uncommittedChanges = GitAccess.UNCOMMITTED_CHANGES.equals(toRender);
 			}
 		} else {
 			toRender = value != null ? value.toString() : "";
 		}
 
-		constr.gridx ++;
-		constr.fill = GridBagConstraints.HORIZONTAL;
-		constr.weightx = 1;
-		add(new JLabel(toRender), constr);
+		int labelsCount = 0;
+		if (abbreviatedId != null && !uncommittedChanges) {
+		  // add labels in historyTable for tags and branch names from corresponding maps
+		  loadDecorations();
+		  labelsCount = setTagOrBranchLabels(tagMap.get(abbreviatedId), labelsCount);
+		  labelsCount = setTagOrBranchLabels(localBranchMap.get(abbreviatedId), labelsCount);
+		  labelsCount = setTagOrBranchLabels(remoteBranchMap.get(abbreviatedId), labelsCount);
+		}
+		for (int i = 0; i < decorationLabels.size(); i++) {
+		  decorationLabels.get(i).setVisible(i < labelsCount);
+		}
+
+		// bold the text for uncommitted changes
+		messageLabel.setFont(uncommittedChanges ? boldFont : messageFont);
+		messageLabel.setText(toRender);
 		return this;
 	}
+	
+	/**
+	 * Reads the tag and branch maps if the refs changed since the last read.
+	 */
+	private void loadDecorations() {
+	  if (decorationsInvalid) {
+	    // Cleared before reading, so that a change that happens during the read is not lost.
+	    decorationsInvalid = false;
+	    GitAccess gitAccess = GitAccess.getInstance();
+	    try {
+	      tagMap = gitAccess.getTagMap(repository);
+	    } catch (IOException | GitAPIException e) {
+	      logger.debug(e, e);
+	    }
+	    localBranchMap = gitAccess.getBranchMap(repository, GitAccess.LOCAL);
+	    remoteBranchMap = gitAccess.getBranchMap(repository, GitAccess.REMOTE);
+	  }
+	}
 
 	/**
-	 * Add Label to "Commit Message" column: tag or local/remote branch
+	 * Set the labels of the "Commit Message" column: tag or local/remote branch
 	 * 
 	 * @param nameForLabelList List of tags or branches corresponding the commit.
-	 * @param constr           The constraints for tag / branch label when wrapping
+	 * @param labelsCount      The number of labels already used for this row.
+	 * 
+	 * @return The number of labels used for this row.
 	 */
-	private void addTagOrBranchLabel(List<String> nameForLabelList, GridBagConstraints constr) {
+	private int setTagOrBranchLabels(List<String> nameForLabelList, int labelsCount) {
 		if (nameForLabelList != null) {
 			for (String name : nameForLabelList) {
-				JLabel component = new JLabel(name);
-				if (PluginWorkspaceProvider.getPluginWorkspace().getColorTheme().isDarkTheme()) {
-					component.setBorder(BorderFactory.createLineBorder(Color.WHITE));
-				} else {
-					component.setBorder(BorderFactory.createLineBorder(Color.BLACK));
+				if (labelsCount == decorationLabels.size()) {
+				  JLabel component = new JLabel();
+				  if (PluginWorkspaceProvider.getPluginWorkspace().getColorTheme().isDarkTheme()) {
+				    component.setBorder(BorderFactory.createLineBorder(Color.WHITE));
+				  } else {
+				    component.setBorder(BorderFactory.createLineBorder(Color.BLACK));
+				  }
+				  decorationLabels.add(component);
+				  layoutLabels();
 				}
-				constr.gridx ++;
-				add(component, constr);
+				JLabel component = decorationLabels.get(labelsCount);
+				component.setText(name);
+				labelsCount++;
 			}
 		}
+		return labelsCount;
+	}
+	
+	/**
+	 * Adds the tag and branch labels, followed by the commit message label.
+	 */
+	private void layoutLabels() {
+	  removeAll();
+	  constr.fill = GridBagConstraints.NONE;
+	  constr.weightx = 0;
+	  constr.gridx = 0;
+	  for (JLabel label : decorationLabels) {
+	    add(label, constr);
+	    constr.gridx++;
+	  }
+	  constr.fill = GridBagConstraints.HORIZONTAL;
+	  constr.weightx = 1;
+	  add(messageLabel, constr);
 	}
 
 	/**
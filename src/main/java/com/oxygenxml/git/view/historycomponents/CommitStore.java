@@ -0,0 +1,427 @@
+package com.oxygenxml.git.view.historycomponents;
+
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.util.NB;
+import org.eclipse.jgit.util.RawParseUtils;
+
+import com.oxygenxml.git.service.RevCommitUtilBase;
+
+/**
+ * Keeps the commits shown in the history in columns of primitives, instead of one object
+ * with several strings per commit:
+ * <ul>
+ * <li>the ids are kept as five ints each;</li>
+ * <li>the authors and the committers are indices in a table of distinct persons;</li>
+ * <li>the dates are kept as seconds;</li>
+ * <li>the parents are indices of other commits;</li>
+ * <li>the messages are kept as they are encoded in the commit and are decoded only when asked for.</li>
+ * </ul>
+ * The list returns a lightweight {@link CommitCharacteristics} view over a row, created on request.
+ * <br><br>
+ * The commits are added with {@link #add(RevCommit)}, in the order of the walk, and then
+ * {@link #complete()} resolves the links to the parents. The store cannot be modified afterwards.
+ */
+public class CommitStore extends AbstractList<CommitCharacteristics> implements RandomAccess {
+  /**
+   * The number of ints needed for an id.
+   */
+  private static final int ID_WORDS = 5;
+  /**
+   * The initial capacity, in commits.
+   */
+  private static final int INITIAL_CAPACITY = 64;
+
+  /**
+   * A row shown before the stored commits, like the uncommitted changes. May be <code>null</code>.
+   */
+  private final CommitCharacteristics firstRow;
+  /**
+   * The number of stored commits.
+   */
+  private int count;
+  /**
+   * The ids of the stored commits, followed by the ids of the parents that are not stored.
+   */
+  private int[] ids = new int[ID_WORDS * INITIAL_CAPACITY];
+  /**
+   * The number of ids, including those of the parents that are not stored.
+   */
+  private int idCount;
+  /**
+   * The author of each commit, as an index in the persons table.
+   */
+  private int[] authors = new int[INITIAL_CAPACITY];
+  /**
+   * The committer of each commit, as an index in the persons table.
+   */
+  private int[] committers = new int[INITIAL_CAPACITY];
+  /**
+   * The author date of each commit, in seconds.
+   */
+  private long[] authorTimes = new long[INITIAL_CAPACITY];
+  /**
+   * Where the parents of each commit start in the parents column. One more entry marks the end.
+   */
+  private int[] parentStarts = new int[INITIAL_CAPACITY + 1];
+  /**
+   * The parents, as indices in the ids column.
+   */
+  private int[] parents = new int[INITIAL_CAPACITY];
+  /**
+   * The encoded messages, one after the other.
+   */
+  private byte[] messages = new byte[INITIAL_CAPACITY * 64];
+  /**
+   * Where each message starts. One more entry marks the end.
+   */
+  private int[] messageStarts = new int[INITIAL_CAPACITY + 1];
+  /**
+   * The encoding of each message, as an index in the charsets table.
+   */
+  private byte[] messageCharsets = new byte[INITIAL_CAPACITY];
+  /**
+   * The distinct encodings of the messages.
+   */
+  private final List<Charset> charsets = new ArrayList<>(Collections.singletonList(StandardCharsets.UTF_8));
+  /**
+   * The distinct authors, as "name &lt;email&gt;", and committers, as "name".
+   */
+  private final List<String> persons = new ArrayList<>();
+  /**
+   * The index of each person. Only needed while the commits are added.
+   */
+  private Map<String, Integer> personIndices = new HashMap<>();
+  /**
+   * The stored commits. Only needed while the commits are added.
+   */
+  private List<RevCommit> addedCommits = new ArrayList<>();
+  /**
+   * The parent of each link from the parents column. Only needed while the commits are added.
+   */
+  private List<RevCommit> parentCommits = new ArrayList<>();
+
+  /**
+   * Constructor.
+   *
+   * @param firstRow A row shown before the stored commits, like the uncommitted changes.
+   *                 <code>null</code> if there is no such row.
+   */
+  public CommitStore(CommitCharacteristics firstRow) {
+    this.firstRow = firstRow;
+  }
+
+  /**
+   * Stores a commit. Its body is released afterwards, the message is copied.
+   *
+   * @param commit The commit, with the body parsed.
+   */
+  public void add(RevCommit commit) {
+    if (personIndices == null) {
+      throw new IllegalStateException("The store is complete.");
+    }
+    ensureCapacity(count + 1);
+
+    writeId(commit, idCount++);
+    PersonIdent authorIdent = commit.getAuthorIdent();
+    authors[count] = intern(authorIdent.getName() + " <" + authorIdent.getEmailAddress() + ">");
+    committers[count] = intern(commit.getCommitterIdent().getName());
+    authorTimes[count] = authorIdent.getWhen().getTime() / 1000;
+
+    int parentCount = commit.getParentCount();
+    int parentStart = parentStarts[count];
+    if (parents.length < parentStart + parentCount) {
+      parents = Arrays.copyOf(parents, Math.max(parents.length * 2, parentStart + parentCount));
+    }
+    for (int i = 0; i < parentCount; i++) {
+      // Resolved when the store is complete. The parents usually come later in the walk.
+      parentCommits.add(commit.getParent(i));
+    }
+    parentStarts[count + 1] = parentStart + parentCount;
+
+    byte[] raw = commit.getRawBuffer();
+    int messageStart = raw != null ? RawParseUtils.commitMessage(raw, 0) : -1;
+    int messageLength = messageStart >= 0 ? raw.length - messageStart : 0;
+    int offset = messageStarts[count];
+    if (messages.length < offset + messageLength) {
+      messages = Arrays.copyOf(messages, Math.max(messages.length * 2, offset + messageLength));
+    }
+    if (messageLength > 0) {
+      System.arraycopy(raw, messageStart, messages, offset, messageLength);
+    }
+    messageStarts[count + 1] = offset + messageLength;
+    messageCharsets[count] = charsetIndex(commit);
+
+    addedCommits.add(commit);
+    count++;
+    commit.disposeBody();
+  }
+
+  /**
+   * Resolves the links to the parents and releases the memory needed only while adding the commits.
+   */
+  public void complete() {
+    if (personIndices != null) {
+      Map<RevCommit, Integer> rows = new IdentityHashMap<>(addedCommits.size());
+      for (int i = 0; i < addedCommits.size(); i++) {
+        rows.put(addedCommits.get(i), i);
+      }
+      // The parents that are not stored, like the commits that didn't touch a filtered path.
+      Map<RevCommit, Integer> others = new IdentityHashMap<>();
+      for (int i = 0; i < parentCommits.size(); i++) {
+        RevCommit parent = parentCommits.get(i);
+        Integer index = rows.get(parent);
+        if (index == null) {
+          index = others.get(parent);
+          if (index == null) {
+            index = idCount++;
+            if (ids.length < idCount * ID_WORDS) {
+              ids = Arrays.copyOf(ids, Math.max(ids.length * 2, idCount * ID_WORDS));
+            }
+            writeId(parent, index);
+            others.put(parent, index);
+          }
+        }
+        parents[i] = index;
+      }
+
+      ids = Arrays.copyOf(ids, idCount * ID_WORDS);
+      authors = Arrays.copyOf(authors, count);
+      committers = Arrays.copyOf(committers, count);
+      authorTimes = Arrays.copyOf(authorTimes, count);
+      parentStarts = Arrays.copyOf(parentStarts, count + 1);
+      parents = Arrays.copyOf(parents, parentStarts[count]);
+      messages = Arrays.copyOf(messages, messageStarts[count]);
+      messageStarts = Arrays.copyOf(messageStarts, count + 1);
+      messageCharsets = Arrays.copyOf(messageCharsets, count);
+
+      personIndices = null;
+      addedCommits = null;
+      parentCommits = null;
+    }
+  }
+
+  @Override
+  public CommitCharacteristics get(int index) {
+    if (index < 0 || index >= size()) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+    }
+    return firstRow == null ? new StoredCommit(index) : (index == 0 ? firstRow : new StoredCommit(index - 1));
+  }
+
+  @Override
+  public int size() {
+    return firstRow == null ? count : count + 1;
+  }
+
+  /**
+   * Gets the id of a commit without building its view.
+   *
+   * @param index The index in the list.
+   *
+   * @return The id, or <code>null</code> for the row shown before the stored commits.
+   */
+  public ObjectId getObjectId(int index) {
+    if (index < 0 || index >= size()) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+    }
+    ObjectId id = null;
+    if (firstRow == null) {
+      id = getId(index);
+    } else if (index > 0) {
+      id = getId(index - 1);
+    }
+    return id;
+  }
+
+  /**
+   * @return The number of distinct authors and committers.
+   */
+  int getPersonCount() {
+    return persons.size();
+  }
+
+  /**
+   * Gets the id of a stored commit or of a parent.
+   *
+   * @param index The index in the ids column.
+   *
+   * @return The id.
+   */
+  private ObjectId getId(int index) {
+    int offset = index * ID_WORDS;
+    return new ObjectId(ids[offset], ids[offset + 1], ids[offset + 2], ids[offset + 3], ids[offset + 4]);
+  }
+
+  /**
+   * Writes an id in the ids column.
+   *
+   * @param id    The id.
+   * @param index The index in the ids column.
+   */
+  private void writeId(ObjectId id, int index) {
+    byte[] raw = new byte[ID_WORDS * 4];
+    id.copyRawTo(raw, 0);
+    int offset = index * ID_WORDS;
+    for (int i = 0; i < ID_WORDS; i++) {
+      ids[offset + i] = NB.decodeInt32(raw, i * 4);
+    }
+  }
+
+  /**
+   * Gets the index of a person, adding it to the table if needed.
+   *
+   * @param person The person.
+   *
+   * @return The index in the persons table.
+   */
+  private int intern(String person) {
+    return personIndices.computeIfAbsent(person, p -> {
+      persons.add(p);
+      return persons.size() - 1;
+    });
+  }
+
+  /**
+   * Gets the encoding of a commit message, adding it to the table if needed.
+   * Falls back to UTF-8, like {@link RevCommit#getFullMessage()}.
+   *
+   * @param commit The commit.
+   *
+   * @return The index in the charsets table.
+   */
+  private byte charsetIndex(RevCommit commit) {
+    Charset charset;
+    try {
+      charset = commit.getEncoding();
+    } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+      charset = StandardCharsets.UTF_8;
+    }
+    int index = charsets.indexOf(charset);
+    if (index == -1 && charsets.size() <= Byte.MAX_VALUE) {
+      charsets.add(charset);
+      index = charsets.size() - 1;
+    }
+    return (byte) Math.max(index, 0);
+  }
+
+  /**
+   * Makes room for more commits.
+   *
+   * @param capacity The needed number of commits.
+   */
+  private void ensureCapacity(int capacity) {
+    if (authors.length < capacity) {
+      int newCapacity = Math.max(authors.length * 2, capacity);
+      authors = Arrays.copyOf(authors, newCapacity);
+      committers = Arrays.copyOf(committers, newCapacity);
+      authorTimes = Arrays.copyOf(authorTimes, newCapacity);
+      parentStarts = Arrays.copyOf(parentStarts, newCapacity + 1);
+      messageStarts = Arrays.copyOf(messageStarts, newCapacity + 1);
+      messageCharsets = Arrays.copyOf(messageCharsets, newCapacity);
+    }
+    if (ids.length < (idCount + 1) * ID_WORDS) {
+      ids = Arrays.copyOf(ids, Math.max(ids.length * 2, (idCount + 1) * ID_WORDS));
+    }
+  }
+
+  /**
+   * A view over a stored commit.
+   */
+  private class StoredCommit extends CommitCharacteristics {
+    /**
+     * The row of the commit.
+     */
+    private final int row;
+
+    /**
+     * Constructor.
+     *
+     * @param row The row of the commit.
+     */
+    StoredCommit(int row) {
+      super(null, null, null, null, null, null, null);
+      this.row = row;
+    }
+
+    @Override
+    public String getCommitMessage() {
+      return RawParseUtils.decode(
+          charsets.get(messageCharsets[row]), messages, messageStarts[row], messageStarts[row + 1]);
+    }
+
+    @Override
+    public Date getDate() {
+      return new Date(authorTimes[row] * 1000);
+    }
+
+    @Override
+    public String getAuthor() {
+      return persons.get(authors[row]);
+    }
+
+    @Override
+    public String getCommitAbbreviatedId() {
+      return getId(row).abbreviate(RevCommitUtilBase.ABBREVIATED_COMMIT_LENGTH).name();
+    }
+
+    @Override
+    public String getCommitId() {
+      return getId(row).getName();
+    }
+
+    @Override
+    public String getCommitter() {
+      return persons.get(committers[row]);
+    }
+
+    @Override
+    public List<String> getParentCommitId() {
+      List<String> parentIds = null;
+      int start = parentStarts[row];
+      int end = parentStarts[row + 1];
+      if (end > start) {
+        parentIds = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+          parentIds.add(getId(parents[i]).abbreviate(RevCommitUtilBase.ABBREVIATED_COMMIT_LENGTH).name());
+        }
+      }
+      return parentIds;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof StoredCommit
+          && ((StoredCommit) obj).getStore() == CommitStore.this
+          && ((StoredCommit) obj).row == row;
+    }
+
+    @Override
+    public int hashCode() {
+      return row;
+    }
+
+    /**
+     * @return The store of the commit.
+     */
+    private CommitStore getStore() {
+      return CommitStore.this;
+    }
+  }
+}
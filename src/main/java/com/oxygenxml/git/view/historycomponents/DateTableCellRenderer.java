@@ -8,7 +8,8 @@ import javax.swing.JTable;
 import javax.swing.table.DefaultTableCellRenderer;
 
 /**
- * Renders a date according to a format.
+ * Renders a date according to a format. In the history table, the formatted date of
+ * each row is computed only once.
  */
 public class DateTableCellRenderer extends DefaultTableCellRenderer {
   /**
@@ -28,7 +29,10 @@ public class DateTableCellRenderer extends DefaultTableCellRenderer {
   @Override
   public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus,
       int row, int column) {
-    if (value instanceof Date) {
+    if (table.getModel() instanceof HistoryCommitTableModel) {
+      HistoryCommitTableModel model = (HistoryCommitTableModel) table.getModel();
+      value = model.getRenderedCommit(table.convertRowIndexToModel(row)).getFormattedDate(format);
+    } else if (value instanceof Date) {
       Date date = (Date) value;
       value = format.format(date);
     }
@@ -1,5 +1,6 @@
 package com.oxygenxml.git.view.historycomponents;
 
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
@@ -23,11 +24,29 @@ public class HistoryCommitTableModel extends AbstractTableModel {
 	public static final int DATE = 1;
 	public static final int AUTHOR = 2;
 	public static final int COMMIT_ABBREVIATED_ID = 3;
+	
+	/**
+	 * How many rendered rows are kept, by default. A few screens of rows.
+	 */
+	private static final int DEFAULT_RENDERED_COMMITS_LIMIT = 500;
 
 	/**
 	 * The internal representation of the model.
 	 */
 	private List<CommitCharacteristics> allCommitsCharacteristics;
+	
+	/**
+	 * What is shown for the recently painted rows. A row is kept in the slot given by its index 
+	 * modulo the number of slots and replaces the row that was there. The visible rows are
+	 * consecutive, so they don't replace each other, and a long history doesn't keep a rendering
+	 * for every row it ever painted.
+	 */
+	private final RenderedCommit[] renderedCommits;
+	
+	/**
+	 * The row kept in each slot of {@link #renderedCommits}, or -1.
+	 */
+	private final int[] renderedRows;
 
 	/**
 	 * Construct the Table Model with a Vector containing all commitCharacteristics.
@@ -35,26 +54,71 @@ public class HistoryCommitTableModel extends AbstractTableModel {
 	 * @param commitVector The computed commitVector
 	 */
 	public HistoryCommitTableModel(List<CommitCharacteristics> commitVector) {
+		this(commitVector, DEFAULT_RENDERED_COMMITS_LIMIT);
+	}
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param commitVector         The computed commitVector
+	 * @param renderedCommitsLimit How many rendered rows are kept.
+	 */
+	HistoryCommitTableModel(List<CommitCharacteristics> commitVector, int renderedCommitsLimit) {
 		this.allCommitsCharacteristics = commitVector;
+		this.renderedCommits = new RenderedCommit[renderedCommitsLimit];
+		this.renderedRows = new int[renderedCommitsLimit];
+		Arrays.fill(renderedRows, -1);
+	}
+	
+	/**
+	 * Gets what is shown for a row.
+	 * 
+	 * @param rowIndex The row, in the model.
+	 * 
+	 * @return The rendered commit.
+	 */
+	public RenderedCommit getRenderedCommit(int rowIndex) {
+		int slot = rowIndex % renderedRows.length;
+		RenderedCommit renderedCommit = renderedCommits[slot];
+		if (renderedRows[slot] != rowIndex) {
+			// Only now the commit view is built.
+			renderedCommit = new RenderedCommit(allCommitsCharacteristics.get(rowIndex));
+			renderedCommits[slot] = renderedCommit;
+			renderedRows[slot] = rowIndex;
+		}
+		return renderedCommit;
+	}
+	
+	/**
+	 * @return The number of rendered rows that are kept.
+	 */
+	int getRenderedCommitsCount() {
+		int count = 0;
+		for (int row : renderedRows) {
+			if (row != -1) {
+				count++;
+			}
+		}
+		return count;
 	}
 	
 	@Override
 	public Object getValueAt(int rowIndex, int columnIndex) {
-		CommitCharacteristics commitCharacteristics = allCommitsCharacteristics.get(rowIndex);
+		RenderedCommit renderedCommit = getRenderedCommit(rowIndex);
 		Object temp = null;
 
 		switch (columnIndex) {
 		case COMMIT_MESSAGE:
-			temp = commitCharacteristics;
+			temp = renderedCommit.getCommit();
 			break;
 		case AUTHOR:
-			temp = commitCharacteristics.getAuthor();
+			temp = renderedCommit.getAuthor();
 			break;
 		case DATE:
-			temp = commitCharacteristics.getDate();
+			temp = renderedCommit.getDate();
 			break;
 		case COMMIT_ABBREVIATED_ID:
-			temp = commitCharacteristics.getCommitAbbreviatedId();
+			temp = renderedCommit.getAbbreviatedId();
 			break;
 		default:
 			break;
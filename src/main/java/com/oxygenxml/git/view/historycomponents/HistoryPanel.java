@@ -14,10 +14,13 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
@@ -29,10 +32,15 @@ import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
+import javax.swing.JTextField;
 import javax.swing.JToolBar;
 import javax.swing.ListSelectionModel;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import javax.swing.UIManager;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.TableColumn;
 import javax.swing.table.TableColumnModel;
@@ -48,17 +56,18 @@ import com.jidesoft.swing.JideSplitPane;
 import com.oxygenxml.git.constants.Icons;
 import com.oxygenxml.git.protocol.GitRevisionURLHandler;
 import com.oxygenxml.git.service.GitAccess;
+import com.oxygenxml.git.service.HistorySearchIndex;
 import com.oxygenxml.git.service.NoRepositorySelected;
-import com.oxygenxml.git.service.PrivateRepositoryException;
-import com.oxygenxml.git.service.RepositoryUnavailableException;
+import com.oxygenxml.git.service.RemoteState;
+import com.oxygenxml.git.service.RemoteStateService;
 import com.oxygenxml.git.service.RevCommitUtil;
 import com.oxygenxml.git.service.RevCommitUtilBase;
-import com.oxygenxml.git.service.SSHPassphraseRequiredException;
 import com.oxygenxml.git.service.entities.FileStatus;
 import com.oxygenxml.git.translator.Tags;
 import com.oxygenxml.git.translator.Translator;
 import com.oxygenxml.git.utils.Equaler;
 import com.oxygenxml.git.utils.FileHelper;
+import com.oxygenxml.git.utils.GitOperationScheduler;
 import com.oxygenxml.git.view.DiffPresenter;
 import com.oxygenxml.git.view.HiDPIUtil;
 import com.oxygenxml.git.view.StagingResourcesTableModel;
@@ -109,6 +118,26 @@ public class HistoryPanel extends JPanel {
    * Executes GIT commands (stage, unstage, discard, etc).
    */
   private transient GitController stageController;
+  /**
+   * Renders the commit messages and the tags and branches of the commits.
+   */
+  private CommitMessageTableRenderer commitMessageRenderer;
+  /**
+   * Filters the presented commits.
+   */
+  private JTextField filterField;
+  /**
+   * All the commits of the presented history, before filtering.
+   */
+  private transient List<CommitCharacteristics> allCommits = Collections.emptyList();
+  /**
+   * Coalescing support for filtering while the user types.
+   */
+  private final Timer filterTimer = new Timer(300, e -> filterHistory());
+  /**
+   * The commit of the upstream branch when the history was loaded.
+   */
+  private transient ObjectId presentedUpstreamId;
   
   /**
    * Constructor.
@@ -118,6 +147,9 @@ public class HistoryPanel extends JPanel {
   public HistoryPanel(GitController stageController) {
     this.stageController = stageController;
     setLayout(new BorderLayout());
+    
+    RemoteStateService.getInstance().addListener(
+        state -> SwingUtilities.invokeLater(() -> remoteStateChanged(state)));
 
     historyTable = UIUtil.createTable();
     historyTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -152,12 +184,13 @@ public class HistoryPanel extends JPanel {
     affectedFilesTableScrollPane.setPreferredSize(minimumSize);
 
     //----------
-    // Top panel (with the "Showing history" label and the "Refresh" action
+    // Top panel (with the "Showing history" label, the filter and the "Refresh" action
     //----------
     
     JPanel topPanel = new JPanel(new BorderLayout());
     showingHistoryForRepoLabel = new JLabel();
     topPanel.add(showingHistoryForRepoLabel, BorderLayout.WEST);
+    topPanel.add(createFilterField(), BorderLayout.CENTER);
     createAndAddToolbarToTopPanel(topPanel);
 
     JPanel infoBoxesSplitPane = createSplitPane(
@@ -501,79 +534,231 @@ public class HistoryPanel extends JPanel {
   private void showHistory(String filePath, boolean force) {
     // Check if we don't already present the history for this path!!!!
     if (force || !Equaler.verifyEquals(filePath, activeFilePath)) {
-      this.activeFilePath = filePath;
-      GitAccess gitAccess = GitAccess.getInstance();
-
       try {
-        // Make sure we know about the remote as well, to present data about the upstream branch.
-        gitAccess.fetch();
-
-        File directory = gitAccess.getWorkingCopy();
-        if (filePath != null) {
-          directory = new File(directory, filePath);
+        // Make sure we know about the remote as well, to present data about the upstream branch
+        // and the tags. The local history is presented right away and loaded again if the
+        // fetch brings new commits.
+        RemoteStateService.getInstance().requestFetch(GitAccess.getInstance().getRepository(), true);
+      } catch (NoRepositorySelected e) {
+        LOGGER.debug(e, e);
+      }
+      loadHistory(filePath);
+    }
+  }
+  
+  /**
+   * Loads the history again if a fetch brought new commits on the upstream branch.
+   * 
+   * @param state The state of the fetched repository.
+   */
+  private void remoteStateChanged(RemoteState state) {
+    if (isShowing() && historyTable.getModel() instanceof HistoryCommitTableModel) {
+      try {
+        Repository repository = GitAccess.getInstance().getRepository();
+        if (repository.getDirectory().equals(state.getGitDirectory())
+            && !Equaler.verifyEquals(presentedUpstreamId, state.getUpstreamId())) {
+          loadHistory(activeFilePath);
         }
-        showingHistoryForRepoLabel.setText(
-            Translator.getInstance().getTranslation(Tags.SHOWING_HISTORY_FOR) + " " + directory.getName());
-        showingHistoryForRepoLabel.setToolTipText(directory.getAbsolutePath());
-        showingHistoryForRepoLabel.setBorder(BorderFactory.createEmptyBorder(0,2,5,0));
-
-        // Install selection listener.
-        if (selectionListener != null) {
-          historyTable.getSelectionModel().removeListSelectionListener(selectionListener);
+      } catch (NoRepositorySelected e) {
+        LOGGER.debug(e, e);
+      }
+    }
+  }
+  
+  /**
+   * Loads the commit history and presents it.
+   * 
+   * @param filePath File for which to present the commit that changed him.
+   */
+  private void loadHistory(String filePath) {
+    this.activeFilePath = filePath;
+    GitAccess gitAccess = GitAccess.getInstance();
+
+    try {
+      presentedUpstreamId = RemoteStateService.getInstance().getState(gitAccess.getRepository()).getUpstreamId();
+
+      File directory = gitAccess.getWorkingCopy();
+      if (filePath != null) {
+        directory = new File(directory, filePath);
+      }
+      showingHistoryForRepoLabel.setText(
+          Translator.getInstance().getTranslation(Tags.SHOWING_HISTORY_FOR) + " " + directory.getName());
+      showingHistoryForRepoLabel.setToolTipText(directory.getAbsolutePath());
+      showingHistoryForRepoLabel.setBorder(BorderFactory.createEmptyBorder(0,2,5,0));
+
+      if (commitMessageRenderer != null) {
+        commitMessageRenderer.dispose();
+      }
+      commitMessageRenderer = new CommitMessageTableRenderer(gitAccess.getRepository());
+      historyTable.setDefaultRenderer(CommitCharacteristics.class, commitMessageRenderer);
+      historyTable.setDefaultRenderer(Date.class, new DateTableCellRenderer("d MMM yyyy HH:mm"));
+      List<CommitCharacteristics> commitCharacteristicsVector = gitAccess.getCommitsCharacteristics(filePath);
+      allCommits = commitCharacteristicsVector;
+      presentCommits(commitCharacteristicsVector);
+
+      // Select the local branch HEAD.
+      if (!commitCharacteristicsVector.isEmpty()) {
+        Repository repository = gitAccess.getRepository();
+        String fullBranch = repository.getFullBranch();
+        Ref branchHead = repository.exactRef(fullBranch);
+        ObjectId objectId = branchHead.getObjectId();
+        selectCommit(objectId);
+      }
+
+      if (filterField.getText().trim().isEmpty()) {
+        // Bring the index up to date, so that the first filtering is fast.
+        scheduleHistoryIndexUpdate();
+      } else {
+        filterTimer.restart();
+      }
+
+    } catch (NoRepositorySelected | IOException e) {
+      LOGGER.debug(e, e);
+      PluginWorkspaceProvider.getPluginWorkspace().showErrorMessage("Unable to present history because of: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Presents some commits in the history table.
+   * 
+   * @param commitCharacteristicsVector The commits.
+   */
+  private void presentCommits(List<CommitCharacteristics> commitCharacteristicsVector) {
+    // Install selection listener.
+    if (selectionListener != null) {
+      historyTable.getSelectionModel().removeListSelectionListener(selectionListener);
+    }
+    
+    StagingResourcesTableModel dataModel = (StagingResourcesTableModel) affectedFilesTable.getModel();
+    dataModel.setFilesStatus(Collections.emptyList());
+    commitDescriptionPane.setText("");
+
+    historyTable.setModel(new HistoryCommitTableModel(commitCharacteristicsVector));
+    updateHistoryTableWidths();
+    
+    TableColumn authorColumn = historyTable.getColumn(Translator.getInstance().getTranslation(Tags.AUTHOR));
+    authorColumn.setCellRenderer(
+        new DefaultTableCellRenderer() { // NOSONAR
+      @Override
+      public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+          boolean hasFocus, int row, int column) {
+        // Only the name, computed once for each row.
+        HistoryCommitTableModel model = (HistoryCommitTableModel) table.getModel();
+        String authorName = model.getRenderedCommit(table.convertRowIndexToModel(row)).getAuthorName();
+        return super.getTableCellRendererComponent(table, authorName, isSelected, hasFocus, row, column);
+      }
+    });
+    
+    selectionListener = new RowHistoryTableSelectionListener(
+        historyTable, commitDescriptionPane, commitCharacteristicsVector, affectedFilesTable);
+    historyTable.getSelectionModel().addListSelectionListener(selectionListener);
+
+    // Install hyperlink listener.
+    if (hyperlinkListener != null) {
+      commitDescriptionPane.removeHyperlinkListener(hyperlinkListener);  
+    }
+    hyperlinkListener = new HistoryHyperlinkListener(historyTable, commitCharacteristicsVector);
+    commitDescriptionPane.addHyperlinkListener(hyperlinkListener);
+  }
+
+  /**
+   * Creates the field that filters the history.
+   * 
+   * @return The filter field.
+   */
+  private JTextField createFilterField() {
+    filterField = UIUtil.createTextField();
+    filterField.setToolTipText(Translator.getInstance().getTranslation(Tags.HISTORY_FILTER_HINT));
+    filterTimer.setRepeats(false);
+    filterField.getDocument().addDocumentListener(new DocumentListener() {
+      @Override
+      public void removeUpdate(DocumentEvent e) {
+        filterTimer.restart();
+      }
+      @Override
+      public void insertUpdate(DocumentEvent e) {
+        filterTimer.restart();
+      }
+      @Override
+      public void changedUpdate(DocumentEvent e) {
+        filterTimer.restart();
+      }
+    });
+    return filterField;
+  }
+
+  /**
+   * Filters the presented history with the query from the filter field. The query is answered
+   * by the history index, in the background.
+   */
+  private void filterHistory() {
+    String query = filterField.getText();
+    List<CommitCharacteristics> commits = allCommits;
+    new SwingWorker<Set<ObjectId>, Void>() {
+      @Override
+      protected Set<ObjectId> doInBackground() throws Exception {
+        Set<ObjectId> matches = null;
+        if (!query.trim().isEmpty()) {
+          HistorySearchIndex index = GitAccess.getInstance().getHistorySearchIndex();
+          index.update();
+          matches = index.search(query);
         }
-        
-        StagingResourcesTableModel dataModel = (StagingResourcesTableModel) affectedFilesTable.getModel();
-        dataModel.setFilesStatus(Collections.emptyList());
-        commitDescriptionPane.setText("");
+        return matches;
+      }
 
-        List<CommitCharacteristics> commitCharacteristicsVector = gitAccess.getCommitsCharacteristics(filePath);
-        historyTable.setModel(new HistoryCommitTableModel(commitCharacteristicsVector));
-        updateHistoryTableWidths();
-        
-        historyTable.setDefaultRenderer(CommitCharacteristics.class, new CommitMessageTableRenderer(gitAccess.getRepository()));
-        historyTable.setDefaultRenderer(Date.class, new DateTableCellRenderer("d MMM yyyy HH:mm"));
-        TableColumn authorColumn = historyTable.getColumn(Translator.getInstance().getTranslation(Tags.AUTHOR));
-        authorColumn.setCellRenderer(
-            new DefaultTableCellRenderer() { // NOSONAR
-          @Override
-          public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
-              boolean hasFocus, int row, int column) {
-            JLabel label = (JLabel) super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
-            String text = label.getText();
-            int indexOfLT = text.indexOf(" <");
-            if (indexOfLT != -1) {
-              text = text.substring(0, indexOfLT);
-            }
-            label.setText(text);
-            return label;
+      @Override
+      protected void done() {
+        // Ignore the obsolete results.
+        if (commits == allCommits && query.equals(filterField.getText())) {
+          try {
+            presentCommits(filterCommits(commits, get()));
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } catch (ExecutionException e) {
+            LOGGER.debug(e, e);
           }
-        });
-        
-        selectionListener = new RowHistoryTableSelectionListener(
-            historyTable, commitDescriptionPane, commitCharacteristicsVector, affectedFilesTable);
-        historyTable.getSelectionModel().addListSelectionListener(selectionListener);
-
-        // Install hyperlink listener.
-        if (hyperlinkListener != null) {
-          commitDescriptionPane.removeHyperlinkListener(hyperlinkListener);  
         }
-        hyperlinkListener = new HistoryHyperlinkListener(historyTable, commitCharacteristicsVector);
-        commitDescriptionPane.addHyperlinkListener(hyperlinkListener);
-
-        // Select the local branch HEAD.
-        if (!commitCharacteristicsVector.isEmpty()) {
-          Repository repository = gitAccess.getRepository();
-          String fullBranch = repository.getFullBranch();
-          Ref branchHead = repository.exactRef(fullBranch);
-          ObjectId objectId = branchHead.getObjectId();
-          selectCommit(objectId);
+      }
+    }.execute();
+  }
+
+  /**
+   * Keeps the commits that match a query.
+   * 
+   * @param commits The commits.
+   * @param matches The ids of the commits that match the query. <code>null</code> to keep everything.
+   * 
+   * @return The matching commits.
+   */
+  static List<CommitCharacteristics> filterCommits(List<CommitCharacteristics> commits, Set<ObjectId> matches) {
+    List<CommitCharacteristics> filtered = commits;
+    if (matches != null) {
+      filtered = new ArrayList<>();
+      for (int i = 0; i < commits.size(); i++) {
+        CommitCharacteristics commit = commits.get(i);
+        if (commit != GitAccess.UNCOMMITED_CHANGES) {
+          ObjectId id = commits instanceof CommitStore
+              ? ((CommitStore) commits).getObjectId(i) : ObjectId.fromString(commit.getCommitId());
+          if (matches.contains(id)) {
+            filtered.add(commit);
+          }
         }
+      }
+    }
+    return filtered;
+  }
 
-      } catch (NoRepositorySelected | SSHPassphraseRequiredException | PrivateRepositoryException | RepositoryUnavailableException | IOException e) {
+  /**
+   * Brings the history index of the current repository up to date, in the background.
+   */
+  private static void scheduleHistoryIndexUpdate() {
+    GitOperationScheduler.getInstance().scheduleMaintenance(() -> {
+      try {
+        GitAccess.getInstance().getHistorySearchIndex().update();
+      } catch (NoRepositorySelected | IOException e) {
         LOGGER.debug(e, e);
-        PluginWorkspaceProvider.getPluginWorkspace().showErrorMessage("Unable to present history because of: " + e.getMessage());
       }
-    }
+    }, 0);
   }
 
   /**
@@ -0,0 +1,128 @@
+package com.oxygenxml.git.view.historycomponents;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import com.oxygenxml.git.service.GitAccess;
+
+/**
+ * What the history table shows for a commit, computed once, when the row is first painted.
+ */
+public class RenderedCommit {
+  /**
+   * The commit.
+   */
+  private final CommitCharacteristics commit;
+  /**
+   * The commit message.
+   */
+  private final String message;
+  /**
+   * The author, as "name &lt;email&gt;".
+   */
+  private final String author;
+  /**
+   * The author name, without the e-mail.
+   */
+  private final String authorName;
+  /**
+   * The author date.
+   */
+  private final Date date;
+  /**
+   * The abbreviated commit id.
+   */
+  private final String abbreviatedId;
+  /**
+   * The format of {@link #formattedDate}.
+   */
+  private SimpleDateFormat dateFormat;
+  /**
+   * The formatted date.
+   */
+  private String formattedDate;
+
+  /**
+   * Constructor.
+   *
+   * @param commit The commit.
+   */
+  public RenderedCommit(CommitCharacteristics commit) {
+    this.commit = commit;
+    this.message = commit.getCommitMessage();
+    this.author = commit.getAuthor();
+    this.date = commit.getDate();
+    this.abbreviatedId = commit.getCommitAbbreviatedId();
+
+    String name = author;
+    int indexOfLT = name != null ? name.indexOf(" <") : -1;
+    if (indexOfLT != -1) {
+      name = name.substring(0, indexOfLT);
+    }
+    this.authorName = name;
+  }
+
+  /**
+   * @return The commit.
+   */
+  public CommitCharacteristics getCommit() {
+    return commit;
+  }
+
+  /**
+   * @return The commit message.
+   */
+  public String getMessage() {
+    return message;
+  }
+
+  /**
+   * @return <code>true</code> for the row that presents the uncommitted changes.
+   */
+  public boolean isUncommittedChanges() {
+    return GitAccess.UNCOMMITTED_CHANGES.equals(message);
+  }
+
+  /**
+   * @return The author, as "name &lt;email&gt;".
+   */
+  public String getAuthor() {
+    return author;
+  }
+
+  /**
+   * @return The author name, without the e-mail.
+   */
+  public String getAuthorName() {
+    return authorName;
+  }
+
+  /**
+   * @return The author date.
+   */
+  public Date getDate() {
+    return date;
+  }
+
+  /**
+   * Formats the author date. The result is kept for the next calls with the same format.
+   *
+   * @param format The format.
+   *
+   * @return The formatted date or <code>null</code> if there is no date.
+   */
+  public String getFormattedDate(SimpleDateFormat format) {
+    if (dateFormat != format) {
+      formattedDate = date != null ? format.format(date) : null;
+      dateFormat = format;
+    }
+    return formattedDate;
+  }
+
+  /**
+   * @return The abbreviated commit id.
+   */
+  public String getAbbreviatedId() {
+    return abbreviatedId;
+  }
+}
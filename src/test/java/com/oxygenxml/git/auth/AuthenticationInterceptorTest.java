@@ -0,0 +1,136 @@
+package com.oxygenxml.git.auth;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.net.Authenticator;
+import java.net.PasswordAuthentication;
+import java.net.URL;
+
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Tests the delegation of the authentication requests for the hosts that are not used by Git.
+ */
+public class AuthenticationInterceptorTest {
+  /**
+   * Logger for logging.
+   */
+  private static final Logger logger = Logger.getLogger(AuthenticationInterceptorTest.class);
+
+  /**
+   * The authenticator installed before ours, by Oxygen. Records what it was asked.
+   */
+  private static class RecordingAuthenticator extends Authenticator {
+    /**
+     * The last request.
+     */
+    private String lastRequest;
+
+    @Override
+    protected PasswordAuthentication getPasswordAuthentication() {
+      lastRequest = getRequestingHost() + ":" + getRequestingPort() + " " + getRequestingProtocol()
+          + " " + getRequestingPrompt() + " " + getRequestingScheme() + " " + getRequestingURL()
+          + " " + getRequestorType();
+      return new PasswordAuthentication("user", "secret".toCharArray());
+    }
+  }
+
+  /**
+   * Uninstalls the authenticators.
+   */
+  @After
+  public void tearDown() {
+    AuthenticationInterceptor.unbind("git.example.com");
+    Authenticator.setDefault(null);
+  }
+
+  /**
+   * The requests for the Git hosts are rejected, the others go to the previous authenticator.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testDelegation() throws Exception {
+    RecordingAuthenticator oxygenAuthenticator = new RecordingAuthenticator();
+    Authenticator.setDefault(oxygenAuthenticator);
+    AuthenticationInterceptor.bind("git.example.com");
+
+    PasswordAuthentication auth = request("other.example.com");
+    assertEquals("user", auth.getUserName());
+    assertEquals("other.example.com:443 https Realm Basic https://other.example.com/a SERVER",
+        oxygenAuthenticator.lastRequest);
+
+    oxygenAuthenticator.lastRequest = null;
+    assertNull(request("git.example.com"));
+    assertNull(oxygenAuthenticator.lastRequest);
+  }
+
+  /**
+   * Measures what the interceptor adds to an authentication request that is delegated.
+   * A benchmark, run by hand: it only logs the time per request, because the time depends
+   * on the machine and on its load.
+   *
+   * @throws Exception If it fails.
+   */
+  @Ignore("Benchmark. Run it by hand.")
+  @Test
+  public void testChallengeOverhead() throws Exception {
+    RecordingAuthenticator oxygenAuthenticator = new RecordingAuthenticator();
+    int count = 200000;
+
+    Authenticator.setDefault(oxygenAuthenticator);
+    long direct = measure(count);
+
+    AuthenticationInterceptor.bind("git.example.com");
+    long intercepted = measure(count);
+
+    logger.info("Authentication request: " + direct / count + " ns direct, "
+        + intercepted / count + " ns intercepted, " 
+        + Math.max(0, intercepted - direct) / count + " ns overhead.");
+  }
+
+  /**
+   * Sends authentication requests, after a warm up.
+   *
+   * @param count The number of requests.
+   *
+   * @return The time, in nanoseconds.
+   *
+   * @throws Exception If it fails.
+   */
+  private static long measure(int count) throws Exception {
+    for (int i = 0; i < count; i++) {
+      request("other.example.com");
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < count; i++) {
+      request("other.example.com");
+    }
+    return System.nanoTime() - start;
+  }
+
+  /**
+   * Sends an authentication request to the default authenticator.
+   *
+   * @param host The host.
+   *
+   * @return The credentials.
+   *
+   * @throws Exception If it fails.
+   */
+  private static PasswordAuthentication request(String host) throws Exception {
+    return Authenticator.requestPasswordAuthentication(
+        host,
+        null,
+        443,
+        "https",
+        "Realm",
+        "Basic",
+        new URL("https://" + host + "/a"),
+        Authenticator.RequestorType.SERVER);
+  }
+}
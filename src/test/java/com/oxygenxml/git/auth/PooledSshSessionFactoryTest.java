@@ -0,0 +1,129 @@
+package com.oxygenxml.git.auth;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.RemoteSession;
+import org.eclipse.jgit.transport.SshSessionFactory;
+import org.eclipse.jgit.transport.URIish;
+import org.eclipse.jgit.util.FS;
+import org.junit.Test;
+
+/**
+ * Tests the reuse of the SSH sessions.
+ */
+public class PooledSshSessionFactoryTest {
+
+  /**
+   * The events of the sessions created by {@link #delegate}.
+   */
+  private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+  /**
+   * The names of the threads that closed the sessions created by {@link #delegate}.
+   */
+  private final List<String> closingThreads = Collections.synchronizedList(new ArrayList<>());
+
+  /**
+   * Creates sessions that record what happens with them.
+   */
+  private final SshSessionFactory delegate = new SshSessionFactory() {
+    /**
+     * The number of sessions created so far.
+     */
+    private int count;
+
+    @Override
+    public RemoteSession getSession(URIish uri, CredentialsProvider credentialsProvider, FS fs, int tms) {
+      String name = uri.getHost() + "#" + (++count);
+      events.add("open " + name);
+      return new RemoteSession() {
+        /**
+         * <code>true</code> after the server closed the session.
+         */
+        private boolean closedByServer;
+
+        @Override
+        public Process exec(String commandName, int timeout) throws IOException {
+          if (uri.getPath().contains("drop")) {
+            if (closedByServer) {
+              throw new IOException("Closed");
+            }
+            closedByServer = true;
+          }
+          events.add("exec " + name);
+          return null;
+        }
+
+        @Override
+        public void disconnect() {
+          events.add("close " + name);
+          closingThreads.add(Thread.currentThread().getName());
+        }
+      };
+    }
+  };
+
+  /**
+   * A released session is used again for the same host, until left alone for too long.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testReuse() throws Exception {
+    PooledSshSessionFactory factory = new PooledSshSessionFactory(delegate, 200);
+
+    RemoteSession session = factory.getSession(new URIish("ssh://git@host/a.git"), null, null, 0);
+    session.exec("git-upload-pack", 0);
+    factory.releaseSession(session);
+    assertEquals(1, factory.getIdleSessionsCount());
+
+    session = factory.getSession(new URIish("ssh://git@host/b.git"), null, null, 0);
+    session.exec("git-receive-pack", 0);
+    RemoteSession other = factory.getSession(new URIish("ssh://git@other/a.git"), null, null, 0);
+    factory.releaseSession(other);
+    factory.releaseSession(session);
+    assertEquals("[open host#1, exec host#1, exec host#1, open other#2]", events.toString());
+    assertEquals(2, factory.getIdleSessionsCount());
+
+    Thread.sleep(500);
+    assertEquals(0, factory.getIdleSessionsCount());
+    assertEquals(6, events.size());
+    assertTrue(events.containsAll(Arrays.asList("close host#1", "close other#2")));
+    // Not delayed by the maintenance of the repositories.
+    assertEquals(Arrays.asList("Git SSH sessions eviction", "Git SSH sessions eviction"), closingThreads);
+  }
+
+  /**
+   * A reused session closed by the server is opened again.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testReconnect() throws Exception {
+    PooledSshSessionFactory factory = new PooledSshSessionFactory(delegate, 60000);
+    URIish uri = new URIish("ssh://git@host/drop.git");
+
+    RemoteSession session = factory.getSession(uri, null, null, 0);
+    session.exec("git-upload-pack", 0);
+    factory.releaseSession(session);
+    session = factory.getSession(uri, null, null, 0);
+    session.exec("git-upload-pack", 0);
+    factory.releaseSession(session);
+    assertEquals("[open host#1, exec host#1, close host#1, open host#2, exec host#2]", events.toString());
+
+    // The sessions are closed on a repository switch, including those in use.
+    events.clear();
+    RemoteSession inUse = factory.getSession(uri, null, null, 0);
+    factory.closeAll();
+    factory.releaseSession(inUse);
+    assertEquals("[close host#2]", events.toString());
+    assertEquals(0, factory.getIdleSessionsCount());
+  }
+}
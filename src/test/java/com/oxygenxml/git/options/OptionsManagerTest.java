@@ -0,0 +1,72 @@
+package com.oxygenxml.git.options;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.eclipse.jgit.util.FileUtils;
+
+import com.oxygenxml.git.service.GitTestBase;
+
+/**
+ * Tests the persistence of the options.
+ */
+public class OptionsManagerTest extends GitTestBase {
+
+  /**
+   * The options file used outside Oxygen.
+   */
+  private File optionsFile;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    optionsFile = new File(Files.createTempDirectory("options").toFile(), "Options.xml");
+    OptionsManager.getInstance().setOptionsFileForTests(optionsFile);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    OptionsManager.getInstance().setOptionsFileForTests(null);
+    FileUtils.delete(optionsFile.getParentFile(), FileUtils.RECURSIVE);
+    super.tearDown();
+  }
+
+  /**
+   * The changes are saved in the background and a save that changes nothing doesn't write the file.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testWriteBehind() throws Exception {
+    OptionsManager optionsManager = OptionsManager.getInstance();
+    String message = "Write behind " + System.currentTimeMillis();
+    optionsManager.saveCommitMessage(message);
+
+    // Saved in the background.
+    long timeout = System.currentTimeMillis() + 10000;
+    while (!readOptionsFile().contains(message) && System.currentTimeMillis() < timeout) {
+      Thread.sleep(100);
+    }
+    assertTrue(readOptionsFile().contains(message));
+    assertFalse(new File(optionsFile.getParentFile(), "Options.xml.tmp").exists());
+
+    // Nothing changed. The file is not written again.
+    assertTrue(optionsFile.setLastModified(1000));
+    optionsManager.saveOptions();
+    assertEquals(1000, optionsFile.lastModified());
+
+    // Saved right away.
+    optionsManager.saveCommitMessage(message + " again");
+    optionsManager.saveOptions();
+    assertTrue(readOptionsFile().contains(message + " again"));
+  }
+
+  /**
+   * @return The content of the options file.
+   *
+   * @throws Exception If it fails.
+   */
+  private String readOptionsFile() throws Exception {
+    return optionsFile.exists() ? new String(Files.readAllBytes(optionsFile.toPath()), StandardCharsets.UTF_8) : "";
+  }
+}
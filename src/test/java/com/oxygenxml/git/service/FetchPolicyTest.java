@@ -0,0 +1,122 @@
+package com.oxygenxml.git.service;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+
+import com.oxygenxml.git.utils.GitAddonSystemProperties;
+
+/**
+ * Tests what the fetches bring from the remote.
+ */
+public class FetchPolicyTest extends GitTestBase {
+
+  private final static String LOCAL_TEST_REPOSITORY = "target/test-resources/FetchPolicyTest/local";
+  private final static String REMOTE_TEST_REPOSITORY = "target/test-resources/FetchPolicyTest/remote";
+  private GitAccess gitAccess;
+  private Repository localRepo;
+  private Repository remoteRepo;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    gitAccess = GitAccess.getInstance();
+    localRepo = createRepository(LOCAL_TEST_REPOSITORY);
+    remoteRepo = createRepository(REMOTE_TEST_REPOSITORY);
+    bindLocalToRemote(localRepo, remoteRepo);
+
+    commitOneFile(REMOTE_TEST_REPOSITORY, "remote.txt", "remote");
+    Git remoteGit = new Git(remoteRepo);
+    remoteGit.branchCreate().setName("feature").call();
+    remoteGit.tag().setName("v1").setAnnotated(false).call();
+  }
+
+  /**
+   * Only the upstream branch is fetched, unless all the branches are requested.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testModes() throws Exception {
+    Git localGit = new Git(localRepo);
+    new FetchPolicy(FetchPolicy.Mode.UPSTREAM_ONLY, null).createFetchCommand(localGit, false).call();
+    assertNotNull(localRepo.exactRef(Constants.R_REMOTES + "origin/master"));
+    assertNull(localRepo.exactRef(Constants.R_REMOTES + "origin/feature"));
+    // The tag points into the fetched history.
+    assertNotNull(localRepo.exactRef(Constants.R_TAGS + "v1"));
+
+    new FetchPolicy(FetchPolicy.Mode.ALL_HEADS, null).createFetchCommand(localGit, false).call();
+    assertNotNull(localRepo.exactRef(Constants.R_REMOTES + "origin/feature"));
+  }
+
+  /**
+   * The tags are fetched only when requested.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testTagsOnDemand() throws Exception {
+    Git localGit = new Git(localRepo);
+    FetchPolicy policy = new FetchPolicy(FetchPolicy.Mode.TAGS_ON_DEMAND, null);
+    policy.createFetchCommand(localGit, false).call();
+    assertNotNull(localRepo.exactRef(Constants.R_REMOTES + "origin/master"));
+    assertNull(localRepo.exactRef(Constants.R_TAGS + "v1"));
+
+    policy.createFetchCommand(localGit, true).call();
+    assertNotNull(localRepo.exactRef(Constants.R_TAGS + "v1"));
+  }
+
+  /**
+   * The check of the received objects follows the repository configuration, unless forced.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testCheckFetchedObjects() throws Exception {
+    StoredConfig config = localRepo.getConfig();
+    assertFalse(new FetchPolicy(FetchPolicy.Mode.UPSTREAM_ONLY, null).isCheckFetchedObjects(config));
+    config.setBoolean("transfer", null, "fsckObjects", true);
+    assertTrue(new FetchPolicy(FetchPolicy.Mode.UPSTREAM_ONLY, null).isCheckFetchedObjects(config));
+    assertFalse(new FetchPolicy(FetchPolicy.Mode.UPSTREAM_ONLY, false).isCheckFetchedObjects(config));
+
+    // Only the upstream branch is fetched by default.
+    assertEquals(FetchPolicy.Mode.UPSTREAM_ONLY, FetchPolicy.fromSystemProperties().getMode());
+
+    System.setProperty(GitAddonSystemProperties.FETCH_CHECK_OBJECTS, "true");
+    System.setProperty(GitAddonSystemProperties.FETCH_MODE, "all_heads");
+    try {
+      FetchPolicy policy = FetchPolicy.fromSystemProperties();
+      assertEquals(FetchPolicy.Mode.ALL_HEADS, policy.getMode());
+      assertTrue(policy.isCheckFetchedObjects(localRepo.getConfig()));
+    } finally {
+      System.clearProperty(GitAddonSystemProperties.FETCH_CHECK_OBJECTS);
+      System.clearProperty(GitAddonSystemProperties.FETCH_MODE);
+    }
+  }
+
+  /**
+   * Each fetch is recorded in the statistics of its remote.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testStatistics() throws Exception {
+    String remoteUrl = localRepo.getConfig().getString("remote", "origin", "url");
+    FetchStatistics previous = gitAccess.getFetchStatistics(remoteUrl);
+    int fetchCount = previous != null ? previous.getFetchCount() : 0;
+
+    gitAccess.setRepositorySynchronously(LOCAL_TEST_REPOSITORY);
+    gitAccess.fetch();
+
+    FetchStatistics statistics = gitAccess.getFetchStatistics(remoteUrl);
+    assertEquals(fetchCount + 1, statistics.getFetchCount());
+    // HEAD, master, feature and the tag.
+    assertEquals(4, statistics.getLastRefsAdvertised());
+    assertTrue(statistics.getLastObjectsReceived() > 0);
+    assertTrue(statistics.getLastRefsUpdated() > 0);
+
+    // Nothing new.
+    gitAccess.fetch();
+    assertEquals(fetchCount + 2, statistics.getFetchCount());
+    assertEquals(0, statistics.getLastObjectsReceived());
+    assertEquals(0, statistics.getLastRefsUpdated());
+  }
+}
@@ -1,6 +1,7 @@
 package com.oxygenxml.git.service;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
@@ -167,6 +168,56 @@ public class GitAccessPullTest {
 		assertEquals(pullExpected, pullActual);
 	}
 	
+	/**
+	 * When the remote has nothing new, the pull stops after listing the upstream branch.
+	 * 
+	 * @throws Exception If it fails.
+	 */
+	@Test
+	public void testPullUpToDateDoesNotFetch() throws Exception {
+	  pushOneFileToRemote();
+
+	  OperationProgressMonitor monitor = new OperationProgressMonitor(progress -> {});
+	  PullResponse response = gitAccess.pull("", "", PullType.MERGE_FF, monitor);
+	  assertEquals(PullStatus.UP_TO_DATE, response.getStatus());
+	  assertTrue(monitor.getPhaseDurations().toString(), monitor.getPhaseDurations().isEmpty());
+	}
+
+	/**
+	 * The files are unstaged before the pull, even when the remote has nothing new.
+	 * 
+	 * @throws Exception If it fails.
+	 */
+	@Test
+	public void testPullUpToDateUnstagesFiles() throws Exception {
+	  pushOneFileToRemote();
+
+	  new File(FIRST_LOCAL_TEST_REPOSITPRY + "/test2.txt").createNewFile();
+	  gitAccess.add(new FileStatus(GitChangeType.ADD, "test2.txt"));
+	  assertEquals(1, gitAccess.getStagedFiles().size());
+
+	  PullResponse response = gitAccess.pull("", "");
+	  assertEquals(PullStatus.UP_TO_DATE, response.getStatus());
+	  assertTrue(gitAccess.getStagedFiles().isEmpty());
+	}
+
+	/**
+	 * The changes already fetched but not merged are still pulled.
+	 * 
+	 * @throws Exception If it fails.
+	 */
+	@Test
+	public void testPullAfterFetch() throws Exception {
+	  pushOneFileToRemote();
+
+	  gitAccess.setRepositorySynchronously(SECOND_LOCAL_TEST_REPOSITORY);
+	  gitAccess.getGitForTests().fetch().call();
+
+	  PullResponse response = gitAccess.pull("", "");
+	  assertEquals(PullStatus.OK, response.getStatus());
+	  assertTrue(new File(SECOND_LOCAL_TEST_REPOSITORY + "/test.txt").exists());
+	}
+
 	@After
 	public void freeResources() {
 	  // JGit relies on GC to release some file handles. See org.eclipse.jgit.internal.storage.file.WindowCache.Ref
@@ -3,12 +3,14 @@ package com.oxygenxml.git.service;
 import java.io.File;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.SubmoduleAddCommand;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
@@ -129,6 +131,42 @@ public class GitCloneTest extends GitTestBase {
     }
   }
   
+  /**
+   * <p><b>Description:</b> clone only the default branch of a repository.
+   * The later fetches must not bring the other branches either.</p>
+   *
+   * @throws Exception If it fails.
+   */
+  public void testCloneSingleBranch() throws Exception {
+    String remoteRepoLoc = "target/test-resources/GitCloneTest/testCloneSingleBranch-remote";
+    File cloneDest = new File("target/test-resources/GitCloneTest/testCloneSingleBranch-cloneDest");
+    FileUtils.deleteDirectory(cloneDest);
+
+    Repository remoteRepo = createRepository(remoteRepoLoc);
+    commitOneFile(remoteRepoLoc, "test.txt", "content");
+    Git remoteGit = new Git(remoteRepo);
+    remoteGit.branchCreate().setName("slave").call();
+
+    GitAccess gitAccess = GitAccess.getInstance();
+    gitAccess.clone(
+        new URIish(remoteRepo.getDirectory().toURI().toURL()),
+        cloneDest,
+        null,
+        null,
+        true);
+    Repository repository = gitAccess.getRepository();
+    record4Cleanup(repository);
+
+    assertEquals("master", repository.getBranch());
+    assertNotNull(repository.exactRef("refs/remotes/origin/master"));
+    assertNull(repository.exactRef("refs/remotes/origin/slave"));
+    assertEquals(
+        "[+refs/heads/master:refs/remotes/origin/master]",
+        Arrays.toString(repository.getConfig().getStringList("remote", "origin", "fetch")));
+
+    gitAccess.getGitForTests().fetch().call();
+    assertNull(repository.exactRef("refs/remotes/origin/slave"));
+  }
   
   /**
    * <p><b>Description:</b> Clone a project that has submodules, and try to load the submodule.</p>
@@ -0,0 +1,124 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TimeZone;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * Tests the search index over the history.
+ */
+public class HistorySearchIndexTest extends GitTestBase {
+
+  private final static String LOCAL_TEST_REPOSITORY = "target/test-resources/HistorySearchIndexTest/local";
+  private Repository repository;
+  private ObjectId first;
+  private ObjectId second;
+  private ObjectId third;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    repository = createRepository(LOCAL_TEST_REPOSITORY);
+    new File(LOCAL_TEST_REPOSITORY, "docs/topics").mkdirs();
+    first = commit("docs/topics/intro.dita", "Add the introduction topic", "Alice Smith", "alice@example.com", "2019-03-01");
+    second = commit("docs/map.ditamap", "Fix the map title", "Bob Jones", "bob@example.com", "2019-06-15");
+    third = commit("docs/topics/install.dita", "Installation steps: fixed typos", "Alice Smith", "alice@example.com", "2019-09-30");
+  }
+
+  /**
+   * The commits are found by message, author, path and date.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testSearch() throws Exception {
+    HistorySearchIndex index = new HistorySearchIndex(repository);
+    assertEquals(3, index.update());
+    assertEquals(0, index.update());
+
+    assertNull(index.search("  "));
+    assertEquals(ids(second, third), index.search("fix"));
+    assertEquals(ids(third), index.search("FIX typo"));
+    assertEquals(ids(third), index.search("\"installation steps\""));
+    assertEquals(ids(first, third), index.search("author:alice"));
+    assertEquals(ids(second), index.search("author:bob@example.com"));
+    assertEquals(ids(first, third), index.search("path:docs/topics"));
+    assertEquals(ids(second), index.search("path:/docs/map.ditamap"));
+    assertEquals(ids(), index.search("path:docs/top"));
+    assertEquals(ids(second, third), index.search("after:2019-06-15"));
+    assertEquals(ids(first, second), index.search("before:2019-06-15"));
+    assertEquals(ids(third), index.search("author:alice after:2019-04-01"));
+    assertEquals(ids(), index.search("after:tomorrow"));
+  }
+
+  /**
+   * Only the new commits are indexed and the index survives restarts.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testIncrementalUpdate() throws Exception {
+    HistorySearchIndex index = new HistorySearchIndex(repository);
+    index.update();
+    assertTrue(new File(repository.getDirectory(), HistorySearchIndex.INDEX_FILE_NAME).exists());
+
+    ObjectId fourth = commit("docs/topics/intro.dita", "Reword the introduction", "Carol", "carol@example.com", "2019-10-01");
+    HistorySearchIndex reloaded = new HistorySearchIndex(repository);
+    assertEquals(3, reloaded.getIndexedCount());
+    assertEquals(ids(first), reloaded.search("introduction"));
+    assertEquals(1, reloaded.update());
+    assertEquals(4, reloaded.getIndexedCount());
+    assertEquals(ids(first, fourth), reloaded.search("introduction"));
+  }
+
+  /**
+   * The text is split into lower case words.
+   */
+  public void testTokenize() {
+    assertEquals(
+        Arrays.asList("fix", "exm", "1234", "the", "map", "\u00fcbersicht"),
+        HistorySearchIndex.tokenize("Fix EXM-1234: the map (\u00dcbersicht)."));
+    assertEquals(Collections.emptyList(), HistorySearchIndex.tokenize(" -- "));
+  }
+
+  /**
+   * Commits a file.
+   *
+   * @param path    The path of the file.
+   * @param message The commit message.
+   * @param name    The author name.
+   * @param email   The author e-mail.
+   * @param date    The author date, as yyyy-MM-dd, in the default time zone.
+   *
+   * @return The id of the commit.
+   *
+   * @throws Exception If it fails.
+   */
+  private ObjectId commit(String path, String message, String name, String email, String date) throws Exception {
+    Files.write(new File(LOCAL_TEST_REPOSITORY, path).toPath(), message.getBytes(StandardCharsets.UTF_8));
+    Git git = new Git(repository);
+    git.add().addFilepattern(path).call();
+    PersonIdent author = new PersonIdent(
+        name, email, new SimpleDateFormat("yyyy-MM-dd HH:mm").parse(date + " 12:00"), TimeZone.getDefault());
+    return git.commit().setMessage(message).setAuthor(author).call().getId();
+  }
+
+  /**
+   * @param ids Commit ids.
+   *
+   * @return The set of ids.
+   */
+  private static Set<ObjectId> ids(ObjectId... ids) {
+    return new HashSet<>(Arrays.asList(ids));
+  }
+}
@@ -0,0 +1,98 @@
+package com.oxygenxml.git.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jgit.api.errors.CanceledException;
+import org.eclipse.jgit.internal.JGitText;
+import org.eclipse.jgit.transport.URIish;
+import org.junit.Test;
+
+/**
+ * Tests the progress reports, the phase durations and the cancellation of a pull or push.
+ */
+public class OperationProgressMonitorTest {
+
+  /**
+   * The current time, in milliseconds.
+   */
+  private long now;
+
+  /**
+   * The progress is reported at most five times per second for a phase, and the phases are timed.
+   */
+  @Test
+  public void testProgress() {
+    List<String> reports = new ArrayList<>();
+    OperationProgressMonitor monitor = new OperationProgressMonitor(reports::add, () -> now);
+
+    monitor.beginTask("Receiving objects", 1000);
+    for (int i = 0; i < 10; i++) {
+      now += 50;
+      monitor.update(100);
+    }
+    monitor.endTask();
+    now += 10;
+    monitor.beginTask("remote: Counting objects", 0);
+    now += 30;
+    monitor.update(7);
+    monitor.endTask();
+
+    assertEquals(
+        "[Receiving objects: 0% (0/1000), Receiving objects: 40% (400/1000), Receiving objects: 80% (800/1000), "
+        + "remote: Counting objects]",
+        reports.toString());
+    assertEquals("{Receiving objects=500, remote: Counting objects=30}", monitor.getPhaseDurations().toString());
+  }
+
+  /**
+   * The operation is canceled only while the objects are transferred.
+   */
+  @Test
+  public void testCancel() {
+    OperationProgressMonitor monitor = new OperationProgressMonitor(report -> {}, () -> now);
+    monitor.beginTask("Pull", 2);
+    monitor.beginTask("Receiving objects", 1000);
+    assertFalse(monitor.isCancelled());
+
+    monitor.cancel();
+    assertTrue(monitor.isCancelled());
+    monitor.endTask();
+    assertTrue(monitor.isCancelled());
+
+    // Too late once the working tree is updated.
+    monitor.beginTask("Checking out files", 10);
+    assertFalse(monitor.isCancelled());
+    monitor.endTask();
+    assertFalse(monitor.isCancelled());
+    assertTrue(monitor.isCancelRequested());
+  }
+
+  /**
+   * The cancellations are told apart from the other failures by the exceptions thrown by JGit.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testCancellation() throws Exception {
+    URIish uri = new URIish("ssh://git@host/a.git");
+    assertTrue(OperationProgressMonitor.isCancellation(
+        new CanceledException(MessageFormat.format(JGitText.get().operationCanceled, "Pull"))));
+    assertTrue(OperationProgressMonitor.isCancellation(new org.eclipse.jgit.api.errors.TransportException(
+        "Fetch failed", new org.eclipse.jgit.errors.TransportException(
+            uri, "Failed", new IOException(JGitText.get().downloadCancelled)))));
+    assertTrue(OperationProgressMonitor.isCancellation(new org.eclipse.jgit.api.errors.TransportException(
+        "Push failed", new org.eclipse.jgit.errors.TransportException(uri, JGitText.get().pushCancelled))));
+
+    // Failed on its own, even if a cancel was requested in the meantime.
+    assertFalse(OperationProgressMonitor.isCancellation(new org.eclipse.jgit.api.errors.TransportException(
+        "Fetch failed", new org.eclipse.jgit.errors.TransportException(uri, "Auth fail"))));
+    assertFalse(OperationProgressMonitor.isCancellation(new IOException()));
+  }
+}
@@ -0,0 +1,161 @@
+package com.oxygenxml.git.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.Test;
+
+import com.oxygenxml.git.service.entities.FileStatus;
+import com.oxygenxml.git.service.entities.GitChangeType;
+import com.oxygenxml.git.utils.GitAddonSystemProperties;
+
+/**
+ * Tests the presentation of the changes from inside the submodules.
+ */
+public class RecursiveSubmoduleStatusTest extends GitTestBase {
+  /**
+   * The parent repository.
+   */
+  private static final String PARENT_REPOSITORY = "target/test-resources/RecursiveSubmoduleStatusTest/parent";
+  /**
+   * The repositories cloned as submodules.
+   */
+  private static final String MODULE_REPOSITORY = "target/test-resources/RecursiveSubmoduleStatusTest/module";
+
+  /**
+   * Creates a parent repository with three submodules.
+   */
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    GitAccess gitAccess = GitAccess.getInstance();
+    createRepository(MODULE_REPOSITORY);
+    commitOneFile(MODULE_REPOSITORY, "module.txt", "module");
+
+    createRepository(PARENT_REPOSITORY);
+    commitOneFile(PARENT_REPOSITORY, "parent.txt", "parent");
+    for (int i = 0; i < 3; i++) {
+      Repository submodule = gitAccess.submoduleAdd()
+          .setURI(new File(MODULE_REPOSITORY).getAbsoluteFile().toURI().toString())
+          .setPath("modules/m" + i)
+          .call();
+      submodule.close();
+    }
+    gitAccess.commit("Submodules");
+  }
+
+  /**
+   * Removes the system property.
+   */
+  @Override
+  protected void tearDown() throws Exception {
+    System.clearProperty(GitAddonSystemProperties.RECURSIVE_SUBMODULE_STATUS);
+    super.tearDown();
+  }
+
+  /**
+   * The changes from inside the submodules are presented under their paths and can be staged and unstaged.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testRecursiveStatus() throws Exception {
+    GitAccess gitAccess = GitAccess.getInstance();
+    try (PrintWriter out = new PrintWriter(PARENT_REPOSITORY + "/modules/m0/module.txt")) {
+      out.println("changed");
+    }
+    new File(PARENT_REPOSITORY + "/modules/m2/new.txt").createNewFile();
+
+    FileStatus modified = new FileStatus(GitChangeType.MODIFIED, "modules/m0/module.txt");
+    FileStatus untracked = new FileStatus(GitChangeType.UNTRACKED, "modules/m2/new.txt");
+
+    // Only the submodules themselves are presented by default.
+    List<FileStatus> unstaged = gitAccess.getStatus().getUnstagedFiles();
+    assertFalse(unstaged.contains(modified));
+    assertFalse(unstaged.contains(untracked));
+
+    System.setProperty(GitAddonSystemProperties.RECURSIVE_SUBMODULE_STATUS, "true");
+    unstaged = gitAccess.getStatus().getUnstagedFiles();
+    assertTrue(unstaged.toString(), unstaged.contains(modified));
+    assertTrue(unstaged.toString(), unstaged.contains(untracked));
+    unstaged = gitAccess.getStatus(Arrays.asList("modules/m2")).getUnstagedFiles();
+    assertFalse(unstaged.contains(modified));
+    assertTrue(unstaged.contains(untracked));
+
+    // The operations go to the submodule that owns the file.
+    gitAccess.add(untracked);
+    assertEquals(
+        "[(changeType=ADD, fileLocation=modules/m2/new.txt)]",
+        gitAccess.getStagedFiles().toString());
+
+    gitAccess.resetAll(gitAccess.getStagedFiles());
+    assertTrue(gitAccess.getStagedFiles().isEmpty());
+    assertTrue(gitAccess.getStatus().getUnstagedFiles().contains(untracked));
+
+    gitAccess.restoreLastCommitFile(Arrays.asList("modules/m0/module.txt"));
+    unstaged = gitAccess.getStatus().getUnstagedFiles();
+    assertFalse(unstaged.contains(modified));
+    assertTrue(unstaged.contains(untracked));
+  }
+
+  /**
+   * The files staged in a submodule are committed in the submodule and their versions are read
+   * from the submodule.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testCommitInSubmodule() throws Exception {
+    System.setProperty(GitAddonSystemProperties.RECURSIVE_SUBMODULE_STATUS, "true");
+    GitAccess gitAccess = GitAccess.getInstance();
+    String path = "modules/m0/module.txt";
+    try (PrintWriter out = new PrintWriter(PARENT_REPOSITORY + "/" + path)) {
+      out.println("changed");
+    }
+
+    // Compared with the INDEX of the submodule.
+    assertEquals("module", read(gitAccess.getInputStream(gitAccess.locateObjectIdInIndex(path), path)));
+    gitAccess.add(new FileStatus(GitChangeType.MODIFIED, path));
+    assertEquals("changed", read(gitAccess.getInputStream(gitAccess.locateObjectIdInIndex(path), path)));
+    assertEquals("module", read(gitAccess.getInputStream(gitAccess.getCommit(Commit.LOCAL, path), path)));
+
+    ObjectId parentHead = gitAccess.getLastLocalCommit();
+    gitAccess.commit("In submodule");
+    assertEquals(parentHead, gitAccess.getLastLocalCommit());
+    assertTrue(gitAccess.getStagedFiles().isEmpty());
+    assertEquals("changed", read(gitAccess.getInputStream(gitAccess.getCommit(Commit.LOCAL, path), path)));
+    // The new commit of the submodule is a change of the parent.
+    List<FileStatus> unstaged = gitAccess.getStatus().getUnstagedFiles();
+    assertTrue(unstaged.toString(), unstaged.contains(new FileStatus(GitChangeType.SUBMODULE, "modules/m0")));
+    assertNotNull(gitAccess.submoduleCompare("modules/m0", false));
+  }
+
+  /**
+   * Reads a text.
+   *
+   * @param in The stream. Closed at the end.
+   *
+   * @return The text, without the trailing white spaces.
+   *
+   * @throws IOException If it fails.
+   */
+  private static String read(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (InputStream stream = in) {
+      byte[] buffer = new byte[1024];
+      int count;
+      while ((count = stream.read(buffer)) != -1) {
+        out.write(buffer, 0, count);
+      }
+    }
+    return new String(out.toByteArray(), StandardCharsets.UTF_8).trim();
+  }
+}
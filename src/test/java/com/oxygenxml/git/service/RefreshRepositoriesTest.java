@@ -0,0 +1,57 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests the parallel refresh of the repositories from a multi-repository workspace.
+ */
+public class RefreshRepositoriesTest extends GitTestBase {
+
+  private final static String FIRST_REPOSITORY = "target/test-resources/RefreshRepositoriesTest/first";
+  private final static String SECOND_REPOSITORY = "target/test-resources/RefreshRepositoriesTest/second";
+  private GitAccess gitAccess;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    gitAccess = GitAccess.getInstance();
+    createRepository(FIRST_REPOSITORY);
+    createRepository(SECOND_REPOSITORY);
+  }
+
+  /**
+   * All the repositories are refreshed and their statuses become available for a quick switch.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testRefreshRepositories() throws Exception {
+    new File(FIRST_REPOSITORY, "first.txt").createNewFile();
+    new File(SECOND_REPOSITORY, "second.txt").createNewFile();
+    new File(SECOND_REPOSITORY, "other.txt").createNewFile();
+
+    File first = new File(FIRST_REPOSITORY).getAbsoluteFile();
+    File second = new File(SECOND_REPOSITORY).getAbsoluteFile();
+    List<RepositorySnapshot> snapshots = gitAccess.refreshRepositories(Arrays.asList(first, second), false);
+
+    assertEquals(2, snapshots.size());
+    assertEquals(first, snapshots.get(0).getWorkingCopy());
+    assertEquals(
+        "[(changeType=UNTRACKED, fileLocation=first.txt)]",
+        snapshots.get(0).getStatus().getUnstagedFiles().toString());
+    assertEquals(second, snapshots.get(1).getWorkingCopy());
+    assertEquals(2, snapshots.get(1).getChangesCount());
+    assertEquals(0, snapshots.get(1).getPushesAhead());
+    assertTrue(snapshots.get(1).isRemoteAvailable());
+
+    // The second repository is still the current one.
+    assertEquals(second, gitAccess.getWorkingCopy().getAbsoluteFile());
+
+    gitAccess.setRepositorySynchronously(FIRST_REPOSITORY);
+    assertEquals(
+        "[(changeType=UNTRACKED, fileLocation=first.txt)]",
+        gitAccess.getCachedStatus().getUnstagedFiles().toString());
+  }
+}
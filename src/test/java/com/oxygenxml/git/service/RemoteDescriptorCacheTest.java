@@ -0,0 +1,57 @@
+package com.oxygenxml.git.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.util.FileUtils;
+import org.junit.Test;
+
+/**
+ * Tests the cache of the repository remotes.
+ */
+public class RemoteDescriptorCacheTest {
+
+  /**
+   * The remotes are parsed once and read again after the configuration changes.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testRemotes() throws Exception {
+    File dir = Files.createTempDirectory("remotes").toFile();
+    try (Git git = Git.init().setDirectory(dir).call()) {
+      Repository repository = git.getRepository();
+      RemoteDescriptorCache cache = new RemoteDescriptorCache();
+      assertEquals("", cache.getHostName(repository));
+
+      StoredConfig config = repository.getConfig();
+      config.setString("remote", "fork", "url", "https://example.com:8443/fork/repo.git");
+      config.setString("remote", "origin", "url", "git@github.com:org/repo.git");
+      config.save();
+
+      assertEquals("[origin git@github.com:org/repo.git, fork https://example.com:8443/fork/repo.git]",
+          cache.getRemotes(repository).toString());
+      assertEquals("github.com", cache.getHostName(repository));
+      RemoteDescriptor fork = cache.getRemotes(repository).get(1);
+      assertEquals("example.com", fork.getHost());
+      assertEquals(8443, fork.getPort());
+      assertEquals("https", fork.getScheme());
+
+      // Wait until the configuration file is no longer racily clean.
+      Thread.sleep(2500);
+      assertSame(cache.getRemotes(repository), cache.getRemotes(repository));
+
+      config.unsetSection("remote", "origin");
+      config.save();
+      assertEquals("example.com", cache.getHostName(repository));
+    } finally {
+      FileUtils.delete(dir, FileUtils.RECURSIVE);
+    }
+  }
+}
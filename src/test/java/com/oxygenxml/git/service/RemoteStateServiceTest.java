@@ -0,0 +1,184 @@
+package com.oxygenxml.git.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jgit.lib.Repository;
+
+import com.oxygenxml.git.utils.GitOperationScheduler;
+
+/**
+ * Tests the fetches and the commits to push and pull computed by {@link RemoteStateService}.
+ */
+public class RemoteStateServiceTest extends GitTestBase {
+
+  private final static String LOCAL_TEST_REPOSITORY = "target/test-resources/RemoteStateServiceTest/local";
+  private final static String SECOND_TEST_REPOSITORY = "target/test-resources/RemoteStateServiceTest/second";
+  private final static String REMOTE_TEST_REPOSITORY = "target/test-resources/RemoteStateServiceTest/remote";
+  private Repository localRepo;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    localRepo = createRepository(LOCAL_TEST_REPOSITORY);
+    Repository secondRepo = createRepository(SECOND_TEST_REPOSITORY);
+    Repository remoteRepo = createRepository(REMOTE_TEST_REPOSITORY);
+    bindLocalToRemote(localRepo, remoteRepo);
+    bindLocalToRemote(secondRepo, remoteRepo);
+    pushOneFileToRemote(LOCAL_TEST_REPOSITORY, "a.txt", "a");
+  }
+
+  /**
+   * The commits to push and pull are counted after the fetch and the new state is published.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testAheadBehind() throws Exception {
+    GitAccess gitAccess = GitAccess.getInstance();
+    gitAccess.setRepositorySynchronously(SECOND_TEST_REPOSITORY);
+    gitAccess.pull("", "");
+    pushOneFileToRemote(SECOND_TEST_REPOSITORY, "b.txt", "b");
+    gitAccess.setRepositorySynchronously(LOCAL_TEST_REPOSITORY);
+
+    RemoteStateService service = new RemoteStateService(gitAccess::fetch);
+    List<RemoteState> published = new ArrayList<>();
+    service.addListener(published::add);
+
+    RemoteState state = service.getState(localRepo);
+    assertEquals(0, state.getPushesAhead());
+    assertEquals(0, state.getPullsBehind());
+    assertTrue(published.isEmpty());
+
+    state = service.fetch(localRepo, false);
+    assertEquals(0, state.getPushesAhead());
+    assertEquals(1, state.getPullsBehind());
+    assertTrue(state.isRemoteAvailable());
+    assertEquals(1, published.size());
+    assertSame(state, published.get(0));
+
+    commitOneFile(LOCAL_TEST_REPOSITORY, "c.txt", "c");
+    state = service.getState(localRepo);
+    assertEquals(1, state.getPushesAhead());
+    assertEquals(1, state.getPullsBehind());
+  }
+
+  /**
+   * Concurrent fetches of the same repository share a single fetch.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testSharedFetch() throws Exception {
+    AtomicInteger fetches = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch joined = new CountDownLatch(1);
+    RemoteStateService service = new RemoteStateService((repository, tagsRequested) -> {
+      fetches.incrementAndGet();
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }) {
+      @Override
+      void joining(Repository repository) {
+        joined.countDown();
+      }
+    };
+
+    List<RemoteState> states = new ArrayList<>();
+    List<Exception> failures = new ArrayList<>();
+    Runnable fetch = () -> {
+      try {
+        RemoteState state = service.fetch(localRepo, false);
+        synchronized (states) {
+          states.add(state);
+        }
+      } catch (Exception e) {
+        synchronized (failures) {
+          failures.add(e);
+        }
+      }
+    };
+    Thread first = new Thread(fetch);
+    first.start();
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+    Thread second = new Thread(fetch);
+    second.start();
+    assertTrue(joined.await(10, TimeUnit.SECONDS));
+    release.countDown();
+    first.join();
+    second.join();
+
+    assertEquals(Collections.emptyList(), failures);
+    assertEquals(1, fetches.get());
+    assertEquals(2, states.size());
+    assertSame(states.get(0), states.get(1));
+
+    // A later fetch goes to the remote again.
+    service.fetch(localRepo, false);
+    assertEquals(2, fetches.get());
+  }
+
+  /**
+   * A fetch done on the refresh thread after a fetch was requested doesn't wait for the 
+   * requested fetch, which runs after it.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testFetchAfterRequestOnRefreshThread() throws Exception {
+    AtomicInteger fetches = new AtomicInteger();
+    List<Boolean> requestedTags = Collections.synchronizedList(new ArrayList<>());
+    RemoteStateService service = new RemoteStateService((repository, tagsRequested) -> {
+      fetches.incrementAndGet();
+      requestedTags.add(tagsRequested);
+    });
+
+    List<RemoteState> states = new ArrayList<>();
+    List<Future<RemoteState>> requests = new ArrayList<>();
+    Future<?> refresh = GitOperationScheduler.getInstance().schedule(() -> {
+      requests.add(service.requestFetch(localRepo, false));
+      // Served by a single fetch.
+      requests.add(service.requestFetch(localRepo, true));
+      try {
+        states.add(service.fetch(localRepo, false));
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    refresh.get(10, TimeUnit.SECONDS);
+    assertEquals(1, states.size());
+
+    assertSame(requests.get(0), requests.get(1));
+    assertNotNull(requests.get(0).get(10, TimeUnit.SECONDS));
+    assertEquals(2, fetches.get());
+    assertEquals(Arrays.asList(false, true), requestedTags);
+  }
+
+  /**
+   * The problem of a requested fetch is reported to the requester.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testRequestedFetchFailure() throws Exception {
+    RemoteStateService service = new RemoteStateService((repository, tagsRequested) -> {
+      throw new PrivateRepositoryException(new Exception("not authorized"));
+    });
+
+    try {
+      service.requestFetch(localRepo, false).get(10, TimeUnit.SECONDS);
+      fail("The fetch should fail.");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof PrivateRepositoryException);
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * Tests the compaction of the repository objects.
+ */
+public class RepositoryMaintenanceTest extends GitTestBase {
+
+  private final static String LOCAL_TEST_REPOSITORY = "target/test-resources/RepositoryMaintenanceTest/local";
+  private FileRepository repository;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    Repository localRepo = createRepository(LOCAL_TEST_REPOSITORY);
+    repository = (FileRepository) localRepo;
+    commitOneFile(LOCAL_TEST_REPOSITORY, "a.txt", "a");
+    commitOneFile(LOCAL_TEST_REPOSITORY, "b.txt", "b");
+  }
+
+  /**
+   * The loose objects are packed in a single pack, with a bitmap index.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testMaintain() throws Exception {
+    setThresholds(1, 0);
+
+    MaintenanceReport report = new RepositoryMaintenance(-1, new RepositoryPool()).maintain(repository, false);
+    assertNotNull(report);
+    assertTrue(report.getLooseObjectsBefore() > 0);
+    assertEquals(0, report.getLooseObjectsAfter());
+    assertEquals(0, report.getPackFilesBefore());
+    assertEquals(1, report.getPackFilesAfter());
+
+    File[] bitmaps = new File(repository.getDirectory(), "objects/pack").listFiles(
+        (dir, name) -> name.endsWith(".bitmap"));
+    assertEquals(1, bitmaps.length);
+  }
+
+  /**
+   * Nothing is done below the thresholds or when they are disabled.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testThresholds() throws Exception {
+    RepositoryMaintenance maintenance = new RepositoryMaintenance(-1, new RepositoryPool());
+    setThresholds(1000, 50);
+    assertNull(maintenance.maintain(repository, false));
+
+    setThresholds(0, 0);
+    assertNull(maintenance.maintain(repository, false));
+    assertNull(maintenance.getLastReport(repository.getDirectory()));
+
+    assertNotNull(maintenance.maintain(repository, true));
+    assertNotNull(maintenance.getLastReport(repository.getDirectory()));
+  }
+
+  /**
+   * The activity in a repository postpones only the maintenance of that repository.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testActivityPerRepository() throws Exception {
+    Repository other = createRepository("target/test-resources/RepositoryMaintenanceTest/other");
+    RepositoryMaintenance maintenance = new RepositoryMaintenance(60 * 60 * 1000, new RepositoryPool());
+    maintenance.activity(repository);
+    maintenance.activity(other);
+    assertTrue(maintenance.isScheduled(repository.getDirectory()));
+    assertTrue(maintenance.isScheduled(other.getDirectory()));
+
+    maintenance.activity(other);
+    assertTrue(maintenance.isScheduled(repository.getDirectory()));
+    assertTrue(maintenance.isScheduled(other.getDirectory()));
+  }
+
+  /**
+   * A pooled repository is compacted through the pooled instance, which can still read the
+   * objects afterwards.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testPooledRepository() throws Exception {
+    setThresholds(1, 0);
+    RepositoryPool pool = new RepositoryPool();
+    RepositoryPool.PooledRepository pooled = pool.borrow(new Git(repository));
+    try {
+      RepositoryMaintenance maintenance = new RepositoryMaintenance(-1, pool);
+      maintenance.maintainIfNeeded(repository.getDirectory(), () -> false);
+      MaintenanceReport report = maintenance.getLastReport(repository.getDirectory());
+      assertNotNull(report);
+      assertEquals(1, report.getPackFilesAfter());
+      assertTrue(pooled.isInUse());
+
+      Repository pooledRepository = pooled.getGit().getRepository();
+      try (RevWalk revWalk = new RevWalk(pooledRepository)) {
+        RevCommit head = revWalk.parseCommit(pooledRepository.resolve(Constants.HEAD));
+        assertTrue(pooledRepository.open(head.getTree()).getSize() > 0);
+      }
+    } finally {
+      pooled.release();
+    }
+
+    // Canceled before it starts.
+    commitOneFile(LOCAL_TEST_REPOSITORY, "c.txt", "c");
+    RepositoryMaintenance maintenance = new RepositoryMaintenance(-1, pool);
+    maintenance.maintainIfNeeded(repository.getDirectory(), () -> true);
+    assertNull(maintenance.getLastReport(repository.getDirectory()));
+  }
+
+  /**
+   * Sets the "gc.auto" and "gc.autoPackLimit" thresholds.
+   *
+   * @param autoLimit     The number of loose objects.
+   * @param autoPackLimit The number of packs.
+   *
+   * @throws Exception If it fails.
+   */
+  private void setThresholds(int autoLimit, int autoPackLimit) throws Exception {
+    StoredConfig config = repository.getConfig();
+    config.setInt(ConfigConstants.CONFIG_GC_SECTION, null, ConfigConstants.CONFIG_KEY_AUTO, autoLimit);
+    config.setInt(ConfigConstants.CONFIG_GC_SECTION, null, ConfigConstants.CONFIG_KEY_AUTOPACKLIMIT, autoPackLimit);
+    config.save();
+  }
+}
@@ -0,0 +1,129 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.util.Arrays;
+
+import com.oxygenxml.git.service.entities.FileStatus;
+import com.oxygenxml.git.service.entities.GitChangeType;
+
+/**
+ * Tests the pool of recently used repositories.
+ */
+public class RepositoryPoolTest extends GitTestBase {
+
+  private final static String FIRST_REPOSITORY = "target/test-resources/RepositoryPoolTest/first";
+  private final static String SECOND_REPOSITORY = "target/test-resources/RepositoryPoolTest/second";
+  private final static String THIRD_REPOSITORY = "target/test-resources/RepositoryPoolTest/third";
+  private GitAccess gitAccess;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    gitAccess = GitAccess.getInstance();
+    createRepository(FIRST_REPOSITORY);
+    createRepository(SECOND_REPOSITORY);
+    createRepository(THIRD_REPOSITORY);
+  }
+
+  /**
+   * The repositories are reused and the least recently used ones are evicted.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testReuseAndEviction() throws Exception {
+    RepositoryPool pool = new RepositoryPool(2, Long.MAX_VALUE);
+    try {
+      File first = new File(FIRST_REPOSITORY, ".git");
+      File second = new File(SECOND_REPOSITORY, ".git");
+      File third = new File(THIRD_REPOSITORY, ".git");
+
+      RepositoryPool.PooledRepository pooled = pool.acquire(first);
+      assertSame(pooled, pool.acquire(new File(FIRST_REPOSITORY + "/.git")));
+      assertSame(pooled, pool.get(pooled.getGit().getRepository()));
+
+      pool.acquire(second);
+      // The first one becomes the most recently used.
+      pool.acquire(first);
+      pool.acquire(third);
+
+      assertEquals(
+          Arrays.asList(first.getAbsoluteFile(), third.getAbsoluteFile()),
+          pool.getGitDirectories());
+    } finally {
+      pool.clear();
+    }
+  }
+
+  /**
+   * The memory bound evicts repositories even when the count bound is not reached.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testMemoryBound() throws Exception {
+    RepositoryPool pool = new RepositoryPool(10, 1);
+    try {
+      pool.acquire(new File(FIRST_REPOSITORY, ".git"));
+      pool.acquire(new File(SECOND_REPOSITORY, ".git"));
+
+      // The most recently used one is always kept.
+      assertEquals(
+          Arrays.asList(new File(SECOND_REPOSITORY, ".git").getAbsoluteFile()),
+          pool.getGitDirectories());
+    } finally {
+      pool.clear();
+    }
+  }
+
+  /**
+   * The repositories in use are not evicted. They are evicted after they are released.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testBorrowedNotEvicted() throws Exception {
+    RepositoryPool pool = new RepositoryPool(1, Long.MAX_VALUE);
+    try {
+      File first = new File(FIRST_REPOSITORY, ".git").getAbsoluteFile();
+      File second = new File(SECOND_REPOSITORY, ".git").getAbsoluteFile();
+      File third = new File(THIRD_REPOSITORY, ".git").getAbsoluteFile();
+
+      RepositoryPool.PooledRepository borrowed = pool.borrow(first);
+      assertSame(borrowed, pool.borrow(borrowed.getGit().getRepository()));
+      pool.acquire(second);
+      assertEquals(Arrays.asList(first, second), pool.getGitDirectories());
+
+      borrowed.release();
+      pool.acquire(third);
+      assertEquals(Arrays.asList(first, third), pool.getGitDirectories());
+
+      borrowed.release();
+      pool.acquire(second);
+      assertEquals(Arrays.asList(second), pool.getGitDirectories());
+      assertNull(pool.borrow(borrowed.getGit().getRepository()));
+    } finally {
+      pool.clear();
+    }
+  }
+
+  /**
+   * Switching back to a repository gives access to its last status until a Git command changes it.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testStatusSnapshot() throws Exception {
+    gitAccess.setRepositorySynchronously(FIRST_REPOSITORY);
+    new File(FIRST_REPOSITORY, "test.txt").createNewFile();
+    gitAccess.getStatus();
+
+    gitAccess.setRepositorySynchronously(SECOND_REPOSITORY);
+    assertNull(gitAccess.getCachedStatus());
+
+    gitAccess.setRepositorySynchronously(FIRST_REPOSITORY);
+    assertEquals(
+        "[(changeType=UNTRACKED, fileLocation=test.txt)]",
+        gitAccess.getCachedStatus().getUnstagedFiles().toString());
+
+    gitAccess.add(new FileStatus(GitChangeType.UNTRACKED, "test.txt"));
+    assertNull(gitAccess.getCachedStatus());
+  }
+}
@@ -0,0 +1,145 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.lib.Repository;
+
+import com.oxygenxml.git.service.entities.FileStatus;
+import com.oxygenxml.git.service.entities.GitChangeType;
+
+/**
+ * Tests the restriction of a working copy to some directories.
+ */
+public class SparseCheckoutTest extends GitTestBase {
+
+  private final static String LOCAL_TEST_REPOSITORY = "target/test-resources/SparseCheckoutTest/local";
+  private final static String SECOND_TEST_REPOSITORY = "target/test-resources/SparseCheckoutTest/second";
+  private final static String REMOTE_TEST_REPOSITORY = "target/test-resources/SparseCheckoutTest/remote";
+  private GitAccess gitAccess;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    gitAccess = GitAccess.getInstance();
+    Repository localRepo = createRepository(LOCAL_TEST_REPOSITORY);
+    Repository secondRepo = createRepository(SECOND_TEST_REPOSITORY);
+    Repository remoteRepo = createRepository(REMOTE_TEST_REPOSITORY);
+    bindLocalToRemote(localRepo, remoteRepo);
+    bindLocalToRemote(secondRepo, remoteRepo);
+
+    new File(LOCAL_TEST_REPOSITORY, "in").mkdirs();
+    new File(LOCAL_TEST_REPOSITORY, "out").mkdirs();
+    commitOneFile(LOCAL_TEST_REPOSITORY, "in/a.txt", "a");
+    commitOneFile(LOCAL_TEST_REPOSITORY, "out/b.txt", "b");
+    pushOneFileToRemote(LOCAL_TEST_REPOSITORY, "out/c.txt", "c");
+  }
+
+  /**
+   * Only the selected directories are searched for changes, also after a pull. The files
+   * from outside stay on disk and in the index.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testSparseCheckout() throws Exception {
+    File local = new File(LOCAL_TEST_REPOSITORY);
+    gitAccess.setRepositorySynchronously(LOCAL_TEST_REPOSITORY);
+    // A local change outside the directories.
+    write(new File(local, "out/c.txt"), "local change");
+
+    gitAccess.setSparseCheckoutDirectories(Arrays.asList("in"));
+    assertEquals(Arrays.asList("in"), gitAccess.getSparseCheckoutDirectories());
+    assertTrue(new File(local, "in/a.txt").exists());
+    assertTrue(new File(local, "out/b.txt").exists());
+    assertEquals(Collections.emptyList(), gitAccess.getStatus().getUnstagedFiles());
+    assertEquals(Collections.emptyList(), gitAccess.getUnstagedFiles(Arrays.asList("out")));
+
+    // A status that doesn't know about the directories sees nothing missing or deleted.
+    Repository repository = gitAccess.getRepository();
+    assertFalse(repository.getConfig().getBoolean("core", null, "sparseCheckout", false));
+    Status status = new Git(repository).status().call();
+    assertEquals(Collections.emptySet(), status.getMissing());
+    assertEquals(Collections.emptySet(), status.getRemoved());
+    assertEquals(Collections.singleton("out/c.txt"), status.getModified());
+
+    // Somebody else changes files inside and outside the directories.
+    gitAccess.setRepositorySynchronously(SECOND_TEST_REPOSITORY);
+    gitAccess.pull("", "");
+    write(new File(SECOND_TEST_REPOSITORY, "out/b.txt"), "b2");
+    commitOneFile(SECOND_TEST_REPOSITORY, "in/a.txt", "a2");
+    gitAccess.add(new FileStatus(GitChangeType.MODIFIED, "out/b.txt"));
+    gitAccess.commit("Change outside");
+    gitAccess.push("", "");
+
+    gitAccess.setRepositorySynchronously(LOCAL_TEST_REPOSITORY);
+    gitAccess.pull("", "");
+    assertEquals("a2", read(new File(local, "in/a.txt")));
+    assertEquals("b2", read(new File(local, "out/b.txt")));
+    status = new Git(gitAccess.getRepository()).status().call();
+    assertEquals(Collections.emptySet(), status.getMissing());
+    assertEquals(Collections.emptySet(), status.getRemoved());
+
+    // Everything again.
+    gitAccess.setSparseCheckoutDirectories(Arrays.asList(""));
+    assertEquals(Collections.emptyList(), gitAccess.getSparseCheckoutDirectories());
+    List<FileStatus> unstagedFiles = gitAccess.getUnstagedFiles();
+    assertEquals("[(changeType=MODIFIED, fileLocation=out/c.txt)]", unstagedFiles.toString());
+  }
+
+  /**
+   * The patterns written by other tools are understood if they are directories.
+   */
+  public void testParse() {
+    assertEquals(
+        Arrays.asList("docs/a", "images"),
+        SparseCheckout.parse(Arrays.asList("# comment", "/images/", "", "docs/a", "/docs/a/b/")));
+    // Everything.
+    assertEquals(Collections.emptyList(), SparseCheckout.parse(Arrays.asList("/*", "docs")));
+    assertEquals(Collections.emptyList(), SparseCheckout.parse(Arrays.asList("docs", "!docs/a")));
+  }
+
+  /**
+   * The paths of interest are restricted to the directories.
+   */
+  public void testRestrict() {
+    List<String> directories = Arrays.asList("docs/a", "images");
+    assertEquals(directories, SparseCheckout.restrict(Arrays.asList(""), directories));
+    assertEquals(Arrays.asList("docs/a"), SparseCheckout.restrict(Arrays.asList("docs"), directories));
+    assertEquals(
+        Arrays.asList("docs/a/t.dita", "images"),
+        SparseCheckout.restrict(Arrays.asList("docs/a/t.dita", "docs/b", "images/"), directories));
+    assertEquals(Collections.emptyList(), SparseCheckout.restrict(Arrays.asList("docs/b"), directories));
+  }
+
+  /**
+   * Writes a file.
+   *
+   * @param file    The file.
+   * @param content The content.
+   *
+   * @throws Exception If it fails.
+   */
+  private static void write(File file, String content) throws Exception {
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Reads a file.
+   *
+   * @param file The file.
+   *
+   * @return The content, without the line ends.
+   *
+   * @throws Exception If it fails.
+   */
+  private static String read(File file) throws Exception {
+    return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).trim();
+  }
+}
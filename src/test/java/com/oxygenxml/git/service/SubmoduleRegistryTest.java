@@ -0,0 +1,138 @@
+package com.oxygenxml.git.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.submodule.SubmoduleStatus;
+import org.eclipse.jgit.submodule.SubmoduleStatusType;
+import org.eclipse.jgit.submodule.SubmoduleWalk;
+import org.eclipse.jgit.util.FileUtils;
+import org.junit.Test;
+
+/**
+ * Tests the registry of the submodules of a repository.
+ */
+public class SubmoduleRegistryTest {
+
+  /**
+   * The registry finds the same submodules, with the same status, as the submodule status command.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testSubmodules() throws Exception {
+    File dir = Files.createTempDirectory("submodules").toFile();
+    try (Git module = Git.init().setDirectory(new File(dir, "module")).call();
+        Git parent = Git.init().setDirectory(new File(dir, "parent")).call()) {
+      module.commit().setMessage("First").call();
+      Repository repository = parent.getRepository();
+      SubmoduleRegistry registry = new SubmoduleRegistry(repository);
+      assertTrue(registry.getPaths().isEmpty());
+
+      // Enough submodules for the status to be computed in parallel.
+      for (int i = 0; i < 5; i++) {
+        parent.submoduleAdd()
+            .setPath("modules/m" + i)
+            .setURI(module.getRepository().getDirectory().toURI().toString())
+            .call()
+            .close();
+      }
+      parent.commit().setMessage("Submodules").call();
+      assertEquals("[modules/m0, modules/m1, modules/m2, modules/m3, modules/m4]", registry.getPaths().toString());
+      assertStatuses(parent, registry);
+
+      // A new commit in a submodule.
+      try (Repository m1Repository = SubmoduleWalk.getSubmoduleRepository(repository, "modules/m1");
+          Git m1 = Git.wrap(m1Repository)) {
+        m1.commit().setMessage("Second").call();
+      }
+      assertEquals(SubmoduleStatusType.REV_CHECKED_OUT, registry.getStatus("modules/m1").getType());
+      assertStatuses(parent, registry);
+
+      // A submodule removed from the INDEX.
+      parent.rm().setCached(true).addFilepattern("modules/m3").call();
+      assertEquals("[modules/m0, modules/m1, modules/m2, modules/m4]", registry.getPaths().toString());
+      assertStatuses(parent, registry);
+      registry.close();
+    } finally {
+      FileUtils.delete(dir, FileUtils.RECURSIVE);
+    }
+  }
+
+  /**
+   * The repositories of the submodules are kept open and a repository that is no longer a submodule
+   * is closed only after it is released.
+   *
+   * @throws Exception If it fails.
+   */
+  @Test
+  public void testBorrowedRepositories() throws Exception {
+    File dir = Files.createTempDirectory("submodules").toFile();
+    try (Git module = Git.init().setDirectory(new File(dir, "module")).call();
+        Git parent = Git.init().setDirectory(new File(dir, "parent")).call()) {
+      module.commit().setMessage("First").call();
+      parent.submoduleAdd()
+          .setPath("modules/m0")
+          .setURI(module.getRepository().getDirectory().toURI().toString())
+          .call()
+          .close();
+      parent.commit().setMessage("Submodule").call();
+      SubmoduleRegistry registry = new SubmoduleRegistry(parent.getRepository());
+
+      RepositoryPool.PooledRepository submodule = registry.borrowSubmoduleRepositories().get("modules/m0");
+      // The status is computed with the same repository.
+      assertEquals(SubmoduleStatusType.INITIALIZED, registry.getStatus("modules/m0").getType());
+      RepositoryPool.PooledRepository again = registry.borrowSubmoduleRepositories().get("modules/m0");
+      assertSame(submodule, again);
+      again.release();
+
+      // No longer a submodule, but still used.
+      parent.rm().setCached(true).addFilepattern("modules/m0").call();
+      assertTrue(registry.getPaths().isEmpty());
+      assertTrue(registry.borrowSubmoduleRepositories().isEmpty());
+      assertTrue(submodule.retain());
+      submodule.release();
+
+      submodule.release();
+      assertFalse(submodule.retain());
+      registry.close();
+    } finally {
+      FileUtils.delete(dir, FileUtils.RECURSIVE);
+    }
+  }
+
+  /**
+   * Checks that the registry computes the same status as the submodule status command.
+   *
+   * @param git      The repository.
+   * @param registry The submodules of the repository.
+   *
+   * @throws Exception If it fails.
+   */
+  private static void assertStatuses(Git git, SubmoduleRegistry registry) throws Exception {
+    assertEquals(toString(git.submoduleStatus().call()), toString(registry.getStatuses()));
+  }
+
+  /**
+   * @param statuses The status of the submodules, by path.
+   *
+   * @return The statuses, sorted by path.
+   */
+  private static String toString(Map<String, SubmoduleStatus> statuses) {
+    Map<String, String> sorted = new TreeMap<>();
+    for (SubmoduleStatus status : statuses.values()) {
+      sorted.put(status.getPath(), status.getType() + " " + status.getIndexId().name()
+          + " " + (status.getHeadId() != null ? status.getHeadId().name() : null));
+    }
+    return sorted.toString();
+  }
+}
@@ -0,0 +1,164 @@
+package com.oxygenxml.git.service;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jgit.api.Git;
+
+import com.oxygenxml.git.service.entities.FileStatus;
+
+/**
+ * Tests the cache of the untracked folders.
+ */
+public class UntrackedFilesCacheTest extends GitTestBase {
+
+  private final static String LOCAL_TEST_REPOSITORY = "target/test-resources/UntrackedFilesCacheTest";
+  private GitAccess gitAccess;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    gitAccess = GitAccess.getInstance();
+    createRepository(LOCAL_TEST_REPOSITORY);
+    commitOneFile(LOCAL_TEST_REPOSITORY, "tracked.txt", "tracked");
+  }
+
+  /**
+   * Untracked folders are served from the cache until something changes inside them.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testUntrackedFolderCache() throws Exception {
+    File out = new File(LOCAL_TEST_REPOSITORY, "out/temp");
+    out.mkdirs();
+    writeFile(new File(out, "a.xml"));
+    writeFile(new File(out.getParentFile(), "b.xml"));
+
+    assertEquals(
+        "[(changeType=UNTRACKED, fileLocation=out/b.xml), (changeType=UNTRACKED, fileLocation=out/temp/a.xml)]",
+        sorted(gitAccess.getUnstagedFiles()));
+    assertTrue(new File(LOCAL_TEST_REPOSITORY, ".git/" + UntrackedFilesCache.CACHE_FILE_NAME).exists());
+
+    // Nothing changed. The files come from the cache.
+    assertEquals(
+        "[(changeType=UNTRACKED, fileLocation=out/b.xml), (changeType=UNTRACKED, fileLocation=out/temp/a.xml)]",
+        sorted(gitAccess.getUnstagedFiles()));
+
+    // A new file inside a nested folder.
+    writeFile(new File(out, "c.xml"));
+    out.setLastModified(out.lastModified() + 2000);
+    assertEquals(
+        "[(changeType=UNTRACKED, fileLocation=out/b.xml), "
+        + "(changeType=UNTRACKED, fileLocation=out/temp/a.xml), "
+        + "(changeType=UNTRACKED, fileLocation=out/temp/c.xml)]",
+        sorted(gitAccess.getUnstagedFiles()));
+
+    // Ignore the folder.
+    File gitignore = new File(LOCAL_TEST_REPOSITORY, ".gitignore");
+    try (PrintWriter writer = new PrintWriter(gitignore)) {
+      writer.println("out/");
+    }
+    gitignore.setLastModified(gitignore.lastModified() + 2000);
+    assertEquals(
+        "[(changeType=UNTRACKED, fileLocation=.gitignore)]",
+        sorted(gitAccess.getUnstagedFiles()));
+  }
+
+  /**
+   * A folder changed without a new modification time is visited again while it is racily clean.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testRacilyCleanFolder() throws Exception {
+    File out = new File(LOCAL_TEST_REPOSITORY, "out");
+    out.mkdirs();
+    writeFile(new File(out, "a.xml"));
+    long lastModified = out.lastModified();
+    assertEquals(
+        "[(changeType=UNTRACKED, fileLocation=out/a.xml)]",
+        sorted(gitAccess.getUnstagedFiles()));
+
+    // Within the same timestamp.
+    writeFile(new File(out, "b.xml"));
+    out.setLastModified(lastModified);
+    assertEquals(
+        "[(changeType=UNTRACKED, fileLocation=out/a.xml), (changeType=UNTRACKED, fileLocation=out/b.xml)]",
+        sorted(gitAccess.getUnstagedFiles()));
+  }
+
+  /**
+   * Every status keeps the untracked files served from the cache, even if other statuses
+   * are computed in the meantime.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testServedFoldersPerStatus() throws Exception {
+    File out = new File(LOCAL_TEST_REPOSITORY, "out");
+    out.mkdirs();
+    writeFile(new File(out, "a.xml"));
+    // Old enough not to be racily clean.
+    out.setLastModified(System.currentTimeMillis() - 60000);
+
+    try (Git git = Git.open(new File(LOCAL_TEST_REPOSITORY))) {
+      UntrackedFilesCache cache = new UntrackedFilesCache(git.getRepository());
+      cache.clear();
+      cache.call(git.status());
+
+      UntrackedFilesCache.CachedStatus full = cache.call(git.status());
+      UntrackedFilesCache.CachedStatus restricted = cache.call(git.status().addPath("tracked.txt"));
+      assertEquals("[out/a.xml]", full.getCachedUntrackedFiles().toString());
+      assertTrue(full.getStatus().getUntracked().isEmpty());
+      assertTrue(restricted.getCachedUntrackedFiles().isEmpty());
+    }
+  }
+
+  /**
+   * The untracked files served from the cache are restricted to the paths of interest.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testCachedFilesRestrictedToPaths() throws Exception {
+    File out = new File(LOCAL_TEST_REPOSITORY, "out");
+    out.mkdirs();
+    writeFile(new File(out, "a.xml"));
+    writeFile(new File(LOCAL_TEST_REPOSITORY, "b.xml"));
+    out.setLastModified(System.currentTimeMillis() - 60000);
+    assertEquals(
+        "[(changeType=UNTRACKED, fileLocation=b.xml), (changeType=UNTRACKED, fileLocation=out/a.xml)]",
+        sorted(gitAccess.getUnstagedFiles()));
+
+    assertEquals(
+        "[(changeType=UNTRACKED, fileLocation=b.xml)]",
+        sorted(gitAccess.getUnstagedFiles(Arrays.asList("b.xml"))));
+    assertEquals(
+        "[(changeType=UNTRACKED, fileLocation=out/a.xml)]",
+        sorted(gitAccess.getUnstagedFiles(Arrays.asList("out"))));
+  }
+
+  /**
+   * Writes a file.
+   *
+   * @param file The file.
+   *
+   * @throws Exception If it fails.
+   */
+  private void writeFile(File file) throws Exception {
+    try (PrintWriter writer = new PrintWriter(file)) {
+      writer.println("content");
+    }
+  }
+
+  /**
+   * @param files File statuses.
+   *
+   * @return The statuses sorted by path.
+   */
+  private String sorted(List<FileStatus> files) {
+    FileStatus[] array = files.toArray(new FileStatus[0]);
+    Arrays.sort(array, (o1, o2) -> o1.getFileLocation().compareTo(o2.getFileLocation()));
+    return Arrays.toString(array);
+  }
+}
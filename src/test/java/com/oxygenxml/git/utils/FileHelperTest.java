@@ -4,13 +4,19 @@ import static org.junit.Assert.assertEquals;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.Test;
 
+import com.oxygenxml.git.service.entities.FileStatus;
+import com.oxygenxml.git.service.entities.GitChangeType;
+
 public class FileHelperTest {
 
 	private final static String LOCAL_TEST_REPOSITPRY = "target/test-resources/FileHelperTest/local";
@@ -59,6 +65,45 @@ public class FileHelperTest {
 	  assertEquals(new File("/").getCanonicalPath(), FileHelper.getCommonDir(files).getCanonicalPath());
 	}
 	
+	/**
+	 * Test the {@link FileHelper#filterByPaths(java.util.List, java.util.Collection)} method.
+	 */
+	@Test
+	public void testFilterByPaths() {
+	  List<FileStatus> files = Arrays.asList(
+	      new FileStatus(GitChangeType.MODIFIED, "a/x.txt"),
+	      new FileStatus(GitChangeType.MODIFIED, "a-b/y.txt"),
+	      new FileStatus(GitChangeType.UNTRACKED, "a/b/z.txt"),
+	      new FileStatus(GitChangeType.MISSING, "ab.txt"),
+	      new FileStatus(GitChangeType.ADD, "c/d.txt"));
+	  
+	  // "a-b" sorts between "a" and "a/x.txt" as plain strings.
+	  assertEquals(
+	      "[(changeType=MODIFIED, fileLocation=a/x.txt), (changeType=MODIFIED, fileLocation=a-b/y.txt), "
+	      + "(changeType=UNTRACKED, fileLocation=a/b/z.txt)]",
+	      FileHelper.filterByPaths(files, Arrays.asList("a-b", "a/b", "a/")).toString());
+	  assertEquals(
+	      "[(changeType=MISSING, fileLocation=ab.txt), (changeType=ADD, fileLocation=c/d.txt)]",
+	      FileHelper.filterByPaths(files, Arrays.asList("c", "ab.txt")).toString());
+	  assertEquals(files, FileHelper.filterByPaths(files, Arrays.asList("c", "")));
+	  assertEquals(Collections.emptyList(), FileHelper.filterByPaths(files, Arrays.asList("c/d")));
+	}
+	
+	/**
+	 * Test the {@link FileHelper#getRelativePaths(File[], String)} method.
+	 */
+	@Test
+	public void testGetRelativePaths() {
+	  File workingCopy = new File(LOCAL_TEST_REPOSITPRY);
+	  File[] files = new File[] {
+	      new File(workingCopy, "dir/file.txt"),
+	      workingCopy,
+	      new File(LOCAL_TEST_REPOSITPRY + "2/file.txt")};
+	  assertEquals(
+	      Arrays.asList("dir/file.txt", ""), 
+	      FileHelper.getRelativePaths(files, workingCopy.getPath()));
+	}
+	
 	@After
 	public void freeResources() {
 		
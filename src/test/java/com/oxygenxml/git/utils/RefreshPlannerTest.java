@@ -0,0 +1,110 @@
+package com.oxygenxml.git.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the selection of the Project view folders refreshed after a pull.
+ */
+public class RefreshPlannerTest {
+
+  private final static String WORKING_COPY = "target/test-resources/RefreshPlannerTest";
+
+  private File workingCopy;
+
+  @Before
+  public void setUp() {
+    workingCopy = new File(WORKING_COPY).getAbsoluteFile();
+    new File(workingCopy, "docs/topics").mkdirs();
+    new File(workingCopy, "docs/maps").mkdirs();
+    new File(workingCopy, "images").mkdirs();
+    for (int i = 0; i < RefreshPlanner.MAX_SIBLINGS + 1; i++) {
+      new File(workingCopy, "many/f" + i).mkdirs();
+    }
+  }
+
+  /**
+   * Only the folders that contain changes are refreshed, not their common ancestor.
+   */
+  @Test
+  public void testMinimalFolders() {
+    RefreshPlanner planner = new RefreshPlanner(workingCopy, Collections.emptyList());
+    assertEquals(
+        Arrays.asList(new File(workingCopy, "docs/maps"), new File(workingCopy, "images")),
+        planner.plan(Arrays.asList("images/a.png", "docs/maps/m.ditamap", "docs/maps/n.ditamap")));
+
+    // A removed folder: its closest existing ancestor is refreshed. It contains the other change.
+    assertEquals(
+        Arrays.asList(new File(workingCopy, "docs")),
+        planner.plan(Arrays.asList("docs/removed/deep/a.dita", "docs/topics/t.dita")));
+
+    // Files at the top.
+    assertEquals(
+        Arrays.asList(workingCopy),
+        planner.plan(Arrays.asList("readme.txt", "images/a.png")));
+  }
+
+  /**
+   * Too many sibling folders are replaced by their parent.
+   */
+  @Test
+  public void testGroupSiblings() {
+    RefreshPlanner planner = new RefreshPlanner(workingCopy, Collections.emptyList());
+    List<String> changes = new ArrayList<>();
+    for (int i = 0; i < RefreshPlanner.MAX_SIBLINGS + 1; i++) {
+      changes.add("many/f" + i + "/file.txt");
+    }
+    assertEquals(Arrays.asList(new File(workingCopy, "many")), planner.plan(changes));
+
+    changes.remove(0);
+    assertEquals(RefreshPlanner.MAX_SIBLINGS, planner.plan(changes).size());
+  }
+
+  /**
+   * Only the folders presented in the Project view are refreshed.
+   */
+  @Test
+  public void testClipToProject() {
+    File docs = new File(workingCopy, "docs");
+    RefreshPlanner planner = new RefreshPlanner(workingCopy, Arrays.asList(docs));
+    // The images are not in the project. The top folder is clipped to the project folder.
+    assertEquals(
+        Arrays.asList(docs),
+        planner.plan(Arrays.asList("readme.txt", "images/a.png")));
+    assertEquals(
+        Arrays.asList(new File(workingCopy, "docs/topics")),
+        planner.plan(Arrays.asList("docs/topics/t.dita", "images/a.png")));
+  }
+
+  /**
+   * The folders are refreshed in batches.
+   */
+  @Test
+  public void testBatches() {
+    List<File> folders = new ArrayList<>();
+    for (int i = 0; i < RefreshPlanner.BATCH_SIZE * 2 + 1; i++) {
+      folders.add(new File(workingCopy, "f" + i));
+    }
+    List<File[]> batches = RefreshPlanner.toBatches(folders);
+    assertEquals(3, batches.size());
+    assertEquals(RefreshPlanner.BATCH_SIZE, batches.get(0).length);
+    assertEquals(1, batches.get(2).length);
+    assertEquals(new File(workingCopy, "f" + RefreshPlanner.BATCH_SIZE * 2), batches.get(2)[0]);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(workingCopy);
+  }
+}
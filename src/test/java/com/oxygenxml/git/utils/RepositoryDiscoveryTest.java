@@ -0,0 +1,123 @@
+package com.oxygenxml.git.utils;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import com.oxygenxml.git.service.GitTestBase;
+
+/**
+ * Tests the detection of the repositories referred by a project.
+ */
+public class RepositoryDiscoveryTest extends GitTestBase {
+
+  private final static String ROOT = "target/test-resources/RepositoryDiscoveryTest";
+  private final static String FIRST_REPOSITORY = ROOT + "/first";
+  private final static String SECOND_REPOSITORY = ROOT + "/second";
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    createRepository(FIRST_REPOSITORY);
+    createRepository(SECOND_REPOSITORY);
+    RepositoryDiscovery.getInstance().clear();
+  }
+
+  /**
+   * The referred repositories are detected in the project order, including the ones that
+   * have a ".git" file, and the result follows the changes of the project file.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testDiscover() throws Exception {
+    File root = new File(ROOT).getAbsoluteFile();
+    new File(root, "plain").mkdirs();
+    // A working copy whose Git directory is somewhere else, like a submodule.
+    File linked = new File(root, "linked");
+    linked.mkdirs();
+    Files.write(
+        new File(linked, ".git").toPath(),
+        "gitdir: ../first/.git\n".getBytes(StandardCharsets.UTF_8));
+
+    File projectFile = new File(root, "project.xpr");
+    writeProject(projectFile, "second", "plain", "linked", "first");
+
+    RepositoryDiscovery discovery = RepositoryDiscovery.getInstance();
+    assertEquals(
+        Arrays.asList(new File(root, "second"), linked, new File(root, "first")),
+        discovery.discover(projectFile));
+    assertEquals(
+        Arrays.asList(new File(root, "second"), new File(root, "plain"), linked, new File(root, "first")),
+        discovery.getProjectFolders(projectFile));
+
+    // The project file changes.
+    writeProject(projectFile, "plain", "first");
+    projectFile.setLastModified(projectFile.lastModified() + 2000);
+    assertEquals(
+        Collections.singletonList(new File(root, "first")),
+        discovery.discover(projectFile));
+  }
+
+  /**
+   * A repository created later in a referred folder is detected.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testRepositoryCreatedInReferredFolder() throws Exception {
+    File root = new File(ROOT).getAbsoluteFile();
+    File later = new File(root, "later");
+    later.mkdirs();
+    File projectFile = new File(root, "project.xpr");
+    writeProject(projectFile, "later", "first");
+
+    RepositoryDiscovery discovery = RepositoryDiscovery.getInstance();
+    assertEquals(
+        Collections.singletonList(new File(root, "first")),
+        discovery.discover(projectFile));
+
+    long lastModified = later.lastModified();
+    createRepository(ROOT + "/later");
+    // Not every file system has a fine grained modification time.
+    later.setLastModified(lastModified + 2000);
+    assertEquals(
+        Arrays.asList(later, new File(root, "first")),
+        discovery.discover(projectFile));
+  }
+
+  /**
+   * When the project doesn't refer any repository, the one that contains it is used.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testProjectInsideRepository() throws Exception {
+    File first = new File(FIRST_REPOSITORY).getAbsoluteFile();
+    File projectDir = new File(first, "project");
+    projectDir.mkdirs();
+    File projectFile = new File(projectDir, "project.xpr");
+    writeProject(projectFile, ".");
+
+    assertEquals(
+        Collections.singletonList(first),
+        RepositoryDiscovery.getInstance().discover(projectFile));
+  }
+
+  /**
+   * Writes a project file.
+   *
+   * @param projectFile The project file.
+   * @param folders     The folders referred by the project.
+   *
+   * @throws Exception If it fails.
+   */
+  private static void writeProject(File projectFile, String... folders) throws Exception {
+    StringBuilder content = new StringBuilder("<project><projectTree>");
+    for (String folder : folders) {
+      content.append("<folder path=\"").append(folder).append("\"/>");
+    }
+    content.append("</projectTree></project>");
+    Files.write(projectFile.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+  }
+}
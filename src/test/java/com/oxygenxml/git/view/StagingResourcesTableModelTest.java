@@ -0,0 +1,123 @@
+package com.oxygenxml.git.view;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.oxygenxml.git.service.entities.FileStatus;
+import com.oxygenxml.git.service.entities.GitChangeType;
+
+/**
+ * Tests the incremental updates of the flat view model.
+ */
+public class StagingResourcesTableModelTest {
+
+  private final List<String> events = new ArrayList<>();
+
+  /**
+   * Creates a model that records the events it fires.
+   *
+   * @param files The initial files.
+   *
+   * @return The model.
+   */
+  private StagingResourcesTableModel createModel(List<FileStatus> files) {
+    StagingResourcesTableModel model = new StagingResourcesTableModel(null, false);
+    model.setFilesStatus(files);
+    model.addTableModelListener(e -> events.add(e.getType() + ":" + e.getFirstRow() + "-" + e.getLastRow()));
+    return model;
+  }
+
+  /**
+   * Only the affected rows are notified and the model stays sorted.
+   */
+  @Test
+  public void testUpdateRows() {
+    StagingResourcesTableModel model = createModel(Arrays.asList(
+        new FileStatus(GitChangeType.MODIFIED, "b.txt"),
+        new FileStatus(GitChangeType.MODIFIED, "d.txt"),
+        new FileStatus(GitChangeType.MODIFIED, "a.txt"),
+        new FileStatus(GitChangeType.MISSING, "c.txt"),
+        new FileStatus(GitChangeType.MODIFIED, "a.txt")));
+    assertEquals(
+        "[(changeType=MODIFIED, fileLocation=a.txt), (changeType=MODIFIED, fileLocation=b.txt), "
+        + "(changeType=MODIFIED, fileLocation=d.txt), (changeType=MISSING, fileLocation=c.txt)]",
+        model.getFilesStatuses().toString());
+
+    // a.txt keeps its row, b.txt and d.txt go away, e.txt and f.txt come between them.
+    model.updateRows(
+        Arrays.asList(
+            new FileStatus(GitChangeType.UNKNOWN, "a.txt"),
+            new FileStatus(GitChangeType.UNKNOWN, "b.txt"),
+            new FileStatus(GitChangeType.UNKNOWN, "d.txt")),
+        Arrays.asList(
+            new FileStatus(GitChangeType.MODIFIED, "f.txt"),
+            new FileStatus(GitChangeType.MODIFIED, "a.txt"),
+            new FileStatus(GitChangeType.MODIFIED, "e.txt"),
+            new FileStatus(GitChangeType.MODIFIED, "0.txt")));
+    assertEquals(
+        "[(changeType=MODIFIED, fileLocation=0.txt), (changeType=MODIFIED, fileLocation=a.txt), "
+        + "(changeType=MODIFIED, fileLocation=e.txt), (changeType=MODIFIED, fileLocation=f.txt), "
+        + "(changeType=MISSING, fileLocation=c.txt)]",
+        model.getFilesStatuses().toString());
+    assertEquals("[0:0-0, -1:1-2, 1:0-0, 1:2-3]", events.toString());
+
+    assertEquals(1, model.getRow("a.txt"));
+    assertEquals(4, model.getRow("c.txt"));
+    assertEquals(-1, model.getRow("b.txt"));
+
+    // A file with a different change type takes another row.
+    events.clear();
+    model.updateRows(
+        Arrays.asList(new FileStatus(GitChangeType.UNKNOWN, "a.txt")),
+        Arrays.asList(new FileStatus(GitChangeType.MISSING, "a.txt")));
+    assertEquals(
+        "[(changeType=MODIFIED, fileLocation=0.txt), (changeType=MODIFIED, fileLocation=e.txt), "
+        + "(changeType=MODIFIED, fileLocation=f.txt), (changeType=MISSING, fileLocation=a.txt), "
+        + "(changeType=MISSING, fileLocation=c.txt)]",
+        model.getFilesStatuses().toString());
+    assertEquals("[-1:1-1, 1:3-3]", events.toString());
+  }
+
+  /**
+   * Many files are removed and inserted with a few events.
+   */
+  @Test
+  public void testManyFiles() {
+    List<FileStatus> files = new ArrayList<>();
+    List<FileStatus> toDelete = new ArrayList<>();
+    List<FileStatus> toInsert = new ArrayList<>();
+    for (int i = 0; i < 20000; i++) {
+      String path = String.format("dir/file%05d.txt", i);
+      if (i % 2 == 0) {
+        files.add(new FileStatus(GitChangeType.MODIFIED, path));
+        if (i < 10000) {
+          toDelete.add(new FileStatus(GitChangeType.UNKNOWN, path));
+        }
+      } else {
+        toInsert.add(new FileStatus(GitChangeType.MODIFIED, path));
+      }
+    }
+    Collections.shuffle(toInsert);
+    StagingResourcesTableModel model = createModel(files);
+
+    model.updateRows(toDelete, toInsert);
+
+    assertEquals(15000, model.getRowCount());
+    // One event for the deleted files, then one for the files inserted between the first
+    // remaining ones and one for each file inserted between them.
+    assertEquals(1 + 1 + 5000, events.size());
+    for (int i = 0; i < 5000; i++) {
+      assertEquals(String.format("dir/file%05d.txt", i * 2 + 1), model.getFileLocation(i));
+    }
+    for (int i = 5000; i < 15000; i++) {
+      assertEquals(String.format("dir/file%05d.txt", i + 5000), model.getFileLocation(i));
+      assertEquals(i, model.getRow(model.getFileLocation(i)));
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package com.oxygenxml.git.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+
+import org.junit.Test;
+
+import com.oxygenxml.git.service.entities.FileStatus;
+import com.oxygenxml.git.service.entities.GitChangeType;
+
+/**
+ * Tests the in place updates of the tree view model.
+ */
+public class StagingResourcesTreeModelTest {
+
+  private final List<String> events = new ArrayList<>();
+
+  /**
+   * Only the changed files are updated in the tree, which stays sorted.
+   */
+  @Test
+  public void testSetFilesStatus() {
+    StagingResourcesTreeModel model = new StagingResourcesTreeModel(null, "root", false, Arrays.asList(
+        new FileStatus(GitChangeType.MODIFIED, "b.txt"),
+        new FileStatus(GitChangeType.MODIFIED, "dir/sub/c.txt"),
+        new FileStatus(GitChangeType.UNTRACKED, "A.txt"),
+        new FileStatus(GitChangeType.MODIFIED, "dir/d.txt")));
+    assertEquals("root(dir(sub(c.txt), d.txt), A.txt, b.txt)", dump((GitTreeNode) model.getRoot()));
+
+    model.addTreeModelListener(new TreeModelListener() {
+      @Override
+      public void treeStructureChanged(TreeModelEvent e) {
+        events.add("structure " + e.getTreePath());
+      }
+      @Override
+      public void treeNodesRemoved(TreeModelEvent e) {
+        events.add("removed " + Arrays.toString(e.getChildren()) + " from " + e.getTreePath());
+      }
+      @Override
+      public void treeNodesInserted(TreeModelEvent e) {
+        events.add("inserted " + Arrays.toString(e.getChildren()) + " in " + e.getTreePath());
+      }
+      @Override
+      public void treeNodesChanged(TreeModelEvent e) {
+        events.add("changed " + Arrays.toString(e.getChildren()) + " in " + e.getTreePath());
+      }
+    });
+
+    model.setFilesStatus(Arrays.asList(
+        new FileStatus(GitChangeType.MODIFIED, "b.txt"),
+        new FileStatus(GitChangeType.MISSING, "A.txt"),
+        new FileStatus(GitChangeType.MODIFIED, "dir/d.txt"),
+        new FileStatus(GitChangeType.MODIFIED, "dir/new/e.txt"),
+        new FileStatus(GitChangeType.MODIFIED, "a.txt")));
+    assertEquals("root(dir(new(e.txt), d.txt), A.txt, a.txt, b.txt)", dump((GitTreeNode) model.getRoot()));
+    assertEquals(
+        "[removed [sub] from [root, dir], "
+        + "changed [A.txt] in [root], "
+        + "inserted [new] in [root, dir], "
+        + "inserted [a.txt] in [root]]",
+        events.toString());
+    assertEquals(GitChangeType.MISSING, model.getFileByPath("A.txt").getChangeType());
+    assertNull(model.getFileByPath("dir/sub/c.txt"));
+    assertEquals(5, model.getFilesStatuses().size());
+
+    // The last file of a folder takes the folder with it.
+    events.clear();
+    model.setFilesStatus(Arrays.asList(new FileStatus(GitChangeType.MODIFIED, "b.txt")));
+    assertEquals("root(b.txt)", dump((GitTreeNode) model.getRoot()));
+    assertEquals(
+        "[removed [A.txt] from [root], removed [d.txt] from [root, dir], removed [dir] from [root], "
+        + "removed [a.txt] from [root]]",
+        events.toString());
+  }
+
+  /**
+   * @param node A node.
+   *
+   * @return The node and its descendants.
+   */
+  private static String dump(GitTreeNode node) {
+    StringBuilder sb = new StringBuilder(node.getUserObject().toString());
+    if (!node.isLeaf()) {
+      sb.append('(');
+      for (int i = 0; i < node.getChildCount(); i++) {
+        if (i > 0) {
+          sb.append(", ");
+        }
+        sb.append(dump((GitTreeNode) node.getChildAt(i)));
+      }
+      sb.append(')');
+    }
+    return sb.toString();
+  }
+}
@@ -86,6 +86,36 @@ public class TreeViewTest extends FlatViewTestBase {
     ssButton.doClick();
   }
   
+  /**
+   * A working copy with the same folder name as the previous one gets a new tree model, so
+   * the nodes of the previous working copy are not reused.
+   *  
+   * @throws Exception If it fails.
+   */
+  public void testSameFolderNameDifferentWorkingCopies() throws Exception {
+    String firstTestRepository = "target/test-resources/testSameFolderName/first/wc";
+    String secondTestRepository = "target/test-resources/testSameFolderName/second/wc";
+    createRepository(firstTestRepository);
+    new File(firstTestRepository + "/a.txt").createNewFile();
+    createRepository(secondTestRepository);
+    new File(secondTestRepository + "/b.txt").createNewFile();
+
+    gitAccess.setRepositorySynchronously(firstTestRepository);
+    refreshViews();
+    assertTreeModels("UNTRACKED, a.txt", "");
+    JTree tree = stagingPanel.getUnstagedChangesPanel().getTreeView();
+    Object firstModel = tree.getModel();
+
+    // Same working copy. The model is updated.
+    refreshViews();
+    assertSame(firstModel, tree.getModel());
+
+    gitAccess.setRepositorySynchronously(secondTestRepository);
+    refreshViews();
+    assertTreeModels("UNTRACKED, b.txt", "");
+    assertNotSame(firstModel, tree.getModel());
+  }
+  
   /**
    * Stage and UnStage a newly created file.
    *  
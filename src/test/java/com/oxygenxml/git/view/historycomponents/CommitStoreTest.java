@@ -0,0 +1,99 @@
+package com.oxygenxml.git.view.historycomponents;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import com.oxygenxml.git.service.GitAccess;
+import com.oxygenxml.git.service.GitTestBase;
+
+/**
+ * Tests the columnar storage of the history.
+ */
+public class CommitStoreTest extends GitTestBase {
+
+  private final static String LOCAL_TEST_REPOSITORY = "target/test-resources/CommitStoreTest/local";
+  private Repository repository;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    repository = createRepository(LOCAL_TEST_REPOSITORY);
+    commitOneFile(LOCAL_TEST_REPOSITORY, "a.txt", "a");
+    commitOneFile(LOCAL_TEST_REPOSITORY, "b.txt", "b");
+    commitOneFile(LOCAL_TEST_REPOSITORY, "a.txt", "a2");
+  }
+
+  /**
+   * The stored commits give the same characteristics as the parsed commits.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testStore() throws Exception {
+    List<RevCommit> expected = new ArrayList<>();
+    CommitStore store = new CommitStore(GitAccess.UNCOMMITED_CHANGES);
+    try (RevWalk revWalk = new RevWalk(repository); RevWalk expectedWalk = new RevWalk(repository)) {
+      revWalk.markStart(revWalk.parseCommit(repository.resolve(Constants.HEAD)));
+      for (RevCommit commit : revWalk) {
+        // The store releases the body of the commit.
+        expected.add(expectedWalk.parseCommit(commit));
+        store.add(commit);
+      }
+    }
+    store.complete();
+
+    assertEquals(4, store.size());
+    assertSame(GitAccess.UNCOMMITED_CHANGES, store.get(0));
+    for (int i = 0; i < expected.size(); i++) {
+      RevCommit commit = expected.get(i);
+      CommitCharacteristics stored = store.get(i + 1);
+      assertEquals(commit.getFullMessage(), stored.getCommitMessage());
+      assertEquals(commit.getName(), stored.getCommitId());
+      assertEquals(commit.getName().substring(0, 7), stored.getCommitAbbreviatedId());
+      assertEquals(commit.getCommitterIdent().getName(), stored.getCommitter());
+      assertEquals(
+          commit.getAuthorIdent().getName() + " <" + commit.getAuthorIdent().getEmailAddress() + ">",
+          stored.getAuthor());
+      assertEquals(commit.getAuthorIdent().getWhen().getTime() / 1000, stored.getDate().getTime() / 1000);
+    }
+    assertEquals(Arrays.asList(store.get(2).getCommitAbbreviatedId()), store.get(1).getParentCommitId());
+    assertNull(store.get(3).getParentCommitId());
+    // The same author is kept once.
+    assertSame(store.get(1).getAuthor(), store.get(3).getAuthor());
+    assertEquals(store.get(1), store.get(1));
+  }
+
+  /**
+   * The parents that are not in the walk are kept as well.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testParentsOutsideTheWalk() throws Exception {
+    CommitStore store = new CommitStore(null);
+    String headParent;
+    try (RevWalk revWalk = new RevWalk(repository)) {
+      RevCommit head = revWalk.parseCommit(repository.resolve(Constants.HEAD));
+      headParent = head.getParent(0).getName().substring(0, 7);
+      revWalk.markStart(head);
+      revWalk.setRewriteParents(false);
+      revWalk.setTreeFilter(AndTreeFilter.create(PathFilterGroup.createFromStrings("a.txt"), TreeFilter.ANY_DIFF));
+      for (RevCommit commit : revWalk) {
+        store.add(commit);
+      }
+    }
+    store.complete();
+
+    assertEquals(2, store.size());
+    assertEquals(Arrays.asList(headParent), store.get(0).getParentCommitId());
+    assertNull(store.get(1).getParentCommitId());
+  }
+}
@@ -0,0 +1,190 @@
+package com.oxygenxml.git.view.historycomponents;
+
+import java.awt.Component;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import javax.swing.JLabel;
+import javax.swing.JTable;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import com.oxygenxml.git.service.GitAccess;
+import com.oxygenxml.git.service.GitTestBase;
+
+/**
+ * Tests the rendering of the history rows.
+ */
+public class HistoryCommitTableModelTest extends GitTestBase {
+
+  private final static String LOCAL_TEST_REPOSITORY = "target/test-resources/HistoryCommitTableModelTest/local";
+  private GitAccess gitAccess;
+  private Repository repository;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    gitAccess = GitAccess.getInstance();
+    createRepository(LOCAL_TEST_REPOSITORY);
+    commitOneFile(LOCAL_TEST_REPOSITORY, "a.txt", "a");
+    commitOneFile(LOCAL_TEST_REPOSITORY, "b.txt", "b");
+    gitAccess.setRepositorySynchronously(LOCAL_TEST_REPOSITORY);
+    repository = gitAccess.getRepository();
+  }
+
+  /**
+   * Only the recently painted rows keep their rendering.
+   */
+  public void testRenderedCommitsLimit() {
+    List<CommitCharacteristics> commits = Arrays.asList(
+        new CommitCharacteristics("First", new Date(1000), "A <a@example.com>", "1111111", "1111111111", "A", null),
+        new CommitCharacteristics("Second", new Date(2000), "B <b@example.com>", "2222222", "2222222222", "B", null),
+        new CommitCharacteristics("Third", new Date(3000), "C <c@example.com>", "3333333", "3333333333", "C", null));
+    HistoryCommitTableModel model = new HistoryCommitTableModel(commits, 2);
+
+    RenderedCommit first = model.getRenderedCommit(0);
+    assertSame(first, model.getRenderedCommit(0));
+    assertEquals("A", first.getAuthorName());
+    assertEquals("A <a@example.com>", model.getValueAt(0, HistoryCommitTableModel.AUTHOR));
+    assertEquals("1111111", model.getValueAt(0, HistoryCommitTableModel.COMMIT_ABBREVIATED_ID));
+
+    RenderedCommit second = model.getRenderedCommit(1);
+    model.getRenderedCommit(2);
+    assertEquals(2, model.getRenderedCommitsCount());
+    // The row that shared the slot of the last one was dropped.
+    assertSame(second, model.getRenderedCommit(1));
+    RenderedCommit firstAgain = model.getRenderedCommit(0);
+    assertNotSame(first, firstAgain);
+    assertEquals("First", firstAgain.getMessage());
+    assertEquals(2, model.getRenderedCommitsCount());
+  }
+
+  /**
+   * The renderer reuses its labels from one row to another.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testRendererReuse() throws Exception {
+    RevCommit first = getCommits().get(1);
+    new Git(repository).tag().setName("v1").setObjectId(first).call();
+
+    HistoryCommitTableModel model = new HistoryCommitTableModel(gitAccess.getCommitsCharacteristics(null));
+    JTable table = new JTable(model);
+    CommitMessageTableRenderer renderer = new CommitMessageTableRenderer(repository);
+    try {
+      int firstRow = findRow(model, first);
+      int headRow = findRow(model, getCommits().get(0));
+
+      assertSame(renderer, render(renderer, table, firstRow));
+      assertEquals(Arrays.asList("v1"), getVisibleDecorations(renderer));
+      Component[] components = renderer.getComponents();
+
+      assertSame(renderer, render(renderer, table, headRow));
+      assertEquals(Arrays.asList("master"), getVisibleDecorations(renderer));
+      assertEquals(Arrays.asList(components), Arrays.asList(renderer.getComponents()));
+    } finally {
+      renderer.dispose();
+    }
+  }
+
+  /**
+   * The tags and branches are read again after the refs change.
+   *
+   * @throws Exception If it fails.
+   */
+  public void testDecorationsInvalidated() throws Exception {
+    HistoryCommitTableModel model = new HistoryCommitTableModel(gitAccess.getCommitsCharacteristics(null));
+    JTable table = new JTable(model);
+    CommitMessageTableRenderer renderer = new CommitMessageTableRenderer(repository);
+    try {
+      RevCommit head = getCommits().get(0);
+      int headRow = findRow(model, head);
+      render(renderer, table, headRow);
+      assertEquals(Arrays.asList("master"), getVisibleDecorations(renderer));
+
+      new Git(repository).tag().setName("v2").setObjectId(head).call();
+      render(renderer, table, headRow);
+      assertEquals(Arrays.asList("v2", "master"), getVisibleDecorations(renderer));
+
+      // No longer notified after dispose.
+      renderer.dispose();
+      new Git(repository).tag().setName("v3").setObjectId(head).call();
+      render(renderer, table, headRow);
+      assertEquals(Arrays.asList("v2", "master"), getVisibleDecorations(renderer));
+    } finally {
+      renderer.dispose();
+    }
+  }
+
+  /**
+   * @return The commits, from the newest.
+   *
+   * @throws Exception If it fails.
+   */
+  private List<RevCommit> getCommits() throws Exception {
+    List<RevCommit> commits = new ArrayList<>();
+    try (RevWalk revWalk = new RevWalk(repository)) {
+      revWalk.markStart(revWalk.parseCommit(repository.resolve("HEAD")));
+      for (RevCommit commit : revWalk) {
+        commits.add(commit);
+      }
+    }
+    return commits;
+  }
+
+  /**
+   * Finds the row of a commit.
+   *
+   * @param model  The model.
+   * @param commit The commit.
+   *
+   * @return The row.
+   */
+  private static int findRow(HistoryCommitTableModel model, RevCommit commit) {
+    int row = -1;
+    for (int i = 0; row == -1 && i < model.getRowCount(); i++) {
+      if (commit.getName().equals(model.getAllCommits().get(i).getCommitId())) {
+        row = i;
+      }
+    }
+    assertTrue(row != -1);
+    return row;
+  }
+
+  /**
+   * Renders the commit message cell of a row.
+   *
+   * @param renderer The renderer.
+   * @param table    The table.
+   * @param row      The row.
+   *
+   * @return The rendering component.
+   */
+  private static Component render(CommitMessageTableRenderer renderer, JTable table, int row) {
+    return renderer.getTableCellRendererComponent(
+        table, table.getValueAt(row, HistoryCommitTableModel.COMMIT_MESSAGE), false, false, row, 0);
+  }
+
+  /**
+   * @param renderer The renderer.
+   *
+   * @return The names of the tags and branches presented by the renderer.
+   */
+  private static List<String> getVisibleDecorations(CommitMessageTableRenderer renderer) {
+    List<String> names = new ArrayList<>();
+    Component[] components = renderer.getComponents();
+    // The last label presents the commit message.
+    for (int i = 0; i < components.length - 1; i++) {
+      if (components[i].isVisible()) {
+        names.add(((JLabel) components[i]).getText());
+      }
+    }
+    return names;
+  }
+}